@@ -18,6 +18,7 @@ import org.slf4j.LoggerFactory;
 
 import com.github.technosf.posterer.modules.Factory;
 import com.github.technosf.posterer.modules.ModuleException;
+import com.github.technosf.posterer.ui.TaskExecutionService;
 import com.github.technosf.posterer.ui.controllers.Controller;
 import com.github.technosf.posterer.ui.controllers.impl.RequestController;
 
@@ -66,7 +67,8 @@ public class App
 
             try 
             {
-                f = Factory.getFactory(PROPS_PREFIX, null, null);
+                f = Factory.getFactory(PROPS_PREFIX, null, null,
+                        Factory.Transport.fromSystemProperty());
             } 
             catch (ModuleException e) 
             {
@@ -82,6 +84,25 @@ public class App
         return FACTORY;
     }
 
+    /**
+     * Runs background tasks for the application
+     */
+    private static final TaskExecutionService TASKS =
+            new TaskExecutionService();
+
+
+    /**
+     * Returns the service running the application's background tasks
+     * <p>
+     * The service is shut down when the application stops.
+     *
+     * @return the task service
+     */
+    public static TaskExecutionService getTaskService()
+    {
+        return TASKS;
+    }
+
     /**
      * @param args
      * @throws ModuleException
@@ -119,4 +140,21 @@ public class App
         }
     }
 
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Saves any unsaved properties, then stops the background tasks.
+     * 
+     * @see javafx.application.Application#stop()
+     */
+    @Override
+    public void stop() throws Exception
+    {
+        FACTORY.getProperties().flush();
+        TASKS.shutdown();
+        FACTORY.close();
+        super.stop();
+    }
+
 }
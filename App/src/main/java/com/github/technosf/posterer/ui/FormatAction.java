@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.ui;
+
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.App;
+
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TextArea;
+
+/**
+ * Handler for a Format menu item, that formats the text of an area off the
+ * JavaFX application thread.
+ * <p>
+ * While the {@code FormatTask} runs, the progress indicator follows it and the
+ * menu item cancels it. The formatted text replaces the text of the area only
+ * if that has not been edited meanwhile.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class FormatAction
+        implements EventHandler<ActionEvent>
+{
+    private static final String CONST_CANCEL = "Cancel Format";
+
+    private final MenuItem item;
+    private final TextArea area;
+    private final ProgressIndicator progress;
+    private final Supplier<@Nullable String> contentType;
+    private final String label;
+
+    /**
+     * The running task, if any
+     */
+    private @Nullable FormatTask task;
+
+
+    /**
+     * @param item
+     *            the Format menu item
+     * @param area
+     *            the text to format
+     * @param progress
+     *            the indicator to show progress on
+     * @param contentType
+     *            supplies the content type of the text, if known
+     */
+    public FormatAction(final MenuItem item, final TextArea area,
+            final ProgressIndicator progress,
+            final Supplier<@Nullable String> contentType)
+    {
+        this.item = item;
+        this.area = area;
+        this.progress = progress;
+        this.contentType = contentType;
+        this.label = item.getText();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Starts formatting, or cancels formatting if it is running.
+     * 
+     * @see javafx.event.EventHandler#handle(javafx.event.Event)
+     */
+    @Override
+    public void handle(final ActionEvent event)
+    {
+        FormatTask running = task;
+        if (running != null)
+        {
+            running.cancel();
+            return;
+        }
+
+        final String text = area.getText();
+        if (text == null || text.isEmpty())
+        {
+            return;
+        }
+
+        FormatTask formatTask =
+                new FormatTask(text, contentType.get(), true);
+        final boolean wasVisible = progress.isVisible();
+
+        progress.progressProperty().bind(formatTask.progressProperty());
+        progress.setVisible(true);
+        item.setText(CONST_CANCEL);
+
+        formatTask.setOnSucceeded(e -> {
+            if (text.equals(area.getText()))
+            {
+                area.setText(formatTask.getValue());
+            }
+            done(wasVisible);
+        });
+        formatTask.setOnFailed(e -> done(wasVisible));
+        formatTask.setOnCancelled(e -> done(wasVisible));
+
+        task = formatTask;
+        App.getTaskService().submit(formatTask);
+    }
+
+
+    /**
+     * Restores the menu item and progress indicator
+     */
+    private void done(final boolean wasVisible)
+    {
+        task = null;
+        item.setText(label);
+        progress.progressProperty().unbind();
+        progress.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+        progress.setVisible(wasVisible);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.ui;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Locale;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.core.utils.PrettyPrinters;
+import com.github.technosf.posterer.core.utils.PrettyPrinters.Format;
+
+import javafx.concurrent.Task;
+
+/**
+ * Pretty prints a document as a background {@code Task}.
+ * <p>
+ * The format is detected from the content type, or by sniffing the document,
+ * and only the matching printer is run. Progress is reported as the document
+ * is read, and cancelling the task interrupts the printer.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class FormatTask
+        extends Task<String>
+{
+    /**
+     * The header name, as found in the pretty printed response headers
+     */
+    private static final String CONTENT_TYPE = "content-type=";
+
+    private final String document;
+    private final Format format;
+    private final boolean stripXmlDef;
+
+
+    /**
+     * @param document
+     *            the document to format
+     * @param contentType
+     *            the document content type, if known
+     * @param stripXmlDef
+     *            strip the XML preamble?
+     */
+    public FormatTask(final String document, final @Nullable String contentType,
+            final boolean stripXmlDef)
+    {
+        this.document = document;
+        this.format = PrettyPrinters.detect(contentType, document);
+        this.stripXmlDef = stripXmlDef;
+    }
+
+
+    /**
+     * Returns the detected format
+     * 
+     * @return the format
+     */
+    public Format getFormat()
+    {
+        return format;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Text that is neither XML nor JSON is returned as it is.
+     * 
+     * @see javafx.concurrent.Task#call()
+     */
+    @Override
+    protected String call() throws IOException
+    {
+        if (format == Format.TEXT)
+        {
+            return document;
+        }
+
+        final long length = document.length();
+        StringBuilder pretty =
+                new StringBuilder(document.length() + (document.length() >> 1));
+        Reader progressReader = new FilterReader(new StringReader(document))
+        {
+            private long read;
+
+
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException
+            {
+                int n = super.read(cbuf, off, len);
+                if (n > 0)
+                {
+                    read += n;
+                    updateProgress(read, length);
+                }
+                return n;
+            }
+        };
+
+        PrettyPrinters.format(format, progressReader, pretty, stripXmlDef);
+        return pretty.toString();
+    }
+
+
+    /**
+     * Finds the content type in pretty printed response headers
+     * 
+     * @param headers
+     *            the headers, one {@code name=value} per line
+     * @return the content type, or null if there is none
+     */
+    public static @Nullable String contentType(final String headers)
+    {
+        for (String line : headers.split("\r?\n"))
+        {
+            if (line.toLowerCase(Locale.ROOT).startsWith(CONTENT_TYPE))
+            {
+                return line.substring(CONTENT_TYPE.length()).trim();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.ui;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the application's background tasks, such as HTTP request/response
+ * tasks.
+ * <p>
+ * On JDK 21 and above each task runs on its own virtual thread, so firing
+ * hundreds of requests does not start hundreds of OS threads. On earlier JDKs
+ * tasks are queued to a bounded pool of platform threads.
+ * <p>
+ * The service counts the tasks queued, running and completed for reporting.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class TaskExecutionService
+{
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory
+            .getLogger(TaskExecutionService.class);
+
+    /**
+     * Thread name prefix
+     */
+    private static final String THREAD_NAME = "posterer-task-";
+
+    /**
+     * Platform pool size
+     */
+    private static final int POOL_SIZE =
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Seconds an idle platform thread is kept
+     */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final ExecutorService executor;
+
+    private final @Nullable ThreadPoolExecutor pool;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicLong completed = new AtomicLong();
+
+
+    /**
+     * Creates the service on virtual threads if available, else on a bounded
+     * platform thread pool
+     */
+    public TaskExecutionService()
+    {
+        ExecutorService virtual = virtualThreadExecutor();
+        if (virtual != null)
+        {
+            executor = virtual;
+            pool = null;
+            LOG.debug("Running tasks on virtual threads");
+        }
+        else
+        {
+            ThreadPoolExecutor platform = new ThreadPoolExecutor(POOL_SIZE,
+                    POOL_SIZE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new ThreadFactoryBuilder()
+                            .setNameFormat(THREAD_NAME + "%d")
+                            .setDaemon(true).build());
+            platform.allowCoreThreadTimeOut(true);
+            executor = platform;
+            pool = platform;
+            LOG.debug("Running tasks on {} platform threads", POOL_SIZE);
+        }
+    }
+
+
+    /**
+     * Creates a thread per task executor of named virtual threads, if the
+     * JDK supports them.
+     * <p>
+     * The build targets JDK 17, so the JDK 21 API is reached reflectively.
+     * 
+     * @return the executor, or null if virtual threads are not available
+     */
+    private static @Nullable ExecutorService virtualThreadExecutor()
+    {
+        try
+        {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Method name =
+                    builderType.getMethod("name", String.class, long.class);
+            Method factory = builderType.getMethod("factory");
+
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = name.invoke(builder, THREAD_NAME, 0L);
+            ThreadFactory threadFactory =
+                    (ThreadFactory) factory.invoke(builder);
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            return null;
+        }
+    }
+
+
+    /**
+     * Submits a task to be run
+     * 
+     * @param task
+     *            the task
+     */
+    public void submit(final Runnable task)
+    {
+        executor.execute(() -> {
+            active.incrementAndGet();
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        });
+    }
+
+
+    /**
+     * Are tasks run on virtual threads?
+     * 
+     * @return true if on virtual threads
+     */
+    public boolean isVirtual()
+    {
+        return pool == null;
+    }
+
+
+    /**
+     * Returns the number of tasks waiting for a thread
+     * 
+     * @return the queue depth, always zero on virtual threads
+     */
+    public int getQueueDepth()
+    {
+        ThreadPoolExecutor platform = pool;
+        return platform == null ? 0 : platform.getQueue().size();
+    }
+
+
+    /**
+     * Returns the number of tasks running
+     * 
+     * @return the active count
+     */
+    public int getActiveCount()
+    {
+        return active.get();
+    }
+
+
+    /**
+     * Returns the number of tasks run to completion, successfully or not
+     * 
+     * @return the completed count
+     */
+    public long getCompletedCount()
+    {
+        return completed.get();
+    }
+
+
+    /**
+     * Stops accepting tasks, interrupting those running
+     */
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("%s threads, %s queued, %s active, %s completed",
+                isVirtual() ? "virtual" : "platform", getQueueDepth(),
+                getActiveCount(), getCompletedCount());
+    }
+}
@@ -193,7 +193,7 @@ public class RequestController
         LOG.debug("Saving Request");
         requestUpdate();
         properties.addData(requestBean);
-        properties.save();
+        properties.saveLater();
         propsProcess();
     }
 
@@ -208,6 +208,7 @@ public class RequestController
     @Override
     protected @NonNull ResponseModel requestFire(final @NonNull Request request)
     {
+        requestModel.setTimeout(getTimeout());
 
         /*
          * Proxy and certificate
@@ -594,6 +595,7 @@ public class RequestController
     @Override
     protected void initializeOther()
     {
+        properties.setStatusModel(status);
         securityChoicesList.addAll(SslUtils.getSecurityChoices());
         security.setValue(securityChoicesList.get(0));
     }
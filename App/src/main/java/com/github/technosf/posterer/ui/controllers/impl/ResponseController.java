@@ -14,6 +14,7 @@
 package com.github.technosf.posterer.ui.controllers.impl;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 
@@ -22,26 +23,37 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.technosf.posterer.App;
 import com.github.technosf.posterer.core.models.ResponseModel;
 import com.github.technosf.posterer.core.models.StatusModel;
-import com.github.technosf.posterer.core.utils.PrettyPrinters;
+import com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask;
+import com.github.technosf.posterer.core.utils.BodySink;
+import com.github.technosf.posterer.core.utils.LatencyRecorder;
+import com.github.technosf.posterer.core.utils.StatusLog;
+import com.github.technosf.posterer.ui.FormatAction;
+import com.github.technosf.posterer.ui.FormatTask;
+import com.github.technosf.posterer.ui.TaskExecutionService;
 import com.github.technosf.posterer.ui.controllers.Controller;
 import com.github.technosf.posterer.ui.controllers.impl.base.AbstractController;
+import com.github.technosf.posterer.ui.custom.controls.BodyViewer;
 
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.CustomMenuItem;
+import javafx.scene.control.ListView;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.SplitPane;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TitledPane;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 
 /**
  * Controller backing {@code Response.fxml}.
@@ -84,6 +96,10 @@ public class ResponseController
     private static final String CONST_CANCELLING = "Cancelling...";    
     private static final String CONST_CANCELLED = "Cancelled";    
     private static final String CONST_CLOSE = "Close";        
+    private static final String CONST_BODY_PREVIEW =
+            "Body too large to display, showing preview";
+    private static final String CONST_BODY_VIEWER =
+            "Body too large to display as text, showing in viewer";
 
     /*
      * ------------ State -----------------
@@ -94,17 +110,30 @@ public class ResponseController
      */
     private Task<?> responseModelTask;
 
+    /**
+     * The request/response, once the stage is updated with it
+     */
+    private ResponseModel responseModel;
+
     /**
      * Is the task cancellable?
      */
     private boolean cancellable = true;
 
+    /**
+     * Has the window closed?
+     */
+    private boolean closed = false;
+
     /*
      * ------------ FXML Components -----------------
      */
 
     @FXML
-    private TextArea headers, request, response, statusWindow;
+    private TextArea headers, request, response;
+
+    @FXML
+    private ListView<StatusLog.Entry> statusWindow;
 
     @FXML
     private SplitPane requestResponse;
@@ -112,6 +141,9 @@ public class ResponseController
     @FXML
     private AnchorPane requestAnchor, responseAnchor;
 
+    @FXML
+    private TitledPane responsePane;
+
     @FXML
     private ProgressIndicator progress;
 
@@ -154,6 +186,8 @@ public class ResponseController
         {
             controller = (ResponseController) AbstractController
                     .loadController(stage, FXML);
+            stage.addEventHandler(WindowEvent.WINDOW_HIDDEN,
+                    controller::onHidden);
             controller.updateStage(response);
         }
         catch (IOException e)
@@ -174,10 +208,12 @@ public class ResponseController
      * <p>
      * Broken out to emphasize how the asynchronous call is made
      */
-    private static void startTask(Task<?> responseModelTask)
+    private void startTask(Task<?> responseModelTask)
     {
-        //Run the task in a new thread
-        new Thread(responseModelTask).start();
+        //Run the task on the application task service
+        TaskExecutionService tasks = App.getTaskService();
+        tasks.submit(responseModelTask);
+        status.append("Tasks: %s", tasks);
     }
 
 
@@ -230,6 +266,8 @@ public class ResponseController
             request.setText(requestPayload);
         }
 
+        this.responseModel = responseModel;
+
         /*
          *  The ResponseModel is also a Task, so proceed
          */
@@ -267,16 +305,20 @@ public class ResponseController
         LOG.debug("Initialize.");
 
         statusController =
-                StatusController.loadController(statusWindow.textProperty());
+                StatusController.loadController(statusWindow);
         statusController.setStyle(getStyle());
         status = statusController.getStatusModel();
 
-        requestFormat.setOnAction(e->request.setText(PrettyPrinters.xml(request.getText(), true)));
+        requestFormat.setOnAction(new FormatAction(requestFormat, request,
+                progress, () -> responseModel == null ? null
+                        : responseModel.getRequest().getContentType()));
 
         requestWrap.setSelected(request.wrapTextProperty().get());
         request.wrapTextProperty().bind(requestWrap.selectedProperty());
 
-        responseFormat.setOnAction(e->response.setText(PrettyPrinters.xml(response.getText(), true)));
+        responseFormat.setOnAction(new FormatAction(responseFormat, response,
+                progress, () -> responseModel == null ? null
+                        : FormatTask.contentType(responseModel.getHeaders())));
 
         responseWrap.setSelected(response.wrapTextProperty().get());
         response.wrapTextProperty().bind(responseWrap.selectedProperty());
@@ -368,14 +410,47 @@ public class ResponseController
     {
         try
         {
-            if (responseModel.isComplete())
+            if (closed)
+            /*
+             * Nothing to show the response in, so process it only to free
+             * its connection and body
+             */
+            {
+                responseModel.isComplete();
+                release();
+            }
+            else if (responseModel.isComplete())
             {
                 status.append("Completed in %sms with status %s\nDigest:\n\t%s"
                 		,	responseModel.getElaspedTimeMilli()
                 		,	responseModel.getStatus()
                 		, responseModel.getDigest().replaceAll("\n", "\n\t"));
+                status.append("Protocol: %s", responseModel.getProtocol());
+                status.append("Timings: %s", responseModel.getTimings());
+                LatencyRecorder latencies = LatencyRecorder.getDefault();
+                for (LatencyRecorder.Key key : latencies.getKeys(
+                        LatencyRecorder.endpoint(
+                                responseModel.getRequest().getUri()),
+                        responseModel.getRequest().getMethod()))
+                {
+                    status.append("Latency: %s", latencies.getSummary(key));
+                }
+                status.append("Tasks: %s", App.getTaskService());
                 headers.setText(responseModel.getHeaders());
-                response.setText(responseModel.getBody());
+                status.append("Body: %s bytes, SHA-256 %s",
+                        responseModel.getBodySize(),
+                        responseModel.getBodyHash());
+                if (responseModel.getBodySize() > BodySink.DEFAULT_THRESHOLD)
+                /*
+                 * Too large to display as text
+                 */
+                {
+                    showLargeBody(responseModel);
+                }
+                else
+                {
+                    response.setText(responseModel.getBody());
+                }
                 progress.setVisible(false);
                 cancellable = false;
                 button.setText(CONST_CLOSE);
@@ -389,6 +464,68 @@ public class ResponseController
     }
 
 
+    /**
+     * Handler for the window closing, by either the button or the window
+     * decoration
+     * <p>
+     * Cancels a call still running, and releases the response, deleting any
+     * body it streamed to file.
+     */
+    private void onHidden(final WindowEvent event)
+    {
+        closed = true;
+        if (responseModelTask != null && !responseModelTask.isDone())
+        {
+            cancellable = false;
+            responseModelTask.cancel();
+        }
+        if (responsePane.getContent() instanceof BodyViewer)
+        {
+            ((BodyViewer) responsePane.getContent()).clear();
+        }
+        release();
+    }
+
+
+    /**
+     * Releases the resources held by the response
+     */
+    private void release()
+    {
+        if (responseModel instanceof AbstractResponseModelTask)
+        {
+            ((AbstractResponseModelTask<?>) responseModel).release();
+        }
+    }
+
+
+    /**
+     * Shows a body too large for the text area in a {@code BodyViewer},
+     * falling back to showing the start of the body
+     */
+    private void showLargeBody(final @NonNull ResponseModel responseModel)
+    {
+        Path bodyFile = responseModel.getBodyFile();
+        if (bodyFile != null)
+        {
+            try
+            {
+                BodyViewer viewer = new BodyViewer();
+                viewer.setBody(bodyFile, responseModel.getBodyCharset());
+                responsePane.setContent(viewer);
+                status.append(CONST_BODY_VIEWER);
+                return;
+            }
+            catch (IOException e)
+            {
+                LOG.warn("Cannot view body file", e);
+            }
+        }
+        status.append(CONST_BODY_PREVIEW);
+        response.setText(responseModel.getBodyPreview());
+    }
+
+
     /**
      * Open the stand alone status window on Status double click
      */
@@ -14,23 +14,33 @@
 package com.github.technosf.posterer.ui.controllers.impl;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.technosf.posterer.core.models.StatusModel;
+import com.github.technosf.posterer.core.utils.StatusLog;
 import com.github.technosf.posterer.ui.controllers.impl.base.AbstractController;
 
-import javafx.beans.property.StringProperty;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.ListView;
 import javafx.stage.Stage;
 
 /**
  * JavaFX Controller for the global <em>status</em> window and tray.
  * <p>
  * Controls the stats
+ * <p>
+ * Messages are kept in a bounded {@code StatusLog} and shown in virtualized
+ * {@code ListView}s. Messages added from background threads are shown in
+ * batches, at most once per pulse.
  * 
  * @author technosf
  * @since 0.0.1
@@ -57,14 +67,35 @@ public class StatusController
             "Posterer :: Status Window";
 
     /**
-     * Status
+     * Status messages, bounded
+     */
+    private final StatusLog log = new StatusLog();
+
+    /**
+     * The messages shown, kept in step with the log on the FX thread
+     */
+    private final ObservableList<StatusLog.Entry> entries =
+            FXCollections.observableArrayList();
+
+    /**
+     * Is a refresh of the shown messages queued?
+     */
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    /**
+     * Sequence number of the latest message shown
      */
-    private final StringBuilder status = new StringBuilder();
+    private long shownSequence;
+
+    /**
+     * Clear count of the log when last shown
+     */
+    private int shownEpoch;
 
     private final StatusModel statusModel = new StatusModel()
     {
         @NonNull
-        private String lastMessage = "";
+        private volatile String lastMessage = "";
 
 
         /**
@@ -74,12 +105,10 @@ public class StatusController
          */
         public void write(final @NonNull String message)
         {
-            status.append(message);
-            statusWindow.setText(message);
-            statusWindow.setScrollTop(Double.MAX_VALUE);
-            statusWindow.appendText("\n");
-            statusWindow.setScrollTop(Double.MAX_VALUE);
+            log.clear();
+            log.add(message);
             lastMessage = message;
+            refresh();
         }
 
 
@@ -105,11 +134,9 @@ public class StatusController
         {
             if (!message.isEmpty())
             {
-                statusWindow.appendText(message);
-                statusWindow.setScrollTop(Double.MAX_VALUE);
-                statusWindow.appendText("\n");
-                statusWindow.setScrollTop(Double.MAX_VALUE);
+                log.add(message);
                 lastMessage = message;
+                refresh();
             }
         }
 
@@ -142,7 +169,7 @@ public class StatusController
      */
 
     @FXML
-    private TextArea statusWindow;
+    private ListView<StatusLog.Entry> statusWindow;
 
 
     /*
@@ -150,14 +177,15 @@ public class StatusController
      */
 
     /**
-     * Instantiates a StatusController, binding the given {@code StringProperty}
-     * to its text.
+     * Instantiates a StatusController, showing its messages in the given
+     * {@code ListView} too.
      * 
-     * @param stringProperty
+     * @param statusView
+     *            the view to show the messages in
      * @return a new StatusControler
      */
     public static StatusController loadController(
-            final StringProperty stringProperty)
+            final ListView<StatusLog.Entry> statusView)
     {
         Stage stage = new Stage();
         StatusController controller = null;
@@ -166,7 +194,7 @@ public class StatusController
         {
             controller = (StatusController) AbstractController
                     .loadController(stage, FXML);
-            controller.updateStage(stringProperty);
+            controller.updateStage(statusView);
         }
         catch (IOException e)
         {
@@ -194,12 +222,12 @@ public class StatusController
     /**
      * Updates this stage with event handlers
      * 
-     * @param responseModel
+     * @param statusView
+     *            a view to show the messages in too
      */
-    public void updateStage(final StringProperty status)
+    public void updateStage(final ListView<StatusLog.Entry> statusView)
     {
-        // Bind the status text property to the StatusController value
-        status.bind(statusWindow.textProperty());
+        show(statusView);
     }
 
 
@@ -212,6 +240,69 @@ public class StatusController
     public void initialize()
     {
         LOG.debug("Initialize.");
+        show(statusWindow);
+    }
+
+
+    /*
+     * ------------ Code -----------------
+     */
+
+    /**
+     * Shows the messages in a view, scrolled to the latest
+     */
+    private void show(final ListView<StatusLog.Entry> statusView)
+    {
+        statusView.setItems(entries);
+        entries.addListener((ListChangeListener<StatusLog.Entry>) c -> statusView
+                .scrollTo(entries.size() - 1));
+    }
+
+
+    /**
+     * Queues a refresh of the shown messages, if one is not already queued,
+     * so that messages added from any thread between pulses are shown
+     * together
+     */
+    private void refresh()
+    {
+        if (refreshQueued.compareAndSet(false, true))
+        {
+            Platform.runLater(this::showLatest);
+        }
+    }
+
+
+    /**
+     * Brings the shown messages up to date with the log
+     */
+    private void showLatest()
+    {
+        refreshQueued.set(false);
+
+        int epoch = log.getEpoch();
+        List<StatusLog.Entry> latest = log.since(shownSequence);
+        if (epoch != shownEpoch)
+        /*
+         * Log was cleared
+         */
+        {
+            shownEpoch = epoch;
+            entries.setAll(latest);
+        }
+        else if (!latest.isEmpty())
+        {
+            entries.addAll(latest);
+            int excess = entries.size() - log.getCapacity();
+            if (excess > 0)
+            {
+                entries.remove(0, excess);
+            }
+        }
+        if (!latest.isEmpty())
+        {
+            shownSequence = latest.get(latest.size() - 1).getSequence();
+        }
     }
 
 
@@ -30,7 +30,8 @@ import com.github.technosf.posterer.core.models.StatusModel;
 import com.github.technosf.posterer.core.models.impl.HttpHeaderBean;
 import com.github.technosf.posterer.core.models.impl.ProxyBean;
 import com.github.technosf.posterer.core.models.impl.RequestBean;
-import com.github.technosf.posterer.core.utils.PrettyPrinters;
+import com.github.technosf.posterer.core.utils.StatusLog;
+import com.github.technosf.posterer.ui.FormatAction;
 import com.github.technosf.posterer.ui.controllers.Controller;
 import com.github.technosf.posterer.ui.controllers.impl.ResponseController;
 import com.github.technosf.posterer.ui.controllers.impl.StatusController;
@@ -56,6 +57,7 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.CustomMenuItem;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.ProgressIndicator;
@@ -122,7 +124,10 @@ public abstract class AbstractRequestController
     protected Slider timeoutSlider;
 
     @FXML
-    protected TextArea statusWindow, payload;
+    protected TextArea payload;
+
+    @FXML
+    protected ListView<StatusLog.Entry> statusWindow;
 
     @FXML
     protected ProgressIndicator progress;
@@ -302,7 +307,7 @@ public abstract class AbstractRequestController
         LOG.debug("Initialization starts");
 
         statusController =
-                StatusController.loadController(statusWindow.textProperty());
+                StatusController.loadController(statusWindow);
         statusController.setStyle(getStyle());
         status = statusController.getStatusModel();
 
@@ -422,6 +427,17 @@ public abstract class AbstractRequestController
     }
 
 
+    /**
+     * Returns the time out set on the slider
+     * 
+     * @return the time out in seconds
+     */
+    protected final int getTimeout()
+    {
+        return timeoutProperty.get();
+    }
+
+
     /**
      * Initialize the bindings
      */
@@ -503,11 +519,8 @@ public abstract class AbstractRequestController
             status.write(INFO_PROPERTIES, e.getMessage());
         }
 
-        payloadFormat.setOnAction(e->{   
-                String text = "" + payload.getText();
-                payload.setText(PrettyPrinters.xml(text, true));
-                payload.setText(PrettyPrinters.json(text));
-        });
+        payloadFormat.setOnAction(new FormatAction(payloadFormat, payload,
+                progress, mime::getValue));
 
         // -------------- HTTP headers table ----------------------
         
@@ -680,7 +693,6 @@ public abstract class AbstractRequestController
         if (!endpoint.isValid())
         {
             status.append(INFO_URI, endpoint.getValue());
-            statusWindow.setScrollTop(Double.MAX_VALUE);
             return;
         }
 
@@ -703,7 +715,6 @@ public abstract class AbstractRequestController
                     response.getRequest().getUri(),
                     proxyOnProperty.get()
                             ? proxyCombo.getValue().toString() : "");
-            statusWindow.setScrollTop(Double.MAX_VALUE);
 
             /*
              * Open the Response window managing this request instance
@@ -794,7 +805,6 @@ public abstract class AbstractRequestController
                 if (!CONST_PROVIDE_PROXY.equals(status.lastMessage()))
                 {
                     status.append(CONST_PROVIDE_PROXY);
-                    statusWindow.setScrollTop(Double.MAX_VALUE);
                 }
             }
         }
@@ -810,7 +820,6 @@ public abstract class AbstractRequestController
             saveProxy.setTextFill(CONST_PAINT_GREY);
             fireDisabledProperty.set(false);
             status.append(CONST_NO_PROXY);
-            statusWindow.setScrollTop(Double.MAX_VALUE);
         }
     }
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.technosf.posterer.core.utils.Auditor;
+
+/**
+ * Appends to and renders call audits
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditorBenchmark
+{
+    /**
+     * Appends between fresh auditors, keeping the shared audit bounded
+     */
+    private static final int APPENDS_PER_AUDITOR = 1 << 16;
+
+    /**
+     * An auditor shared by the benchmark threads, as one call's auditor is
+     * by the call and its handshake callbacks
+     */
+    @State(Scope.Benchmark)
+    public static class Shared
+    {
+        volatile Auditor auditor = new Auditor();
+    }
+
+    /**
+     * The appends made by a thread to the current shared auditor
+     */
+    @State(Scope.Thread)
+    public static class Appends
+    {
+        int count;
+    }
+
+
+    /**
+     * Appends a formatted line
+     * 
+     * @return the auditor
+     */
+    @Benchmark
+    public Auditor append(final Shared shared, final Appends appends)
+    {
+        if (++appends.count == APPENDS_PER_AUDITOR)
+        {
+            appends.count = 0;
+            shared.auditor = new Auditor();
+        }
+        return shared.auditor.append(true, "SSL :: Handshake event: [%1$s]",
+                "benchmark");
+    }
+
+
+    /**
+     * Appends formatted lines from several threads to a shared auditor
+     * 
+     * @return the auditor
+     */
+    @Benchmark
+    @Threads(4)
+    public Auditor appendContended(final Shared shared, final Appends appends)
+    {
+        return append(shared, appends);
+    }
+
+
+    /**
+     * Audits and renders a call of a typical twenty lines
+     * 
+     * @return the rendered audit
+     */
+    @Benchmark
+    public String auditCall()
+    {
+        Auditor auditor = new Auditor();
+        auditor.start();
+        for (int i = 0; i < 20; i++)
+        {
+            auditor.append(true, "Line %1$d of the call", i);
+        }
+        auditor.postscript(false, "HTTP/1.1 200 OK");
+        auditor.stop();
+        return auditor.toString();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks from the command line
+ * <p>
+ * Takes the usual JMH options. Unless another result format or file is given,
+ * the results are written as JSON to {@value #RESULT_FILE} so that they can be
+ * compared release over release.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class BenchmarkRunner
+{
+    /**
+     * The default results file
+     */
+    static final String RESULT_FILE = "posterer-benchmarks.json";
+
+
+    /**
+     * Static use only
+     */
+    private BenchmarkRunner()
+    {
+    }
+
+
+    /**
+     * Runs the benchmarks
+     * 
+     * @param args
+     *            JMH command line options
+     * @throws CommandLineOptionException
+     *             the options could not be parsed
+     * @throws RunnerException
+     *             the benchmarks failed
+     * @throws IOException
+     *             the help could not be shown
+     */
+    public static void main(String[] args)
+            throws CommandLineOptionException, RunnerException, IOException
+    {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp())
+        {
+            options.showHelp();
+            return;
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (!options.getResultFormat().hasValue())
+        {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!options.getResult().hasValue())
+        {
+            builder.result(RESULT_FILE);
+        }
+        Runner runner = new Runner(builder.build());
+
+        if (options.shouldList())
+        {
+            runner.list();
+            return;
+        }
+        runner.run();
+    }
+}
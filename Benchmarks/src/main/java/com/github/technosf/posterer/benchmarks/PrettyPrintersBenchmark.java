@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.technosf.posterer.core.utils.PrettyPrinters;
+
+/**
+ * Pretty prints XML and JSON documents from 1 KB to 50 MB
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PrettyPrintersBenchmark
+{
+    /**
+     * Document size in characters
+     */
+    @Param({ "1024", "1048576", "52428800" })
+    public int size;
+
+    private String xml = "";
+    private String json = "";
+
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        xml = document(size, "<?xml version=\"1.0\"?><items>",
+                "<item id=\"%1$d\"><name>value %1$d</name></item>",
+                "</items>");
+        json = document(size, "{\"items\":[",
+                "{\"id\":%1$d,\"name\":\"value %1$d\"},", "{}]}");
+    }
+
+
+    @Benchmark
+    public String xml()
+    {
+        return PrettyPrinters.xml(xml, true);
+    }
+
+
+    @Benchmark
+    public String json()
+    {
+        return PrettyPrinters.json(json);
+    }
+
+
+    /**
+     * Builds a document of about the given size from repeated items
+     */
+    private static String document(final int size, final String head,
+            final String item, final String tail)
+    {
+        StringBuilder sb = new StringBuilder(size + 64).append(head);
+        for (int i = 0; sb.length() < size - tail.length(); i++)
+        {
+            sb.append(String.format(item, i));
+        }
+        return sb.append(tail).toString();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.technosf.posterer.core.models.impl.RequestBean;
+import com.github.technosf.posterer.modules.Factory.PropertiesParameter;
+import com.github.technosf.posterer.modules.commons.config.CommonsConfiguratorPropertiesImpl;
+
+/**
+ * Loads and saves a properties file of many saved requests
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PropertiesBenchmark
+{
+    private static final String PREFIX = "benchmark.";
+
+    /**
+     * The number of saved requests
+     */
+    @Param({ "1000", "10000" })
+    public int requests;
+
+    private File directory = new File(".");
+
+    private PropertiesParameter params =
+            new PropertiesParameter(PREFIX, null, null);
+
+    private CommonsConfiguratorPropertiesImpl properties;
+
+    private final RequestBean extra = request(-1);
+
+    private boolean added;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, ConfigurationException
+    {
+        Path dir = Files.createTempDirectory("posterer-benchmark");
+        directory = dir.toFile();
+        params = new PropertiesParameter(PREFIX, directory, null);
+        CommonsConfiguratorPropertiesImpl blank =
+                new CommonsConfiguratorPropertiesImpl(params);
+
+        StringBuilder xml = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+                        + "<configuration><default/><requests>");
+        for (int i = 0; i < requests; i++)
+        {
+            RequestBean request = request(i);
+            xml.append("<request id=\"").append(request.hashCode())
+                    .append("\"><endpoint>").append(request.getEndpoint())
+                    .append("</endpoint><payload>")
+                    .append(request.getPayload())
+                    .append("</payload><method>").append(request.getMethod())
+                    .append("</method><security/><contentType>")
+                    .append(request.getContentType())
+                    .append("</contentType><base64>false</base64>")
+                    .append("<authenticate>false</authenticate>")
+                    .append("<username/><password/></request>");
+        }
+        xml.append("</requests><proxies/><keystores/></configuration>");
+        FileUtils.writeStringToFile(new File(blank.pathPropsFile()),
+                xml.toString(), StandardCharsets.UTF_8);
+
+        properties = new CommonsConfiguratorPropertiesImpl(params);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(directory);
+    }
+
+
+    /**
+     * Loads the properties file
+     * 
+     * @return the loaded properties
+     * @throws Exception
+     *             the file could not be loaded
+     */
+    @Benchmark
+    public CommonsConfiguratorPropertiesImpl load() throws Exception
+    {
+        return new CommonsConfiguratorPropertiesImpl(params);
+    }
+
+
+    /**
+     * Adds or removes a request and saves the properties file
+     * 
+     * @return true if saved
+     */
+    @Benchmark
+    public boolean save()
+    {
+        if (added)
+        {
+            properties.removeData(extra);
+        }
+        else
+        {
+            properties.addData(extra);
+        }
+        added = !added;
+        return properties.save();
+    }
+
+
+    /**
+     * Creates the saved request of the given index
+     */
+    private static RequestBean request(final int index)
+    {
+        return new RequestBean("http://localhost:8080/api/resource/" + index,
+                "{\"index\":" + index + "}", "POST", "", "application/json",
+                false, Collections.emptyList(), false, "", "");
+    }
+}
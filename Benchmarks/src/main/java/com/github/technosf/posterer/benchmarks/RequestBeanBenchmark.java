@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.technosf.posterer.core.models.HttpHeader;
+import com.github.technosf.posterer.core.models.impl.HttpHeaderBean;
+import com.github.technosf.posterer.core.models.impl.RequestBean;
+
+/**
+ * Hashes and compares saved requests, as the properties model does for each
+ * request it stores or looks up
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBeanBenchmark
+{
+    private static final List<HttpHeader> HEADERS = Arrays.asList(
+            new HttpHeaderBean("Accept", "application/json"),
+            new HttpHeaderBean("X-Trace", "benchmark"));
+
+    private final RequestBean request = request("{\"payload\":1}");
+    private final RequestBean same = request("{\"payload\":1}");
+    private final RequestBean other = request("{\"payload\":2}");
+
+
+    @Benchmark
+    public int hashCodeRequest()
+    {
+        return request.hashCode();
+    }
+
+
+    @Benchmark
+    public boolean equalsSame()
+    {
+        return request.equals(same);
+    }
+
+
+    @Benchmark
+    public boolean equalsOther()
+    {
+        return request.equals(other);
+    }
+
+
+    /**
+     * Creates a request with the given payload
+     */
+    private static RequestBean request(final String payload)
+    {
+        return new RequestBean("https://localhost:8443/api/resource", payload,
+                "POST", "TLSv1.2", "application/json", false, HEADERS, true,
+                "user", "password");
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.technosf.posterer.core.models.impl.RequestBean;
+import com.github.technosf.posterer.modules.commons.transport.CommonsRequestModelImpl;
+import com.github.technosf.posterer.modules.commons.transport.CommonsResponseModelTaskImpl;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Fires requests through the Apache Commons transport at a local server
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportBenchmark
+{
+    /**
+     * Response body size in bytes
+     */
+    @Param({ "1024", "1048576" })
+    public int bodySize;
+
+    private final MockWebServer server = new MockWebServer();
+
+    private final CommonsRequestModelImpl requestModel =
+            new CommonsRequestModelImpl();
+
+    private RequestBean request = new RequestBean();
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        byte[] body = new byte[bodySize];
+        server.setDispatcher(new Dispatcher()
+        {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest)
+            {
+                return new MockResponse().setBody(new Buffer().write(body));
+            }
+        });
+        server.start();
+        request = new RequestBean(server.url("/benchmark").toString(), "",
+                "GET", "", "text/plain", false, Collections.emptyList(),
+                false, "", "");
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        requestModel.getClientPool().close();
+        server.shutdown();
+    }
+
+
+    /**
+     * Fires a request and reads its response
+     * 
+     * @return the response status
+     * @throws Exception
+     *             the request failed
+     */
+    @Benchmark
+    public String fire() throws Exception
+    {
+        CommonsResponseModelTaskImpl response =
+                (CommonsResponseModelTaskImpl) requestModel
+                        .doRequest(request);
+        try
+        {
+            response.execute();
+            return response.getStatus();
+        }
+        finally
+        {
+            response.release();
+        }
+    }
+
+
+    /**
+     * Fires requests from several threads over the pooled client
+     * 
+     * @return the response status
+     * @throws Exception
+     *             the request failed
+     */
+    @Benchmark
+    @Threads(8)
+    public String fireConcurrent() throws Exception
+    {
+        return fire();
+    }
+}
@@ -0,0 +1,808 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.ui.custom.controls;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.ObservableListBase;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+
+/**
+ * Viewer for bodies too large to display in a {@code TextArea}.
+ * <p>
+ * The body is read from a memory mapped file or a buffer, and only the rows in
+ * view are decoded. Text rows end at line breaks, long lines being wrapped
+ * every {@value #WRAP_BYTES} bytes, and are found through an index of row
+ * offsets built in the background, so the first rows can be read while the
+ * rest of the body is indexed.
+ * <p>
+ * In hex mode each row shows {@value #HEX_ROW_BYTES} bytes as hex and ASCII.
+ * Bodies that look binary open in hex mode. Either way, the view can be jumped
+ * to a byte offset.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class BodyViewer
+        extends BorderPane
+{
+    /**
+     * Bytes shown on a hex row
+     */
+    public static final int HEX_ROW_BYTES = 16;
+
+    /**
+     * Bytes after which a text line is wrapped onto another row
+     */
+    public static final int WRAP_BYTES = 128;
+
+    /**
+     * Rows indexed between updates of the view
+     */
+    private static final int PUBLISH_ROWS = 1 << 14;
+
+    /**
+     * Bytes looked at to decide if a body is binary
+     */
+    private static final int SNIFF_BYTES = 8192;
+
+    /**
+     * Size of each mapped segment of a body file
+     */
+    private static final int SEGMENT_BITS = 30;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final String FORMAT_INFO = "%,d bytes, %,d rows%s";
+
+    private static final String CONST_INDEXING = " (indexing)";
+
+    /* ================================================================
+    * 
+    * State vars
+    * 
+    * ================================================================
+    */
+
+    /**
+     * The body displayed
+     */
+    private Body body = Body.EMPTY;
+
+    /**
+     * The row index of the body
+     */
+    private Index index = new Index(Body.EMPTY, this);
+
+    /**
+     * Offset to jump to once it is indexed, or -1
+     */
+    private long pendingJump = -1;
+
+    /* ================================================================
+    * 
+    * Sub Components
+    * 
+    * ================================================================
+    */
+
+    private final RowList rows = new RowList();
+
+    private final ListView<Integer> view = new ListView<>(rows);
+
+    private final ToggleButton hex = new ToggleButton("Hex");
+
+    private final TextField offset = new TextField();
+
+    private final Label info = new Label();
+
+    /* ================================================================
+     * 
+     * Properties
+     * 
+     * ================================================================
+     */
+
+    /**
+     * The indexing property wrapper
+     */
+    private final ReadOnlyBooleanWrapper indexing =
+            new ReadOnlyBooleanWrapper(this, "indexing");
+
+
+    /**
+     * Returns the indexing property, true while the rows of the body are
+     * being found
+     * 
+     * @return the indexing property
+     */
+    public ReadOnlyBooleanProperty indexingProperty()
+    {
+        return indexing.getReadOnlyProperty();
+    }
+
+
+    /**
+     * Returns the hex mode property
+     * 
+     * @return the hex mode property
+     */
+    public BooleanProperty hexModeProperty()
+    {
+        return hex.selectedProperty();
+    }
+
+
+    /**
+     * Is the body shown as hex?
+     * 
+     * @return true if in hex mode
+     */
+    public final boolean isHexMode()
+    {
+        return hex.isSelected();
+    }
+
+
+    /**
+     * Shows the body as hex, or as text
+     * 
+     * @param hexMode
+     *            true for hex
+     */
+    public final void setHexMode(boolean hexMode)
+    {
+        hex.setSelected(hexMode);
+    }
+
+
+    /* ================================================================
+    * 
+    * Code
+    * 
+    * ================================================================
+    */
+
+    /**
+     * Default constructor
+     */
+    public BodyViewer()
+    {
+        super();
+        initialize();
+    }
+
+
+    /**
+     * Displays a body file, mapping it into memory
+     * 
+     * @param file
+     *            the body file
+     * @param charset
+     *            the body charset
+     * @throws IOException
+     *             the file could not be mapped
+     */
+    public void setBody(Path file, Charset charset) throws IOException
+    {
+        try (FileChannel channel =
+                FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            ByteBuffer[] segments =
+                    new ByteBuffer[(int) ((size + (1L << SEGMENT_BITS) - 1)
+                            >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++)
+            {
+                long position = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        position,
+                        Math.min(1L << SEGMENT_BITS, size - position));
+            }
+            setBody(new Body(segments, size, charset));
+        }
+    }
+
+
+    /**
+     * Displays the remaining bytes of a buffer
+     * 
+     * @param buffer
+     *            the body
+     * @param charset
+     *            the body charset
+     */
+    public void setBody(ByteBuffer buffer, Charset charset)
+    {
+        ByteBuffer slice = buffer.slice();
+        setBody(new Body(new ByteBuffer[] { slice }, slice.remaining(),
+                charset));
+    }
+
+
+    /**
+     * Displays a body
+     * 
+     * @param bytes
+     *            the body
+     * @param charset
+     *            the body charset
+     */
+    public void setBody(byte[] bytes, Charset charset)
+    {
+        setBody(ByteBuffer.wrap(bytes), charset);
+    }
+
+
+    /**
+     * Clears the body
+     */
+    public void clear()
+    {
+        setBody(Body.EMPTY);
+    }
+
+
+    /**
+     * Returns the body size
+     * 
+     * @return the size in bytes
+     */
+    public long getSize()
+    {
+        return body.size;
+    }
+
+
+    /**
+     * Scrolls to and selects the row holding the byte offset. In text mode an
+     * offset not yet indexed is jumped to once it is.
+     * 
+     * @param byteOffset
+     *            the byte offset
+     */
+    public void jumpTo(long byteOffset)
+    {
+        if (byteOffset < 0 || byteOffset >= body.size)
+        {
+            return;
+        }
+
+        if (isHexMode())
+        {
+            show((int) Math.min(Integer.MAX_VALUE,
+                    byteOffset / HEX_ROW_BYTES));
+            return;
+        }
+
+        Index current = index;
+        int indexed = current.rows;
+        long[] starts = current.starts;
+        if (starts[indexed] <= byteOffset)
+        /*
+         * Not indexed yet
+         */
+        {
+            pendingJump = byteOffset;
+            return;
+        }
+        int row = Arrays.binarySearch(starts, 0, indexed + 1, byteOffset);
+        show(row >= 0 ? row : -row - 2);
+    }
+
+
+    /* ----------------------------------------------------------------
+     * 
+     * Display helpers
+     * 
+     * ----------------------------------------------------------------
+     */
+
+    /**
+     * Returns the display text of a row
+     * 
+     * @param row
+     *            the row
+     * @return the text
+     */
+    String row(int row)
+    {
+        if (isHexMode())
+        {
+            return hexRow(row);
+        }
+
+        Index current = index;
+        if (row >= current.rows)
+        {
+            return "";
+        }
+        long[] starts = current.starts;
+        String text = body.decode(starts[row], starts[row + 1]);
+        int end = text.length();
+        while (end > 0 && (text.charAt(end - 1) == '\n'
+                || text.charAt(end - 1) == '\r'))
+        {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+
+    /**
+     * Renders a row of bytes as offset, hex and ASCII
+     */
+    private String hexRow(int row)
+    {
+        long start = (long) row * HEX_ROW_BYTES;
+        int length = (int) Math.min(HEX_ROW_BYTES, body.size - start);
+        StringBuilder sb = new StringBuilder(80);
+        String position = Long.toHexString(start);
+        for (int i = position.length(); i < 8; i++)
+        {
+            sb.append('0');
+        }
+        sb.append(position).append("  ");
+        for (int i = 0; i < HEX_ROW_BYTES; i++)
+        {
+            if (i < length)
+            {
+                int b = body.get(start + i) & 0xff;
+                sb.append(HEX[b >>> 4]).append(HEX[b & 0xf]).append(' ');
+            }
+            else
+            {
+                sb.append("   ");
+            }
+            if (i == HEX_ROW_BYTES / 2 - 1)
+            {
+                sb.append(' ');
+            }
+        }
+        sb.append(' ');
+        for (int i = 0; i < length; i++)
+        {
+            int b = body.get(start + i) & 0xff;
+            sb.append(b >= 0x20 && b < 0x7f ? (char) b : '.');
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Scrolls to and selects a row
+     */
+    private void show(int row)
+    {
+        view.scrollTo(row);
+        view.getSelectionModel().clearAndSelect(row);
+    }
+
+
+    /**
+     * Updates the row count and size information
+     */
+    private void refreshRows()
+    {
+        Index current = index;
+        if (isHexMode())
+        {
+            rows.setSize((int) Math.min(Integer.MAX_VALUE,
+                    (body.size + HEX_ROW_BYTES - 1) / HEX_ROW_BYTES));
+        }
+        else
+        {
+            rows.setSize(current.rows);
+        }
+        info.setText(String.format(FORMAT_INFO, body.size, rows.size(),
+                current.done ? "" : CONST_INDEXING));
+    }
+
+
+    /* ----------------------------------------------------------------
+    * 
+    * Events and handlers
+    * 
+    * ----------------------------------------------------------------
+    */
+
+    /**
+     * More of the body has been indexed
+     */
+    private void indexed(Index published)
+    {
+        if (published != index)
+        {
+            return;
+        }
+        indexing.set(!published.done);
+        if (!isHexMode())
+        {
+            refreshRows();
+        }
+        long jump = pendingJump;
+        if (jump >= 0 && (published.done
+                || published.starts[published.rows] > jump))
+        {
+            pendingJump = -1;
+            jumpTo(jump);
+        }
+    }
+
+
+    /**
+     * Switches between text and hex, staying at the selected offset
+     */
+    private void switchMode(boolean toHex)
+    {
+        int selected = view.getSelectionModel().getSelectedIndex();
+        long selectedOffset = -1;
+        if (selected >= 0)
+        {
+            Index current = index;
+            selectedOffset = toHex
+                    ? (selected < current.rows ? current.starts[selected] : -1)
+                    : (long) selected * HEX_ROW_BYTES;
+        }
+        refreshRows();
+        view.refresh();
+        if (selectedOffset >= 0)
+        {
+            jumpTo(selectedOffset);
+        }
+    }
+
+
+    /**
+     * Jumps to the offset entered, as decimal or 0x prefixed hex
+     */
+    private void jump()
+    {
+        String text = offset.getText().trim();
+        try
+        {
+            jumpTo(text.startsWith("0x") || text.startsWith("0X")
+                    ? Long.parseLong(text.substring(2), 16)
+                    : Long.parseLong(text));
+        }
+        catch (NumberFormatException e)
+        {
+            offset.selectAll();
+        }
+    }
+
+
+    /* ----------------------------------------------------------------
+    * 
+    * Utility functions
+    * 
+    * ----------------------------------------------------------------
+    */
+
+    /**
+     * Initialized the components
+     */
+    private void initialize()
+    {
+        offset.setPromptText("Offset");
+        offset.setPrefColumnCount(12);
+        offset.setOnAction(e -> jump());
+
+        hex.selectedProperty()
+                .addListener((observable, oldValue, newValue) -> switchMode(
+                        Boolean.TRUE.equals(newValue)));
+
+        HBox bar = new HBox(5, hex, offset, info);
+        bar.setPadding(new Insets(2));
+        setTop(bar);
+
+        view.setStyle("-fx-font-family: monospace;");
+        view.setCellFactory(v -> new ListCell<Integer>()
+        {
+            @Override
+            protected void updateItem(Integer item, boolean empty)
+            {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : row(item));
+            }
+        });
+        setCenter(view);
+        refreshRows();
+    }
+
+
+    /**
+     * Displays a body, indexing it in the background
+     */
+    private void setBody(Body newBody)
+    {
+        index.cancelled = true;
+        pendingJump = -1;
+        body = newBody;
+        index = new Index(newBody, this);
+        hex.setSelected(newBody.isBinary());
+        rows.setSize(0);
+        refreshRows();
+        view.scrollTo(0);
+
+        indexing.set(!index.done);
+        if (!index.done)
+        {
+            Thread indexer = new Thread(index, "posterer-body-index");
+            indexer.setDaemon(true);
+            indexer.start();
+        }
+    }
+
+
+    /* ================================================================
+    * 
+    * Body and index
+    * 
+    * ================================================================
+    */
+
+    /**
+     * A body, as one or more buffers
+     */
+    private static final class Body
+    {
+        static final Body EMPTY =
+                new Body(new ByteBuffer[0], 0, StandardCharsets.UTF_8);
+
+        final ByteBuffer[] segments;
+        final long size;
+        final Charset charset;
+
+
+        Body(ByteBuffer[] segments, long size, Charset charset)
+        {
+            this.segments = segments;
+            this.size = size;
+            this.charset = charset;
+        }
+
+
+        byte get(long position)
+        {
+            return segments[(int) (position >>> SEGMENT_BITS)].get(
+                    (int) (position & ((1L << SEGMENT_BITS) - 1)));
+        }
+
+
+        /**
+         * Decodes the bytes from start to end, which is at most a row apart
+         */
+        String decode(long start, long end)
+        {
+            byte[] bytes = new byte[(int) (end - start)];
+            for (int i = 0; i < bytes.length; i++)
+            {
+                bytes[i] = get(start + i);
+            }
+            try
+            {
+                return charset.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                        .decode(ByteBuffer.wrap(bytes)).toString();
+            }
+            catch (IOException e)
+            {
+                return "";
+            }
+        }
+
+
+        /**
+         * Does the start of the body hold a NUL byte?
+         */
+        boolean isBinary()
+        {
+            long sniff = Math.min(size, SNIFF_BYTES);
+            for (long i = 0; i < sniff; i++)
+            {
+                if (get(i) == 0)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Offsets of the text rows of a body, found in the background
+     * <p>
+     * Row {@code i} runs from {@code starts[i]} to {@code starts[i + 1]}. The
+     * offsets of the published rows are written before the row count, so the
+     * viewer sees complete rows only.
+     */
+    private static final class Index
+            implements Runnable
+    {
+        final Body body;
+        final BodyViewer viewer;
+        final boolean utf8;
+
+        volatile long[] starts = new long[1024];
+        volatile int rows;
+        volatile boolean done;
+        volatile boolean cancelled;
+
+
+        Index(Body body, BodyViewer viewer)
+        {
+            this.body = body;
+            this.viewer = viewer;
+            this.utf8 = StandardCharsets.UTF_8.equals(body.charset);
+            this.done = body.size == 0;
+        }
+
+
+        @Override
+        public void run()
+        {
+            long[] offsets = starts;
+            int count = 0;
+            long rowStart = 0;
+            long size = body.size;
+
+            for (long position = 0; position < size; position++)
+            {
+                long end = -1;
+                if (body.get(position) == '\n')
+                {
+                    end = position + 1;
+                }
+                else if (position + 1 - rowStart >= WRAP_BYTES)
+                /*
+                 * Wrap, but not within a UTF-8 character
+                 */
+                {
+                    end = position + 1;
+                    while (utf8 && end < size && end > rowStart + 1
+                            && (body.get(end) & 0xC0) == 0x80)
+                    {
+                        end--;
+                    }
+                    position = end - 1;
+                }
+
+                if (end >= 0)
+                {
+                    if (count + 2 > offsets.length)
+                    {
+                        offsets = starts =
+                                Arrays.copyOf(offsets, offsets.length * 2);
+                    }
+                    offsets[++count] = end;
+                    rowStart = end;
+
+                    if (count % PUBLISH_ROWS == 0)
+                    {
+                        if (cancelled)
+                        {
+                            return;
+                        }
+                        publish(count);
+                    }
+                }
+            }
+
+            if (rowStart < size)
+            /*
+             * Last row, without a line break
+             */
+            {
+                if (count + 2 > offsets.length)
+                {
+                    offsets = starts = Arrays.copyOf(offsets, count + 2);
+                }
+                offsets[++count] = size;
+            }
+            done = true;
+            publish(count);
+        }
+
+
+        /**
+         * Publishes the rows indexed so far to the viewer
+         */
+        private void publish(int count)
+        {
+            rows = count;
+            Platform.runLater(() -> viewer.indexed(this));
+        }
+    }
+
+    /**
+     * The row numbers, as a list the size of the rows found so far
+     */
+    private static final class RowList
+            extends ObservableListBase<Integer>
+    {
+        private int size;
+
+
+        @Override
+        public Integer get(int index)
+        {
+            return index;
+        }
+
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+
+        void setSize(int newSize)
+        {
+            int oldSize = size;
+            if (newSize == oldSize)
+            {
+                return;
+            }
+            beginChange();
+            size = newSize;
+            if (newSize > oldSize)
+            {
+                nextAdd(oldSize, newSize);
+            }
+            else
+            {
+                nextRemove(newSize, new AbstractList<Integer>()
+                {
+                    @Override
+                    public Integer get(int index)
+                    {
+                        return newSize + index;
+                    }
+
+
+                    @Override
+                    public int size()
+                    {
+                        return oldSize - newSize;
+                    }
+                });
+            }
+            endChange();
+        }
+    }
+}
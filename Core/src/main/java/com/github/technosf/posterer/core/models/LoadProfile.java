@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.models;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The shape of a load test: how many requests to fire, or for how long, and at
+ * what concurrency.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class LoadProfile
+{
+    private final int count;
+    private final long durationMillis;
+    private final int concurrency;
+
+
+    /**
+     * @param count
+     *            the number of requests, zero if run by duration
+     * @param durationMillis
+     *            the test duration, zero if run by count
+     * @param concurrency
+     *            the number of requests in flight at once
+     */
+    private LoadProfile(final int count, final long durationMillis,
+            final int concurrency)
+    {
+        if (concurrency < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Concurrency must be at least 1");
+        }
+        this.count = count;
+        this.durationMillis = durationMillis;
+        this.concurrency = concurrency;
+    }
+
+
+    /**
+     * A profile that fires a fixed number of requests
+     *
+     * @param count
+     *            the number of requests
+     * @param concurrency
+     *            the number of requests in flight at once
+     * @return the profile
+     */
+    public static LoadProfile ofCount(final int count, final int concurrency)
+    {
+        if (count < 1)
+        {
+            throw new IllegalArgumentException("Count must be at least 1");
+        }
+        return new LoadProfile(count, 0, concurrency);
+    }
+
+
+    /**
+     * A profile that fires requests for a fixed time
+     *
+     * @param duration
+     *            the test duration
+     * @param unit
+     *            the duration unit
+     * @param concurrency
+     *            the number of requests in flight at once
+     * @return the profile
+     */
+    public static LoadProfile ofDuration(final long duration,
+            final TimeUnit unit, final int concurrency)
+    {
+        long durationMillis = unit.toMillis(duration);
+        if (durationMillis < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Duration must be at least 1ms");
+        }
+        return new LoadProfile(0, durationMillis, concurrency);
+    }
+
+
+    /**
+     * Returns the number of requests to fire
+     *
+     * @return the count, zero if run by duration
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+
+    /**
+     * Returns how long to fire requests for
+     *
+     * @return the duration in milliseconds, zero if run by count
+     */
+    public long getDurationMillis()
+    {
+        return durationMillis;
+    }
+
+
+    /**
+     * Returns the number of requests in flight at once
+     *
+     * @return the concurrency
+     */
+    public int getConcurrency()
+    {
+        return concurrency;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString()
+    {
+        return count > 0
+                ? String.format("%s requests x%s", count, concurrency)
+                : String.format("%sms x%s", durationMillis, concurrency);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.models;
+
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * The aggregated outcome of a load test
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public interface LoadResult
+{
+    /**
+     * Returns a description of the profile the test ran to
+     *
+     * @return the load or rate profile
+     */
+    String getProfile();
+
+
+    /**
+     * Returns the number of requests completed, successfully or not
+     *
+     * @return the request count
+     */
+    int getRequests();
+
+
+    /**
+     * Returns the number of requests that failed, either with an exception
+     * or an error status of 400 or above
+     *
+     * @return the error count
+     */
+    int getErrors();
+
+
+    /**
+     * Returns the number of sends dropped by an open model test because too
+     * many requests were already in flight
+     *
+     * @return the dropped count, always zero for a closed model test
+     */
+    int getDropped();
+
+
+    /**
+     * Returns the number of sends an open model test made late on their
+     * intended send time
+     *
+     * @return the late count, always zero for a closed model test
+     */
+    int getLate();
+
+
+    /**
+     * Returns the number of responses for each outcome. The outcome is the
+     * status code, or the exception name should the call have failed.
+     *
+     * @return the counts by outcome
+     */
+    Map<String, Integer> getOutcomes();
+
+
+    /**
+     * Returns the total response body bytes received
+     *
+     * @return the byte count
+     */
+    long getBytes();
+
+
+    /**
+     * Returns the wall clock time the test took
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    long getElapsedNanos();
+
+
+    /**
+     * Returns the completed requests per second
+     *
+     * @return the throughput
+     */
+    double getThroughput();
+
+
+    /**
+     * Returns the distribution of request latencies. For an open model test
+     * latency is measured from the intended send time, so that time spent
+     * waiting to send is not omitted.
+     *
+     * @return a copy of the latency histogram, in nanoseconds
+     */
+    Histogram getLatency();
+}
@@ -16,6 +16,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 /**
  * Model for managing properties and storing {@code Request} data.
  * 
@@ -45,6 +47,30 @@ public interface Properties
     boolean save();
 
 
+    /**
+     * Saves the current properties configuration in the background, together
+     * with any other changes made within the save window
+     */
+    void saveLater();
+
+
+    /**
+     * Saves any unsaved changes now, after any background save in progress
+     *
+     * @return true if there is nothing left unsaved
+     */
+    boolean flush();
+
+
+    /**
+     * Sets the status model that saves report their latency and failures to
+     *
+     * @param status
+     *            the status model, or null for none
+     */
+    void setStatusModel(@Nullable StatusModel status);
+
+
     /**
      * Returns the properties file contents as a {@code String}.
      * 
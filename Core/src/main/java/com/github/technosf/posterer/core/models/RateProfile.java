@@ -0,0 +1,308 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.models;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The shape of an open model load test: the rate at which requests are
+ * issued over time, whether or not earlier requests have completed.
+ * <p>
+ * The rate may be fixed, or ramped linearly, in steps or with a spike.
+ * Requests in flight are capped, sends beyond the cap being dropped.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class RateProfile
+{
+    /**
+     * Default maximum requests in flight
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+
+    /**
+     * Lowest rate in requests per second, one request every 1000 seconds
+     */
+    public static final double MIN_RATE = 0.001;
+
+    /**
+     * Highest rate in requests per second, one request every microsecond
+     */
+    public static final double MAX_RATE = 1_000_000;
+
+    /**
+     * How the rate changes over the test
+     */
+    public enum Shape
+    {
+        /**
+         * Constant rate
+         */
+        FIXED,
+        /**
+         * Rate ramps linearly from the start to the end rate
+         */
+        LINEAR,
+        /**
+         * Rate ramps from the start to the end rate in equal steps
+         */
+        STEP,
+        /**
+         * Rate is at the start rate save for a spike at the end rate
+         */
+        SPIKE;
+    }
+
+    private final Shape shape;
+    private final double fromRate;
+    private final double toRate;
+    private final long durationNanos;
+    private final int steps;
+    private final long spikeStartNanos;
+    private final long spikeNanos;
+    private final int maxInFlight;
+
+
+    private RateProfile(final Shape shape, final double fromRate,
+            final double toRate, final long durationNanos, final int steps,
+            final long spikeStartNanos, final long spikeNanos,
+            final int maxInFlight)
+    {
+        if (!isRate(fromRate) || !isRate(toRate))
+        {
+            throw new IllegalArgumentException(String.format(Locale.ROOT,
+                    "Rates must be from %1$s to %2$s req/s", MIN_RATE,
+                    MAX_RATE));
+        }
+        if (durationNanos <= 0)
+        {
+            throw new IllegalArgumentException("Duration must be above zero");
+        }
+        if (maxInFlight < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Max in flight must be at least 1");
+        }
+        this.shape = shape;
+        this.fromRate = fromRate;
+        this.toRate = toRate;
+        this.durationNanos = durationNanos;
+        this.steps = steps;
+        this.spikeStartNanos = spikeStartNanos;
+        this.spikeNanos = spikeNanos;
+        this.maxInFlight = maxInFlight;
+    }
+
+
+    /**
+     * Is the rate within bounds? NaN is not.
+     */
+    private static boolean isRate(final double rate)
+    {
+        return rate >= MIN_RATE && rate <= MAX_RATE;
+    }
+
+
+    /**
+     * A constant rate
+     *
+     * @param rate
+     *            requests per second
+     * @param duration
+     *            the test duration
+     * @param unit
+     *            the duration unit
+     * @return the profile
+     */
+    public static RateProfile fixed(final double rate, final long duration,
+            final TimeUnit unit)
+    {
+        return new RateProfile(Shape.FIXED, rate, rate, unit.toNanos(duration),
+                1, 0, 0, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+
+    /**
+     * A rate that ramps linearly
+     *
+     * @param fromRate
+     *            starting requests per second
+     * @param toRate
+     *            ending requests per second
+     * @param duration
+     *            the test duration
+     * @param unit
+     *            the duration unit
+     * @return the profile
+     */
+    public static RateProfile linear(final double fromRate,
+            final double toRate, final long duration, final TimeUnit unit)
+    {
+        return new RateProfile(Shape.LINEAR, fromRate, toRate,
+                unit.toNanos(duration), 1, 0, 0, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+
+    /**
+     * A rate that ramps in equal steps, the first at the starting rate and the
+     * last at the ending rate
+     *
+     * @param fromRate
+     *            starting requests per second
+     * @param toRate
+     *            ending requests per second
+     * @param steps
+     *            the number of steps
+     * @param duration
+     *            the test duration
+     * @param unit
+     *            the duration unit
+     * @return the profile
+     */
+    public static RateProfile step(final double fromRate, final double toRate,
+            final int steps, final long duration, final TimeUnit unit)
+    {
+        if (steps < 1)
+        {
+            throw new IllegalArgumentException("Steps must be at least 1");
+        }
+        return new RateProfile(Shape.STEP, fromRate, toRate,
+                unit.toNanos(duration), steps, 0, 0, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+
+    /**
+     * A base rate with a spike
+     *
+     * @param baseRate
+     *            base requests per second
+     * @param peakRate
+     *            spike requests per second
+     * @param spikeStart
+     *            when the spike starts
+     * @param spikeLength
+     *            how long the spike lasts
+     * @param duration
+     *            the test duration
+     * @param unit
+     *            the unit of the times
+     * @return the profile
+     */
+    public static RateProfile spike(final double baseRate,
+            final double peakRate, final long spikeStart,
+            final long spikeLength, final long duration, final TimeUnit unit)
+    {
+        return new RateProfile(Shape.SPIKE, baseRate, peakRate,
+                unit.toNanos(duration), 1, unit.toNanos(spikeStart),
+                unit.toNanos(spikeLength), DEFAULT_MAX_IN_FLIGHT);
+    }
+
+
+    /**
+     * Returns a copy of this profile with the given cap on requests in flight
+     *
+     * @param maxInFlight
+     *            the maximum requests in flight
+     * @return the profile
+     */
+    public RateProfile withMaxInFlight(final int maxInFlight)
+    {
+        return new RateProfile(shape, fromRate, toRate, durationNanos, steps,
+                spikeStartNanos, spikeNanos, maxInFlight);
+    }
+
+
+    /**
+     * Returns the target rate at a point in the test
+     *
+     * @param elapsedNanos
+     *            the time since the test started
+     * @return requests per second
+     */
+    public double getRateAt(final long elapsedNanos)
+    {
+        double progress =
+                Math.min(Math.max((double) elapsedNanos / durationNanos, 0), 1);
+
+        switch (shape)
+        {
+            case LINEAR:
+                return fromRate + (toRate - fromRate) * progress;
+            case STEP:
+                if (steps == 1)
+                {
+                    return fromRate;
+                }
+                int step = Math.min((int) (progress * steps), steps - 1);
+                return fromRate + (toRate - fromRate) * step / (steps - 1);
+            case SPIKE:
+                return elapsedNanos >= spikeStartNanos
+                        && elapsedNanos < spikeStartNanos + spikeNanos
+                                ? toRate : fromRate;
+            case FIXED:
+            default:
+                return fromRate;
+        }
+    }
+
+
+    /**
+     * Returns the shape of the rate
+     *
+     * @return the shape
+     */
+    public Shape getShape()
+    {
+        return shape;
+    }
+
+
+    /**
+     * Returns the test duration
+     *
+     * @return the duration in nanoseconds
+     */
+    public long getDurationNanos()
+    {
+        return durationNanos;
+    }
+
+
+    /**
+     * Returns the maximum requests in flight
+     *
+     * @return the maximum
+     */
+    public int getMaxInFlight()
+    {
+        return maxInFlight;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString()
+    {
+        return String.format(Locale.ROOT,
+                "%s %.1f-%.1f req/s for %dms, max %d in flight", shape, fromRate, toRate,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos), maxInFlight);
+    }
+}
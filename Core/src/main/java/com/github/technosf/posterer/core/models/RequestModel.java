@@ -13,12 +13,16 @@
 package com.github.technosf.posterer.core.models;
 
 import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
+import com.github.technosf.posterer.core.utils.Auditor;
 
 /**
  * Model for HTTP request definition and creation
  * <p>
  * Proxy and Timeouts are modeled as linked to the RequestModel, while the
  * actual request itself is per invocation.
+ * <p>
+ * Single requests are audited in full. Load and rate tests audit to the audit
+ * level, and in full only the sampled requests.
  * 
  * @author technosf
  * @since 0.0.1
@@ -86,6 +90,155 @@ public interface RequestModel
             final KeyStoreBean keyStoreBean, final String alias);
 
 
+    /**
+     * Fires the HTTP request repeatedly to the given load profile, returning
+     * the aggregated outcome once the test completes.
+     * <p>
+     * Blocks until the test completes, so should not be called from the UI
+     * thread.
+     * 
+     * @param request
+     *            the request
+     * @param profile
+     *            the count or duration, and concurrency, of the test
+     * @return the aggregated result
+     */
+    LoadResult doLoadTest(final Request request, final LoadProfile profile);
+
+
+    /**
+     * Fires the HTTP request repeatedly to the given load profile, returning
+     * the aggregated outcome once the test completes. Uses the given proxy
+     * 
+     * @param request
+     *            the request
+     * @param proxy
+     *            use this proxy
+     * @param profile
+     *            the count or duration, and concurrency, of the test
+     * @return the aggregated result
+     */
+    LoadResult doLoadTest(final Request request, final Proxy proxy,
+            final LoadProfile profile);
+
+
+    /**
+     * Fires the HTTP request repeatedly to the given load profile, returning
+     * the aggregated outcome once the test completes. Uses the given security
+     * certificate
+     * 
+     * @param request
+     *            the request
+     * @param keyStoreBean
+     *            the certificate store
+     * @param alias
+     *            the alias of the certificate to use
+     * @param profile
+     *            the count or duration, and concurrency, of the test
+     * @return the aggregated result
+     */
+    LoadResult doLoadTest(final Request request,
+            final KeyStoreBean keyStoreBean, final String alias,
+            final LoadProfile profile);
+
+
+    /**
+     * Fires the HTTP request repeatedly to the given load profile, returning
+     * the aggregated outcome once the test completes. Uses the given proxy,
+     * and provides a security certificate
+     * 
+     * @param request
+     *            the request
+     * @param proxy
+     *            use this proxy
+     * @param keyStoreBean
+     *            the certificate store
+     * @param alias
+     *            the alias of the certificate to use
+     * @param profile
+     *            the count or duration, and concurrency, of the test
+     * @return the aggregated result
+     */
+    LoadResult doLoadTest(final Request request, final Proxy proxy,
+            final KeyStoreBean keyStoreBean, final String alias,
+            final LoadProfile profile);
+
+
+    /**
+     * Issues the HTTP request at the rate of the given profile whether or
+     * not earlier requests have completed, returning the aggregated outcome
+     * once the test completes.
+     * <p>
+     * Latency is measured from the intended send time. Blocks until the test
+     * completes, so should not be called from the UI thread.
+     * 
+     * @param request
+     *            the request
+     * @param profile
+     *            the rate of the test
+     * @return the aggregated result
+     */
+    LoadResult doRateTest(final Request request, final RateProfile profile);
+
+
+    /**
+     * Issues the HTTP request at the rate of the given profile, returning the
+     * aggregated outcome once the test completes. Uses the given proxy
+     * 
+     * @param request
+     *            the request
+     * @param proxy
+     *            use this proxy
+     * @param profile
+     *            the rate of the test
+     * @return the aggregated result
+     */
+    LoadResult doRateTest(final Request request, final Proxy proxy,
+            final RateProfile profile);
+
+
+    /**
+     * Issues the HTTP request at the rate of the given profile, returning the
+     * aggregated outcome once the test completes. Uses the given security
+     * certificate
+     * 
+     * @param request
+     *            the request
+     * @param keyStoreBean
+     *            the certificate store
+     * @param alias
+     *            the alias of the certificate to use
+     * @param profile
+     *            the rate of the test
+     * @return the aggregated result
+     */
+    LoadResult doRateTest(final Request request,
+            final KeyStoreBean keyStoreBean, final String alias,
+            final RateProfile profile);
+
+
+    /**
+     * Issues the HTTP request at the rate of the given profile, returning the
+     * aggregated outcome once the test completes. Uses the given proxy, and
+     * provides a security certificate
+     * 
+     * @param request
+     *            the request
+     * @param proxy
+     *            use this proxy
+     * @param keyStoreBean
+     *            the certificate store
+     * @param alias
+     *            the alias of the certificate to use
+     * @param profile
+     *            the rate of the test
+     * @return the aggregated result
+     */
+    LoadResult doRateTest(final Request request, final Proxy proxy,
+            final KeyStoreBean keyStoreBean, final String alias,
+            final RateProfile profile);
+
+
     /**
      * Set the request timeout
      * 
@@ -102,4 +255,42 @@ public interface RequestModel
      */
     int getTimeout();
 
+
+    /**
+     * Set the audit level of requests fired in load and rate tests that are
+     * not sampled
+     * 
+     * @param auditLevel
+     *            the audit level
+     */
+    void setAuditLevel(Auditor.Level auditLevel);
+
+
+    /**
+     * Returns the audit level of requests fired in load and rate tests that
+     * are not sampled
+     * 
+     * @return the audit level
+     */
+    Auditor.Level getAuditLevel();
+
+
+    /**
+     * Set the sampling of requests fired in load and rate tests that are
+     * audited in full
+     * 
+     * @param auditSampling
+     *            every Nth request is audited in full, none if zero
+     */
+    void setAuditSampling(int auditSampling);
+
+
+    /**
+     * Returns the sampling of requests fired in load and rate tests that are
+     * audited in full
+     * 
+     * @return every Nth request is audited in full, none if zero
+     */
+    int getAuditSampling();
+
 }
@@ -12,8 +12,14 @@
  */
 package com.github.technosf.posterer.core.models;
 
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.concurrent.ExecutionException;
 
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.core.utils.Timings;
+
 /**
  * Models the response attributes and actions expected from the HTTP Client
  * 
@@ -58,12 +64,30 @@ public interface ResponseModel
     long getElaspedTimeMilli();
 
 
+    /**
+     * Returns the breakdown of the request/response time into its connection
+     * phases.
+     * 
+     * @return the phase timings
+     */
+    Timings getTimings();
+
+
     /**
      * Return the Response Status line
      * 
      * @return the status line
      */
     String getStatus();
+
+
+    /**
+     * Returns the protocol version negotiated for the response, such as
+     * {@code HTTP/1.1} or {@code HTTP/2}
+     * 
+     * @return the protocol version, empty if there is no response
+     */
+    String getProtocol();
     
     /**
      * Return a digest of the request activity
@@ -97,6 +121,49 @@ public interface ResponseModel
     String getBody();
 
 
+    /**
+     * Returns the size of the Response body.
+     * 
+     * @return the body size in bytes
+     */
+    long getBodySize();
+
+
+    /**
+     * Returns the SHA-256 hash of the Response body.
+     * 
+     * @return the body hash as hex, empty if there is no body
+     */
+    String getBodyHash();
+
+
+    /**
+     * Returns the start of the Response body, without materializing the whole
+     * body.
+     * 
+     * @return the body preview.
+     */
+    String getBodyPreview();
+
+
+    /**
+     * Returns the file the Response body was streamed to, if it was too large
+     * to hold in memory.
+     * 
+     * @return the body file, or null if the body is held in memory
+     */
+    @Nullable
+    Path getBodyFile();
+
+
+    /**
+     * Returns the charset of the Response body.
+     * 
+     * @return the body charset
+     */
+    Charset getBodyCharset();
+
+
     /**
      * Did the server require client authentication to return a response?
      * 
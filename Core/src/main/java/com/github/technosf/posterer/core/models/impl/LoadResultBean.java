@@ -0,0 +1,315 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.models.impl;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.github.technosf.posterer.core.models.LoadResult;
+import com.github.technosf.posterer.core.utils.LatencyRecorder;
+
+/**
+ * Implementation of a {@code LoadResult} that is recorded into as the load
+ * test runs.
+ * <p>
+ * Recording is thread safe. Latencies are recorded without locking, and
+ * accumulated into a histogram as they are read.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class LoadResultBean
+        implements LoadResult
+{
+    private final String profile;
+
+    private final Recorder recorder =
+            new Recorder(LatencyRecorder.SIGNIFICANT_DIGITS);
+
+    private final Histogram latency =
+            new Histogram(LatencyRecorder.SIGNIFICANT_DIGITS);
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger errors = new AtomicInteger();
+
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    private final AtomicInteger late = new AtomicInteger();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final Map<String, Integer> outcomes = new TreeMap<>();
+
+    private volatile long elapsedNanos;
+
+
+    /**
+     * @param profile
+     *            description of the profile the test runs to
+     */
+    public LoadResultBean(final String profile)
+    {
+        this.profile = profile;
+    }
+
+
+    /**
+     * Records a completed response
+     *
+     * @param status
+     *            the response status line
+     * @param bodyBytes
+     *            the response body size
+     * @param latencyNanos
+     *            the response latency
+     */
+    public void recordResponse(final String status, final long bodyBytes,
+            final long latencyNanos)
+    {
+        String code = statusCode(status);
+        record(code, latencyNanos);
+        bytes.addAndGet(bodyBytes);
+        if (code.isEmpty() || code.charAt(0) >= '4')
+        {
+            errors.incrementAndGet();
+        }
+    }
+
+
+    /**
+     * Records a failed call
+     *
+     * @param error
+     *            the failure
+     * @param latencyNanos
+     *            the time to fail
+     */
+    public void recordError(final Throwable error, final long latencyNanos)
+    {
+        record(error.getClass().getSimpleName(), latencyNanos);
+        errors.incrementAndGet();
+    }
+
+
+    /**
+     * Records a send dropped as too many requests were in flight
+     */
+    public void recordDropped()
+    {
+        dropped.incrementAndGet();
+    }
+
+
+    /**
+     * Records a send made late on its intended time
+     */
+    public void recordLate()
+    {
+        late.incrementAndGet();
+    }
+
+
+    /**
+     * Sets the wall clock time of the test
+     *
+     * @param elapsedNanos
+     *            the elapsed time in nanoseconds
+     */
+    public void setElapsedNanos(final long elapsedNanos)
+    {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+
+    /**
+     * Counts the outcome and its latency
+     */
+    private void record(final String outcome, final long latencyNanos)
+    {
+        recorder.recordValue(Math.max(latencyNanos, 0));
+        requests.incrementAndGet();
+        synchronized (outcomes)
+        {
+            outcomes.merge(outcome, 1, Integer::sum);
+        }
+    }
+
+
+    /**
+     * Extracts the status code from a status line such as
+     * {@code HTTP/1.1 200 OK}
+     */
+    private static String statusCode(final String status)
+    {
+        String[] parts = status.trim().split("\\s+");
+        return parts.length > 1 ? parts[1] : "";
+    }
+
+
+    /* ------------- LoadResult Getters ------------------ */
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.LoadResult#getProfile()
+     */
+    @Override
+    public String getProfile()
+    {
+        return profile;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.LoadResult#getRequests()
+     */
+    @Override
+    public int getRequests()
+    {
+        return requests.get();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.LoadResult#getErrors()
+     */
+    @Override
+    public int getErrors()
+    {
+        return errors.get();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.LoadResult#getDropped()
+     */
+    @Override
+    public int getDropped()
+    {
+        return dropped.get();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.LoadResult#getLate()
+     */
+    @Override
+    public int getLate()
+    {
+        return late.get();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.LoadResult#getOutcomes()
+     */
+    @Override
+    public Map<String, Integer> getOutcomes()
+    {
+        synchronized (outcomes)
+        {
+            return Collections.unmodifiableMap(new TreeMap<>(outcomes));
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.LoadResult#getBytes()
+     */
+    @Override
+    public long getBytes()
+    {
+        return bytes.get();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.LoadResult#getElapsedNanos()
+     */
+    @Override
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.LoadResult#getThroughput()
+     */
+    @Override
+    public double getThroughput()
+    {
+        long elapsed = elapsedNanos;
+        return elapsed == 0 ? 0 : requests.get() * 1_000_000_000d / elapsed;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.LoadResult#getLatency()
+     */
+    @Override
+    public Histogram getLatency()
+    {
+        synchronized (latency)
+        {
+            latency.add(recorder.getIntervalHistogram());
+            return latency.copy();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString()
+    {
+        return String.format(Locale.ROOT,
+                "%s: %d requests, %d errors in %.3fs, %.1f req/s, %d bytes\n"
+                        + "Dropped: %d, Late: %d\nOutcomes: %s\nLatency: %s",
+                profile, getRequests(), getErrors(),
+                elapsedNanos / 1_000_000_000d, getThroughput(), getBytes(),
+                getDropped(), getLate(), getOutcomes(),
+                LatencyRecorder.summarize(getLatency()));
+    }
+}
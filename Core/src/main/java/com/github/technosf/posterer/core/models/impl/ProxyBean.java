@@ -20,9 +20,16 @@ import java.util.Objects;
 import org.eclipse.jdt.annotation.Nullable;
 
 import com.github.technosf.posterer.core.models.Proxy;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 /**
  * Implementation of a {@code Proxy} as a java bean.
+ * <p>
+ * A bean is identified, like a {@code RequestBean}, by a cached 128-bit
+ * fingerprint of its fields.
  * 
  * @author technosf
  * @since 0.0.1
@@ -42,9 +49,14 @@ public final class ProxyBean
 
     private String proxyPassword = "";
 
+    private static final HashFunction FINGERPRINT = Hashing.murmur3_128();
+
     // toString precalc
     private final StringBuilder sb = new StringBuilder();
 
+    @Nullable
+    private HashCode fingerprint;
+
 
     /**
      * Default, blank, {@code RequestBean}
@@ -96,6 +108,7 @@ public final class ProxyBean
      */
     private void update()
     {
+        fingerprint = null;
         sb.setLength(0);
         sb.append(proxyHost);
         if (proxyPort.isEmpty())
@@ -222,7 +235,7 @@ public final class ProxyBean
     @Override
     public int hashCode()
     {
-        return hashCode(this);
+        return getFingerprint().asInt();
     }
 
 
@@ -234,10 +247,18 @@ public final class ProxyBean
     @Override
     public boolean equals(@Nullable Object obj)
     {
-        if (obj != null)
+        if (this == obj)
         {
-            return Proxy.class.isInstance(obj)
-                    && hashCode() == hashCode((Proxy) obj);
+            return true;
+        }
+        if (obj instanceof Proxy)
+        {
+            Proxy proxy = (Proxy) obj;
+            return getFingerprint().equals(fingerprint(proxy))
+                    && Objects.equals(proxyHost, proxy.getProxyHost())
+                    && Objects.equals(proxyPort, proxy.getProxyPort())
+                    && Objects.equals(proxyUser, proxy.getProxyUser())
+                    && Objects.equals(proxyPassword, proxy.getProxyPassword());
         }
         return false;
     }
@@ -289,6 +310,23 @@ public final class ProxyBean
     }
 
 
+    /**
+     * Returns the fingerprint of the bean, computing it if it has changed
+     * 
+     * @return the 128-bit fingerprint
+     */
+    public HashCode getFingerprint()
+    {
+        HashCode current = fingerprint;
+        if (current == null)
+        {
+            current = fingerprint(this);
+            fingerprint = current;
+        }
+        return current;
+    }
+
+
     /**
      * Returns a copy of the current bean.
      * 
@@ -353,22 +391,40 @@ public final class ProxyBean
 
 
     /**
-     * Create a hashcode for the {@code Proxy}
+     * Returns the fingerprint of a {@code Proxy}
+     * <p>
+     * The fingerprint is a Murmur3 128-bit hash of the fields, each prefixed
+     * by its length so that field boundaries are kept.
      * 
      * @param proxy
-     * @return
+     *            the proxy
+     * @return the 128-bit fingerprint
      */
-    private static int hashCode(final @Nullable Proxy proxy)
+    public static HashCode fingerprint(final Proxy proxy)
     {
-        if (proxy == null)
+        if (proxy instanceof ProxyBean)
         {
-            return 0;
+            HashCode current = ((ProxyBean) proxy).fingerprint;
+            if (current != null)
+            {
+                return current;
+            }
         }
 
-        return Objects.hash(Objects.toString(proxy.getProxyHost()),
-                Objects.toString(proxy.getProxyPort()),
-                Objects.toString(proxy.getProxyUser()),
-                Objects.toString(proxy.getProxyPassword()));
+        Hasher hasher = FINGERPRINT.newHasher();
+        for (String field : new String[] { proxy.getProxyHost(),
+                proxy.getProxyPort(), proxy.getProxyUser(),
+                proxy.getProxyPassword() })
+        {
+            if (field == null)
+            {
+                hasher.putInt(-1);
+            }
+            else
+            {
+                hasher.putInt(field.length()).putUnencodedChars(field);
+            }
+        }
+        return hasher.hash();
     }
-
 }
@@ -15,9 +15,11 @@ package com.github.technosf.posterer.core.models.impl;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -27,11 +29,24 @@ import org.slf4j.LoggerFactory;
 
 import com.github.technosf.posterer.core.models.HttpHeader;
 import com.github.technosf.posterer.core.models.Request;
+import com.github.technosf.posterer.core.utils.PayloadStore;
 import com.google.common.escape.Escaper;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.xml.XmlEscapers;
 
 /**
  * Implementation of a {@code Request} as a java bean.
+ * <p>
+ * A large payload can be held in a {@code PayloadStore}, the bean keeping
+ * only a reference to it and loading it when it is used.
+ * <p>
+ * A bean is identified by a 128-bit fingerprint of its fields, computed
+ * once after each change. The fingerprint keys saved beans and gives their
+ * hash code; beans are equal if their fingerprints match and, to rule out a
+ * collision, their fields do too.
  * 
  * @author technosf
  * @since 0.0.1
@@ -44,6 +59,8 @@ public final class RequestBean
             .getLogger(RequestBean.class);
 
     private static final Escaper ESCAPER = XmlEscapers.xmlContentEscaper();
+
+    private static final HashFunction FINGERPRINT = Hashing.murmur3_128();
     /*
      * {@code Request} fields
      */
@@ -51,6 +68,11 @@ public final class RequestBean
 
     private String payload;
 
+    /**
+     * The stored payload, if any, in place of {@code payload}
+     */
+    private PayloadStore.@Nullable Reference payloadReference;
+
     private String method;
 
     private String security;
@@ -70,6 +92,9 @@ public final class RequestBean
     /*
      * Session and derived fields
      */
+    @Nullable
+    private HashCode fingerprint;
+
     @Nullable
     private URI uri;
 
@@ -100,7 +125,9 @@ public final class RequestBean
     public RequestBean(Request request)
     {
         this(	request.getEndpoint(),
-                request.getPayload(),
+                request instanceof RequestBean
+                        ? ((RequestBean) request).payload
+                        : request.getPayload(),
                 request.getMethod(),
                 request.getSecurity(),
                 request.getContentType(),
@@ -109,6 +136,14 @@ public final class RequestBean
                 request.getAuthenticate(),
                 request.getUsername(),
                 request.getPassword());
+
+        if (request instanceof RequestBean)
+        /*
+         * Share a stored payload rather than load it
+         */
+        {
+            this.payloadReference = ((RequestBean) request).payloadReference;
+        }
     }
 
 
@@ -197,6 +232,7 @@ public final class RequestBean
     {
         this.endpoint = endpoint;
         this.uri = constructUri(endpoint);
+        this.fingerprint = null;
     }
 
 
@@ -208,7 +244,7 @@ public final class RequestBean
     @Override
     public String getPayload()
     {
-        return ESCAPER.escape(payload);
+        return ESCAPER.escape(getPayloadRaw());
     }
 
 
@@ -217,7 +253,8 @@ public final class RequestBean
      */
     public String getPayloadRaw()
     {
-        return payload;
+        PayloadStore.@Nullable Reference reference = payloadReference;
+        return reference == null ? payload : reference.load();
     }
 
 
@@ -228,6 +265,57 @@ public final class RequestBean
     public void setPayload(String payload)
     {
         this.payload = payload;
+        this.payloadReference = null;
+        this.fingerprint = null;
+    }
+
+
+    /**
+     * Returns the reference to the stored payload
+     * 
+     * @return the reference, or null if the payload is held in the bean
+     */
+    public PayloadStore.@Nullable Reference getPayloadReference()
+    {
+        return payloadReference;
+    }
+
+
+    /**
+     * Sets the payload to a stored payload, to be loaded when used
+     * 
+     * @param reference
+     *            the stored payload reference
+     */
+    public void setPayload(PayloadStore.Reference reference)
+    {
+        this.payload = "";
+        this.payloadReference = reference;
+        this.fingerprint = null;
+    }
+
+
+    /**
+     * Moves the payload into the store, keeping a reference to it
+     * 
+     * @param store
+     *            the payload store
+     * @return the stored payload reference
+     * @throws IOException
+     *             the payload could not be stored
+     */
+    public PayloadStore.Reference storePayload(PayloadStore store)
+            throws IOException
+    {
+        PayloadStore.@Nullable Reference reference = payloadReference;
+        if (reference == null)
+        {
+            reference = new PayloadStore.Reference(store,
+                    store.put(payload), payloadHash(payload));
+            this.payload = "";
+            this.payloadReference = reference;
+        }
+        return reference;
     }
 
 
@@ -238,6 +326,7 @@ public final class RequestBean
     public void setMethod(String method)
     {
         this.method = method;
+        this.fingerprint = null;
     }
 
 
@@ -260,6 +349,7 @@ public final class RequestBean
     public void setSecurity(String security)
     {
         this.security = security;
+        this.fingerprint = null;
     }
 
 
@@ -294,6 +384,7 @@ public final class RequestBean
     public void setContentType(String contentType)
     {
         this.contentType = contentType;
+        this.fingerprint = null;
     }
 
 
@@ -315,6 +406,7 @@ public final class RequestBean
     public void setBase64(boolean base64)
     {
         this.base64 = base64;
+        this.fingerprint = null;
     }
 
 
@@ -324,7 +416,7 @@ public final class RequestBean
     @Override
     public List<HttpHeader> getHeaders()
     {
-        return headers;
+        return Collections.unmodifiableList(headers);
     }
 
     /**
@@ -336,6 +428,7 @@ public final class RequestBean
     {
     	this.headers.clear();
     	this.headers.addAll(headers);
+    	this.fingerprint = null;
     }
 
 
@@ -354,6 +447,7 @@ public final class RequestBean
     public void setAuthenticate(boolean authenticate)
     {
         this.authenticateFlag = authenticate;
+        this.fingerprint = null;
     }
 
 	/* (non-Javadoc)
@@ -371,6 +465,7 @@ public final class RequestBean
     public void setUsername(String username)
     {
         this.username = username;
+        this.fingerprint = null;
     }
 
 	/* (non-Javadoc)
@@ -388,6 +483,7 @@ public final class RequestBean
     public void setPassword(String password)
     {
         this.password = password;
+        this.fingerprint = null;
     }
     
     /* ------------------  Object functions  ------------------------ */
@@ -400,7 +496,7 @@ public final class RequestBean
     @Override
     public int hashCode()
     {
-        return hashCode(this);
+        return getFingerprint().asInt();
     }
 
 
@@ -412,10 +508,14 @@ public final class RequestBean
     @Override
     public boolean equals(@Nullable Object obj)
     {
-        if (obj != null)
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj instanceof Request)
         {
-            return Request.class.isInstance(obj)
-                    && hashCode() == hashCode((Request) obj);
+            return getFingerprint().equals(fingerprint((Request) obj))
+                    && sameFields(this, (Request) obj);
         }
         return false;
     }
@@ -423,6 +523,23 @@ public final class RequestBean
 
     /* ----------------  Helpers  ---------------------- */
 
+    /**
+     * Returns the fingerprint of the bean, computing it if it has changed
+     * 
+     * @return the 128-bit fingerprint
+     */
+    public HashCode getFingerprint()
+    {
+        HashCode current = fingerprint;
+        if (current == null)
+        {
+            current = fingerprint(this);
+            fingerprint = current;
+        }
+        return current;
+    }
+
+
     /**
      * Returns a copy of the current bean.
      * 
@@ -454,7 +571,7 @@ public final class RequestBean
     public final String toString()
     {
         return String.format("%1$s\n%2$s\n%3$s\n%4$s\n%5$s\n%6$s",
-                hashCode(this), getEndpoint(),
+                hashCode(), getEndpoint(),
                 //request.getPayload(),
                 getMethod(),
                 getSecurity(),
@@ -513,29 +630,153 @@ public final class RequestBean
 
 
     /**
-     * Create a hashcode for the {@code Request}
+     * Returns the fingerprint of a {@code Request}
+     * <p>
+     * The fingerprint is a Murmur3 128-bit hash of the raw fields, each
+     * string prefixed by its length so that field boundaries are kept. A
+     * stored payload is hashed by its reference, without loading it.
      * 
      * @param request
-     * @return
+     *            the request
+     * @return the 128-bit fingerprint
      */
-    private static int hashCode(final @Nullable Request request)
+    public static HashCode fingerprint(final Request request)
     {
-        if (request == null)
+        if (request instanceof RequestBean)
         {
-            return 0;
+            RequestBean bean = (RequestBean) request;
+            HashCode current = bean.fingerprint;
+            if (current != null)
+            {
+                return current;
+            }
         }
 
-        return Objects.hash(
-                Objects.toString(request.getEndpoint()),
-                Objects.toString(request.getPayload()),
-                Objects.toString(request.getMethod()),
-                Objects.toString(request.getSecurity()),
-                Objects.toString(request.getContentType()),
-                Objects.toString(request.getBase64()),
-                Objects.toString(request.getHeaders()),
-                Objects.toString(request.getAuthenticate()),
-                Objects.toString(request.getUsername()),
-                Objects.toString(request.getPassword()));
+        Hasher hasher = FINGERPRINT.newHasher();
+        putString(hasher, request.getEndpoint());
+        hasher.putBytes(payloadHash(request).asBytes());
+        putString(hasher, request.getMethod());
+        putString(hasher, request.getSecurity());
+        putString(hasher, request.getContentType());
+        hasher.putBoolean(Boolean.TRUE.equals(request.getBase64()));
+        List<HttpHeader> headers = request.getHeaders();
+        hasher.putInt(headers == null ? -1 : headers.size());
+        if (headers != null)
+        {
+            for (HttpHeader header : headers)
+            {
+                putString(hasher, header.getName());
+                putString(hasher, header.getValue());
+            }
+        }
+        hasher.putBoolean(Boolean.TRUE.equals(request.getAuthenticate()));
+        putString(hasher, request.getUsername());
+        putString(hasher, request.getPassword());
+        return hasher.hash();
+    }
+
+
+    /**
+     * Adds a possibly null string to a fingerprint
+     */
+    private static void putString(final Hasher hasher,
+            final @Nullable String value)
+    {
+        if (value == null)
+        {
+            hasher.putInt(-1);
+        }
+        else
+        {
+            hasher.putInt(value.length()).putUnencodedChars(value);
+        }
+    }
+
+
+    /**
+     * Returns the hash of the raw payload of a {@code Request}
+     */
+    private static HashCode payloadHash(final Request request)
+    {
+        if (request instanceof RequestBean)
+        {
+            RequestBean bean = (RequestBean) request;
+            PayloadStore.@Nullable Reference reference = bean.payloadReference;
+            return reference == null ? payloadHash(bean.payload)
+                    : reference.getHash();
+        }
+        return payloadHash(Objects.toString(request.getPayload()));
+    }
+
+
+    /**
+     * Returns the hash of a raw payload
+     */
+    private static HashCode payloadHash(final String payload)
+    {
+        return FINGERPRINT.hashUnencodedChars(payload);
+    }
+
+
+    /**
+     * Compares the fields of a bean and a {@code Request}, once their
+     * fingerprints match
+     * <p>
+     * Stored payloads with the same content key are equal unloaded.
+     */
+    private static boolean sameFields(final RequestBean bean,
+            final Request request)
+    {
+        if (!(Objects.equals(bean.endpoint, request.getEndpoint())
+                && Objects.equals(bean.method, request.getMethod())
+                && Objects.equals(bean.security, request.getSecurity())
+                && Objects.equals(bean.contentType, request.getContentType())
+                && bean.base64 == Boolean.TRUE.equals(request.getBase64())
+                && bean.authenticateFlag == Boolean.TRUE
+                        .equals(request.getAuthenticate())
+                && Objects.equals(bean.username, request.getUsername())
+                && Objects.equals(bean.password, request.getPassword())
+                && sameHeaders(bean.headers, request.getHeaders())))
+        {
+            return false;
+        }
+
+        if (request instanceof RequestBean)
+        {
+            RequestBean other = (RequestBean) request;
+            PayloadStore.@Nullable Reference mine = bean.payloadReference;
+            PayloadStore.@Nullable Reference theirs = other.payloadReference;
+            if (mine != null && theirs != null)
+            {
+                return mine.getKey().equals(theirs.getKey());
+            }
+            return bean.getPayloadRaw().equals(other.getPayloadRaw());
+        }
+        return bean.getPayloadRaw().equals(request.getPayload());
+    }
+
+
+    /**
+     * Compares header names and values, in order
+     */
+    private static boolean sameHeaders(final List<HttpHeader> headers,
+            final @Nullable List<HttpHeader> others)
+    {
+        if (others == null || headers.size() != others.size())
+        {
+            return false;
+        }
+        for (int i = 0; i < headers.size(); i++)
+        {
+            if (!Objects.equals(headers.get(i).getName(),
+                    others.get(i).getName())
+                    || !Objects.equals(headers.get(i).getValue(),
+                            others.get(i).getValue()))
+            {
+                return false;
+            }
+        }
+        return true;
     }
 
 
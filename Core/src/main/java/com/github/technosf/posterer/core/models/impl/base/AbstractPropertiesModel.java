@@ -26,6 +26,10 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.io.FilenameUtils;
 import org.eclipse.jdt.annotation.Nullable;
@@ -33,11 +37,19 @@ import org.eclipse.jdt.annotation.Nullable;
 import com.github.technosf.posterer.core.models.Properties;
 import com.github.technosf.posterer.core.models.Proxy;
 import com.github.technosf.posterer.core.models.Request;
+import com.github.technosf.posterer.core.models.StatusModel;
+import com.github.technosf.posterer.core.models.impl.ProxyBean;
 import com.github.technosf.posterer.core.models.impl.RequestBean;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Abstract implementation of basic {@code PreferencesModel} methods based
  * on using local files
+ * <p>
+ * Changes are saved on a dedicated I/O thread a short window after they are
+ * made, so that a burst of changes is saved once and callers never wait on
+ * the disk.
  * 
  * @author technosf
  * @since 0.0.1
@@ -52,6 +64,20 @@ public abstract class AbstractPropertiesModel
      */
     private static final String PROP_USER_HOME = "user.home";
 
+    /**
+     * Default window in milliseconds within which changes are saved together
+     */
+    public static final long DEFAULT_SAVE_DELAY_MILLIS = 500;
+
+    /**
+     * Saves properties in the background
+     */
+    private static final ScheduledExecutorService SAVER =
+            Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("posterer-properties-io-%d")
+                            .setDaemon(true).build());
+
     /**
      * Generated properties directory path
      */
@@ -73,9 +99,9 @@ public abstract class AbstractPropertiesModel
     protected final File propsFile;
 
     /**
-     * RequestBean map
+     * RequestBean map, by fingerprint
      */
-    private final Map<Integer, Request> requestProperties =
+    private final Map<HashCode, Request> requestProperties =
             new HashMap<>();
 
     /**
@@ -84,9 +110,9 @@ public abstract class AbstractPropertiesModel
     private final Set<String> keystoreProperties = new TreeSet<>();
 
     /**
-     * ProxiesBean map
+     * ProxiesBean map, by fingerprint
      */
-    private final Map<Integer, Proxy> proxyProperties =
+    private final Map<HashCode, Proxy> proxyProperties =
             new HashMap<>();
 
     /**
@@ -98,7 +124,32 @@ public abstract class AbstractPropertiesModel
     /*
      * Is the properties config dirty and need saving to disk?
      */
-    boolean dirty = false;
+    volatile boolean dirty = false;
+
+    /**
+     * Serializes saves, apart from the model monitor that changes take
+     */
+    private final Object saveLock = new Object();
+
+    /**
+     * Is a background save scheduled?
+     */
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+    /**
+     * Window within which changes are saved together
+     */
+    private volatile long saveDelayMillis = DEFAULT_SAVE_DELAY_MILLIS;
+
+    /**
+     * Latency of the last save in nanoseconds, -1 if none
+     */
+    private volatile long lastSaveNanos = -1;
+
+    /**
+     * Where saves are reported
+     */
+    private volatile @Nullable StatusModel status;
 
 
     /**
@@ -222,7 +273,8 @@ public abstract class AbstractPropertiesModel
             Request pdi = new RequestBean(request);
 
             if (pdi.isActionable()
-                    && (requestProperties.remove(pdi.hashCode()) != null)) // Check and remove the properties
+                    && (requestProperties
+                            .remove(RequestBean.fingerprint(pdi)) != null)) // Check and remove the properties
             {
                 return erase(pdi);
             }
@@ -238,14 +290,130 @@ public abstract class AbstractPropertiesModel
      * @see com.github.technosf.posterer.models.Properties#save()
      */
     @Override
-    public final synchronized boolean save()
+    public final boolean save()
     {
-        if (dirty && write())
+        synchronized (saveLock)
         {
-            dirty = false;
-            return true;
+            return saveDirty();
         }
-        return false;
+    }
+
+
+    /**
+     * Writes the properties if dirty, with the save lock held, so a change
+     * made on the UI thread meanwhile does not wait on the write
+     *
+     * @return true if written
+     */
+    private boolean saveDirty()
+    {
+        if (!dirty)
+        {
+            return false;
+        }
+
+        /*
+         * Clear first, so changes made while writing are saved next time
+         */
+        dirty = false;
+        long start = System.nanoTime();
+        boolean written;
+        String failure = "write failed";
+        try
+        {
+            written = write();
+        }
+        catch (RuntimeException e)
+        {
+            written = false;
+            failure = String.valueOf(e.getMessage());
+        }
+
+        StatusModel statusModel = status;
+        if (written)
+        {
+            lastSaveNanos = System.nanoTime() - start;
+            if (statusModel != null)
+            {
+                statusModel.append("Properties saved in %1$.1fms",
+                        lastSaveNanos / 1_000_000d);
+            }
+        }
+        else
+        {
+            dirty = true;
+            if (statusModel != null)
+            {
+                statusModel.append("Properties could not be saved: %1$s",
+                        failure);
+            }
+        }
+        return written;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.Properties#saveLater()
+     */
+    @Override
+    public final void saveLater()
+    {
+        if (saveScheduled.compareAndSet(false, true))
+        {
+            SAVER.schedule(() -> {
+                saveScheduled.set(false);
+                save();
+            }, saveDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.Properties#flush()
+     */
+    @Override
+    public final boolean flush()
+    {
+        return save() || !dirty;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.Properties#setStatusModel(com.github.technosf.posterer.core.models.StatusModel)
+     */
+    @Override
+    public final void setStatusModel(final @Nullable StatusModel status)
+    {
+        this.status = status;
+    }
+
+
+    /**
+     * Sets the window within which changes are saved together
+     *
+     * @param saveDelayMillis
+     *            the window in milliseconds
+     */
+    public final void setSaveDelayMillis(final long saveDelayMillis)
+    {
+        this.saveDelayMillis = saveDelayMillis;
+    }
+
+
+    /**
+     * Returns the latency of the last save
+     *
+     * @return the latency in nanoseconds, or -1 if not yet saved
+     */
+    public final long getLastSaveNanos()
+    {
+        return lastSaveNanos;
     }
 
 
@@ -271,7 +439,6 @@ public abstract class AbstractPropertiesModel
                 filepath =  keyStoreFile.getCanonicalPath();
                 result = !keystoreProperties.contains(filepath);
                 addKeystore(filepath);
-                save();
             }
         }
         catch (IOException e)
@@ -362,8 +529,8 @@ public abstract class AbstractPropertiesModel
      */
     protected final boolean putIfAbsent(Request requestBean)
     {
-        return null == requestProperties.putIfAbsent(requestBean.hashCode(),
-                requestBean);
+        return null == requestProperties.putIfAbsent(
+                RequestBean.fingerprint(requestBean), requestBean);
     }
 
 
@@ -373,8 +540,8 @@ public abstract class AbstractPropertiesModel
      */
     protected final boolean putIfAbsent(Proxy proxyBean)
     {
-        return null == proxyProperties.putIfAbsent(proxyBean.hashCode(),
-                proxyBean);
+        return null == proxyProperties.putIfAbsent(
+                ProxyBean.fingerprint(proxyBean), proxyBean);
     }
 
 
@@ -389,11 +556,12 @@ public abstract class AbstractPropertiesModel
 
 
     /**
-     * Sets the dirty flag
+     * Sets the dirty flag, and schedules a background save
      */
     protected final void dirty()
     {
         dirty = true;
+        saveLater();
     }
 
 
@@ -408,7 +576,10 @@ public abstract class AbstractPropertiesModel
 
     /**
      * Add an endpoint to the current endpoint map
-     * 
+     * <p>
+     * The map is derived from the saved requests and is not itself saved, so
+     * adding to it does not dirty the properties.
+     *
      * @param endpoint
      */
     protected final synchronized void addEndpoint(final String endpoint)
@@ -416,7 +587,6 @@ public abstract class AbstractPropertiesModel
         int endpointCount =
                 (endpoints.containsKey(endpoint) ? endpoints.get(endpoint) : 0);
         endpoints.put(endpoint, ++endpointCount);
-        dirty();
     }
 
 
@@ -13,12 +13,32 @@
  */
 package com.github.technosf.posterer.core.models.impl.base;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.technosf.posterer.core.models.LoadProfile;
+import com.github.technosf.posterer.core.models.LoadResult;
 import com.github.technosf.posterer.core.models.Proxy;
+import com.github.technosf.posterer.core.models.RateProfile;
 import com.github.technosf.posterer.core.models.Request;
 import com.github.technosf.posterer.core.models.RequestModel;
 import com.github.technosf.posterer.core.models.ResponseModel;
 import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
+import com.github.technosf.posterer.core.models.impl.LoadResultBean;
 import com.github.technosf.posterer.core.utils.Auditor;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Abstract implementation of base {@code RequestModel} functions
@@ -36,6 +56,16 @@ import com.github.technosf.posterer.core.utils.Auditor;
 public abstract class AbstractRequestModel<T extends ResponseModel>
         implements RequestModel
 {
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory
+            .getLogger(AbstractRequestModel.class);
+
+    /**
+     * How late on its intended time a send may be before it is counted late
+     */
+    private static final long LATE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
 
     /**
      * Request counter
@@ -47,6 +77,16 @@ public abstract class AbstractRequestModel<T extends ResponseModel>
      */
     protected int timeout = 30;
 
+    /*
+     * Audit level of unsampled load and rate test requests
+     */
+    protected volatile Auditor.Level auditLevel = Auditor.Level.SUMMARY;
+
+    /*
+     * Every Nth load and rate test request is audited in full
+     */
+    protected volatile int auditSampling = 100;
+
 
     /**
      * {@inheritDoc}
@@ -56,7 +96,7 @@ public abstract class AbstractRequestModel<T extends ResponseModel>
     @Override
     public ResponseModel doRequest(final Request request)
     {
-        return createRequest(++requestId, new Auditor(), timeout, request);
+        return createRequest(nextRequestId(), new Auditor(), timeout, request);
     }
 
 
@@ -69,7 +109,7 @@ public abstract class AbstractRequestModel<T extends ResponseModel>
     @Override
     public ResponseModel doRequest(final Request request, final Proxy proxy)
     {
-        return createRequest(++requestId, new Auditor(), timeout, request,
+        return createRequest(nextRequestId(), new Auditor(), timeout, request,
                 proxy);
     }
 
@@ -85,7 +125,7 @@ public abstract class AbstractRequestModel<T extends ResponseModel>
     public ResponseModel doRequest(final Request request,
             final KeyStoreBean keyStoreBean, final String alias)
     {
-        return createRequest(++requestId, new Auditor(), timeout, request,
+        return createRequest(nextRequestId(), new Auditor(), timeout, request,
                 keyStoreBean, alias);
     }
 
@@ -102,12 +142,475 @@ public abstract class AbstractRequestModel<T extends ResponseModel>
     public ResponseModel doRequest(final Request request, final Proxy proxy,
             final KeyStoreBean keyStoreBean, final String alias)
     {
-        return createRequest(++requestId, new Auditor(), timeout, request,
+        return createRequest(nextRequestId(), new Auditor(), timeout, request,
                 proxy,
                 keyStoreBean, alias);
     }
 
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.RequestModel#doLoadTest(com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.LoadProfile)
+     */
+    @Override
+    public LoadResult doLoadTest(final Request request,
+            final LoadProfile profile)
+    {
+        int callTimeout = timeout;
+        IntFunction<Auditor> auditors = auditors();
+        return runLoad(profile, id -> createRequest(id, auditors.apply(id),
+                callTimeout, request));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.RequestModel#doLoadTest(com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.Proxy,
+     *      com.github.technosf.posterer.core.models.LoadProfile)
+     */
+    @Override
+    public LoadResult doLoadTest(final Request request, final Proxy proxy,
+            final LoadProfile profile)
+    {
+        int callTimeout = timeout;
+        IntFunction<Auditor> auditors = auditors();
+        return runLoad(profile, id -> createRequest(id, auditors.apply(id),
+                callTimeout, request, proxy));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.RequestModel#doLoadTest(com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.impl.KeyStoreBean,
+     *      java.lang.String,
+     *      com.github.technosf.posterer.core.models.LoadProfile)
+     */
+    @Override
+    public LoadResult doLoadTest(final Request request,
+            final KeyStoreBean keyStoreBean, final String alias,
+            final LoadProfile profile)
+    {
+        int callTimeout = timeout;
+        IntFunction<Auditor> auditors = auditors();
+        return runLoad(profile, id -> createRequest(id, auditors.apply(id),
+                callTimeout, request, keyStoreBean, alias));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.RequestModel#doLoadTest(com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.Proxy,
+     *      com.github.technosf.posterer.core.models.impl.KeyStoreBean,
+     *      java.lang.String,
+     *      com.github.technosf.posterer.core.models.LoadProfile)
+     */
+    @Override
+    public LoadResult doLoadTest(final Request request, final Proxy proxy,
+            final KeyStoreBean keyStoreBean, final String alias,
+            final LoadProfile profile)
+    {
+        int callTimeout = timeout;
+        IntFunction<Auditor> auditors = auditors();
+        return runLoad(profile, id -> createRequest(id, auditors.apply(id),
+                callTimeout, request, proxy, keyStoreBean, alias));
+    }
+
+
+    /**
+     * Runs a load test, each of the profile's concurrent workers creating
+     * and executing responses back to back until the count or duration is
+     * reached.
+     * 
+     * @param profile
+     *            the load profile
+     * @param factory
+     *            creates the response for a request id
+     * @return the aggregated result
+     */
+    protected LoadResult runLoad(final LoadProfile profile,
+            final IntFunction<T> factory)
+    {
+        LoadResultBean result = new LoadResultBean(profile.toString());
+        AtomicInteger issued = new AtomicInteger();
+        long start = System.nanoTime();
+        long deadline =
+                start + TimeUnit.MILLISECONDS.toNanos(profile.getDurationMillis());
+
+        ExecutorService workers =
+                Executors.newFixedThreadPool(profile.getConcurrency(),
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("posterer-load-%d")
+                                .setDaemon(true).build());
+
+        Runnable worker = () -> {
+            while (!Thread.currentThread().isInterrupted()
+                    && (profile.getCount() > 0
+                            ? issued.getAndIncrement() < profile.getCount()
+                            : System.nanoTime() < deadline))
+            {
+                fire(factory.apply(nextRequestId()), System.nanoTime(),
+                        result);
+            }
+        };
+
+        for (int i = 0; i < profile.getConcurrency(); i++)
+        {
+            workers.execute(worker);
+        }
+        workers.shutdown();
+
+        try
+        {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            LOG.debug("Load test interrupted");
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.RequestModel#doRateTest(com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.RateProfile)
+     */
+    @Override
+    public LoadResult doRateTest(final Request request,
+            final RateProfile profile)
+    {
+        int callTimeout = timeout;
+        IntFunction<Auditor> auditors = auditors();
+        return runRate(profile, id -> createRequest(id, auditors.apply(id),
+                callTimeout, request));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.RequestModel#doRateTest(com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.Proxy,
+     *      com.github.technosf.posterer.core.models.RateProfile)
+     */
+    @Override
+    public LoadResult doRateTest(final Request request, final Proxy proxy,
+            final RateProfile profile)
+    {
+        int callTimeout = timeout;
+        IntFunction<Auditor> auditors = auditors();
+        return runRate(profile, id -> createRequest(id, auditors.apply(id),
+                callTimeout, request, proxy));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.RequestModel#doRateTest(com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.impl.KeyStoreBean,
+     *      java.lang.String,
+     *      com.github.technosf.posterer.core.models.RateProfile)
+     */
+    @Override
+    public LoadResult doRateTest(final Request request,
+            final KeyStoreBean keyStoreBean, final String alias,
+            final RateProfile profile)
+    {
+        int callTimeout = timeout;
+        IntFunction<Auditor> auditors = auditors();
+        return runRate(profile, id -> createRequest(id, auditors.apply(id),
+                callTimeout, request, keyStoreBean, alias));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.RequestModel#doRateTest(com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.Proxy,
+     *      com.github.technosf.posterer.core.models.impl.KeyStoreBean,
+     *      java.lang.String,
+     *      com.github.technosf.posterer.core.models.RateProfile)
+     */
+    @Override
+    public LoadResult doRateTest(final Request request, final Proxy proxy,
+            final KeyStoreBean keyStoreBean, final String alias,
+            final RateProfile profile)
+    {
+        int callTimeout = timeout;
+        IntFunction<Auditor> auditors = auditors();
+        return runRate(profile, id -> createRequest(id, auditors.apply(id),
+                callTimeout, request, proxy, keyStoreBean, alias));
+    }
+
+
+    /**
+     * Runs an open model load test, issuing responses on a schedule set by
+     * the profile's rate whether or not earlier responses have completed.
+     * <p>
+     * Each response's latency is measured from its intended send time, so
+     * that a stalled server or scheduler shows in the latency rather than
+     * silently lowering the offered load. A send due while the maximum
+     * requests are in flight is dropped; one made late on its time is
+     * counted late.
+     * 
+     * @param profile
+     *            the rate profile
+     * @param factory
+     *            creates the response for a request id
+     * @return the aggregated result
+     */
+    protected LoadResult runRate(final RateProfile profile,
+            final IntFunction<T> factory)
+    {
+        LoadResultBean result = new LoadResultBean(profile.toString());
+        Semaphore inFlight = new Semaphore(profile.getMaxInFlight());
+
+        ExecutorService senders =
+                Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                        .setNameFormat("posterer-rate-%d")
+                        .setDaemon(true).build());
+
+        long start = System.nanoTime();
+        long end = start + profile.getDurationNanos();
+        long intended = start;
+
+        try
+        {
+            while (intended < end)
+            {
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0)
+                {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.interrupted())
+                    {
+                        throw new InterruptedException();
+                    }
+                }
+
+                if (inFlight.tryAcquire())
+                {
+                    long sendAt = intended;
+                    if (System.nanoTime() - sendAt > LATE_NANOS)
+                    {
+                        result.recordLate();
+                    }
+                    dispatch(factory.apply(nextRequestId()), senders)
+                            .whenComplete((value, failure) -> {
+                                long latency = System.nanoTime() - sendAt;
+                                try
+                                {
+                                    record(value, failure, latency, result);
+                                }
+                                finally
+                                {
+                                    inFlight.release();
+                                }
+                            });
+                }
+                else
+                {
+                    result.recordDropped();
+                }
+
+                /*
+                 * Advance at least a nanosecond, and no further than the end
+                 */
+                long interval = (long) (TimeUnit.SECONDS.toNanos(1)
+                        / profile.getRateAt(intended - start));
+                intended += Math.min(Math.max(interval, 1), end - intended);
+            }
+
+            /*
+             * Wait for the requests in flight to complete
+             */
+            inFlight.acquire(profile.getMaxInFlight());
+            senders.shutdown();
+        }
+        catch (InterruptedException e)
+        {
+            LOG.debug("Rate test interrupted");
+            senders.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+
+    /**
+     * Executes a response and records its outcome, with its latency measured
+     * from the given time
+     * 
+     * @param response
+     *            the response to execute
+     * @param fromNanos
+     *            the {@code System.nanoTime()} latency is measured from
+     * @param result
+     *            the result to record to
+     */
+    private void fire(final T response, final long fromNanos,
+            final LoadResultBean result)
+    {
+        Throwable failure = null;
+        try
+        {
+            execute(response);
+        }
+        catch (Exception e)
+        {
+            failure = e;
+        }
+        record(response, failure, System.nanoTime() - fromNanos, result);
+    }
+
+
+    /**
+     * Records the outcome of a response and releases it
+     * 
+     * @param response
+     *            the response, if it was created
+     * @param failure
+     *            the failure of the response, if it failed
+     * @param latencyNanos
+     *            the response latency
+     * @param result
+     *            the result to record to
+     */
+    private void record(final @Nullable T response,
+            final @Nullable Throwable failure, final long latencyNanos,
+            final LoadResultBean result)
+    {
+        try
+        {
+            if (failure != null || response == null)
+            {
+                Throwable cause = failure;
+                if (cause instanceof CompletionException
+                        && cause.getCause() != null)
+                {
+                    cause = cause.getCause();
+                }
+                result.recordError(cause == null
+                        ? new IllegalStateException("No response") : cause,
+                        latencyNanos);
+            }
+            else
+            {
+                result.recordResponse(response.getStatus(),
+                        response.getBodySize(), latencyNanos);
+            }
+        }
+        finally
+        {
+            if (response != null)
+            {
+                release(response);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the auditor factory for a load or rate test, auditing the
+     * sampled requests in full and the others to the audit level
+     * 
+     * @return creates the auditor for a request id
+     */
+    protected IntFunction<Auditor> auditors()
+    {
+        Auditor.Level level = auditLevel;
+        int sampling = auditSampling;
+        return id -> sampling > 0 && id % sampling == 0 ? new Auditor()
+                : new Auditor(level);
+    }
+
+
+    /**
+     * Returns the next request id
+     * 
+     * @return the request id
+     */
+    protected static synchronized int nextRequestId()
+    {
+        return ++requestId;
+    }
+
+
+    /**
+     * Executes the request and processes its response on the calling thread,
+     * outside of any UI life cycle.
+     * 
+     * @param response
+     *            the response to execute
+     * @throws Exception
+     *             the call failed
+     */
+    protected abstract void execute(T response) throws Exception;
+
+
+    /**
+     * Sends a response without waiting for it, for the open model.
+     * <p>
+     * By default the response is executed on one of the given threads;
+     * transports that complete calls on their own I/O threads override this
+     * to send without holding a thread per request.
+     * 
+     * @param response
+     *            the response to send
+     * @param executor
+     *            threads available to execute the response on
+     * @return future completing with the processed response, a response
+     *         that fails being released before its future completes
+     */
+    protected CompletableFuture<T> dispatch(final T response,
+            final Executor executor)
+    {
+        return CompletableFuture.supplyAsync(() -> {
+            try
+            {
+                execute(response);
+                return response;
+            }
+            catch (Exception e)
+            {
+                release(response);
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+
+    /**
+     * Releases resources held by an executed response once its outcome is
+     * recorded.
+     * 
+     * @param response
+     *            the response to release
+     */
+    protected void release(T response)
+    {
+        // Nothing to release by default
+    }
+
+
     /**
      * Create a request and produce a response
      * 
@@ -211,4 +714,52 @@ public abstract class AbstractRequestModel<T extends ResponseModel>
         return timeout;
     }
 
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.RequestModel#setAuditLevel(com.github.technosf.posterer.core.utils.Auditor.Level)
+     */
+    @Override
+    public final void setAuditLevel(Auditor.Level auditLevel)
+    {
+        this.auditLevel = auditLevel;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.RequestModel#getAuditLevel()
+     */
+    @Override
+    public final Auditor.Level getAuditLevel()
+    {
+        return auditLevel;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.RequestModel#setAuditSampling(int)
+     */
+    @Override
+    public final void setAuditSampling(int auditSampling)
+    {
+        this.auditSampling = auditSampling;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.RequestModel#getAuditSampling()
+     */
+    @Override
+    public final int getAuditSampling()
+    {
+        return auditSampling;
+    }
+
 }
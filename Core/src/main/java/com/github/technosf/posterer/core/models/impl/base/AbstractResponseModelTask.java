@@ -13,11 +13,22 @@
  */
 package com.github.technosf.posterer.core.models.impl.base;
 
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.eclipse.jdt.annotation.Nullable;
 
 import com.github.technosf.posterer.core.models.Request;
 import com.github.technosf.posterer.core.models.ResponseModel;
+import com.github.technosf.posterer.core.models.impl.RequestBean;
 import com.github.technosf.posterer.core.utils.Auditor;
+import com.github.technosf.posterer.core.utils.BodySink;
+import com.github.technosf.posterer.core.utils.LatencyRecorder;
+import com.github.technosf.posterer.core.utils.RequestEvents;
+import com.github.technosf.posterer.core.utils.Timings;
 
 import javafx.concurrent.Task;
 
@@ -27,6 +38,11 @@ import javafx.concurrent.Task;
  * <p>
  * Specific implementation of the request/response calls is left for the
  * concrete class.
+ * <p>
+ * The latency of each call is recorded by endpoint, method and status class
+ * to the default {@code LatencyRecorder} as the call completes, and the
+ * preparation and execution of the call are recorded as flight recorder
+ * {@code RequestEvents}.
  * 
  * @author technosf
  * @since 0.0.1
@@ -54,6 +70,11 @@ public abstract class AbstractResponseModelTask<T>
      */
     protected @Nullable String status;
 
+    /**
+     * The negotiated protocol version
+     */
+    protected @Nullable String protocol;
+
     /**
      * The response headers
      */
@@ -64,6 +85,11 @@ public abstract class AbstractResponseModelTask<T>
      */
     protected @Nullable String responseBody;
 
+    /**
+     * The streamed response body, superseding {@code responseBody}
+     */
+    protected @Nullable BodySink responseBodySink;
+
     /**
      * The response
      */
@@ -79,10 +105,35 @@ public abstract class AbstractResponseModelTask<T>
      */
     protected int timeout;
 
+    /**
+     * The call phase timings
+     */
+    protected final Timings timings = new Timings();
+
+    /**
+     * The value returned by the call
+     */
+    private volatile @Nullable T callValue;
+
     /**
      * the call elapsed time in millis
      */
-    private long elapsedTimeMilli;
+    private volatile long elapsedTimeMilli;
+
+    /**
+     * The call start time stamp
+     */
+    private volatile long callStartNanos;
+
+    /**
+     * The flight recorder event of the call
+     */
+    private volatile RequestEvents.@Nullable Stage executeEvent;
+
+    /**
+     * Has the call begun and not yet ended?
+     */
+    private final AtomicBoolean callOpen = new AtomicBoolean();
 
 
     /**
@@ -148,6 +199,20 @@ public abstract class AbstractResponseModelTask<T>
     protected abstract void closeClient();
 
 
+    /**
+     * Returns the status code of the value returned by the call, for
+     * implementations that can read it before the response is processed
+     * 
+     * @param value
+     *            the call value
+     * @return the status code, zero if not known
+     */
+    protected int getStatusCode(final T value)
+    {
+        return 0;
+    }
+
+
     /*
      * ------------------------------------------------------------------------
      * Task calls
@@ -162,15 +227,120 @@ public abstract class AbstractResponseModelTask<T>
     @Override
     protected final T call() throws Exception
     {
-        prepareClient();
-        auditor.start();
+        beginCall();
+        T value = null;
         try
         {
-            return getReponse(auditor);
+            value = getReponse(auditor);
+            return value;
         }
         finally
         {
-            elapsedTimeMilli = auditor.stop();
+            endCall(value);
+        }
+    }
+
+
+    /**
+     * Prepares the client and starts the call clock, for transports that
+     * send the call without blocking and complete it on another thread.
+     */
+    protected final void beginCall()
+    {
+        RequestEvents.Stage prepare =
+                new RequestEvents.Prepare().of(requestId, request);
+        prepare.begin();
+        prepareClient();
+        prepare.commit();
+
+        RequestEvents.Stage execute =
+                new RequestEvents.Execute().of(requestId, request);
+        if (execute.isEnabled())
+        {
+            execute.bytes(request instanceof RequestBean
+                    ? ((RequestBean) request).getPayloadRaw().length()
+                    : request.getPayload().length());
+        }
+        executeEvent = execute;
+        callOpen.set(true);
+        auditor.start();
+        callStartNanos = System.nanoTime();
+        execute.begin();
+    }
+
+
+    /**
+     * Stops the call clock, records the value returned by the call and the
+     * call latency
+     * <p>
+     * Only the first end of a begun call counts, so a transport that ends
+     * the call from its completion callback is not recorded again when the
+     * blocking {@code call()} returns.
+     * 
+     * @param value
+     *            the call value, or null if the call failed
+     */
+    protected final void endCall(final @Nullable T value)
+    {
+        if (!callOpen.compareAndSet(true, false))
+        {
+            return;
+        }
+
+        long latency = System.nanoTime() - callStartNanos;
+        int statusCode = value == null ? 0 : getStatusCode(value);
+        RequestEvents.Stage execute = executeEvent;
+        if (execute != null)
+        {
+            execute.status(statusCode).commit();
+        }
+        callValue = value;
+        elapsedTimeMilli = auditor.stop();
+        LatencyRecorder.getDefault().record(
+                new LatencyRecorder.Key(
+                        LatencyRecorder.endpoint(request.getUri()),
+                        request.getMethod(),
+                        LatencyRecorder.statusClass(statusCode)),
+                latency);
+    }
+
+
+    /**
+     * Runs the call on the current thread, outside of the JavaFX task life
+     * cycle, and processes the response.
+     * 
+     * @throws Exception
+     *             the call failed
+     */
+    public final void execute() throws Exception
+    {
+        call();
+        processResponse();
+    }
+
+
+    /**
+     * Returns the value returned by the call, available on the calling
+     * thread whether or not the task ran on the JavaFX life cycle.
+     * 
+     * @return the call value, or null if the call has not returned
+     */
+    protected final @Nullable T getCallValue()
+    {
+        return callValue;
+    }
+
+
+    /**
+     * Releases resources held by the processed response, such as a body
+     * streamed to file
+     */
+    public void release()
+    {
+        BodySink sink = responseBodySink;
+        if (sink != null)
+        {
+            sink.discard();
         }
     }
 
@@ -205,6 +375,18 @@ public abstract class AbstractResponseModelTask<T>
     }
 
 
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.ResponseModel#getTimings()
+     */
+    @Override
+    public final Timings getTimings()
+    {
+        return timings;
+    }
+
+
     /**
      * {@inheritDoc}
      * 
@@ -241,6 +423,20 @@ public abstract class AbstractResponseModelTask<T>
         return status;
     }
 
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.ResponseModel#getProtocol()
+     */
+    @Override
+    public String getProtocol()
+    {
+        processResponse();
+        return (protocol == null) ? "" : protocol;
+    }
+
+
     /**
      * {@inheritDoc}
      * 
@@ -265,12 +461,108 @@ public abstract class AbstractResponseModelTask<T>
     public String getBody()
     {
         processResponse();
-        
+
+        BodySink sink = responseBodySink;
+        if (sink != null)
+        {
+            try
+            {
+                return sink.getText();
+            }
+            catch (IOException e)
+            {
+                return "";
+            }
+        }
+
         return (responseBody == null) ? "" : responseBody;
 
     }
 
 
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.ResponseModel#getBodySize()
+     */
+    @Override
+    public long getBodySize()
+    {
+        processResponse();
+
+        BodySink sink = responseBodySink;
+        if (sink != null)
+        {
+            return sink.getSize();
+        }
+        return (responseBody == null) ? 0 : responseBody.length();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.ResponseModel#getBodyHash()
+     */
+    @Override
+    public String getBodyHash()
+    {
+        processResponse();
+
+        BodySink sink = responseBodySink;
+        return (sink == null) ? "" : sink.getHash();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.ResponseModel#getBodyPreview()
+     */
+    @Override
+    public String getBodyPreview()
+    {
+        processResponse();
+
+        BodySink sink = responseBodySink;
+        if (sink != null)
+        {
+            return sink.getPreview();
+        }
+        return (responseBody == null) ? "" : responseBody;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.ResponseModel#getBodyFile()
+     */
+    @Override
+    public @Nullable Path getBodyFile()
+    {
+        processResponse();
+
+        BodySink sink = responseBodySink;
+        return (sink == null) ? null : sink.getFile();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.ResponseModel#getBodyCharset()
+     */
+    @Override
+    public Charset getBodyCharset()
+    {
+        processResponse();
+
+        BodySink sink = responseBodySink;
+        return (sink == null) ? StandardCharsets.UTF_8 : sink.getCharset();
+    }
+
+
     /**
      * {@inheritDoc}
      * 
@@ -13,28 +13,119 @@
  */
 package com.github.technosf.posterer.core.utils;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 /**
  * {@code Auditor} is a souped up {@code StringBuilder}.
  * <p>
- * Can do formating and timing.
+ * Can do formating and timing. Events are kept as a time stamp, a type and
+ * their unformatted arguments on lock-free queues, so they may be appended
+ * from any thread, such as a handshake callback, while the call runs. They are
+ * only formatted when the audit is rendered.
+ * <p>
+ * The audit {@code Level} sets how much is kept: a {@code FULL} audit keeps
+ * the detail of the SSL handshake as well as the call, a {@code SUMMARY}
+ * keeps only the call, and an audit that is {@code OFF} keeps nothing.
  * 
  * @author technosf
  * @since 0.0.1
- * @version 0.0.1
+ * @version 1.1.1
  */
 public class Auditor
 {
+    /**
+     * How much of a call is audited
+     */
+    public enum Level
+    {
+        /**
+         * Nothing is audited
+         */
+        OFF,
+        /**
+         * The call is audited, without the detail of the SSL handshake
+         */
+        SUMMARY,
+        /**
+         * The call and the detail of the SSL handshake are audited
+         */
+        FULL;
+    }
+
+    /**
+     * The auditor that discards what is appended, given for detail that is
+     * not audited
+     */
+    private static final Auditor NONE = new Auditor(Level.OFF);
+
+    /**
+     * The type of an audit event
+     */
+    private enum Type
+    {
+        /**
+         * An audit line, with its time since start
+         */
+        TIMED,
+        /**
+         * An audit line
+         */
+        UNTIMED;
+    }
+
+    /**
+     * An unformatted audit event
+     */
+    private static final class Event
+    {
+        final long offsetNanos;
+        final Type type;
+        final String format;
+        final Object @Nullable [] args;
+
+
+        Event(final long offsetNanos, final Type type, final String format,
+                final Object @Nullable [] args)
+        {
+            this.offsetNanos = offsetNanos;
+            this.type = type;
+            this.format = format;
+            this.args = args;
+        }
+
+
+        /**
+         * Renders the event as an audit line
+         */
+        void render(final StringBuilder sb)
+        {
+            if (type == Type.TIMED)
+                sb.append("@").append(TimeUnit.NANOSECONDS
+                        .toMillis(offsetNanos)).append("ms - ");
+            Object[] formatArgs = args;
+            sb.append(formatArgs == null ? format
+                    : String.format(format, formatArgs)).append("\n");
+        }
+    }
+
+    /**
+     * The audit level
+     */
+    private final Level level;
+
     /**
      * The log
      */
-    private final StringBuilder audit = new StringBuilder();
+    private final Queue<Event> audit = new ConcurrentLinkedQueue<>();
 
     /**
      * The log
      */
-    private final StringBuilder postscript = new StringBuilder();
+    private final Queue<Event> postscript = new ConcurrentLinkedQueue<>();
 
     /**
      * Creation time stamp
@@ -44,17 +135,62 @@ public class Auditor
     /**
      * Start timestamp
      */
-    private long tsStart;
+    private volatile long tsStart;
 
     /**
      * Stop timestamp
      */
-    private long tsStop;
+    private volatile long tsStop;
 
     /**
      * Elapsed between stat and stop
      */
-    private long elapsed;
+    private volatile long elapsed;
+
+
+    /**
+     * Creates an auditor that audits in full
+     */
+    public Auditor()
+    {
+        this(Level.FULL);
+    }
+
+
+    /**
+     * Creates an auditor that audits to the given level
+     * 
+     * @param level
+     *            the audit level
+     */
+    public Auditor(final Level level)
+    {
+        this.level = level;
+    }
+
+
+    /**
+     * Returns the audit level
+     * 
+     * @return the level
+     */
+    public Level getLevel()
+    {
+        return level;
+    }
+
+
+    /**
+     * Returns the auditor for detail, such as of the SSL handshake, that is
+     * only audited in full
+     * 
+     * @return this auditor if it audits in full, otherwise an auditor that
+     *         discards what is appended
+     */
+    public Auditor detail()
+    {
+        return level == Level.FULL ? this : NONE;
+    }
 
 
     /**
@@ -99,7 +235,7 @@ public class Auditor
      */
     public Auditor append(boolean chrono, String status)
     {
-        tag(audit, chrono, status);
+        tag(audit, chrono, status, null);
         return this;
     }
 
@@ -115,13 +251,16 @@ public class Auditor
      */
     public Auditor postscript(boolean chrono, String status)
     {
-        tag(postscript, chrono, status);
+        tag(postscript, chrono, status, null);
         return this;
     }
 
 
     /**
      * Appends the given string to a new audit line, potentially with a timing.
+     * <p>
+     * The arguments are formatted when the audit is rendered, so should not
+     * be changed after they are appended.
      * 
      * @param chrono
      *            append timing?
@@ -132,7 +271,8 @@ public class Auditor
      */
     public Auditor append(boolean chrono, String format, Object... args)
     {
-        return this.append(chrono, String.format(format, args));
+        tag(audit, chrono, format, args);
+        return this;
     }
 
 
@@ -144,7 +284,10 @@ public class Auditor
     @Override
     public final String toString()
     {
-        return audit.toString() + postscript.toString();
+        StringBuilder sb = new StringBuilder();
+        audit.forEach(e -> e.render(sb));
+        postscript.forEach(e -> e.render(sb));
+        return sb.toString();
     }
 
 
@@ -155,17 +298,24 @@ public class Auditor
      *            append timing?
      * @param status
      *            the status to audit
+     * @param args
+     *            the format arguments, null if the status is not a format
      */
-    private void tag(StringBuilder sb, boolean chrono, String status)
+    private void tag(Queue<Event> events, boolean chrono, String status,
+            Object @Nullable [] args)
     {
+        if (level == Level.OFF)
+        {
+            return;
+        }
+
+        long now = System.nanoTime();
         if (tsStart == 0)
         {
-            start();
+            tsStart = now;
         }
 
-        if (chrono)
-            sb.append("@").append(TimeUnit.NANOSECONDS
-                    .toMillis(System.nanoTime() - tsStart)).append("ms - ");
-        sb.append(status).append("\n");
+        events.add(new Event(now - tsStart,
+                chrono ? Type.TIMED : Type.UNTIMED, status, args));
     }
 }
@@ -0,0 +1,564 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.common.io.BaseEncoding;
+
+/**
+ * {@code BodySink} captures a response body from a stream.
+ * <p>
+ * Bodies up to a threshold are held in memory. Larger bodies are streamed
+ * through a {@code FileChannel} into a temporary file with a fixed buffer, so
+ * the heap never holds the whole body. The size and a SHA-256 hash are
+ * computed as the body streams by; the text is only decoded on demand, either
+ * as a preview window or, if really needed, in full.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class BodySink
+{
+    /**
+     * Default size in bytes above which bodies are streamed to file
+     */
+    public static final int DEFAULT_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Size in bytes of the default preview window
+     */
+    public static final int PREVIEW_BYTES = 64 * 1024;
+
+    /**
+     * The copy buffer size
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String TEMP_PREFIX = "posterer-";
+    private static final String TEMP_SUFFIX = ".body";
+
+    /**
+     * The body charset
+     */
+    private final Charset charset;
+
+    /**
+     * The body, if held in memory
+     */
+    private final byte @Nullable [] memory;
+
+    /**
+     * The body, if streamed to file
+     */
+    private final @Nullable Path file;
+
+    /**
+     * Body size in bytes
+     */
+    private final long size;
+
+    /**
+     * Body SHA-256 hash as hex
+     */
+    private final String hash;
+
+    /**
+     * The decoded default preview
+     */
+    private @Nullable String preview;
+
+
+    /**
+     * Captures an in memory body
+     */
+    private BodySink(final Charset charset, final byte[] memory,
+            final String hash)
+    {
+        this.charset = charset;
+        this.memory = memory;
+        this.file = null;
+        this.size = memory.length;
+        this.hash = hash;
+    }
+
+
+    /**
+     * Captures a body streamed to file
+     */
+    private BodySink(final Charset charset, final Path file, final long size,
+            final String hash)
+    {
+        this.charset = charset;
+        this.memory = null;
+        this.file = file;
+        this.size = size;
+        this.hash = hash;
+    }
+
+
+    /**
+     * Captures the body from the stream, reading it to its end.
+     *
+     * @param in
+     *            the body stream
+     * @param charset
+     *            the body charset
+     * @param threshold
+     *            size in bytes above which the body is streamed to file
+     * @return the captured body
+     * @throws IOException
+     *             the body could not be read or stored
+     */
+    public static BodySink capture(final InputStream in, final Charset charset,
+            final int threshold) throws IOException
+    {
+        Capture capture = open(charset, threshold);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        ReadableByteChannel source = Channels.newChannel(in);
+
+        try
+        {
+            while (source.read(buffer) != -1)
+            {
+                buffer.flip();
+                capture.write(buffer);
+                buffer.clear();
+            }
+            return capture.finish();
+        }
+        finally
+        {
+            capture.close();
+        }
+    }
+
+
+    /**
+     * Opens a capture that the body is written to as it arrives, for bodies
+     * that are pushed rather than read from a stream.
+     *
+     * @param charset
+     *            the body charset
+     * @param threshold
+     *            size in bytes above which the body is streamed to file
+     * @return the capture
+     */
+    public static Capture open(final Charset charset, final int threshold)
+    {
+        return new Capture(charset, threshold);
+    }
+
+
+    /**
+     * A body being captured
+     * <p>
+     * Written to in order by a single thread, then finished to produce the
+     * {@code BodySink}. A capture closed without being finished deletes the
+     * file its body spilled to.
+     */
+    public static final class Capture
+            implements Closeable
+    {
+        private final Charset charset;
+        private final int threshold;
+        private final MessageDigest digest = sha256();
+        private @Nullable ByteArrayOutputStream memory =
+                new ByteArrayOutputStream();
+        private @Nullable Path file;
+        private @Nullable FileChannel channel;
+        private long size;
+        private boolean finished;
+
+
+        private Capture(final Charset charset, final int threshold)
+        {
+            this.charset = charset;
+            this.threshold = threshold;
+        }
+
+
+        /**
+         * Writes the remaining bytes of the buffer to the body
+         *
+         * @param buffer
+         *            the bytes to write
+         * @throws IOException
+         *             the body could not be stored
+         */
+        public void write(final ByteBuffer buffer) throws IOException
+        {
+            int length = buffer.remaining();
+            digest.update(buffer.duplicate());
+            size += length;
+
+            FileChannel out = channel;
+            ByteArrayOutputStream inMemory = memory;
+            if (out == null && inMemory != null && size > threshold)
+            /*
+             * Too big for memory, spill to file
+             */
+            {
+                Path spill = Files.createTempFile(TEMP_PREFIX, TEMP_SUFFIX);
+                file = spill;
+                out = FileChannel.open(spill, StandardOpenOption.WRITE);
+                channel = out;
+                BodySink.write(out, ByteBuffer.wrap(inMemory.toByteArray()));
+                memory = null;
+            }
+
+            if (out != null)
+            {
+                BodySink.write(out, buffer);
+            }
+            else if (inMemory != null)
+            {
+                if (buffer.hasArray())
+                {
+                    inMemory.write(buffer.array(),
+                            buffer.arrayOffset() + buffer.position(), length);
+                    buffer.position(buffer.limit());
+                }
+                else
+                {
+                    byte[] bytes = new byte[length];
+                    buffer.get(bytes);
+                    inMemory.write(bytes, 0, length);
+                }
+            }
+        }
+
+
+        /**
+         * Completes the capture
+         *
+         * @return the captured body
+         * @throws IOException
+         *             the body could not be stored
+         */
+        public BodySink finish() throws IOException
+        {
+            try
+            {
+                closeChannel();
+            }
+            catch (IOException e)
+            {
+                deleteFile();
+                throw e;
+            }
+            finished = true;
+
+            String hash =
+                    BaseEncoding.base16().lowerCase().encode(digest.digest());
+            Path spilled = file;
+            ByteArrayOutputStream inMemory = memory;
+            if (spilled != null)
+            {
+                return new BodySink(charset, spilled, size, hash);
+            }
+            return new BodySink(charset, inMemory == null ? new byte[0]
+                    : inMemory.toByteArray(), hash);
+        }
+
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Closes the body file, if the body was spilled to one, deleting it if
+         * the capture was not finished.
+         *
+         * @see java.io.Closeable#close()
+         */
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                closeChannel();
+            }
+            finally
+            {
+                if (!finished)
+                {
+                    deleteFile();
+                }
+            }
+        }
+
+
+        /**
+         * Returns the file the body is spilling to, if it is
+         *
+         * @return the file, or null if the body is held in memory
+         */
+        @Nullable Path getFile()
+        {
+            return file;
+        }
+
+
+        /**
+         * Closes the body file channel, if open
+         */
+        private void closeChannel() throws IOException
+        {
+            FileChannel out = channel;
+            if (out != null)
+            {
+                channel = null;
+                out.close();
+            }
+        }
+
+
+        /**
+         * Deletes the body file, if there is one
+         */
+        private void deleteFile()
+        {
+            Path spilled = file;
+            if (spilled != null)
+            {
+                file = null;
+                spilled.toFile().delete();
+            }
+        }
+    }
+
+
+    /**
+     * Captures an empty body
+     *
+     * @param charset
+     *            the body charset
+     * @return the empty body
+     */
+    public static BodySink empty(final Charset charset)
+    {
+        return new BodySink(charset, new byte[0],
+                BaseEncoding.base16().lowerCase().encode(sha256().digest()));
+    }
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Returns the body size
+     *
+     * @return the size in bytes
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+
+    /**
+     * Returns the SHA-256 hash of the body
+     *
+     * @return the hash as lower case hex
+     */
+    public String getHash()
+    {
+        return hash;
+    }
+
+
+    /**
+     * Returns the file the body was streamed to, if it was
+     *
+     * @return the file, or null if the body is held in memory
+     */
+    public @Nullable Path getFile()
+    {
+        return file;
+    }
+
+
+    /**
+     * Returns the body charset
+     *
+     * @return the charset
+     */
+    public Charset getCharset()
+    {
+        return charset;
+    }
+
+
+    /**
+     * Is the whole body within the default preview?
+     *
+     * @return true if the preview is the whole body
+     */
+    public boolean isPreviewComplete()
+    {
+        return size <= PREVIEW_BYTES;
+    }
+
+
+    /**
+     * Returns the start of the body, decoded on first use
+     *
+     * @return the preview text
+     */
+    public synchronized String getPreview()
+    {
+        String text = preview;
+        if (text == null)
+        {
+            text = preview = getPreview(0, PREVIEW_BYTES);
+        }
+        return text;
+    }
+
+
+    /**
+     * Decodes a window of the body
+     *
+     * @param offset
+     *            the byte offset of the window
+     * @param length
+     *            the window size in bytes
+     * @return the window text, characters split at the window edges being
+     *         replaced
+     */
+    public String getPreview(final long offset, final int length)
+    {
+        if (offset >= size || length <= 0)
+        {
+            return "";
+        }
+        int window = (int) Math.min(length, size - offset);
+        ByteBuffer bytes;
+
+        byte[] inMemory = memory;
+        if (inMemory != null)
+        {
+            bytes = ByteBuffer.wrap(inMemory, (int) offset, window);
+        }
+        else
+        {
+            bytes = ByteBuffer.allocate(window);
+            try (FileChannel channel = FileChannel.open(file))
+            {
+                while (bytes.hasRemaining()
+                        && channel.read(bytes, offset + bytes.position()) >= 0)
+                {
+                    // Read until the window is full
+                }
+            }
+            catch (IOException e)
+            {
+                return "";
+            }
+            bytes.flip();
+        }
+
+        try
+        {
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes).toString();
+        }
+        catch (IOException e)
+        {
+            return "";
+        }
+    }
+
+
+    /**
+     * Decodes and returns the whole body.
+     * <p>
+     * Materializes the full body on the heap, so is best avoided for large
+     * bodies.
+     *
+     * @return the body text
+     * @throws IOException
+     *             the body file could not be read
+     */
+    public String getText() throws IOException
+    {
+        byte[] inMemory = memory;
+        if (inMemory != null)
+        {
+            return new String(inMemory, charset);
+        }
+        return new String(Files.readAllBytes(file), charset);
+    }
+
+
+    /**
+     * Deletes the body file, if there is one
+     */
+    public void discard()
+    {
+        Path bodyFile = file;
+        if (bodyFile != null)
+        {
+            bodyFile.toFile().delete();
+        }
+    }
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Writes the whole buffer to the channel
+     */
+    private static void write(final FileChannel channel,
+            final ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+
+
+    /**
+     * Returns a SHA-256 digest
+     */
+    private static MessageDigest sha256()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
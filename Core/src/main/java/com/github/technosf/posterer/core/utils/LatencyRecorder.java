@@ -0,0 +1,418 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * {@code LatencyRecorder} keeps the distribution of call latencies for each
+ * endpoint, method and status class in high dynamic range histograms.
+ * <p>
+ * Latencies are recorded wait free from any thread into a {@code Recorder}
+ * per key. Readers collect the interval recorded since the last read, under
+ * the reader's lock only, and accumulate it into the key's histogram, so that
+ * percentiles can be queried across every fire of the same request.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class LatencyRecorder
+{
+    /**
+     * Significant decimal digits kept of each latency
+     */
+    public static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * The percentiles reported by {@code getSummary}
+     */
+    private static final double[] REPORTED = { 50, 90, 99, 99.9 };
+
+    /**
+     * The endpoint recorded for requests without a valid URI
+     */
+    public static final String INVALID_ENDPOINT = "invalid";
+
+    /**
+     * The recorder the response tasks report to
+     */
+    private static final LatencyRecorder DEFAULT = new LatencyRecorder();
+
+    /**
+     * The histogram key
+     */
+    public static final class Key
+    {
+        private final String endpoint;
+        private final String method;
+        private final String statusClass;
+
+
+        /**
+         * @param endpoint
+         *            the endpoint called
+         * @param method
+         *            the HTTP method
+         * @param statusClass
+         *            the response status class
+         */
+        public Key(final String endpoint, final String method,
+                final String statusClass)
+        {
+            this.endpoint = endpoint;
+            this.method = method;
+            this.statusClass = statusClass;
+        }
+
+
+        /**
+         * @return the endpoint called
+         */
+        public String getEndpoint()
+        {
+            return endpoint;
+        }
+
+
+        /**
+         * @return the HTTP method
+         */
+        public String getMethod()
+        {
+            return method;
+        }
+
+
+        /**
+         * @return the response status class, e.g. 2xx
+         */
+        public String getStatusClass()
+        {
+            return statusClass;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(endpoint, method, statusClass);
+        }
+
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(@Nullable Object obj)
+        {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return endpoint.equals(other.endpoint)
+                    && method.equals(other.method)
+                    && statusClass.equals(other.statusClass);
+        }
+
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString()
+        {
+            return method + " " + endpoint + " " + statusClass;
+        }
+    }
+
+    /**
+     * Recording side, written to by the calls
+     */
+    private final ConcurrentMap<Key, Recorder> recorders =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Reading side, accumulated from the recorder intervals
+     */
+    private final Map<Key, Histogram> histograms = new HashMap<>();
+
+
+    /**
+     * Returns the recorder the response tasks report to
+     *
+     * @return the default recorder
+     */
+    public static LatencyRecorder getDefault()
+    {
+        return DEFAULT;
+    }
+
+
+    /**
+     * Returns the endpoint of a request URI, its scheme, authority and path
+     *
+     * @param uri
+     *            the request URI, null if the request has no valid URI
+     * @return the endpoint, or {@code invalid} if there is no URI
+     */
+    public static String endpoint(final @Nullable URI uri)
+    {
+        if (uri == null)
+        {
+            return INVALID_ENDPOINT;
+        }
+
+        String path = uri.getRawPath();
+        return uri.getScheme() + "://" + uri.getRawAuthority()
+                + (path == null || path.isEmpty() ? "/" : path);
+    }
+
+
+    /**
+     * Returns the class of a status code
+     *
+     * @param statusCode
+     *            the status code, zero or less if the call failed
+     * @return the status class, e.g. 2xx, or ERR if the call failed
+     */
+    public static String statusClass(final int statusCode)
+    {
+        return statusCode <= 0 ? "ERR" : (statusCode / 100) + "xx";
+    }
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Records a latency
+     *
+     * @param key
+     *            the endpoint, method and status class
+     * @param nanos
+     *            the latency in nanoseconds
+     */
+    public void record(final Key key, final long nanos)
+    {
+        Recorder recorder = recorders.get(key);
+        if (recorder == null)
+        {
+            recorder = recorders.computeIfAbsent(key,
+                    k -> new Recorder(SIGNIFICANT_DIGITS));
+        }
+        recorder.recordValue(Math.max(nanos, 0));
+    }
+
+
+    /**
+     * Returns the keys that latencies have been recorded for
+     *
+     * @return the keys, ordered by endpoint, method and status class
+     */
+    public List<Key> getKeys()
+    {
+        List<Key> keys = new ArrayList<>(recorders.keySet());
+        keys.sort(Comparator.comparing(Key::getEndpoint)
+                .thenComparing(Key::getMethod)
+                .thenComparing(Key::getStatusClass));
+        return keys;
+    }
+
+
+    /**
+     * Returns the keys that latencies have been recorded for on an endpoint
+     * and method
+     *
+     * @param endpoint
+     *            the endpoint called
+     * @param method
+     *            the HTTP method
+     * @return the keys, ordered by status class
+     */
+    public List<Key> getKeys(final String endpoint, final String method)
+    {
+        List<Key> keys = getKeys();
+        keys.removeIf(k -> !k.getEndpoint().equals(endpoint)
+                || !k.getMethod().equals(method));
+        return keys;
+    }
+
+
+    /**
+     * Returns a copy of the histogram of all latencies recorded for a key
+     *
+     * @param key
+     *            the endpoint, method and status class
+     * @return the histogram, empty if nothing was recorded
+     */
+    public synchronized Histogram getHistogram(final Key key)
+    {
+        Histogram histogram = collect(key);
+        return histogram == null ? new Histogram(SIGNIFICANT_DIGITS)
+                : histogram.copy();
+    }
+
+
+    /**
+     * Returns the latency at the given percentile for a key
+     *
+     * @param key
+     *            the endpoint, method and status class
+     * @param percentile
+     *            the percentile, 0 to 100
+     * @return the latency in nanoseconds, zero if nothing was recorded
+     */
+    public synchronized long getPercentile(final Key key,
+            final double percentile)
+    {
+        Histogram histogram = collect(key);
+        return histogram == null ? 0
+                : histogram.getValueAtPercentile(percentile);
+    }
+
+
+    /**
+     * Returns the number of latencies recorded for a key
+     *
+     * @param key
+     *            the endpoint, method and status class
+     * @return the count
+     */
+    public synchronized long getCount(final Key key)
+    {
+        Histogram histogram = collect(key);
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+
+    /**
+     * Renders the count and the p50, p90, p99, p99.9 and max latencies of a
+     * key in milliseconds
+     *
+     * @param key
+     *            the endpoint, method and status class
+     * @return the summary
+     */
+    public synchronized String getSummary(final Key key)
+    {
+        Histogram histogram = collect(key);
+        if (histogram == null)
+        {
+            return key + ": no fires";
+        }
+        return key + ": " + histogram.getTotalCount() + " fires, "
+                + summarize(histogram);
+    }
+
+
+    /**
+     * Renders the p50, p90, p99, p99.9 and max latencies of a histogram in
+     * milliseconds
+     *
+     * @param histogram
+     *            the latencies in nanoseconds
+     * @return the summary
+     */
+    public static String summarize(final Histogram histogram)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (double percentile : REPORTED)
+        {
+            sb.append(String.format(Locale.ROOT, "p%s %.3fms, ",
+                    percentile == Math.rint(percentile)
+                            ? Long.toString((long) percentile)
+                            : Double.toString(percentile),
+                    histogram.getValueAtPercentile(percentile)
+                            / 1_000_000d));
+        }
+        return sb.append(String.format(Locale.ROOT, "max %.3fms",
+                histogram.getMaxValue() / 1_000_000d)).toString();
+    }
+
+
+    /**
+     * Discards all recorded latencies
+     */
+    public synchronized void reset()
+    {
+        recorders.clear();
+        histograms.clear();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Renders the summary of each key, a line each
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Key key : getKeys())
+        {
+            sb.append(getSummary(key)).append("\n");
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Accumulates the interval recorded since the last collection
+     *
+     * @return the accumulated histogram, or null if nothing was recorded
+     */
+    private @Nullable Histogram collect(final Key key)
+    {
+        Recorder recorder = recorders.get(key);
+        if (recorder == null)
+        {
+            return null;
+        }
+        Histogram collected = recorder.getIntervalHistogram();
+        Histogram histogram = histograms.get(key);
+        if (histogram == null)
+        {
+            histogram = new Histogram(SIGNIFICANT_DIGITS);
+            histograms.put(key, histogram);
+        }
+        histogram.add(collected);
+        return histogram;
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+/**
+ * {@code PayloadStore} keeps request payloads as content-addressed files.
+ * <p>
+ * Each payload is written once, to a file named by the SHA-256 hash of its
+ * content, so saving the same payload again costs nothing. Payloads are read
+ * back through a memory-mapped file. Files no longer referenced are removed
+ * by a {@code sweep}.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class PayloadStore
+{
+    private static final Logger LOG =
+            LoggerFactory.getLogger(PayloadStore.class);
+
+    /**
+     * Default payload length in chars above which payloads are stored
+     */
+    public static final int DEFAULT_THRESHOLD = 64 * 1024;
+
+    private static final String TEMP_PREFIX = "payload-";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * A content key: a lower case hex SHA-256 hash
+     */
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * A reference to a stored payload
+     * <p>
+     * The reference carries a hash of the payload, so the request can be
+     * fingerprinted without loading the payload. A loaded payload is held
+     * softly, to be dropped again under memory pressure.
+     */
+    public static final class Reference
+    {
+        private final PayloadStore store;
+
+        private final String key;
+
+        private final HashCode hash;
+
+        private SoftReference<@Nullable String> loaded =
+                new SoftReference<>(null);
+
+
+        /**
+         * @param store
+         *            the store holding the payload
+         * @param key
+         *            the payload content key
+         * @param hash
+         *            the payload hash
+         */
+        public Reference(final PayloadStore store, final String key,
+                final HashCode hash)
+        {
+            this.store = store;
+            this.key = key;
+            this.hash = hash;
+        }
+
+
+        /**
+         * Returns the payload content key
+         *
+         * @return the key
+         */
+        public String getKey()
+        {
+            return key;
+        }
+
+
+        /**
+         * Returns the payload hash
+         *
+         * @return the hash
+         */
+        public HashCode getHash()
+        {
+            return hash;
+        }
+
+
+        /**
+         * Returns the payload, loading it if it is not held
+         *
+         * @return the payload, or an empty string if it cannot be read
+         */
+        public synchronized String load()
+        {
+            String payload = loaded.get();
+            if (payload == null)
+            {
+                try
+                {
+                    payload = store.get(key);
+                }
+                catch (IOException e)
+                {
+                    LOG.error("Cannot read payload {}", key, e);
+                    return "";
+                }
+                loaded = new SoftReference<>(payload);
+            }
+            return payload;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The reference as stored, {@code key:hash}
+         *
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString()
+        {
+            return key + ":" + hash;
+        }
+    }
+
+    /* ------------------------------------------------ */
+
+    /**
+     * The store directory
+     */
+    private final Path directory;
+
+
+    /**
+     * @param directory
+     *            the store directory, created when the first payload is put
+     */
+    public PayloadStore(final File directory)
+    {
+        this.directory = directory.toPath();
+    }
+
+
+    /**
+     * Stores a payload, unless the store already holds it
+     * <p>
+     * A payload already held is touched, so a concurrent {@code sweep} of
+     * older files keeps it.
+     *
+     * @param payload
+     *            the payload
+     * @return the payload content key
+     * @throws IOException
+     *             the payload could not be written
+     */
+    public synchronized String put(final String payload) throws IOException
+    {
+        String key = Hashing.sha256()
+                .hashString(payload, StandardCharsets.UTF_8).toString();
+        Path file = directory.resolve(key);
+
+        if (Files.exists(file))
+        {
+            Files.setLastModifiedTime(file,
+                    FileTime.fromMillis(System.currentTimeMillis()));
+            return key;
+        }
+
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, TEMP_PREFIX, TEMP_SUFFIX);
+        try
+        {
+            try (FileChannel channel =
+                    FileChannel.open(temp, StandardOpenOption.WRITE))
+            {
+                channel.write(StandardCharsets.UTF_8.encode(payload));
+                channel.force(true);
+            }
+            try
+            {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+        return key;
+    }
+
+
+    /**
+     * Reads a payload through a memory-mapped file
+     *
+     * @param key
+     *            the payload content key
+     * @return the payload
+     * @throws IOException
+     *             the key is not valid or the payload could not be read
+     */
+    public String get(final String key) throws IOException
+    {
+        if (!isKey(key))
+        {
+            throw new IOException(String.format("Bad payload key: [%1$s]", key));
+        }
+
+        try (FileChannel channel = FileChannel.open(directory.resolve(key),
+                StandardOpenOption.READ))
+        {
+            return StandardCharsets.UTF_8.decode(channel
+                    .map(FileChannel.MapMode.READ_ONLY, 0, channel.size()))
+                    .toString();
+        }
+    }
+
+
+    /**
+     * Parses a stored reference
+     *
+     * @param reference
+     *            the reference as stored, {@code key:hash}
+     * @return the reference, or null if it is malformed
+     */
+    public @Nullable Reference reference(final String reference)
+    {
+        int colon = reference.indexOf(':');
+        if (colon < 0 || !isKey(reference.substring(0, colon)))
+        {
+            return null;
+        }
+
+        try
+        {
+            return new Reference(this, reference.substring(0, colon),
+                    HashCode.fromString(reference.substring(colon + 1)));
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+
+    /**
+     * Removes the files not in use
+     * <p>
+     * Only files last modified before the given time are removed, so payloads
+     * put while the live keys were being gathered are kept.
+     *
+     * @param live
+     *            the content keys in use
+     * @param before
+     *            the time in millis the live keys were gathered from
+     * @return the number of files removed
+     * @throws IOException
+     *             the store could not be read
+     */
+    public synchronized int sweep(final Set<String> live, final long before)
+            throws IOException
+    {
+        if (!Files.isDirectory(directory))
+        {
+            return 0;
+        }
+
+        int swept = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+        {
+            for (Path file : files)
+            {
+                if (!live.contains(file.getFileName().toString())
+                        && Files.isRegularFile(file)
+                        && Files.getLastModifiedTime(file).toMillis() < before)
+                {
+                    Files.delete(file);
+                    swept++;
+                }
+            }
+        }
+        return swept;
+    }
+
+
+    /**
+     * Is the string a content key?
+     *
+     * @param key
+     *            the string
+     * @return true if a content key
+     */
+    public static boolean isKey(final @Nullable String key)
+    {
+        return key != null && KEY.matcher(key).matches();
+    }
+}
@@ -13,10 +13,29 @@
  */
 package com.github.technosf.posterer.core.utils;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
 import org.eclipse.jdt.annotation.Nullable;
 
+import com.google.common.io.CharSource;
+
 /**
  * PrettyPrinters that format different document types
+ * <p>
+ * Documents are formatted in a single pass, character by character, from a
+ * {@code Reader} or {@code CharSequence} to an {@code Appendable}. Apart from
+ * a read buffer, only the XML element tag being read is held, so large
+ * documents are not copied on the way through.
+ * <p>
+ * Formatting is interrupted with the thread it runs on, so it can be run as a
+ * cancellable background task.
+ * <p>
+ * Each document printed is recorded as a flight recorder event.
  * 
  * @author technosf
  * 
@@ -29,7 +48,8 @@ public class PrettyPrinters
 
 	private static final String	BREAK			= "\n";
 	private static String		INDENT_STRING	= "    ";
-	private static final int	INDENT			= INDENT_STRING.length();
+	private static final String	JSON_INDENT		= "  ";
+	private static final int	BUFFER_SIZE		= 8192;
 
 
 	public static String pretty ( @Nullable String data, boolean stripPreamble )
@@ -40,9 +60,101 @@ public class PrettyPrinters
 
 
 	/**
-	 * Pretty print XML
+	 * The document formats that can be printed
+	 */
+	public enum Format
+	{
+		/**
+		 * XML, including SOAP
+		 */
+		XML,
+		/**
+		 * JSON
+		 */
+		JSON,
+		/**
+		 * Neither, so not formatted
+		 */
+		TEXT
+	}
+
+
+	/**
+	 * Detects the format of a document, from its content type if that names
+	 * XML or JSON, else by sniffing its first character
+	 * 
+	 * @param contentType
+	 *                        the document content type, if known
+	 * @param document
+	 *                        the document, or its start
+	 * 
+	 * @return the format
+	 */
+	public static Format detect ( @Nullable String contentType, CharSequence document )
+	{
+		if ( contentType != null )
+		{
+			String type = contentType.toLowerCase(Locale.ROOT);
+			if ( type.contains("json") )
+				return Format.JSON;
+			if ( type.contains("xml") )
+				return Format.XML;
+		}
+
+		for ( int i = 0; i < document.length(); i++ )
+		{
+			char c = document.charAt(i);
+			if ( c <= ' ' || c == '\uFEFF' )
+				continue;
+			if ( c == '<' )
+				return Format.XML;
+			if ( c == '{' || c == '[' )
+				return Format.JSON;
+			break;
+		}
+		return Format.TEXT;
+	}
+
+
+	/**
+	 * Pretty print a document in the given format, text being copied as is
 	 * 
-	 * Split the string into rows based on XML delims, then prettify
+	 * @param format
+	 *                        the document format
+	 * @param document
+	 *                        reads the document to prettify
+	 * @param out
+	 *                        receives the pretty document
+	 * @param stripXmlDef
+	 *                        strip the XML preamble?
+	 * 
+	 * @throws IOException
+	 *                         the document could not be read or written, or
+	 *                         the thread was interrupted
+	 */
+	public static void format ( Format format, Reader document, Appendable out, boolean stripXmlDef )
+			throws IOException
+	{
+		switch ( format )
+		{
+			case XML:
+				xml(document, out, stripXmlDef);
+				break;
+			case JSON:
+				json(document, out);
+				break;
+			default:
+				Source source = new Source(document);
+				for ( int c = source.read(); c != -1; c = source.read() )
+				{
+					out.append((char) c);
+				}
+		}
+	}
+
+
+	/**
+	 * Pretty print XML
 	 * 
 	 * @param xml
 	 *                        the xml to prettify
@@ -56,170 +168,585 @@ public class PrettyPrinters
 		if ( xml == null || xml.isEmpty() )
 			return "";
 
-		String[] rows = xml.trim().replaceAll(">", ">\n").replaceAll("<", "\n<").split("\n");
-
-		return pretty(rows, "<?", "<", "/>", "</", ">", stripXmlDef);
+		StringBuilder pretty = new StringBuilder(xml.length() + ( xml.length() >> 2 ));
+		try
+		{
+			xml(new StringReader(xml), pretty, stripXmlDef);
+		}
+		catch ( IOException e )
+		{
+			throw new UncheckedIOException(e);
+		}
+		return pretty.toString();
 	}
 
 
 	/**
-	 * Pretty print JSON
-	 * 
-	 * Split the string into rows based on JSON delims, then prettify
+	 * Pretty print XML
 	 * 
 	 * @param xml
 	 *                        the xml to prettify
+	 * @param out
+	 *                        receives the pretty xml
 	 * @param stripXmlDef
 	 *                        strip the XML preamble?
 	 * 
-	 * @return pretty xml
+	 * @throws IOException
+	 *                         the xml could not be written
+	 */
+	public static void xml ( CharSequence xml, Appendable out, boolean stripXmlDef ) throws IOException
+	{
+		xml(CharSource.wrap(xml).openStream(), out, stripXmlDef);
+	}
+
+
+	/**
+	 * Pretty print XML
+	 * <p>
+	 * Each tag, comment and CDATA section is read whole, so {@code >} within
+	 * quoted attribute values, comments and CDATA does not split them. Each
+	 * element opens on a new line indented to its depth; text closes on the
+	 * line it opened on.
+	 * 
+	 * @param xml
+	 *                        reads the xml to prettify
+	 * @param out
+	 *                        receives the pretty xml
+	 * @param stripXmlDef
+	 *                        strip the XML preamble?
+	 * 
+	 * @throws IOException
+	 *                         the xml could not be read or written
+	 */
+	public static void xml ( Reader xml, Appendable out, boolean stripXmlDef ) throws IOException
+	{
+		RequestEvents.PrettyPrint event = new RequestEvents.PrettyPrint();
+		event.begin();
+
+		Source source = new Source(xml);
+		new XmlFormatter(source, out, stripXmlDef).format();
+
+		event.of("xml", source.count).commit();
+	}
+
+
+	/**
+	 * Pretty print JSON
+	 * 
+	 * @param json
+	 *                 the json to prettify
+	 * 
+	 * @return pretty json
 	 */
 	public static String json ( @Nullable String json )
 	{
 		if ( json == null || json.isEmpty() )
 			return "";
 
-		String[] rows = json.trim().replaceAll("\\},", "\n\\},").replaceAll("\\{", "\n\\{\n").split("\n");
-
-		return pretty(rows, "", "{", "{", "}", "}", false);
+		StringBuilder pretty = new StringBuilder(json.length() << 1);
+		try
+		{
+			json(new StringReader(json), pretty);
+		}
+		catch ( IOException e )
+		{
+			throw new UncheckedIOException(e);
+		}
+		return pretty.toString();
 	}
 
 
 	/**
-	 * Common pretty-fier
+	 * Pretty print JSON
 	 * 
-	 * @param rows the input rows
-	 * @param headerdef header definition 
-	 * @param openClauseStart clause open start def
-	 * @param openClauseEnd clause open end def
-	 * @param closeClauseStart clause close start
-	 * @param closeClauseEnd clause close end
-	 * @param stripheader true if header should be stripped
+	 * @param json
+	 *                 the json to prettify
+	 * @param out
+	 *                 receives the pretty json
 	 * 
-	 * @return the prettified input rows
+	 * @throws IOException
+	 *                         the json could not be written
 	 */
-	private static String pretty (
-			String[] rows, String headerdef, 
-			String openClauseStart, String openClauseEnd, 
-			String closeClauseStart,String closeClauseEnd, 
-			boolean stripheader
-	)
+	public static void json ( CharSequence json, Appendable out ) throws IOException
 	{
+		json(CharSource.wrap(json).openStream(), out);
+	}
 
-		StringBuilder	indent	= new StringBuilder();
-		StringBuilder	pretty	= new StringBuilder();
-		String			row;
 
-		boolean			wasData	= false, wasClose = false, wasFirst = true;
+	/**
+	 * Pretty print JSON
+	 * <p>
+	 * Each member and array element is put on its own line, indented to its
+	 * depth. Strings are copied as they are, so braces, brackets, commas and
+	 * escaped quotes within them are not mistaken for structure. Empty objects
+	 * and arrays are kept on one line.
+	 * 
+	 * @param json
+	 *                 reads the json to prettify
+	 * @param out
+	 *                 receives the pretty json
+	 * 
+	 * @throws IOException
+	 *                         the json could not be read or written
+	 */
+	public static void json ( Reader json, Appendable out ) throws IOException
+	{
+		RequestEvents.PrettyPrint event = new RequestEvents.PrettyPrint();
+		event.begin();
 
-		for ( int i = 0; i < rows.length; i++ )
-		{
-			if ( ( row = rows[i].trim() ).isEmpty() )
-				continue;
+		Source	source	= new Source(json);
+		int		depth	= 0;
+		boolean	opened	= false, inString = false, escaped = false;
 
-			if ( !headerdef.isEmpty() && row.startsWith(headerdef) )
+		for ( int c = source.read(); c != -1; c = source.read() )
+		{
+			if ( inString )
 			/*
-			 * Header def
+			 * Copy strings as is
 			 */
 			{
-				if ( stripheader )
+				out.append((char) c);
+				if ( escaped )
 				{
-					continue;
+					escaped = false;
+				}
+				else if ( c == '\\' )
+				{
+					escaped = true;
+				}
+				else if ( c == '"' )
+				{
+					inString = false;
 				}
-				pretty.append(row).append(BREAK);
-				row = "";
+				continue;
+			}
+
+			if ( c <= ' ' )
+			/*
+			 * Whitespace between tokens
+			 */
+			{
+				continue;
 			}
-			else if ( row.startsWith(openClauseStart) && ( row.endsWith(openClauseEnd) || openClauseEnd.isEmpty() )
-			)
+
+			if ( opened )
 			/*
-			 * Enclosing tag
+			 * First token after an open brace or bracket
 			 */
 			{
-				if ( wasClose )
+				opened = false;
+				if ( c == '}' || c == ']' )
 				/*
-				 * Indent from last tag
+				 * Empty object or array
 				 */
 				{
-					pretty.append(BREAK);
+					depth--;
+					out.append((char) c);
+					continue;
 				}
-				if ( !wasData )
-				/*
-				 * Indent from last tag
-				 */
+				newline(out, JSON_INDENT, depth);
+			}
+
+			switch ( c )
+			{
+				case '{':
+				case '[':
+					out.append((char) c);
+					depth++;
+					opened = true;
+					break;
+				case '}':
+				case ']':
+					depth = Math.max(0, depth - 1);
+					newline(out, JSON_INDENT, depth);
+					out.append((char) c);
+					break;
+				case ',':
+					out.append(',');
+					newline(out, JSON_INDENT, depth);
+					break;
+				case ':':
+					out.append(": ");
+					break;
+				case '"':
+					out.append('"');
+					inString = true;
+					break;
+				default:
+					out.append((char) c);
+			}
+		}
+
+		event.of("json", source.count).commit();
+	}
+
+
+	/**
+	 * Starts a new line at the given depth
+	 */
+	private static void newline ( Appendable out, String indent, int depth ) throws IOException
+	{
+		out.append(BREAK);
+		for ( int i = 0; i < depth; i++ )
+		{
+			out.append(indent);
+		}
+	}
+
+
+	/* ------------------------------------------------ */
+
+	/**
+	 * Buffered characters from a {@code Reader}, with a little lookahead
+	 */
+	private static final class Source
+	{
+		private final Reader	reader;
+		private final char[]	buffer	= new char[BUFFER_SIZE];
+		private int				position, limit;
+		private long			count;
+
+
+		Source ( Reader reader )
+		{
+			this.reader = reader;
+		}
+
+
+		/**
+		 * Reads the next character
+		 * 
+		 * @return the character, or -1 at the end
+		 */
+		int read () throws IOException
+		{
+			if ( position == limit && !fill(1) )
+			{
+				return -1;
+			}
+			count++;
+			return buffer[position++];
+		}
+
+
+		/**
+		 * Reads past the expected characters, if they come next
+		 * 
+		 * @return true if the characters were read
+		 */
+		boolean skip ( String expected ) throws IOException
+		{
+			int length = expected.length();
+			if ( limit - position < length && !fill(length) )
+			{
+				return false;
+			}
+			for ( int i = 0; i < length; i++ )
+			{
+				if ( buffer[position + i] != expected.charAt(i) )
 				{
-					pretty.append(indent);
+					return false;
 				}
-				wasData = wasClose = false;
 			}
-			else if ( row.startsWith(closeClauseStart) && ( row.endsWith(closeClauseEnd) || closeClauseEnd.isEmpty() )
-			)
-			/*
-			 * Closing tag
-			 */
+			position	+= length;
+			count		+= length;
+			return true;
+		}
+
+
+		/**
+		 * Reads until at least the needed characters are buffered, unless the
+		 * thread has been interrupted
+		 * 
+		 * @return true if they are
+		 */
+		private boolean fill ( int needed ) throws IOException
+		{
+			if ( Thread.currentThread().isInterrupted() )
 			{
-				indent.replace(0, INDENT, "");
-				if ( wasClose )
-				/*
-				 * Indent from last tag
-				 */
+				throw new InterruptedIOException("Formatting interrupted");
+			}
+			if ( position > 0 )
+			{
+				System.arraycopy(buffer, position, buffer, 0, limit - position);
+				limit		-= position;
+				position	= 0;
+			}
+			while ( limit < needed )
+			{
+				int read = reader.read(buffer, limit, buffer.length - limit);
+				if ( read == -1 )
 				{
-					pretty.append(BREAK);
+					return false;
 				}
-				if ( !wasData )
-				/*
-				 * Indent from last tag
-				 */
+				limit += read;
+			}
+			return true;
+		}
+	}
+
+
+	/**
+	 * Single pass XML formatter
+	 * <p>
+	 * Text is trimmed line by line, each line after the first of a run of text
+	 * starting on a new line.
+	 */
+	private static final class XmlFormatter
+	{
+		private final Source		in;
+		private final Appendable	out;
+		private final boolean		stripXmlDef;
+
+		/**
+		 * The element tag or declaration being read
+		 */
+		private final StringBuilder	tag		= new StringBuilder();
+
+		/**
+		 * Whitespace within the text line being read
+		 */
+		private final StringBuilder	space	= new StringBuilder();
+
+		private int					depth;
+		private boolean				wasData, wasOpen, wasFirst = true, inLine;
+
+
+		XmlFormatter ( Source in, Appendable out, boolean stripXmlDef )
+		{
+			this.in				= in;
+			this.out			= out;
+			this.stripXmlDef	= stripXmlDef;
+		}
+
+
+		void format () throws IOException
+		{
+			for ( int c = in.read(); c != -1; c = in.read() )
+			{
+				if ( c == '<' )
 				{
-					pretty.append(indent);
+					inLine = false;
+					space.setLength(0);
+					markup();
+				}
+				else
+				{
+					text((char) c);
 				}
-				wasData		= false;
-				wasClose	= true;
 			}
-			else if ( row.startsWith(openClauseStart) )
-			/*
-			 * Opening tag
-			 */
+		}
+
+
+		/**
+		 * Text, trimmed line by line
+		 */
+		private void text ( char c ) throws IOException
+		{
+			if ( c == '\n' )
 			{
-				if ( !wasFirst )
-				/*
-				 * No break on first line
-				 */
+				inLine = false;
+				space.setLength(0);
+			}
+			else if ( c <= ' ' )
+			{
+				if ( inLine )
+				{
+					space.append(c);
+				}
+			}
+			else
+			{
+				if ( !inLine )
 				{
-					pretty.append(BREAK);
+					data();
+					inLine = true;
 				}
+				else if ( space.length() > 0 )
+				{
+					out.append(space);
+					space.setLength(0);
+				}
+				out.append(c);
+			}
+		}
 
-				if ( !wasData )
-				/*
-				 * Indent if last row was data or a close tag
-				 */
+
+		/**
+		 * Markup, after its opening {@code <}
+		 */
+		private void markup () throws IOException
+		{
+			if ( in.skip("?") )
+			/*
+			 * Header def
+			 */
+			{
+				if ( stripXmlDef )
 				{
-					pretty.append(indent.toString());
+					copyUntil("?>", false);
+					return;
 				}
-				indent.insert(0, INDENT_STRING);
-				wasClose = wasData = false;
+				out.append("<?");
+				copyUntil("?>", true);
+				out.append(BREAK);
+				wasFirst = false;
 			}
-			else
+			else if ( in.skip("!--") )
 			/*
-			 * Data
+			 * Comment
 			 */
 			{
-				if ( wasData )
-				/*
-				 * floating data, so newline and indent
-				 */
+				leaf();
+				out.append("<!--");
+				copyUntil("-->", true);
+			}
+			else if ( in.skip("![CDATA[") )
+			/*
+			 * Character data
+			 */
+			{
+				data();
+				out.append("<![CDATA[");
+				copyUntil("]]>", true);
+			}
+			else
+			{
+				readTag();
+				if ( tag.length() > 1 && tag.charAt(1) == '/' )
+				{
+					close();
+				}
+				else if ( tag.length() > 2 && ( tag.charAt(1) == '!' || tag.charAt(tag.length() - 2) == '/' ) )
 				{
-					pretty.append(BREAK).append(indent.toString());
+					leaf();
 				}
-				wasData		= true;
+				else
+				{
+					open();
+				}
+				out.append(tag);
 			}
+		}
 
-			wasFirst	= false;	
-			
-			pretty.append(row);
 
+		/**
+		 * Reads an element tag or declaration, to the {@code >} that is not
+		 * quoted or within a declaration subset
+		 */
+		private void readTag () throws IOException
+		{
+			tag.setLength(0);
+			tag.append('<');
+			int	quote	= 0, subset = 0;
+			int	c;
+			while ( ( c = in.read() ) != -1 )
+			{
+				tag.append((char) c);
+				if ( quote != 0 )
+				{
+					if ( c == quote )
+						quote = 0;
+				}
+				else if ( c == '"' || c == '\'' )
+				{
+					quote = c;
+				}
+				else if ( c == '[' )
+				{
+					subset++;
+				}
+				else if ( c == ']' )
+				{
+					subset--;
+				}
+				else if ( c == '>' && subset <= 0 )
+				{
+					break;
+				}
+			}
 		}
 
-		return pretty.toString();
+
+		/**
+		 * Reads through the end sequence, which ends with {@code >}
+		 */
+		private void copyUntil ( String end, boolean copy ) throws IOException
+		{
+			int		length	= end.length();
+			char	last	= end.charAt(length - 2);
+			char	before	= length > 2 ? end.charAt(length - 3) : 0;
+			int		p1		= 0, p2 = 0, c;
+			while ( ( c = in.read() ) != -1 )
+			{
+				if ( copy )
+				{
+					out.append((char) c);
+				}
+				if ( c == '>' && p1 == last && ( before == 0 || p2 == before ) )
+				{
+					return;
+				}
+				p2	= p1;
+				p1	= c;
+			}
+		}
+
+
+		/**
+		 * Opening tag
+		 */
+		private void open () throws IOException
+		{
+			if ( !wasFirst )
+			{
+				newline(out, INDENT_STRING, depth);
+			}
+			depth++;
+			wasOpen	= true;
+			wasData	= wasFirst = false;
+		}
+
+
+		/**
+		 * Closing tag, on the line of its opening tag or text if there is one
+		 */
+		private void close () throws IOException
+		{
+			depth = Math.max(0, depth - 1);
+			if ( !wasOpen && !wasData && !wasFirst )
+			{
+				newline(out, INDENT_STRING, depth);
+			}
+			wasData = wasOpen = wasFirst = false;
+		}
+
+
+		/**
+		 * Enclosing tag, comment or declaration, inline after text
+		 */
+		private void leaf () throws IOException
+		{
+			if ( !wasFirst && !wasData )
+			{
+				newline(out, INDENT_STRING, depth);
+			}
+			wasData = wasOpen = wasFirst = false;
+		}
+
+
+		/**
+		 * A line of text or character data, floating data on a new line
+		 */
+		private void data () throws IOException
+		{
+			if ( wasData )
+			{
+				newline(out, INDENT_STRING, depth);
+			}
+			wasData	= true;
+			wasOpen	= wasFirst = false;
+		}
 	}
 
 }
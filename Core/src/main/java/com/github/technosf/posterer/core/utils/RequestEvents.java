@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import java.net.URI;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.core.models.Request;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * {@code RequestEvents} are the JDK Flight Recorder events of the stages of a
+ * request, from preparing the client to pretty printing the response.
+ * <p>
+ * A recording of Posterer shows where the client side time of each request
+ * goes, correlated with GC and thread activity. Events are only described
+ * when they are enabled, so cost next to nothing when not recording.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class RequestEvents
+{
+    /**
+     * The category of the request events
+     */
+    private static final String CATEGORY = "Posterer";
+
+    /**
+     * The stage of a request
+     */
+    @Category({ CATEGORY, "Request" })
+    public abstract static class Stage
+            extends Event
+    {
+        @Label("Request Id")
+        int requestId;
+
+        @Label("Endpoint")
+        @Nullable
+        String endpoint;
+
+        @Label("Method")
+        @Nullable
+        String method;
+
+        @Label("Status")
+        int status;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+
+        /**
+         * Describes the request the stage is of, if the event is enabled
+         *
+         * @param requestId
+         *            the request id
+         * @param request
+         *            the request
+         * @return this event
+         */
+        public final Stage of(final int requestId, final Request request)
+        {
+            if (isEnabled())
+            {
+                this.requestId = requestId;
+                URI uri = request.getUri();
+                this.endpoint = LatencyRecorder.endpoint(uri);
+                this.method = request.getMethod();
+            }
+            return this;
+        }
+
+
+        /**
+         * Sets the response status
+         *
+         * @param status
+         *            the status code
+         * @return this event
+         */
+        public final Stage status(final int status)
+        {
+            this.status = status;
+            return this;
+        }
+
+
+        /**
+         * Sets the bytes handled by the stage
+         *
+         * @param bytes
+         *            the byte count
+         * @return this event
+         */
+        public final Stage bytes(final long bytes)
+        {
+            this.bytes = bytes;
+            return this;
+        }
+    }
+
+    /**
+     * Preparing the client and request
+     */
+    @Name("posterer.Prepare")
+    @Label("Prepare Client")
+    public static final class Prepare
+            extends Stage
+    {
+    }
+
+    /**
+     * TCP connect
+     */
+    @Name("posterer.Connect")
+    @Label("Connect")
+    public static final class Connect
+            extends Stage
+    {
+    }
+
+    /**
+     * TLS handshake
+     */
+    @Name("posterer.Handshake")
+    @Label("TLS Handshake")
+    public static final class Handshake
+            extends Stage
+    {
+    }
+
+    /**
+     * The call, from sending the request to the response returned
+     */
+    @Name("posterer.Execute")
+    @Label("Execute")
+    @Description("Bytes is the request payload size")
+    public static final class Execute
+            extends Stage
+    {
+    }
+
+    /**
+     * Reading and processing the response
+     */
+    @Name("posterer.ProcessResponse")
+    @Label("Process Response")
+    @Description("Bytes is the response body size")
+    public static final class ProcessResponse
+            extends Stage
+    {
+    }
+
+    /**
+     * Pretty printing a document
+     */
+    @Name("posterer.PrettyPrint")
+    @Label("Pretty Print")
+    @Category({ CATEGORY, "Format" })
+    public static final class PrettyPrint
+            extends Event
+    {
+        @Label("Format")
+        @Nullable
+        String format;
+
+        @Label("Length")
+        long length;
+
+
+        /**
+         * Describes the document printed
+         *
+         * @param format
+         *            the document format
+         * @param length
+         *            the document length
+         * @return this event
+         */
+        public PrettyPrint of(final String format, final long length)
+        {
+            this.format = format;
+            this.length = length;
+            return this;
+        }
+    }
+
+
+    /**
+     * Static use only
+     */
+    private RequestEvents()
+    {
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * {@code StatusLog} holds the latest status messages in a fixed capacity ring
+ * buffer.
+ * <p>
+ * Once full, each message added overwrites the oldest, so a long session
+ * holds no more than the capacity. Messages are numbered in the order they
+ * are added, so a reader can pick up only those it has not yet seen. Messages
+ * may be added from any thread.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class StatusLog
+{
+    /**
+     * Default number of messages held
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    /**
+     * A status message and when it was added
+     */
+    public static final class Entry
+    {
+        private final long sequence;
+        private final long time;
+        private final String message;
+
+
+        Entry(final long sequence, final long time, final String message)
+        {
+            this.sequence = sequence;
+            this.time = time;
+            this.message = message;
+        }
+
+
+        /**
+         * Returns the number of the message, counting from 1
+         *
+         * @return the sequence number
+         */
+        public long getSequence()
+        {
+            return sequence;
+        }
+
+
+        /**
+         * Returns when the message was added
+         *
+         * @return the time in epoch milliseconds
+         */
+        public long getTime()
+        {
+            return time;
+        }
+
+
+        /**
+         * Returns the message
+         *
+         * @return the message
+         */
+        public String getMessage()
+        {
+            return message;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Returns the message
+         *
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString()
+        {
+            return message;
+        }
+    }
+
+    /* ------------------------------------------------ */
+
+    private final Entry[] entries;
+
+    /**
+     * Index of the oldest entry
+     */
+    private int head;
+
+    private int size;
+
+    /**
+     * Messages added
+     */
+    private long sequence;
+
+    /**
+     * Times cleared
+     */
+    private int epoch;
+
+
+    /**
+     * Creates a log of the default capacity
+     */
+    public StatusLog()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Creates a log of the given capacity
+     *
+     * @param capacity
+     *            the number of messages held
+     */
+    public StatusLog(final int capacity)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        entries = new Entry[capacity];
+    }
+
+
+    /**
+     * Adds a message, overwriting the oldest if the log is full
+     *
+     * @param message
+     *            the message
+     * @return the entry added
+     */
+    public synchronized Entry add(final String message)
+    {
+        Entry entry =
+                new Entry(++sequence, System.currentTimeMillis(), message);
+        if (size < entries.length)
+        {
+            entries[(head + size++) % entries.length] = entry;
+        }
+        else
+        {
+            entries[head] = entry;
+            head = (head + 1) % entries.length;
+        }
+        return entry;
+    }
+
+
+    /**
+     * Removes all messages
+     */
+    public synchronized void clear()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            entries[(head + i) % entries.length] = null;
+        }
+        head = size = 0;
+        epoch++;
+    }
+
+
+    /**
+     * Returns the messages held, oldest first
+     *
+     * @return the messages
+     */
+    public List<Entry> getEntries()
+    {
+        return since(0);
+    }
+
+
+    /**
+     * Returns the messages held that were added after the given message,
+     * oldest first
+     *
+     * @param seen
+     *            the sequence number of the last message seen
+     * @return the messages
+     */
+    public synchronized List<Entry> since(final long seen)
+    {
+        int count = (int) Math.min(size, Math.max(0, sequence - seen));
+        if (count == 0)
+        {
+            return Collections.emptyList();
+        }
+        List<Entry> fresh = new ArrayList<>(count);
+        for (int i = size - count; i < size; i++)
+        {
+            fresh.add(entries[(head + i) % entries.length]);
+        }
+        return fresh;
+    }
+
+
+    /**
+     * Returns the latest message
+     *
+     * @return the latest message, or null if the log is empty
+     */
+    public synchronized @Nullable Entry last()
+    {
+        return size == 0 ? null
+                : entries[(head + size - 1) % entries.length];
+    }
+
+
+    /**
+     * Returns the number of messages held
+     *
+     * @return the number of messages
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+
+    /**
+     * Returns the number of messages the log can hold
+     *
+     * @return the capacity
+     */
+    public int getCapacity()
+    {
+        return entries.length;
+    }
+
+
+    /**
+     * Returns the sequence number of the latest message added
+     *
+     * @return the sequence number, zero if none have been added
+     */
+    public synchronized long getSequence()
+    {
+        return sequence;
+    }
+
+
+    /**
+     * Returns the number of times the log has been cleared, so a reader can
+     * tell that the messages it holds are gone
+     *
+     * @return the clear count
+     */
+    public synchronized int getEpoch()
+    {
+        return epoch;
+    }
+}
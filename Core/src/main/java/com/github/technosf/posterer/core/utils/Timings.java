@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@code Timings} breaks the time of a request/response down into its
+ * connection phases, with nanosecond resolution.
+ * <p>
+ * Phases are accumulated, so a phase met more than once in a call (e.g. DNS
+ * for a proxy and a redirect) is summed. A phase that did not happen, such as
+ * the connect and handshake of a reused keep-alive connection, stays at zero.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class Timings
+{
+    /**
+     * The phases of a call
+     */
+    public enum Phase
+    {
+        /**
+         * Host name resolution
+         */
+        DNS("DNS"),
+        /**
+         * TCP connect
+         */
+        CONNECT("Connect"),
+        /**
+         * TLS handshake
+         */
+        TLS("TLS"),
+        /**
+         * Writing the request head and body
+         */
+        REQUEST("Request"),
+        /**
+         * From the request written to the response head read
+         */
+        FIRST_BYTE("TTFB"),
+        /**
+         * Reading the response body
+         */
+        DOWNLOAD("Download");
+
+        private final String label;
+
+
+        private Phase(String label)
+        {
+            this.label = label;
+        }
+
+
+        /**
+         * Returns the display label of the phase
+         *
+         * @return the label
+         */
+        public String getLabel()
+        {
+            return label;
+        }
+    }
+
+    /**
+     * Nanoseconds per phase
+     */
+    private final AtomicLongArray nanos =
+            new AtomicLongArray(Phase.values().length);
+
+
+    /**
+     * Adds elapsed time to a phase
+     *
+     * @param phase
+     *            the phase
+     * @param elapsedNanos
+     *            the elapsed time in nanoseconds
+     */
+    public void add(final Phase phase, final long elapsedNanos)
+    {
+        nanos.addAndGet(phase.ordinal(), elapsedNanos);
+    }
+
+
+    /**
+     * Adds the time since {@code startNanos} to a phase
+     *
+     * @param phase
+     *            the phase
+     * @param startNanos
+     *            the {@code System.nanoTime()} the phase started
+     */
+    public void since(final Phase phase, final long startNanos)
+    {
+        add(phase, System.nanoTime() - startNanos);
+    }
+
+
+    /**
+     * Returns the time spent in a phase
+     *
+     * @param phase
+     *            the phase
+     * @return the time in nanoseconds, zero if the phase did not happen
+     */
+    public long getNanos(final Phase phase)
+    {
+        return nanos.get(phase.ordinal());
+    }
+
+
+    /**
+     * Returns the time spent across all phases
+     *
+     * @return the total time in nanoseconds
+     */
+    public long getTotalNanos()
+    {
+        long total = 0;
+        for (int i = 0; i < nanos.length(); i++)
+        {
+            total += nanos.get(i);
+        }
+        return total;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Renders each phase in milliseconds
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Phase phase : Phase.values())
+        {
+            if (sb.length() > 0)
+            {
+                sb.append(", ");
+            }
+            sb.append(phase.getLabel()).append(" ").append(
+                    String.format(Locale.ROOT, "%.3fms",
+                            getNanos(phase) / 1_000_000d));
+        }
+        return sb.toString();
+    }
+}
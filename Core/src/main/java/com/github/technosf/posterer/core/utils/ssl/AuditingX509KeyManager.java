@@ -17,7 +17,11 @@ import java.net.Socket;
 import java.security.Principal;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 import javax.net.ssl.X509KeyManager;
 
@@ -36,15 +40,35 @@ public class AuditingX509KeyManager
         implements X509KeyManager
 {
 
-    private final Auditor auditor;
+    private final Supplier<Auditor> auditor;
     private final X509KeyManager keyManager;
     private boolean called = false;
 
+    /**
+     * The auditors current when this key manager was called
+     */
+    private final Set<Auditor> callers =
+            Collections.synchronizedSet(
+                    Collections.newSetFromMap(new WeakHashMap<>()));
+
     /* ----- State callback ----------- */
 
     public final BooleanSupplier wasCalled = ()->called;
 
 
+    /**
+     * Was this key manager called on behalf of the given auditor's call?
+     * 
+     * @param caller
+     *            the auditor of the call
+     * @return true if called for that call
+     */
+    public boolean wasCalledBy(Auditor caller)
+    {
+        return callers.contains(caller);
+    }
+
+
     /* ------  KeyManager code -------- */
 
     /**
@@ -52,6 +76,21 @@ public class AuditingX509KeyManager
      * @param keyManager
      */
     public AuditingX509KeyManager(Auditor auditor, X509KeyManager keyManager)
+    {
+        this(() -> auditor, keyManager);
+    }
+
+
+    /**
+     * Key manager that audits to the {@code Auditor} current at the time of
+     * each call, so that it can be shared between calls.
+     * 
+     * @param auditor
+     *            supplies the auditor for the current call
+     * @param keyManager
+     */
+    public AuditingX509KeyManager(Supplier<Auditor> auditor,
+            X509KeyManager keyManager)
     {
         this.auditor = auditor;
         this.keyManager = keyManager;
@@ -63,8 +102,7 @@ public class AuditingX509KeyManager
             Principal @Nullable [] issuers,
             @Nullable Socket socket)
     {
-        auditor.append(true, "SSL :: KeyManager chooseClientAlias");
-        called = true;
+        audit("SSL :: KeyManager chooseClientAlias");
         return keyManager.chooseClientAlias(keyType, issuers, socket);
     }
 
@@ -79,8 +117,7 @@ public class AuditingX509KeyManager
     public @Nullable String chooseServerAlias(@Nullable String keyType,
             Principal @Nullable [] issuers, @Nullable Socket socket)
     {
-        auditor.append(true, "SSL :: KeyManager chooseServerAlias");
-        called = true;
+        audit("SSL :: KeyManager chooseServerAlias");
         return keyManager.chooseServerAlias(keyType, issuers, socket);
     }
 
@@ -94,8 +131,7 @@ public class AuditingX509KeyManager
     public X509Certificate @Nullable [] getCertificateChain(
             @Nullable String alias)
     {
-        auditor.append(true, "SSL :: KeyManager getCertificateChain");
-        called = true;
+        audit("SSL :: KeyManager getCertificateChain");
         return keyManager.getCertificateChain(alias);
     }
 
@@ -110,8 +146,7 @@ public class AuditingX509KeyManager
     public String @Nullable [] getClientAliases(@Nullable String keyType,
             Principal @Nullable [] issuers)
     {
-        auditor.append(true, "SSL :: KeyManager getClientAliases");
-        called = true;
+        audit("SSL :: KeyManager getClientAliases");
         return keyManager.getClientAliases(keyType, issuers);
     }
 
@@ -124,8 +159,7 @@ public class AuditingX509KeyManager
     @Override
     public @Nullable PrivateKey getPrivateKey(@Nullable String alias)
     {
-        auditor.append(true, "SSL :: KeyManager getPrivateKey");
-        called = true;
+        audit("SSL :: KeyManager getPrivateKey");
         return keyManager.getPrivateKey(alias);
     }
 
@@ -140,9 +174,23 @@ public class AuditingX509KeyManager
     public String @Nullable [] getServerAliases(@Nullable String keyType,
             Principal @Nullable [] issuers)
     {
-        auditor.append(true, "SSL :: KeyManager getServerAliases");
-        called = true;
+        audit("SSL :: KeyManager getServerAliases");
         return keyManager.getServerAliases(keyType, issuers);
     }
 
+
+    /**
+     * Audit the call and note the caller
+     * 
+     * @param status
+     *            the status to audit
+     */
+    private void audit(String status)
+    {
+        Auditor caller = auditor.get();
+        caller.detail().append(true, status);
+        callers.add(caller);
+        called = true;
+    }
+
 }
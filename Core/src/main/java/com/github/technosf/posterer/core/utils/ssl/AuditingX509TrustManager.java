@@ -15,6 +15,7 @@ package com.github.technosf.posterer.core.utils.ssl;
 
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.function.Supplier;
 
 import javax.net.ssl.X509TrustManager;
 
@@ -43,7 +44,10 @@ public class AuditingX509TrustManager
      */
     private X509Certificate @Nullable [] clientCerts;
 
-    private Auditor auditor;
+    /**
+     * Resolves the auditor for the call being made
+     */
+    private final Supplier<Auditor> auditor;
 
 
     /**
@@ -54,6 +58,22 @@ public class AuditingX509TrustManager
      */
     public AuditingX509TrustManager(Auditor auditor,
             boolean acceptClientCerts)
+    {
+        this(() -> auditor, acceptClientCerts);
+    }
+
+
+    /**
+     * Constructor for Trust Manager that audits to the {@code Auditor} current
+     * at the time of each call, so that it can be shared between calls.
+     * 
+     * @param auditor
+     *            supplies the auditor for the current call
+     * @param AcceptClientCerts
+     *            true is provided clients certs are passed back
+     */
+    public AuditingX509TrustManager(Supplier<Auditor> auditor,
+            boolean acceptClientCerts)
     {
         this.acceptClientCerts = acceptClientCerts;
         this.auditor = auditor;
@@ -78,9 +98,9 @@ public class AuditingX509TrustManager
             if (acceptClientCerts)
                 clientCerts = arg0;
 
-            auditor.append(true,
+            auditor.get().detail().append(true,
                     "SSL :: TrustManager checkClientTrusted - Request Type :[%2$s]\n\tCertificate: [%1$s]",
-                    arg0[0].getSubjectX500Principal().toString(), arg1);
+                    arg0[0].getSubjectX500Principal(), arg1);
         }
     }
 
@@ -97,9 +117,9 @@ public class AuditingX509TrustManager
                     throws CertificateException
     {
         if (arg0 != null)
-            auditor.append(true,
+            auditor.get().detail().append(true,
                     "SSL :: TrustManager checkServerTrusted - Request Type :[%2$s]\n\tCertificate: [%1$s]",
-                    arg0[0].getSubjectX500Principal().toString(), arg1);
+                    arg0[0].getSubjectX500Principal(), arg1);
     }
 
 
@@ -111,11 +131,12 @@ public class AuditingX509TrustManager
     @Override
     public X509Certificate @Nullable [] getAcceptedIssuers()
     {
-        auditor.append(true, "SSL :: TrustManager getAcceptedIssuers");
+        Auditor audit = auditor.get().detail();
+        audit.append(true, "SSL :: TrustManager getAcceptedIssuers");
         if (clientCerts != null)
         {
-            auditor.append(false, "\tHanding back certificate :[%1$s]",
-                    clientCerts[0].getSubjectX500Principal().toString());
+            audit.append(false, "\tHanding back certificate :[%1$s]",
+                    clientCerts[0].getSubjectX500Principal());
         }
         return clientCerts;
     }
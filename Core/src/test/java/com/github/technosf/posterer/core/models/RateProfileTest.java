@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.models;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class RateProfileTest
+{
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+
+    @Test
+    public void fixed()
+    {
+        RateProfile profile = RateProfile.fixed(50, 10, TimeUnit.SECONDS);
+        assertEquals(profile.getRateAt(0), 50d);
+        assertEquals(profile.getRateAt(9 * SECOND), 50d);
+        assertEquals(profile.getMaxInFlight(),
+                RateProfile.DEFAULT_MAX_IN_FLIGHT);
+    }
+
+
+    @Test
+    public void linear()
+    {
+        RateProfile profile =
+                RateProfile.linear(10, 110, 10, TimeUnit.SECONDS);
+        assertEquals(profile.getRateAt(0), 10d);
+        assertEquals(profile.getRateAt(5 * SECOND), 60d);
+        assertEquals(profile.getRateAt(10 * SECOND), 110d);
+    }
+
+
+    @Test
+    public void step()
+    {
+        RateProfile profile =
+                RateProfile.step(10, 40, 4, 8, TimeUnit.SECONDS);
+        assertEquals(profile.getRateAt(SECOND), 10d);
+        assertEquals(profile.getRateAt(3 * SECOND), 20d);
+        assertEquals(profile.getRateAt(5 * SECOND), 30d);
+        assertEquals(profile.getRateAt(7 * SECOND), 40d);
+    }
+
+
+    @Test
+    public void spike()
+    {
+        RateProfile profile = RateProfile
+                .spike(10, 500, 4, 2, 10, TimeUnit.SECONDS)
+                .withMaxInFlight(8);
+        assertEquals(profile.getRateAt(3 * SECOND), 10d);
+        assertEquals(profile.getRateAt(5 * SECOND), 500d);
+        assertEquals(profile.getRateAt(6 * SECOND), 10d);
+        assertEquals(profile.getMaxInFlight(), 8);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void zeroRate()
+    {
+        RateProfile.fixed(0, 1, TimeUnit.SECONDS);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void nanRate()
+    {
+        RateProfile.fixed(Double.NaN, 1, TimeUnit.SECONDS);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void infiniteRate()
+    {
+        RateProfile.linear(1, Double.POSITIVE_INFINITY, 1, TimeUnit.SECONDS);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void hugeRate()
+    {
+        RateProfile.spike(1, 2e9, 0, 1, 1, TimeUnit.SECONDS);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void tinyRate()
+    {
+        RateProfile.fixed(1e-11, 1, TimeUnit.SECONDS);
+    }
+
+
+    @Test
+    public void boundRates()
+    {
+        assertEquals(RateProfile.fixed(RateProfile.MIN_RATE, 1,
+                TimeUnit.SECONDS).getRateAt(0), RateProfile.MIN_RATE);
+        assertEquals(RateProfile.fixed(RateProfile.MAX_RATE, 1,
+                TimeUnit.SECONDS).getRateAt(0), RateProfile.MAX_RATE);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.models.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Test;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class LoadResultBeanTest
+{
+
+    @Test
+    public void latency()
+    {
+        LoadResultBean result = new LoadResultBean("test");
+        for (int i = 1000; i >= 1; i--)
+        {
+            result.recordResponse("HTTP/1.1 200 OK", 4, i * 1_000_000L);
+        }
+        result.recordError(new IOException(), 2_000_000_000L);
+
+        Histogram latency = result.getLatency();
+        assertEquals(latency.getTotalCount(), 1001);
+        assertEquals(latency.getValueAtPercentile(50) / 1_000_000d, 501,
+                0.5);
+        assertEquals(latency.getMaxValue() / 1_000_000d, 2000, 2);
+        assertEquals(result.getRequests(), 1001);
+        assertEquals(result.getErrors(), 1);
+
+        /*
+         * Later reads accumulate
+         */
+        result.recordResponse("HTTP/1.1 200 OK", 4, 1_000_000L);
+        assertEquals(result.getLatency().getTotalCount(), 1002);
+    }
+
+
+    @Test
+    public void empty()
+    {
+        LoadResultBean result = new LoadResultBean("test");
+        assertEquals(result.getLatency().getTotalCount(), 0);
+        assertTrue(result.toString().contains("p99.9 0.000ms"));
+    }
+}
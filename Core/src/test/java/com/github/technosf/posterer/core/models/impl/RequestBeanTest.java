@@ -4,17 +4,28 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.mock;
 import static org.easymock.EasyMock.replay;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+
+import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.annotation.Nullable;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.github.technosf.posterer.core.models.HttpHeader;
 import com.github.technosf.posterer.core.models.Request;
+import com.github.technosf.posterer.core.utils.PayloadStore;
+import com.google.common.hash.HashCode;
 
 public class RequestBeanTest
 {
@@ -67,6 +78,64 @@ public class RequestBeanTest
     }
 
 
+    @Test
+    public void equalsRequest()
+    {
+        assertTrue(classUnderTest.equals(REQUEST));
+        assertEquals(RequestBean.fingerprint(REQUEST),
+                classUnderTest.getFingerprint());
+    }
+
+
+    @Test
+    public void fingerprint()
+    {
+        RequestBean request = classUnderTest.copy();
+        HashCode fingerprint = request.getFingerprint();
+        assertSame(request.getFingerprint(), fingerprint);
+
+        request.setMethod("other");
+        assertNotEquals(request.getFingerprint(), fingerprint);
+        assertNotEquals(request, classUnderTest);
+
+        request.setMethod(classUnderTest.getMethod());
+        assertEquals(request.getFingerprint(), fingerprint);
+        assertEquals(request, classUnderTest);
+        assertEquals(request.hashCode(), classUnderTest.hashCode());
+    }
+
+
+    @Test
+    public void fingerprintFieldBoundaries()
+    {
+        RequestBean request = classUnderTest.copy();
+        request.setMethod("ab");
+        request.setSecurity("c");
+        RequestBean shifted = classUnderTest.copy();
+        shifted.setMethod("a");
+        shifted.setSecurity("bc");
+        assertNotEquals(request.getFingerprint(), shifted.getFingerprint());
+    }
+
+
+    @Test
+    public void copyEscapablePayload()
+    {
+        RequestBean request = classUnderTest.copy();
+        request.setPayload("<a>&amp;</a>");
+        RequestBean copy = request.copy();
+        assertEquals(copy.getPayloadRaw(), request.getPayloadRaw());
+        assertEquals(copy, request);
+    }
+
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void headersUnmodifiable()
+    {
+        classUnderTest.getHeaders().clear();
+    }
+
+
     @Test
     public void getBase64()
     {
@@ -102,6 +171,42 @@ public class RequestBeanTest
     }
 
 
+    @Test
+    public void storePayload() throws IOException
+    {
+        File directory = Files.createTempDirectory("posterer-test").toFile();
+        try
+        {
+            RequestBean request = new RequestBean(REQUEST);
+            request.setPayload("<a>&amp;</a>");
+            RequestBean eager = new RequestBean(REQUEST);
+            eager.setPayload("<a>&amp;</a>");
+            int hash = request.hashCode();
+
+            PayloadStore.Reference reference =
+                    request.storePayload(new PayloadStore(directory));
+            assertSame(request.storePayload(new PayloadStore(directory)),
+                    reference);
+            assertEquals(request.hashCode(), hash);
+            assertEquals(request, eager);
+            assertEquals(request.getPayloadRaw(), "<a>&amp;</a>");
+            assertEquals(request.getPayload(), eager.getPayload());
+
+            RequestBean copy = request.copy();
+            assertSame(copy.getPayloadReference(), reference);
+            assertEquals(copy, request);
+
+            copy.setPayload("changed");
+            assertNull(copy.getPayloadReference());
+            assertNotNull(request.getPayloadReference());
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+
     //    @Test
     //    public void getTimeout()
     //    {
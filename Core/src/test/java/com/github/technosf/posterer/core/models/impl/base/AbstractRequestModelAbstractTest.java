@@ -16,8 +16,11 @@ package com.github.technosf.posterer.core.models.impl.base;
 import static org.easymock.EasyMock.mock;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.reset;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
+import java.util.function.IntFunction;
+
 import org.eclipse.jdt.annotation.NonNull;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -129,4 +132,21 @@ public abstract class AbstractRequestModelAbstractTest<T extends ResponseModel>
         assertNotNull(responseModel);
     }
 
+
+
+    @Test
+    public void auditors()
+    {
+        AbstractRequestModel<T> classUnderTest = getClassUnderTest();
+        classUnderTest.setAuditLevel(Auditor.Level.OFF);
+        classUnderTest.setAuditSampling(10);
+        IntFunction<Auditor> auditors = classUnderTest.auditors();
+        assertEquals(auditors.apply(20).getLevel(), Auditor.Level.FULL);
+        assertEquals(auditors.apply(21).getLevel(), Auditor.Level.OFF);
+
+        classUnderTest.setAuditSampling(0);
+        assertEquals(classUnderTest.auditors().apply(20).getLevel(),
+                Auditor.Level.OFF);
+    }
+
 }
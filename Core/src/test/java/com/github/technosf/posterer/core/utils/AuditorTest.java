@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class AuditorTest
+{
+
+    @Test
+    public void toStringOrder()
+    {
+        Auditor auditor = new Auditor();
+        auditor.postscript(false, "Status");
+        auditor.append(false, "first").append(false, "%1$s-%2$d", "second", 2);
+        assertEquals(auditor.toString(), "first\nsecond-2\nStatus\n");
+    }
+
+
+    @Test
+    public void append_chrono()
+    {
+        Auditor auditor = new Auditor();
+        auditor.start();
+        auditor.append(true, "timed");
+        assertTrue(auditor.toString().matches("@\\d+ms - timed\n"));
+    }
+
+
+    @Test
+    public void level_summary()
+    {
+        Auditor auditor = new Auditor(Auditor.Level.SUMMARY);
+        auditor.append(false, "call");
+        auditor.detail().append(false, "handshake");
+        assertEquals(auditor.toString(), "call\n");
+    }
+
+
+    @Test
+    public void level_off()
+    {
+        Auditor auditor = new Auditor(Auditor.Level.OFF);
+        auditor.append(false, "call").postscript(false, "Status");
+        auditor.detail().append(false, "handshake");
+        assertEquals(auditor.toString(), "");
+    }
+
+
+    @Test
+    public void level_full()
+    {
+        Auditor auditor = new Auditor();
+        assertSame(auditor.detail(), auditor);
+    }
+
+
+    @Test
+    public void append_lazy()
+    {
+        AtomicInteger formatted = new AtomicInteger();
+        Object arg = new Object()
+        {
+            @Override
+            public String toString()
+            {
+                formatted.incrementAndGet();
+                return "arg";
+            }
+        };
+        Auditor auditor = new Auditor();
+        auditor.append(false, "[%1$s]", arg);
+        assertEquals(formatted.get(), 0);
+        assertEquals(auditor.toString(), "[arg]\n");
+        assertEquals(formatted.get(), 1);
+    }
+
+
+    @Test
+    public void append_concurrent() throws InterruptedException
+    {
+        int threads = 4;
+        int lines = 1000;
+        Auditor auditor = new Auditor();
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> appenders = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            int id = t;
+            Thread appender = new Thread(() -> {
+                try
+                {
+                    go.await();
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+                for (int i = 0; i < lines; i++)
+                {
+                    auditor.append(true, "thread %1$d line %2$d", id, i);
+                }
+            });
+            appender.start();
+            appenders.add(appender);
+        }
+        go.countDown();
+        for (Thread appender : appenders)
+        {
+            appender.join();
+        }
+
+        String[] audit = auditor.toString().split("\n");
+        assertEquals(audit.length, threads * lines);
+        for (String line : audit)
+        {
+            assertTrue(line.matches("@\\d+ms - thread \\d line \\d+"), line);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class BodySinkTest
+{
+    private static final String ABC_SHA256 =
+            "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+
+    @Test
+    public void captureInMemory() throws IOException
+    {
+        BodySink sink = BodySink.capture(
+                new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, 1024);
+        assertNull(sink.getFile());
+        assertEquals(sink.getSize(), 3);
+        assertEquals(sink.getHash(), ABC_SHA256);
+        assertEquals(sink.getText(), "abc");
+        assertEquals(sink.getPreview(), "abc");
+        assertTrue(sink.isPreviewComplete());
+    }
+
+
+    @Test
+    public void captureToFile() throws IOException
+    {
+        byte[] body = new byte[200_000];
+        Arrays.fill(body, (byte) 'x');
+        body[150_000] = 'y';
+
+        BodySink sink = BodySink.capture(new ByteArrayInputStream(body),
+                StandardCharsets.US_ASCII, 1024);
+        try
+        {
+            Path file = sink.getFile();
+            assertNotNull(file);
+            assertEquals(Files.size(file), body.length);
+            assertEquals(sink.getSize(), body.length);
+            assertFalse(sink.isPreviewComplete());
+            assertEquals(sink.getPreview().length(), BodySink.PREVIEW_BYTES);
+            assertEquals(sink.getPreview(149_999, 3), "xyx");
+            assertEquals(sink.getText().length(), body.length);
+        }
+        finally
+        {
+            sink.discard();
+        }
+    }
+
+
+    @Test
+    public void unfinishedDeletesFile() throws IOException
+    {
+        BodySink.Capture capture =
+                BodySink.open(StandardCharsets.UTF_8, 10);
+        capture.write(ByteBuffer.wrap(new byte[20]));
+        Path file = capture.getFile();
+        assertNotNull(file);
+        assertTrue(Files.exists(file));
+        capture.close();
+        assertFalse(Files.exists(file));
+    }
+
+
+    @Test
+    public void sameHashEitherWay() throws IOException
+    {
+        byte[] body = new byte[10_000];
+        Arrays.fill(body, (byte) 'z');
+        BodySink inMemory = BodySink.capture(new ByteArrayInputStream(body),
+                StandardCharsets.US_ASCII, body.length);
+        BodySink toFile = BodySink.capture(new ByteArrayInputStream(body),
+                StandardCharsets.US_ASCII, 10);
+        assertEquals(toFile.getHash(), inMemory.getHash());
+        toFile.discard();
+    }
+
+
+    @Test
+    public void empty()
+    {
+        BodySink sink = BodySink.empty(StandardCharsets.UTF_8);
+        assertEquals(sink.getSize(), 0);
+        assertEquals(sink.getPreview(), "");
+        assertEquals(sink.getHash(),
+                "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.core.utils.LatencyRecorder.Key;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class LatencyRecorderTest
+{
+
+    @Test
+    public void endpoint()
+    {
+        assertEquals(LatencyRecorder.endpoint(
+                URI.create("https://host:8443/a/b?q=1#f")),
+                "https://host:8443/a/b");
+        assertEquals(LatencyRecorder.endpoint(URI.create("http://host")),
+                "http://host/");
+        assertEquals(LatencyRecorder.endpoint(null),
+                LatencyRecorder.INVALID_ENDPOINT);
+    }
+
+
+    @Test
+    public void statusClass()
+    {
+        assertEquals(LatencyRecorder.statusClass(204), "2xx");
+        assertEquals(LatencyRecorder.statusClass(503), "5xx");
+        assertEquals(LatencyRecorder.statusClass(0), "ERR");
+    }
+
+
+    @Test
+    public void getPercentile()
+    {
+        LatencyRecorder recorder = new LatencyRecorder();
+        Key key = new Key("http://host/", "GET", "2xx");
+        for (int i = 1; i <= 100; i++)
+        {
+            recorder.record(key, i * 1_000_000L);
+        }
+        assertEquals(recorder.getCount(key), 100);
+        assertEquals(recorder.getPercentile(key, 50) / 1_000_000d, 50, 0.1);
+
+        /*
+         * Later intervals accumulate
+         */
+        recorder.record(key, 1_000_000_000L);
+        assertEquals(recorder.getCount(key), 101);
+        assertEquals(recorder.getPercentile(key, 100) / 1_000_000d, 1000, 1);
+        assertTrue(recorder.getSummary(key)
+                .startsWith("GET http://host/ 2xx: 101 fires, p50 "));
+    }
+
+
+    @Test
+    public void getKeys()
+    {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(new Key("http://host/", "GET", "5xx"), 1);
+        recorder.record(new Key("http://host/", "GET", "2xx"), 1);
+        recorder.record(new Key("http://host/", "POST", "2xx"), 1);
+        List<Key> keys = recorder.getKeys("http://host/", "GET");
+        assertEquals(keys.size(), 2);
+        assertEquals(keys.get(0).getStatusClass(), "2xx");
+        assertEquals(recorder.getCount(new Key("http://other/", "GET", "2xx")),
+                0);
+    }
+
+
+    @Test
+    public void record_concurrent() throws InterruptedException
+    {
+        LatencyRecorder recorder = new LatencyRecorder();
+        Key key = new Key("http://host/", "GET", "2xx");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++)
+        {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++)
+                {
+                    recorder.record(key, i);
+                    if (i % 1000 == 0)
+                    {
+                        recorder.getCount(key);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(recorder.getCount(key), 40_000);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class PayloadStoreTest
+{
+    private static final String ABC_SHA256 =
+            "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    private File directory = new File("");
+
+    private PayloadStore store = new PayloadStore(directory);
+
+
+    @BeforeMethod
+    public void beforeMethod() throws IOException
+    {
+        directory = new File(
+                Files.createTempDirectory("posterer-test").toFile(), "store");
+        store = new PayloadStore(directory);
+    }
+
+
+    @AfterMethod
+    public void afterMethod()
+    {
+        FileUtils.deleteQuietly(directory.getParentFile());
+    }
+
+
+    @Test
+    public void putAndGet() throws IOException
+    {
+        assertFalse(directory.exists());
+        assertEquals(store.put("abc"), ABC_SHA256);
+        assertEquals(store.get(ABC_SHA256), "abc");
+
+        String unicode = "été ☃";
+        assertEquals(store.get(store.put(unicode)), unicode);
+    }
+
+
+    @Test
+    public void deduplicated() throws IOException
+    {
+        assertEquals(store.put("abc"), store.put("abc"));
+        assertEquals(directory.list().length, 1);
+    }
+
+
+    @Test(expectedExceptions = IOException.class)
+    public void getBadKey() throws IOException
+    {
+        store.get("../" + ABC_SHA256);
+    }
+
+
+    @Test
+    public void reference() throws IOException
+    {
+        HashCode hash = Hashing.murmur3_128().hashUnencodedChars("abc");
+        PayloadStore.Reference reference =
+                new PayloadStore.Reference(store, store.put("abc"), hash);
+        assertEquals(reference.load(), "abc");
+
+        PayloadStore.Reference parsed = store.reference(reference.toString());
+        assertNotNull(parsed);
+        assertEquals(parsed.getKey(), ABC_SHA256);
+        assertEquals(parsed.getHash(), hash);
+        assertEquals(parsed.load(), "abc");
+
+        assertNull(store.reference(ABC_SHA256));
+        assertNull(store.reference("abc:1"));
+        assertNull(store.reference(ABC_SHA256 + ":x"));
+        assertNull(store.reference(ABC_SHA256 + ":"));
+    }
+
+
+    @Test
+    public void missing()
+    {
+        assertEquals(new PayloadStore.Reference(store, ABC_SHA256,
+                HashCode.fromInt(0)).load(), "");
+    }
+
+
+    @Test
+    public void sweep() throws IOException
+    {
+        String live = store.put("live");
+        String dead = store.put("dead");
+
+        assertEquals(store.sweep(Collections.singleton(live), 0), 0);
+        assertEquals(store.sweep(Collections.singleton(live), Long.MAX_VALUE),
+                1);
+        assertTrue(new File(directory, live).exists());
+        assertFalse(new File(directory, dead).exists());
+    }
+}
@@ -15,6 +15,10 @@ package com.github.technosf.posterer.core.utils;
 
 import static org.testng.Assert.assertEquals;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -79,6 +83,34 @@ public class PrettyPrintersTest
     }
 
 
+    @DataProvider
+    public Object[][] dxmlMarkup()
+    {
+        return new Object[][] {
+                new Object[] {
+                        "<a href=\"x>y\"><!-- c > d --><b><![CDATA[<x> & ]]></b></a>",
+                        "<a href=\"x>y\">\n    <!-- c > d -->\n    <b><![CDATA[<x> & ]]></b>\n</a>"
+                },
+                new Object[] {
+                        "<r><a></a><b/></r>",
+                        "<r>\n    <a></a>\n    <b/>\n</r>"
+                }
+        };
+    }
+
+
+    @DataProvider
+    public Object[][] djsonStrings()
+    {
+        return new Object[][] {
+                new Object[] {
+                        "{\"a\":\"{[,]}\\\"\",\"b\":[1,2,[]],\"c\":{}}",
+                        "{\n  \"a\": \"{[,]}\\\"\",\n  \"b\": [\n    1,\n    2,\n    []\n  ],\n  \"c\": {}\n}"
+                }
+        };
+    }
+
+
     @Test(dataProvider = "dxml")
     public void prettyPrintXml(String input, boolean stripXmlDef, String expected)
     {
@@ -86,10 +118,69 @@ public class PrettyPrintersTest
         assertEquals(output, expected);
     }
 
-//    @Test(dataProvider = "djson")
-//    public void prettyPrintJson(String input, String expected)
-//    {
-//        String output = PrettyPrinters.json(input);
-//        assertEquals(output, expected);
-//    }
+    @Test(dataProvider = "djson")
+    public void prettyPrintJson(String input, String expected)
+    {
+        String output = PrettyPrinters.json(input);
+        assertEquals(output, expected);
+    }
+
+
+    @Test(dataProvider = "dxmlMarkup")
+    public void prettyPrintXmlMarkup(String input, String expected)
+    {
+        assertEquals(PrettyPrinters.xml(input, true), expected);
+    }
+
+
+    @Test(dataProvider = "djsonStrings")
+    public void prettyPrintJsonStrings(String input, String expected)
+    {
+        assertEquals(PrettyPrinters.json(input), expected);
+    }
+
+
+    @Test(dataProvider = "dxml")
+    public void prettyPrintXmlStream(String input, boolean stripXmlDef, String expected) throws IOException
+    {
+        StringBuilder output = new StringBuilder();
+        PrettyPrinters.xml(new StringReader(input), output, stripXmlDef);
+        assertEquals(output.toString(), expected);
+    }
+
+
+    @DataProvider
+    public Object[][] ddetect()
+    {
+        return new Object[][] {
+                new Object[] { "application/json; charset=UTF-8", "<a/>", PrettyPrinters.Format.JSON },
+                new Object[] { "application/soap+xml", "{}", PrettyPrinters.Format.XML },
+                new Object[] { "text/plain", " \n<a/>", PrettyPrinters.Format.XML },
+                new Object[] { null, "\uFEFF[1]", PrettyPrinters.Format.JSON },
+                new Object[] { null, "a=b", PrettyPrinters.Format.TEXT },
+                new Object[] { null, "", PrettyPrinters.Format.TEXT }
+        };
+    }
+
+
+    @Test(dataProvider = "ddetect")
+    public void detect(String contentType, String document, PrettyPrinters.Format expected)
+    {
+        assertEquals(PrettyPrinters.detect(contentType, document), expected);
+    }
+
+
+    @Test(expectedExceptions = InterruptedIOException.class)
+    public void formatInterrupted() throws IOException
+    {
+        Thread.currentThread().interrupt();
+        try
+        {
+            PrettyPrinters.format(PrettyPrinters.Format.JSON, new StringReader("{}"), new StringBuilder(), true);
+        }
+        finally
+        {
+            Thread.interrupted();
+        }
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertEquals;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.core.models.Request;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class RequestEventsTest
+{
+
+    @Test
+    public void recorded() throws Exception
+    {
+        Request request = mock(Request.class);
+        expect(request.getUri())
+                .andStubReturn(URI.create("http://host/path?q=1"));
+        expect(request.getMethod()).andStubReturn("POST");
+        replay(request);
+
+        Path file = Files.createTempFile("posterer-", ".jfr");
+        try (Recording recording = new Recording())
+        {
+            recording.enable(RequestEvents.Execute.class);
+            recording.enable(RequestEvents.PrettyPrint.class);
+            recording.start();
+
+            RequestEvents.Stage event =
+                    new RequestEvents.Execute().of(7, request);
+            event.begin();
+            event.status(201).bytes(42).commit();
+            PrettyPrinters.json("{\"a\":1}");
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(events.size(), 2);
+            for (RecordedEvent recorded : events)
+            {
+                if ("posterer.Execute"
+                        .equals(recorded.getEventType().getName()))
+                {
+                    assertEquals(recorded.getInt("requestId"), 7);
+                    assertEquals(recorded.getString("endpoint"),
+                            "http://host/path");
+                    assertEquals(recorded.getString("method"), "POST");
+                    assertEquals(recorded.getInt("status"), 201);
+                    assertEquals(recorded.getLong("bytes"), 42);
+                }
+                else
+                {
+                    assertEquals(recorded.getEventType().getName(),
+                            "posterer.PrettyPrint");
+                    assertEquals(recorded.getString("format"), "json");
+                }
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+        }
+    }
+
+
+    @Test
+    public void recordedWithoutUri() throws Exception
+    {
+        Request request = mock(Request.class);
+        expect(request.getUri()).andStubReturn(null);
+        expect(request.getMethod()).andStubReturn("GET");
+        replay(request);
+
+        Path file = Files.createTempFile("posterer-", ".jfr");
+        try (Recording recording = new Recording())
+        {
+            recording.enable(RequestEvents.Prepare.class);
+            recording.start();
+
+            RequestEvents.Stage event =
+                    new RequestEvents.Prepare().of(8, request);
+            event.begin();
+            event.commit();
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(events.size(), 1);
+            assertEquals(events.get(0).getString("endpoint"),
+                    LatencyRecorder.INVALID_ENDPOINT);
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+        }
+    }
+}
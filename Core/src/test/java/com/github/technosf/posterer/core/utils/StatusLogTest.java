@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class StatusLogTest
+{
+
+    @Test
+    public void add()
+    {
+        StatusLog log = new StatusLog(3);
+        assertNull(log.last());
+        log.add("a");
+        log.add("b");
+        assertEquals(messages(log.getEntries()), "ab");
+        assertEquals(log.last().getMessage(), "b");
+        assertEquals(log.getSequence(), 2);
+    }
+
+
+    @Test
+    public void add_wraps()
+    {
+        StatusLog log = new StatusLog(3);
+        for (String message : new String[] { "a", "b", "c", "d", "e" })
+        {
+            log.add(message);
+        }
+        assertEquals(log.size(), 3);
+        assertEquals(messages(log.getEntries()), "cde");
+        assertEquals(log.getEntries().get(0).getSequence(), 3);
+    }
+
+
+    @Test
+    public void since()
+    {
+        StatusLog log = new StatusLog(3);
+        log.add("a");
+        log.add("b");
+        assertEquals(messages(log.since(1)), "b");
+        assertTrue(log.since(2).isEmpty());
+        log.add("c");
+        log.add("d");
+        log.add("e");
+        assertEquals(messages(log.since(1)), "cde");
+        assertEquals(messages(log.since(4)), "e");
+    }
+
+
+    @Test
+    public void clear()
+    {
+        StatusLog log = new StatusLog(3);
+        log.add("a");
+        log.clear();
+        assertEquals(log.size(), 0);
+        assertEquals(log.getEpoch(), 1);
+        assertTrue(log.since(0).isEmpty());
+        log.add("b");
+        assertEquals(messages(log.since(0)), "b");
+        assertEquals(log.last().getSequence(), 2);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void capacity()
+    {
+        new StatusLog(0);
+    }
+
+
+    private static String messages(final List<StatusLog.Entry> entries)
+    {
+        return entries.stream().map(StatusLog.Entry::getMessage)
+                .collect(Collectors.joining());
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.core.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class TimingsTest
+{
+
+    @Test
+    public void add()
+    {
+        Timings timings = new Timings();
+        timings.add(Phase.DNS, 1_500_000);
+        timings.add(Phase.DNS, 500_000);
+        timings.add(Phase.TLS, 3_000_000);
+        assertEquals(timings.getNanos(Phase.DNS), 2_000_000);
+        assertEquals(timings.getNanos(Phase.CONNECT), 0);
+        assertEquals(timings.getTotalNanos(), 5_000_000);
+    }
+
+
+    @Test
+    public void since()
+    {
+        Timings timings = new Timings();
+        timings.since(Phase.DOWNLOAD, System.nanoTime() - 1000);
+        assertTrue(timings.getNanos(Phase.DOWNLOAD) >= 1000);
+    }
+
+
+    @Test
+    public void toStringFormat()
+    {
+        Timings timings = new Timings();
+        timings.add(Phase.FIRST_BYTE, 12_345_678);
+        assertTrue(timings.toString().contains("TTFB 12.346ms"));
+    }
+}
@@ -15,7 +15,9 @@ package com.github.technosf.posterer.modules;
 
 import static com.google.inject.Guice.createInjector;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
@@ -24,7 +26,9 @@ import org.slf4j.LoggerFactory;
 
 import com.github.technosf.posterer.core.models.Properties;
 import com.github.technosf.posterer.core.models.RequestModel;
+import com.github.technosf.posterer.modules.async.AsyncModule;
 import com.github.technosf.posterer.modules.commons.CommonsModule;
+import com.github.technosf.posterer.modules.jdk.JdkModule;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 
@@ -42,6 +46,49 @@ public class Factory
     private static final Logger LOG = LoggerFactory
             .getLogger(Factory.class);
 
+    /**
+     * System property naming the transport to use
+     */
+    public static final String TRANSPORT_PROPERTY = "posterer.transport";
+
+    /**
+     * The HTTP transport implementations
+     */
+    public enum Transport
+    {
+        /**
+         * Blocking Apache Commons HTTP client
+         */
+        COMMONS,
+        /**
+         * Non-blocking Apache HttpComponents 5 async client
+         */
+        ASYNC,
+        /**
+         * JDK {@code java.net.http} client, preferring HTTP/2
+         */
+        JDK;
+
+        /**
+         * Returns the transport named by the {@link #TRANSPORT_PROPERTY}
+         * system property
+         * 
+         * @return the named transport, or {@code COMMONS} if none is named
+         */
+        public static Transport fromSystemProperty()
+        {
+            String name = System.getProperty(TRANSPORT_PROPERTY);
+            for (Transport transport : values())
+            {
+                if (transport.name().equalsIgnoreCase(name))
+                {
+                    return transport;
+                }
+            }
+            return COMMONS;
+        }
+    }
+
     /**
      * A Guice Injector for the properties and request module implementation
      */
@@ -73,7 +120,27 @@ public class Factory
     protected Factory(final PropertiesParameter propsparam)
             throws ModuleException
     {
-        Module module = new CommonsModule(propsparam);
+        this(propsparam, Transport.COMMONS);
+    }
+
+
+    protected Factory(final PropertiesParameter propsparam,
+            final Transport transport)
+            throws ModuleException
+    {
+        Module module;
+        switch (transport)
+        {
+            case ASYNC:
+                module = new AsyncModule(propsparam);
+                break;
+            case JDK:
+                module = new JdkModule(propsparam);
+                break;
+            default:
+                module = new CommonsModule(propsparam);
+        }
+        LOG.debug("Module factory using {} transport", transport);
 
         Injector mi = createInjector(module);
         if (mi == null)
@@ -107,6 +174,23 @@ public class Factory
     }
 
 
+    /**
+     * Closes the request model, releasing any pooled clients and their
+     * connections
+     * 
+     * @throws IOException
+     *             the request model could not be closed
+     */
+    public final void close() throws IOException
+    {
+        RequestModel requestModel = getRequestModel();
+        if (requestModel instanceof Closeable)
+        {
+            ((Closeable) requestModel).close();
+        }
+    }
+
+
     public static Factory getFactory(final String prefix,
             @Nullable final File directory,
             @Nullable final String filename) throws ModuleException
@@ -115,4 +199,30 @@ public class Factory
                 new PropertiesParameter(prefix, directory, filename);
         return new Factory(param);
     }
+
+
+    /**
+     * Returns a factory producing the given transport
+     * 
+     * @param prefix
+     *            the properties prefix
+     * @param directory
+     *            the properties directory, if not the default
+     * @param filename
+     *            the properties file name, if not the default
+     * @param transport
+     *            the HTTP transport
+     * @return the factory
+     * @throws ModuleException
+     *             the module could not be created
+     */
+    public static Factory getFactory(final String prefix,
+            @Nullable final File directory,
+            @Nullable final String filename, final Transport transport)
+            throws ModuleException
+    {
+        PropertiesParameter param =
+                new PropertiesParameter(prefix, directory, filename);
+        return new Factory(param, transport);
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.technosf.posterer.core.models.Properties;
+import com.github.technosf.posterer.core.models.RequestModel;
+import com.github.technosf.posterer.modules.Factory.PropertiesParameter;
+import com.github.technosf.posterer.modules.async.transport.AsyncRequestModelImpl;
+import com.github.technosf.posterer.modules.commons.config.CommonsConfiguratorPropertiesImpl;
+import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
+import com.google.inject.name.Names;
+
+/**
+ * Guice module to inject the asynchronous Apache HttpComponents 5 transport
+ * and the Commons Configurator for properties storage.
+ * <p>
+ * Requests are multiplexed over a few I/O reactor threads rather than each
+ * holding a thread while blocked on the network.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class AsyncModule
+        extends AbstractModule
+{
+    private static final Logger LOG = LoggerFactory
+            .getLogger(AsyncModule.class);
+
+    private final PropertiesParameter propsparam;
+
+
+    /**
+     * Creates the {@code Module}, setting the prefix for properties
+     * 
+     * @param propsparam
+     *            the properties parameters
+     */
+    public AsyncModule(PropertiesParameter propsparam)
+    {
+        super();
+        this.propsparam = propsparam;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.google.inject.AbstractModule#configure()
+     */
+    @Override
+    protected void configure()
+    {
+        bind(PropertiesParameter.class).annotatedWith(Names.named("Properties"))
+                .toInstance(propsparam);
+        bind(Properties.class).to(CommonsConfiguratorPropertiesImpl.class)
+                .in(Singleton.class);
+        bind(RequestModel.class).to(AsyncRequestModelImpl.class)
+                .in(Singleton.class);
+
+        LOG.debug("Configured AsyncModule");
+    }
+
+}
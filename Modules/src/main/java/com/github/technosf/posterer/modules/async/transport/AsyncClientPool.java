@@ -0,0 +1,373 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.async.transport;
+
+import java.io.Closeable;
+import java.net.SocketAddress;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.apache.hc.client5.http.auth.AuthCache;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.auth.BasicAuthCache;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.technosf.posterer.core.models.Proxy;
+import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
+import com.github.technosf.posterer.modules.ssl.SSLContextCache.CachedContext;
+
+/**
+ * Cache of started asynchronous HTTP clients
+ * <p>
+ * A client, with its own I/O reactor and connection pool, is kept for each
+ * distinct call configuration. The reactor multiplexes every connection of the
+ * client over a few I/O threads, so in-flight requests do not each hold a
+ * thread.
+ * <p>
+ * Connections are not marked with the client certificate principal they
+ * authenticated with, so that later calls, starting without one, lease them
+ * again. A client is keyed by its certificate, so its connections are
+ * interchangeable.
+ * <p>
+ * Each client keeps an {@code AuthCache} of the scheme its proxy
+ * authenticates with, so that calls authenticate to the proxy preemptively
+ * rather than waiting to be challenged.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class AsyncClientPool
+        implements Closeable
+{
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory
+            .getLogger(AsyncClientPool.class);
+
+    /**
+     * Default maximum connections per route
+     */
+    public static final int DEFAULT_MAX_PER_ROUTE = 500;
+
+    /**
+     * Default maximum connections per client
+     */
+    public static final int DEFAULT_MAX_TOTAL = 2000;
+
+    /**
+     * Default seconds an idle connection is kept
+     */
+    public static final int DEFAULT_IDLE_SECONDS = 30;
+
+    /**
+     * Default I/O reactor threads per client
+     */
+    public static final int DEFAULT_IO_THREADS =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * A started client, the SSL context it handshakes with and its auth cache
+     */
+    static final class PooledClient
+    {
+        final CloseableHttpAsyncClient client;
+        final AuditingConnectionManager connectionManager;
+        final @Nullable CachedContext sslContext;
+        final AuthCache authCache = new BasicAuthCache();
+
+
+        PooledClient(final CloseableHttpAsyncClient client,
+                final AuditingConnectionManager connectionManager,
+                final @Nullable CachedContext sslContext)
+        {
+            this.client = client;
+            this.connectionManager = connectionManager;
+            this.sslContext = sslContext;
+        }
+    }
+
+    /* ------------------------------------------------ */
+
+    private final ConcurrentMap<String, PooledClient> clients =
+            new ConcurrentHashMap<>();
+
+    private volatile int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+    private volatile int maxTotal = DEFAULT_MAX_TOTAL;
+    private volatile int idleSeconds = DEFAULT_IDLE_SECONDS;
+    private volatile int ioThreads = DEFAULT_IO_THREADS;
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Returns the client for the call configuration, building and starting it
+     * if needed.
+     * <p>
+     * Should the SSL context not be available, the configuration falls back
+     * to the default SSL implementation.
+     *
+     * @param security
+     *            the SSL/TLS version, empty for none
+     * @param proxy
+     *            the proxy, if any
+     * @param keyStoreBean
+     *            the certificate store, if any
+     * @param alias
+     *            the certificate alias, if any
+     * @param sslContext
+     *            supplies the SSL context for secured configurations
+     * @return the pooled client
+     */
+    PooledClient getClient(final String security, final @Nullable Proxy proxy,
+            final @Nullable KeyStoreBean keyStoreBean,
+            final @Nullable String alias,
+            final Supplier<@Nullable CachedContext> sslContext)
+    {
+        String key = key(security, proxy, keyStoreBean, alias);
+        PooledClient pooled = clients.get(key);
+        if (pooled == null)
+        {
+            pooled = clients.computeIfAbsent(key,
+                    k -> build(security, proxy, sslContext));
+        }
+        if (pooled == null)
+        /*
+         * SSL could not be configured
+         */
+        {
+            return getClient("", proxy, null, null, () -> null);
+        }
+        return pooled;
+    }
+
+
+    /**
+     * Builds the key identifying a call configuration
+     */
+    private static String key(final String security,
+            final @Nullable Proxy proxy,
+            final @Nullable KeyStoreBean keyStoreBean,
+            final @Nullable String alias)
+    {
+        return String.join("|", security,
+                proxy == null ? "" : proxy.getProxyHost(),
+                proxy == null ? "" : proxy.getProxyPort(),
+                proxy == null ? "" : proxy.getProxyUser(),
+                proxy == null ? "" : proxy.getProxyPassword(),
+                keyStoreBean == null ? ""
+                        : keyStoreBean.getFile().getAbsolutePath(),
+                keyStoreBean == null ? ""
+                        : Long.toString(keyStoreBean.getFile().lastModified()),
+                Objects.toString(alias, ""));
+    }
+
+
+    /**
+     * Builds and starts a new client
+     *
+     * @return the client, or null if the SSL context is not available
+     */
+    private @Nullable PooledClient build(final String security,
+            final @Nullable Proxy proxy,
+            final Supplier<@Nullable CachedContext> sslContext)
+    {
+        ConcurrentMap<SocketAddress, HttpContext> connecting =
+                new ConcurrentHashMap<>();
+
+        PoolingAsyncClientConnectionManagerBuilder managerBuilder =
+                PoolingAsyncClientConnectionManagerBuilder.create()
+                        .setMaxConnPerRoute(maxPerRoute)
+                        .setMaxConnTotal(maxTotal)
+                        .setDefaultTlsConfig(TlsConfig.custom()
+                                .setVersionPolicy(
+                                        HttpVersionPolicy.FORCE_HTTP_1)
+                                .build());
+
+        CachedContext cachedContext = null;
+        if (!security.isEmpty())
+        {
+            cachedContext = sslContext.get();
+            if (cachedContext == null)
+            {
+                return null;
+            }
+            managerBuilder.setTlsStrategy(new AuditingTlsStrategy(
+                    cachedContext.getSslContext(), connecting));
+        }
+
+        AuditingConnectionManager connectionManager =
+                new AuditingConnectionManager(managerBuilder.build(),
+                        connecting);
+
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreads).build())
+                .disableConnectionState()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleSeconds));
+
+        if (proxy != null)
+        {
+            builder.setProxy(new HttpHost(proxy.getProxyHost(),
+                    Integer.parseInt(proxy.getProxyPort())));
+        }
+
+        LOG.debug("Starting async client for security [{}] proxy [{}]",
+                security, proxy);
+
+        CloseableHttpAsyncClient client = builder.build();
+        client.start();
+        return new PooledClient(client, connectionManager, cachedContext);
+    }
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Sets the maximum connections per route, for current and future clients
+     *
+     * @param maxPerRoute
+     *            the maximum
+     */
+    public void setMaxPerRoute(final int maxPerRoute)
+    {
+        this.maxPerRoute = maxPerRoute;
+        clients.values().forEach(
+                p -> p.connectionManager.setDefaultMaxPerRoute(maxPerRoute));
+    }
+
+
+    /**
+     * Returns the maximum connections per route
+     *
+     * @return the maximum
+     */
+    public int getMaxPerRoute()
+    {
+        return maxPerRoute;
+    }
+
+
+    /**
+     * Sets the maximum connections per client, for current and future clients
+     *
+     * @param maxTotal
+     *            the maximum
+     */
+    public void setMaxTotal(final int maxTotal)
+    {
+        this.maxTotal = maxTotal;
+        clients.values()
+                .forEach(p -> p.connectionManager.setMaxTotal(maxTotal));
+    }
+
+
+    /**
+     * Returns the maximum connections per client
+     *
+     * @return the maximum
+     */
+    public int getMaxTotal()
+    {
+        return maxTotal;
+    }
+
+
+    /**
+     * Sets how long idle connections are kept, for future clients
+     *
+     * @param idleSeconds
+     *            the idle time in seconds
+     */
+    public void setIdleSeconds(final int idleSeconds)
+    {
+        this.idleSeconds = idleSeconds;
+    }
+
+
+    /**
+     * Returns how long idle connections are kept
+     *
+     * @return the idle time in seconds
+     */
+    public int getIdleSeconds()
+    {
+        return idleSeconds;
+    }
+
+
+    /**
+     * Sets the I/O reactor threads, for future clients
+     *
+     * @param ioThreads
+     *            the number of threads
+     */
+    public void setIoThreads(final int ioThreads)
+    {
+        this.ioThreads = ioThreads;
+    }
+
+
+    /**
+     * Returns the I/O reactor threads per client
+     *
+     * @return the number of threads
+     */
+    public int getIoThreads()
+    {
+        return ioThreads;
+    }
+
+
+    /**
+     * Returns the number of pooled clients
+     *
+     * @return the number of clients
+     */
+    public int size()
+    {
+        return clients.size();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Shuts down all pooled clients, their reactors and connections.
+     *
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close()
+    {
+        clients.values().forEach(p -> p.client.close(CloseMode.GRACEFUL));
+        clients.clear();
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.async.transport;
+
+import java.io.Closeable;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+import org.apache.hc.client5.http.auth.AuthScope;
+import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.auth.BasicScheme;
+import org.apache.hc.core5.http.HttpHost;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.core.models.Proxy;
+import com.github.technosf.posterer.core.models.Request;
+import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
+import com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel;
+import com.github.technosf.posterer.core.utils.Auditor;
+import com.github.technosf.posterer.modules.async.transport.AsyncClientPool.PooledClient;
+import com.github.technosf.posterer.modules.ssl.SSLContextCache;
+import com.github.technosf.posterer.modules.ssl.SSLContextCache.CachedContext;
+
+/**
+ * Asynchronous implementation of {@RequestModel}
+ * <p>
+ * Calls are made on started Apache HttpComponents 5 async clients, pooled per
+ * call configuration in an {@code AsyncClientPool}. Open model load tests send
+ * each request straight to the client's I/O reactor, so thousands of requests
+ * can be in flight without a thread each.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class AsyncRequestModelImpl
+        extends AbstractRequestModel<AsyncResponseModelTaskImpl>
+        implements Closeable
+{
+
+    private static final String CONST_FMT = "\t%1$s";
+
+    private static final String CONST_ERR_SSL_KEY = "SSL :: Key exception";
+    private static final String CONST_ERR_SSL_ALGO = "SSL :: Algo exception";
+    private static final String CONST_ERR_SSL_STORE =
+            "SSL :: Key Store exception";
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * The pooled clients
+     */
+    private final AsyncClientPool clientPool = new AsyncClientPool();
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Returns the client pool, to tune connection limits
+     * 
+     * @return the client pool
+     */
+    public AsyncClientPool getClientPool()
+    {
+        return clientPool;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the pooled clients.
+     *
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close()
+    {
+        clientPool.close();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel#createRequest(int,
+     *      com.github.technosf.posterer.core.utils.Auditor, int,
+     *      com.github.technosf.posterer.core.models.Request)
+     */
+    @Override
+    protected AsyncResponseModelTaskImpl createRequest(final int requestId,
+            final Auditor auditor, final int timeout, final Request request)
+    {
+        return createRequest(requestId, auditor, timeout, request, null, null,
+                null);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel#createRequest(int,
+     *      com.github.technosf.posterer.core.utils.Auditor, int,
+     *      com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.Proxy)
+     */
+    @Override
+    protected AsyncResponseModelTaskImpl createRequest(final int requestId,
+            final Auditor auditor, final int timeout, final Request request,
+            final Proxy proxy)
+    {
+        return createRequest(requestId, auditor, timeout, request, proxy, null,
+                null);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel#createRequest(int,
+     *      com.github.technosf.posterer.core.utils.Auditor, int,
+     *      com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.impl.KeyStoreBean,
+     *      java.lang.String)
+     */
+    @Override
+    protected AsyncResponseModelTaskImpl createRequest(final int requestId,
+            final Auditor auditor, final int timeout, final Request request,
+            final KeyStoreBean keyStoreBean, final String alias)
+    {
+        return createRequest(requestId, auditor, timeout, request, null,
+                keyStoreBean, alias);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel#createRequest(int,
+     *      com.github.technosf.posterer.core.utils.Auditor, int,
+     *      com.github.technosf.posterer.core.models.Request,
+     *      com.github.technosf.posterer.core.models.Proxy,
+     *      com.github.technosf.posterer.core.models.impl.KeyStoreBean,
+     *      java.lang.String)
+     */
+    @Override
+    protected AsyncResponseModelTaskImpl createRequest(final int requestId,
+            final Auditor auditor, final int timeout, final Request request,
+            final @Nullable Proxy proxy,
+            final @Nullable KeyStoreBean keyStoreBean,
+            final @Nullable String alias)
+    {
+        Proxy httpproxy =
+                (proxy == null || proxy.toString().isEmpty()) ? null : proxy;
+        String ssl = request.getSecurity();
+
+        PooledClient pooled = clientPool.getClient(ssl, httpproxy,
+                keyStoreBean, alias,
+                () -> buildInSSL(auditor, ssl, keyStoreBean, alias));
+
+        CachedContext sslContext = pooled.sslContext;
+        BooleanSupplier neededClientAuth = sslContext == null ? () -> false
+                : sslContext.getNeededClientAuthSupplier(auditor);
+
+        BasicCredentialsProvider credentialsProvider =
+                new BasicCredentialsProvider();
+        HttpHost proxyHost = null;
+        if (httpproxy != null && !httpproxy.getProxyUser().isEmpty())
+        /* 
+         * Add proxy auth, preemptive from the client's auth cache. The proxy
+         * credentials are part of the client key, so are the same for every
+         * call on the client.
+         */
+        {
+            proxyHost = new HttpHost(httpproxy.getProxyHost(),
+                    Integer.parseInt(httpproxy.getProxyPort()));
+            UsernamePasswordCredentials credentials =
+                    new UsernamePasswordCredentials(httpproxy.getProxyUser(),
+                            httpproxy.getProxyPassword().toCharArray());
+            credentialsProvider.setCredentials(new AuthScope(proxyHost),
+                    credentials);
+            if (pooled.authCache.get(proxyHost) == null)
+            {
+                BasicScheme scheme = new BasicScheme();
+                scheme.initPreemptive(credentials);
+                pooled.authCache.put(proxyHost, scheme);
+            }
+        }
+
+        return new AsyncResponseModelTaskImpl(requestId, auditor,
+                pooled.client, timeout, request, neededClientAuth,
+                pooled.authCache, proxyHost, credentialsProvider);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel#execute(com.github.technosf.posterer.core.models.ResponseModel)
+     */
+    @Override
+    protected void execute(final AsyncResponseModelTaskImpl response)
+            throws Exception
+    {
+        response.execute();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Sends the request on the client's I/O reactor rather than on one of the
+     * given threads.
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel#dispatch(com.github.technosf.posterer.core.models.ResponseModel,
+     *      java.util.concurrent.Executor)
+     */
+    @Override
+    protected CompletableFuture<AsyncResponseModelTaskImpl> dispatch(
+            final AsyncResponseModelTaskImpl response, final Executor executor)
+    {
+        return response.send().handle((message, failure) -> {
+            if (failure != null)
+            {
+                release(response);
+                throw new CompletionException(failure);
+            }
+            return response;
+        });
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel#release(com.github.technosf.posterer.core.models.ResponseModel)
+     */
+    @Override
+    protected void release(final AsyncResponseModelTaskImpl response)
+    {
+        response.release();
+    }
+
+
+    /**
+     * Returns the SSL context for the given SSL/TLS version and optional
+     * certificate
+     * 
+     * @param auditor
+     *            audits any failure
+     * @param ssl
+     *            the ssl info
+     * @param keyStoreBean
+     *            the certificate store, if any
+     * @param alias
+     *            the alias of the certificate to use
+     * @return the context, or null if it could not be created
+     */
+    private @Nullable CachedContext buildInSSL(final Auditor auditor,
+            final String ssl, final @Nullable KeyStoreBean keyStoreBean,
+            final @Nullable String alias)
+    {
+        try
+        {
+            if (keyStoreBean == null || alias == null)
+            {
+                return SSLContextCache.get(ssl, null, null);
+            }
+            return SSLContextCache.get(ssl, keyStoreBean, alias);
+        }
+        catch (KeyManagementException | UnrecoverableKeyException e)
+        {
+            auditor.append(true, CONST_ERR_SSL_KEY).append(false, CONST_FMT,
+                    e.getMessage());
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            auditor.append(true, CONST_ERR_SSL_ALGO).append(false,
+                    CONST_FMT, e.getMessage());
+        }
+        catch (KeyStoreException e)
+        {
+            auditor.append(true, CONST_ERR_SSL_STORE).append(false,
+                    CONST_FMT, e.getMessage());
+        }
+        return null;
+    }
+
+}
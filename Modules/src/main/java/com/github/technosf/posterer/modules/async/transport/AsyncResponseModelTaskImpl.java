@@ -0,0 +1,552 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.async.transport;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import javax.net.ssl.SSLSession;
+
+import org.apache.hc.client5.http.auth.AuthCache;
+import org.apache.hc.client5.http.auth.AuthScheme;
+import org.apache.hc.client5.http.auth.AuthScope;
+import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.auth.BasicAuthCache;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.auth.BasicScheme;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.ProtocolException;
+import org.apache.hc.core5.http.message.StatusLine;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.apache.hc.core5.util.Timeout;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.technosf.posterer.core.models.Request;
+import com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask;
+import com.github.technosf.posterer.core.utils.Auditor;
+import com.github.technosf.posterer.core.utils.BodySink;
+
+/**
+ * Asynchronous implementation of {@ResponseModel}
+ * <p>
+ * The request is sent on the shared client's I/O reactor and the response
+ * body streamed into a {@code BodySink} as it arrives, so no thread is held
+ * while the call is in flight. {@link #send()} returns the call as a
+ * {@code CompletableFuture}; run as a JavaFX {@code Task} the call is waited
+ * on instead.
+ * <p>
+ * Credentials are scoped to the target host and sent preemptively. As an
+ * HttpClient 5 scheme carries its credentials, the target is seeded in an
+ * {@code AuthCache} of the call's own, while the proxy scheme, whose
+ * credentials are those of the client, is kept in the client's cache.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class AsyncResponseModelTaskImpl
+        extends AbstractResponseModelTask<Message<HttpResponse, BodySink>>
+{
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory
+            .getLogger(AsyncResponseModelTaskImpl.class);
+
+    /* Messages */
+    private static final String CONST_ERR_NULL_REQUEST = "Request is null";
+    private static final String CONST_ERR_UNKNOWN_METHOD = "Unknow method: {}";
+    private static final String CONST_REUSED =
+            "SSL :: Reused session: [%1$s %2$s %3$s]";
+
+    /**
+     * CRLF
+     */
+    private static final String CRLF = "\r\n";
+
+    /**
+     * the shared async client
+     */
+    private final CloseableHttpAsyncClient client;
+
+    /**
+     * the Http context for this call
+     */
+    private final HttpClientContext context = HttpClientContext.create();
+
+    /**
+     * The call, completing with the response
+     */
+    private final CompletableFuture<Message<HttpResponse, BodySink>> call =
+            new CompletableFuture<>();
+
+    /**
+     * Has the request been sent?
+     */
+    private final AtomicBoolean sent = new AtomicBoolean();
+
+    /**
+     * Function that determines if client auth is needed
+     */
+    private final BooleanSupplier neededClientAuth;
+
+    /**
+     * The client's cache of proxy auth schemes
+     */
+    private final AuthCache authCache;
+
+    /**
+     * The authenticated proxy, if any
+     */
+    private final @Nullable HttpHost proxy;
+
+    /**
+     * The credentials for this call
+     */
+    private final BasicCredentialsProvider credentialsProvider;
+
+    /**
+     * The request producer
+     */
+    private @Nullable AsyncRequestProducer requestProducer;
+
+    /**
+     * The exchange on the client, once sent
+     */
+    private volatile @Nullable Future<?> exchange;
+
+    /**
+     * has the response been processed?
+     */
+    private boolean isResponseProcessed = false;
+
+
+    /**
+     * Creates a new {@code AsyncResponseModelTaskImpl} for the given request
+     * 
+     * @param requestId
+     *            the request reference id
+     * @param auditor
+     *            the call auditor
+     * @param client
+     *            the shared client to make the call with
+     * @param timeout
+     *            connection timeout
+     * @param request
+     *            the request
+     * @param neededClientAuth
+     *            function that determines if client auth was needed
+     * @param authCache
+     *            the client's cache of proxy auth schemes
+     * @param proxy
+     *            the authenticated proxy, if any
+     * @param credentialsProvider
+     *            the credentials for this call, proxy credentials included
+     */
+    public AsyncResponseModelTaskImpl(final int requestId,
+            final Auditor auditor, final CloseableHttpAsyncClient client,
+            final int timeout, final Request request,
+            final BooleanSupplier neededClientAuth,
+            final AuthCache authCache, final @Nullable HttpHost proxy,
+            final BasicCredentialsProvider credentialsProvider)
+    {
+        super(requestId, auditor, timeout, request);
+        this.client = client;
+        this.neededClientAuth = neededClientAuth;
+        this.authCache = authCache;
+        this.proxy = proxy;
+        this.credentialsProvider = credentialsProvider;
+    }
+
+
+    /**
+     * Sends the request without waiting for the response
+     * 
+     * @return the call, completing once the response body has been received
+     */
+    public CompletableFuture<Message<HttpResponse, BodySink>> send()
+    {
+        if (sent.compareAndSet(false, true))
+        {
+            beginCall();
+            dispatch();
+        }
+        return call;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#prepareClient()
+     */
+    @Override
+    protected void prepareClient()
+    {
+        context.setAttribute(AuditingConnectionManager.AUDITOR, auditor);
+        context.setAttribute(AuditingConnectionManager.TIMINGS, timings);
+
+        if (timeout > 0)
+        {
+            Timeout callTimeout = Timeout.of(timeout, TimeUnit.SECONDS);
+            context.setRequestConfig(RequestConfig.custom()
+                    .setConnectionRequestTimeout(callTimeout)
+                    .setResponseTimeout(callTimeout)
+                    .build());
+        }
+
+        AuthCache callAuthCache = new BasicAuthCache();
+        HttpHost proxyHost = proxy;
+        if (proxyHost != null)
+        {
+            AuthScheme proxyScheme = authCache.get(proxyHost);
+            if (proxyScheme != null)
+            {
+                callAuthCache.put(proxyHost, proxyScheme);
+            }
+        }
+        context.setAuthCache(callAuthCache);
+        context.setCredentialsProvider(credentialsProvider);
+
+        if (Boolean.TRUE.equals(getRequest().getAuthenticate()))
+        /*
+         * call with auth scope, preemptively for the target
+         */
+        {
+            URI uri = getRequest().getUri();
+            HttpHost target = uri == null ? null : HttpHost.create(uri);
+            UsernamePasswordCredentials credentials =
+                    new UsernamePasswordCredentials(getRequest().getUsername(),
+                            getRequest().getPassword().toCharArray());
+            credentialsProvider.setCredentials(
+                    target == null ? new AuthScope(null, -1)
+                            : new AuthScope(target),
+                    credentials);
+            if (target != null)
+            {
+                BasicScheme scheme = new BasicScheme();
+                scheme.initPreemptive(credentials);
+                callAuthCache.put(target, scheme);
+            }
+        }
+
+        String method = getRequest().getMethod();
+        if (getRequest().getUri() == null || !isKnownMethod(method))
+        {
+            LOG.error(CONST_ERR_UNKNOWN_METHOD, method);
+            return;
+        }
+
+        AsyncRequestBuilder builder =
+                AsyncRequestBuilder.create(method).setUri(getRequest().getUri());
+
+        if (!getRequest().getPayload().isEmpty() && canCarryPayload(method))
+        /*
+         * If there is a payload and the request can carry a payload,
+         * create and add the payload
+         */
+        {
+            ContentType ct = ContentType.create(getRequest().getContentType(),
+                    StandardCharsets.UTF_8);
+            builder.setEntity(getRequest().getPayload(), ct);
+            LOG.debug("Creating payload with MIME type: {}", ct.getMimeType());
+        }
+
+        requestProducer = builder.build();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Sends the request and waits for the response.
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#getReponse(com.github.technosf.posterer.core.utils.Auditor)
+     */
+    @Override
+    protected Message<HttpResponse, BodySink> getReponse(final Auditor auditor)
+            throws Exception
+    {
+        if (sent.compareAndSet(false, true))
+        {
+            dispatch();
+        }
+
+        try
+        {
+            return call.get();
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception)
+            {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+
+    /**
+     * Hands the request to the client, completing the call when the response
+     * has been received
+     */
+    private void dispatch()
+    {
+        AsyncRequestProducer producer = requestProducer;
+        if (producer == null)
+        {
+            LOG.error(CONST_ERR_NULL_REQUEST);
+            endCall(null);
+            call.completeExceptionally(
+                    new ProtocolException(CONST_ERR_NULL_REQUEST));
+            return;
+        }
+
+        exchange = client.execute(producer,
+                new BodySinkResponseConsumer(timings, System.nanoTime()),
+                null, context,
+                new FutureCallback<Message<HttpResponse, BodySink>>()
+                {
+                    @Override
+                    public void completed(
+                            final Message<HttpResponse, BodySink> result)
+                    {
+                        endCall(result);
+                        call.complete(result);
+                    }
+
+
+                    @Override
+                    public void failed(final Exception ex)
+                    {
+                        endCall(null);
+                        call.completeExceptionally(ex);
+                    }
+
+
+                    @Override
+                    public void cancelled()
+                    {
+                        endCall(null);
+                        call.cancel(false);
+                    }
+                });
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Cancels the exchange on the client too, releasing its connection.
+     * 
+     * @see javafx.concurrent.Task#cancel(boolean)
+     */
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning)
+    {
+        Future<?> inFlight = exchange;
+        if (inFlight != null)
+        {
+            inFlight.cancel(true);
+        }
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The shared client stays open; the connection was returned to the pool
+     * once the response was received.
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#closeClient()
+     */
+    @Override
+    protected void closeClient()
+    {
+        // Nothing to close
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#getStatusCode(java.lang.Object)
+     */
+    @Override
+    protected int getStatusCode(final Message<HttpResponse, BodySink> value)
+    {
+        return value.getHead().getCode();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#processResponse()
+     */
+    @Override
+    protected synchronized void processResponse()
+    {
+        if (!isResponseProcessed)
+        {
+            Message<HttpResponse, BodySink> message = getCallValue();
+            if (message != null)
+            {
+                HttpResponse httpResponse = message.getHead();
+                StatusLine statusLine = new StatusLine(httpResponse);
+                status = statusLine.toString();
+                protocol = statusLine.getProtocolVersion().toString();
+                SSLSession session = context.getSSLSession();
+                if (session != null && context
+                        .getAttribute(AuditingTlsStrategy.HANDSHAKEN) == null)
+                /*
+                 * Made on a pooled connection, handshaken by an earlier call
+                 */
+                {
+                    auditor.append(true, CONST_REUSED, session.getPeerHost(),
+                            session.getProtocol(), session.getCipherSuite());
+                }
+                auditor.postscript(false, status);
+                responseHeaders = prettyPrintHeaders(httpResponse.getHeaders());
+                responseBodySink = message.getBody();
+            }
+            closeClient();
+            isResponseProcessed = true;
+            response = message;
+        }
+    }
+
+
+    /**
+     * Is the method one the transport makes?
+     */
+    private static boolean isKnownMethod(final @Nullable String method)
+    {
+        if (method == null)
+        {
+            return false;
+        }
+        switch (method)
+        {
+            case "GET":
+            case "HEAD":
+            case "POST":
+            case "PUT":
+            case "DELETE":
+            case "TRACE":
+            case "OPTIONS":
+            case "PATCH":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * Can the method carry a payload?
+     */
+    private static boolean canCarryPayload(final String method)
+    {
+        return "POST".equals(method) || "PUT".equals(method)
+                || "PATCH".equals(method);
+    }
+
+
+    /**
+     * Pretty print header array
+     * 
+     * @param headers
+     * @return nicely formatted headers
+     */
+    private static String prettyPrintHeaders(final Header[] headers)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Header header : headers)
+        {
+            if (sb.length() > 0)
+            {
+                sb.append(CRLF);
+            }
+            sb.append(header.getName())
+                    .append("=")
+                    .append(header.getValue());
+        }
+
+        return sb.toString();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#isResponseProcessed()
+     */
+    @Override
+    protected boolean isResponseProcessed()
+    {
+        return isResponseProcessed;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.ResponseModel#getDigest()
+     */
+    @Override
+    public String getDigest()
+    {
+        return auditor.toString();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A call made on a pooled connection did not handshake, so the session
+     * of the connection is consulted too.
+     *
+     * @see com.github.technosf.posterer.core.models.ResponseModel#neededClientAuth()
+     */
+    @Override
+    public boolean neededClientAuth()
+    {
+        if (neededClientAuth.getAsBoolean())
+        {
+            return true;
+        }
+        SSLSession session = context.getSSLSession();
+        return session != null && session.getLocalCertificates() != null;
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.async.transport;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.nio.AsyncClientConnectionManager;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.reactor.ConnectionInitiator;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.core.utils.Auditor;
+import com.github.technosf.posterer.core.utils.Timings;
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+
+/**
+ * Connection manager that carries the call context to the TLS handshake
+ * <p>
+ * The pooling manager hands the TLS strategy its own configuration rather
+ * than the context of the call opening the connection, so the context of each
+ * connection being opened is registered against its local address until the
+ * connection is made, for {@code AuditingTlsStrategy} to audit the handshake
+ * to. The DNS and connect phases of the call are timed on the way.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+final class AuditingConnectionManager
+        implements AsyncClientConnectionManager, ConnPoolControl<HttpRoute>
+{
+    /**
+     * {@code HttpContext} attribute holding the {@code Auditor} for the call
+     */
+    static final String AUDITOR = "posterer.auditor";
+
+    /**
+     * {@code HttpContext} attribute holding the {@code Timings} for the call
+     */
+    static final String TIMINGS = "posterer.timings";
+
+    private final PoolingAsyncClientConnectionManager delegate;
+
+    /**
+     * The contexts of the connections being opened, by local address
+     */
+    private final ConcurrentMap<SocketAddress, HttpContext> connecting;
+
+
+    /**
+     * @param delegate
+     *            the pooling manager
+     * @param connecting
+     *            the contexts of the connections being opened, shared with
+     *            the TLS strategy
+     */
+    AuditingConnectionManager(final PoolingAsyncClientConnectionManager delegate,
+            final ConcurrentMap<SocketAddress, HttpContext> connecting)
+    {
+        this.delegate = delegate;
+        this.connecting = connecting;
+    }
+
+
+    /**
+     * Returns the auditor for the call from the context
+     * 
+     * @param context
+     *            the call context
+     * @return the call auditor, or a throw away auditor if there is none
+     */
+    static Auditor auditor(final @Nullable HttpContext context)
+    {
+        Object auditor = context == null ? null
+                : context.getAttribute(AUDITOR);
+        return auditor instanceof Auditor ? (Auditor) auditor : new Auditor();
+    }
+
+
+    /**
+     * Returns the timings for the call from the context
+     * 
+     * @param context
+     *            the call context
+     * @return the call timings, or throw away timings if there are none
+     */
+    static Timings timings(final @Nullable HttpContext context)
+    {
+        Object timings = context == null ? null
+                : context.getAttribute(TIMINGS);
+        return timings instanceof Timings ? (Timings) timings : new Timings();
+    }
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Registers the call context against the connection as it is made, for
+     * the TLS handshake, and times the DNS and connect phases.
+     *
+     * @see org.apache.hc.client5.http.nio.AsyncClientConnectionManager#connect(org.apache.hc.client5.http.nio.AsyncConnectionEndpoint,
+     *      org.apache.hc.core5.reactor.ConnectionInitiator,
+     *      org.apache.hc.core5.util.Timeout, java.lang.Object,
+     *      org.apache.hc.core5.http.protocol.HttpContext,
+     *      org.apache.hc.core5.concurrent.FutureCallback)
+     */
+    @Override
+    public Future<AsyncConnectionEndpoint> connect(
+            final AsyncConnectionEndpoint endpoint,
+            final ConnectionInitiator connectionInitiator,
+            final Timeout connectTimeout, final @Nullable Object attachment,
+            final HttpContext context,
+            final @Nullable FutureCallback<AsyncConnectionEndpoint> callback)
+    {
+        Timings timings = timings(context);
+        long start = System.nanoTime();
+        AtomicBoolean resolved = new AtomicBoolean();
+        AtomicReference<@Nullable SocketAddress> registered =
+                new AtomicReference<>();
+
+        ConnectionInitiator registering = (remoteEndpoint, remoteAddress,
+                localAddress, timeout, sessionAttachment, sessionCallback) -> {
+            long connectStart = System.nanoTime();
+            if (resolved.compareAndSet(false, true))
+            /*
+             * The first address is being connected to, so resolved
+             */
+            {
+                timings.add(Phase.DNS, connectStart - start);
+            }
+            return connectionInitiator.connect(remoteEndpoint, remoteAddress,
+                    localAddress, timeout, sessionAttachment,
+                    new FutureCallback<IOSession>()
+                    {
+                        @Override
+                        public void completed(final IOSession session)
+                        {
+                            timings.since(Phase.CONNECT, connectStart);
+                            SocketAddress local = session.getLocalAddress();
+                            if (local != null)
+                            {
+                                registered.set(local);
+                                connecting.put(local, context);
+                            }
+                            if (sessionCallback != null)
+                            {
+                                sessionCallback.completed(session);
+                            }
+                        }
+
+
+                        @Override
+                        public void failed(final Exception ex)
+                        {
+                            timings.since(Phase.CONNECT, connectStart);
+                            if (sessionCallback != null)
+                            {
+                                sessionCallback.failed(ex);
+                            }
+                        }
+
+
+                        @Override
+                        public void cancelled()
+                        {
+                            if (sessionCallback != null)
+                            {
+                                sessionCallback.cancelled();
+                            }
+                        }
+                    });
+        };
+
+        return delegate.connect(endpoint, registering, connectTimeout,
+                attachment, context,
+                new FutureCallback<AsyncConnectionEndpoint>()
+                {
+                    @Override
+                    public void completed(final AsyncConnectionEndpoint result)
+                    {
+                        unregister();
+                        if (callback != null)
+                        {
+                            callback.completed(result);
+                        }
+                    }
+
+
+                    @Override
+                    public void failed(final Exception ex)
+                    {
+                        unregister();
+                        if (callback != null)
+                        {
+                            callback.failed(ex);
+                        }
+                    }
+
+
+                    @Override
+                    public void cancelled()
+                    {
+                        unregister();
+                        if (callback != null)
+                        {
+                            callback.cancelled();
+                        }
+                    }
+
+
+                    private void unregister()
+                    {
+                        SocketAddress local = registered.getAndSet(null);
+                        if (local != null)
+                        {
+                            connecting.remove(local, context);
+                        }
+                    }
+                });
+    }
+
+
+    /* ------------------------------------------------ */
+
+    @Override
+    public Future<AsyncConnectionEndpoint> lease(final String id,
+            final HttpRoute route, final @Nullable Object state,
+            final Timeout requestTimeout,
+            final @Nullable FutureCallback<AsyncConnectionEndpoint> callback)
+    {
+        return delegate.lease(id, route, state, requestTimeout, callback);
+    }
+
+
+    @Override
+    public void release(final AsyncConnectionEndpoint endpoint,
+            final @Nullable Object newState, final TimeValue keepAlive)
+    {
+        delegate.release(endpoint, newState, keepAlive);
+    }
+
+
+    @Override
+    public void upgrade(final AsyncConnectionEndpoint endpoint,
+            final @Nullable Object attachment, final HttpContext context)
+    {
+        delegate.upgrade(endpoint, attachment, context);
+    }
+
+
+    @Override
+    public void upgrade(final AsyncConnectionEndpoint endpoint,
+            final @Nullable Object attachment, final HttpContext context,
+            final @Nullable FutureCallback<AsyncConnectionEndpoint> callback)
+    {
+        delegate.upgrade(endpoint, attachment, context, callback);
+    }
+
+
+    @Override
+    public void close(final CloseMode closeMode)
+    {
+        delegate.close(closeMode);
+    }
+
+
+    @Override
+    public void close() throws IOException
+    {
+        delegate.close();
+    }
+
+
+    /* ------------------------------------------------ */
+
+    @Override
+    public void setMaxTotal(final int max)
+    {
+        delegate.setMaxTotal(max);
+    }
+
+
+    @Override
+    public int getMaxTotal()
+    {
+        return delegate.getMaxTotal();
+    }
+
+
+    @Override
+    public void setDefaultMaxPerRoute(final int max)
+    {
+        delegate.setDefaultMaxPerRoute(max);
+    }
+
+
+    @Override
+    public int getDefaultMaxPerRoute()
+    {
+        return delegate.getDefaultMaxPerRoute();
+    }
+
+
+    @Override
+    public void setMaxPerRoute(final HttpRoute route, final int max)
+    {
+        delegate.setMaxPerRoute(route, max);
+    }
+
+
+    @Override
+    public int getMaxPerRoute(final HttpRoute route)
+    {
+        return delegate.getMaxPerRoute(route);
+    }
+
+
+    @Override
+    public void closeIdle(final TimeValue idleTime)
+    {
+        delegate.closeIdle(idleTime);
+    }
+
+
+    @Override
+    public void closeExpired()
+    {
+        delegate.closeExpired();
+    }
+
+
+    @Override
+    public Set<HttpRoute> getRoutes()
+    {
+        return delegate.getRoutes();
+    }
+
+
+    @Override
+    public PoolStats getTotalStats()
+    {
+        return delegate.getTotalStats();
+    }
+
+
+    @Override
+    public PoolStats getStats(final HttpRoute route)
+    {
+        return delegate.getStats(route);
+    }
+}
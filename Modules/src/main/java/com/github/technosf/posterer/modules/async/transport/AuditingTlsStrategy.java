@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.async.transport;
+
+import java.net.SocketAddress;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpConnection;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ssl.SSLBufferMode;
+import org.apache.hc.core5.reactor.ssl.TlsDetails;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.Timeout;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.core.utils.Auditor;
+import com.github.technosf.posterer.core.utils.Timings;
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+import com.github.technosf.posterer.core.utils.ssl.PromiscuousHostnameVerifier;
+import com.github.technosf.posterer.modules.ssl.EngineAuditing;
+
+/**
+ * TLS strategy that handshakes non-blocking connections with an auditing
+ * {@code SSLContext}
+ * <p>
+ * Each {@code SSLEngine} is registered with the auditor of the call that
+ * opened its connection, so the trust and key managers of the shared context
+ * audit the handshake to that call, as they do for blocking sockets.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+final class AuditingTlsStrategy
+        implements TlsStrategy
+{
+    /**
+     * {@code HttpContext} attribute set once the call has handshaken
+     */
+    static final String HANDSHAKEN = "posterer.ssl.handshaken";
+
+    private static final String CONST_HANDSHAKE =
+            "SSL :: Handshake event: [%1$s %2$s %3$s]";
+
+    private final SSLContext sslContext;
+
+    /**
+     * The contexts of the connections being opened, by local address
+     */
+    private final ConcurrentMap<SocketAddress, HttpContext> connecting;
+
+
+    /**
+     * @param sslContext
+     *            the auditing context
+     * @param connecting
+     *            the contexts of the connections being opened, shared with
+     *            the connection manager
+     */
+    AuditingTlsStrategy(final SSLContext sslContext,
+            final ConcurrentMap<SocketAddress, HttpContext> connecting)
+    {
+        this.sslContext = sslContext;
+        this.connecting = connecting;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.hc.core5.http.nio.ssl.TlsStrategy#upgrade(org.apache.hc.core5.reactor.ssl.TransportSecurityLayer,
+     *      org.apache.hc.core5.net.NamedEndpoint, java.lang.Object,
+     *      org.apache.hc.core5.util.Timeout,
+     *      org.apache.hc.core5.concurrent.FutureCallback)
+     */
+    @Override
+    public void upgrade(final TransportSecurityLayer tlsSession,
+            final NamedEndpoint endpoint, final @Nullable Object attachment,
+            final Timeout handshakeTimeout,
+            final @Nullable FutureCallback<TransportSecurityLayer> callback)
+    {
+        HttpContext context = null;
+        if (tlsSession instanceof HttpConnection)
+        {
+            SocketAddress local =
+                    ((HttpConnection) tlsSession).getLocalAddress();
+            context = local == null ? null : connecting.get(local);
+        }
+        if (context != null)
+        {
+            context.setAttribute(HANDSHAKEN, Boolean.TRUE);
+        }
+        Auditor auditor = AuditingConnectionManager.auditor(context);
+        Timings timings = AuditingConnectionManager.timings(context);
+        long start = System.nanoTime();
+
+        tlsSession.startTls(sslContext, endpoint, SSLBufferMode.STATIC,
+                (namedEndpoint, engine) -> EngineAuditing.register(engine,
+                        auditor),
+                (namedEndpoint, engine) -> {
+                    timings.since(Phase.TLS, start);
+                    SSLSession session = engine.getSession();
+                    auditor.detail().append(true, CONST_HANDSHAKE,
+                            namedEndpoint.getHostName(), session.getProtocol(),
+                            session.getCipherSuite());
+                    new PromiscuousHostnameVerifier(auditor)
+                            .verify(namedEndpoint.getHostName(), session);
+                    return new TlsDetails(session,
+                            engine.getApplicationProtocol());
+                }, handshakeTimeout, callback);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.hc.core5.http.nio.ssl.TlsStrategy#upgrade(org.apache.hc.core5.reactor.ssl.TransportSecurityLayer,
+     *      org.apache.hc.core5.http.HttpHost, java.net.SocketAddress,
+     *      java.net.SocketAddress, java.lang.Object,
+     *      org.apache.hc.core5.util.Timeout)
+     */
+    @Deprecated
+    @Override
+    public boolean upgrade(final TransportSecurityLayer tlsSession,
+            final HttpHost host, final SocketAddress localAddress,
+            final SocketAddress remoteAddress,
+            final @Nullable Object attachment, final Timeout handshakeTimeout)
+    {
+        upgrade(tlsSession, host, attachment, handshakeTimeout, null);
+        return true;
+    }
+}
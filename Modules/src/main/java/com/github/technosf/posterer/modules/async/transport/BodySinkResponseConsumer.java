@@ -0,0 +1,251 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.async.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.technosf.posterer.core.utils.BodySink;
+import com.github.technosf.posterer.core.utils.Timings;
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+
+/**
+ * Response consumer that streams the body into a {@code BodySink} as it
+ * arrives on the I/O reactor, large bodies going to file.
+ * <p>
+ * The time to first byte is measured from the request being sent, less the
+ * connection phases already timed, and so includes writing the request.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+final class BodySinkResponseConsumer
+        extends AbstractBinResponseConsumer<Message<HttpResponse, BodySink>>
+{
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory
+            .getLogger(BodySinkResponseConsumer.class);
+
+    private static final String CONST_ERR_NO_REPONSE =
+            "Can't get response body";
+
+    /**
+     * Bytes the reactor may push ahead of the sink
+     */
+    private static final int CAPACITY = 64 * 1024;
+
+    /**
+     * Content types whose MIME type implies a charset
+     */
+    private static final ContentType[] CHARSET_DEFAULTS =
+            { ContentType.APPLICATION_ATOM_XML,
+                    ContentType.APPLICATION_FORM_URLENCODED,
+                    ContentType.APPLICATION_JSON,
+                    ContentType.APPLICATION_SVG_XML,
+                    ContentType.APPLICATION_XHTML_XML,
+                    ContentType.APPLICATION_XML,
+                    ContentType.MULTIPART_FORM_DATA, ContentType.TEXT_HTML,
+                    ContentType.TEXT_PLAIN, ContentType.TEXT_XML };
+
+    private final Timings timings;
+    private final long sentNanos;
+
+    private @Nullable HttpResponse head;
+    private Charset charset = StandardCharsets.ISO_8859_1;
+    private BodySink.@Nullable Capture capture;
+    private @Nullable BodySink body;
+    private long bodyNanos;
+
+
+    /**
+     * @param timings
+     *            the call timings
+     * @param sentNanos
+     *            the {@code System.nanoTime()} the request was sent
+     */
+    BodySinkResponseConsumer(final Timings timings, final long sentNanos)
+    {
+        this.timings = timings;
+        this.sentNanos = sentNanos;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer#start(org.apache.hc.core5.http.HttpResponse,
+     *      org.apache.hc.core5.http.ContentType)
+     */
+    @Override
+    protected void start(final HttpResponse response,
+            final @Nullable ContentType contentType)
+    {
+        bodyNanos = System.nanoTime();
+        timings.add(Phase.FIRST_BYTE, Math.max(0,
+                bodyNanos - sentNanos - timings.getTotalNanos()));
+
+        Charset contentCharset = null;
+        if (contentType != null)
+        {
+            contentCharset = contentType.getCharset();
+            if (contentCharset == null)
+            {
+                contentCharset = defaultCharset(contentType);
+            }
+        }
+        if (contentCharset != null)
+        {
+            charset = contentCharset;
+        }
+
+        head = response;
+        capture = BodySink.open(charset, BodySink.DEFAULT_THRESHOLD);
+    }
+
+
+    /**
+     * Returns the charset implied by the MIME type of a content type
+     *
+     * @param contentType
+     *            the content type
+     * @return the charset, or null if the MIME type implies none
+     */
+    private static @Nullable Charset defaultCharset(
+            final ContentType contentType)
+    {
+        for (ContentType defaultType : CHARSET_DEFAULTS)
+        {
+            if (defaultType.isSameMimeType(contentType))
+            {
+                return defaultType.getCharset();
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.hc.core5.http.nio.entity.AbstractBinDataConsumer#capacityIncrement()
+     */
+    @Override
+    protected int capacityIncrement()
+    {
+        return CAPACITY;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.hc.core5.http.nio.entity.AbstractBinDataConsumer#data(java.nio.ByteBuffer,
+     *      boolean)
+     */
+    @Override
+    protected void data(final ByteBuffer src, final boolean endOfStream)
+            throws IOException
+    {
+        BodySink.Capture open = capture;
+        if (open != null)
+        {
+            open.write(src);
+            if (endOfStream)
+            {
+                finish(open);
+            }
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer#buildResult()
+     */
+    @Override
+    protected Message<HttpResponse, BodySink> buildResult()
+    {
+        BodySink.Capture open = capture;
+        if (body == null && open != null)
+        {
+            try
+            {
+                finish(open);
+            }
+            catch (IOException e)
+            {
+                LOG.error(CONST_ERR_NO_REPONSE, e);
+            }
+        }
+        BodySink sink = body;
+        return new Message<>(head,
+                sink == null ? BodySink.empty(charset) : sink);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the body file of an unfinished body.
+     *
+     * @see org.apache.hc.core5.http.nio.ResourceHolder#releaseResources()
+     */
+    @Override
+    public void releaseResources()
+    {
+        BodySink.Capture open = capture;
+        capture = null;
+        if (open != null)
+        {
+            try
+            {
+                open.close();
+            }
+            catch (IOException e)
+            {
+                LOG.debug(CONST_ERR_NO_REPONSE, e);
+            }
+        }
+    }
+
+
+    /**
+     * Completes the body and times its download
+     */
+    private void finish(final BodySink.Capture open) throws IOException
+    {
+        capture = null;
+        try
+        {
+            body = open.finish();
+        }
+        finally
+        {
+            timings.since(Phase.DOWNLOAD, bodyNanos);
+        }
+    }
+}
@@ -68,7 +68,8 @@ public class CommonsModule
                 .toInstance(propsparam);
         bind(Properties.class).to(CommonsConfiguratorPropertiesImpl.class)
                 .in(Singleton.class);
-        bind(RequestModel.class).to(CommonsRequestModelImpl.class);
+        bind(RequestModel.class).to(CommonsRequestModelImpl.class)
+                .in(Singleton.class);
 
         LOG.debug("Configured CommonsModule");
     }
@@ -17,6 +17,18 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.XMLConfiguration;
@@ -32,13 +44,14 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.github.technosf.posterer.core.models.Actionable;
 import com.github.technosf.posterer.core.models.Proxy;
 import com.github.technosf.posterer.core.models.Request;
 import com.github.technosf.posterer.core.models.impl.ProxyBean;
 import com.github.technosf.posterer.core.models.impl.RequestBean;
 import com.github.technosf.posterer.core.models.impl.base.AbstractPropertiesModel;
+import com.github.technosf.posterer.core.utils.PayloadStore;
 import com.github.technosf.posterer.modules.Factory.PropertiesParameter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
@@ -46,7 +59,18 @@ import com.google.inject.name.Named;
  * Basic implementation of {@code PreferencesModel} using Apache Commons
  * Configurator
  * <p>
- * Properties are saved in XML format.
+ * Properties are saved in XML format. Saved requests and proxies are indexed
+ * by id in one pass when the file is loaded, rather than queried for one by
+ * one.
+ * <p>
+ * Saving appends the changes made since the last save to a {@code Journal}
+ * beside the properties file. The journal is replayed when the file is
+ * loaded, and compacted into the file in the background once it grows.
+ * <p>
+ * Payloads above {@code PayloadStore.DEFAULT_THRESHOLD} are kept in a
+ * {@code PayloadStore} beside the properties file, the file holding only a
+ * reference to each, so loading costs the number of requests rather than
+ * their size. Stored payloads no longer referenced are swept on compaction.
  * 
  * @author technosf
  * @since 0.0.1
@@ -68,29 +92,43 @@ public final class CommonsConfiguratorPropertiesImpl
      * Request properties prefix
      */
     private static final String PROP_REQUESTS = "requests";
-    private static final String PROP_REQUESTS_REQUEST =
-            PROP_REQUESTS + "/request";
-    private static final String PROP_REQUESTS_REQUEST_ID =
-            PROP_REQUESTS_REQUEST + "@id";
-    private static final String PROP_REQUESTS_REQUEST_ID_QUERY =
-            PROP_REQUESTS_REQUEST + "[@id='%1$s']";
+    private static final String PROP_REQUEST = "request";
 
     /**
      * Proxy properties prefix
      */
     private static final String PROP_PROXIES = "proxies";
-    private static final String PROP_PROXIES_PROXY = PROP_PROXIES + "/proxy";
-    private static final String PROP_PROXIES_PROXY_ID =
-            PROP_PROXIES_PROXY + "@id";
-    private static final String PROP_PROXIES_PROXY_ID_QUERY =
-            PROP_PROXIES_PROXY + "[@id='%1$s']";
+    private static final String PROP_PROXY = "proxy";
 
     /**
      * KeyStore properties prefix
      */
     private static final String PROP_KEYSTORES = "keystores";
+    private static final String PROP_KEYSTORE = "keystore";
     private static final String PROP_KEYSTORES_KEYSTORE =
-            PROP_KEYSTORES + "/keystore";
+            PROP_KEYSTORES + "/" + PROP_KEYSTORE;
+
+    /**
+     * Request payload and stored payload reference properties
+     */
+    private static final String PROP_PAYLOAD = "payload";
+    private static final String PROP_PAYLOAD_REF = "payloadRef";
+
+    /**
+     * Payload store directory suffix, appended to the properties file name
+     */
+    static final String PAYLOADS_SUFFIX = ".payloads";
+
+    /**
+     * Age below which unreferenced stored payloads are not swept, as they may
+     * belong to a request being added
+     */
+    private static final long SWEEP_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Journal records above which the properties file is compacted
+     */
+    static final int COMPACT_RECORDS = 256;
 
     /**
      * A blank properties file template
@@ -108,15 +146,69 @@ public final class CommonsConfiguratorPropertiesImpl
     private static final Parameters PARAMS = new Parameters();
 
     /**
-     * The XML configuration builder
+     * Compacts properties files in the background
      */
-    private final FileBasedConfigurationBuilder<XMLConfiguration> builder;
+    private static final ExecutorService COMPACTOR =
+            Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("posterer-properties-%d")
+                    .setDaemon(true).build());
 
     /**
      * The XML configuration
      */
     private final XMLConfiguration config;
 
+    /**
+     * The saved requests by id
+     */
+    private final NodeIndex requests;
+
+    /**
+     * The saved proxies by id
+     */
+    private final NodeIndex proxies;
+
+    /**
+     * The journal of changes to the properties file
+     */
+    private final Journal journal;
+
+    /**
+     * The store of large request payloads
+     */
+    private final PayloadStore payloads;
+
+    /**
+     * Guards the changes not yet journaled
+     */
+    private final Object pendingLock = new Object();
+
+    /**
+     * Changes not yet journaled, swapped out under {@code pendingLock} by
+     * each write
+     */
+    private List<Journal.Record> pending = new ArrayList<>();
+
+    /**
+     * Is a compaction queued?
+     */
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+
+    /**
+     * Serializes compactions
+     */
+    private final Object compaction = new Object();
+
+    /**
+     * Is the journal being replayed, so changes are not journaled again?
+     */
+    private boolean replaying;
+
+    /**
+     * Does the properties file need compacting at the next save?
+     */
+    private boolean compact;
+
 
     /* ---------------------------------------------------------------- */
 
@@ -137,6 +229,13 @@ public final class CommonsConfiguratorPropertiesImpl
 
         LOG.debug("Beginning properties configuration");
 
+        /*
+         * Ready for a background save as soon as anything is dirty
+         */
+        journal = new Journal(propsFile);
+        payloads = new PayloadStore(
+                new File(propsFile.getPath() + PAYLOADS_SUFFIX));
+
         if (!propsFile.exists()
                 || FileUtils.sizeOf(propsFile) < TEMPLATE.length())
         /*
@@ -148,15 +247,14 @@ public final class CommonsConfiguratorPropertiesImpl
                     Charset.defaultCharset());
         }
 
-        /*
-         * Create the config builder
-         */
-        builder = createBuilder(propsFile);
-
         /*
          * Load the properties file
          */
-        config = builder.getConfiguration();
+        config = createBuilder(propsFile).getConfiguration();
+        requests = new NodeIndex(config.getNodeModel(), PROP_REQUESTS,
+                PROP_REQUEST);
+        proxies = new NodeIndex(config.getNodeModel(), PROP_PROXIES,
+                PROP_PROXY);
 
         /*
          * Load up saved requests
@@ -167,9 +265,12 @@ public final class CommonsConfiguratorPropertiesImpl
         initializeProxySet();
         LOG.debug("Initializing KeyStores");
         initializeKeyStoreSet();
+        LOG.debug("Replaying journal");
+        replay();
         if (isDirty())
         {
             LOG.debug("Saving changed properties file");
+            compact = true;
             save();
         }
     }
@@ -212,18 +313,10 @@ public final class CommonsConfiguratorPropertiesImpl
                 result = putIfAbsent(pdi);
                 if ( result )
                 {
-                    config.addProperty(PROP_REQUESTS_REQUEST_ID, pdi.hashCode());
-                    HierarchicalConfiguration<ImmutableNode> property =
-                            getRequest(pdi.hashCode());
-                    property.addProperty("endpoint", pdi.getEndpoint());
-                    property.addProperty("payload", pdi.getPayload());
-                    property.addProperty("method", pdi.getMethod());
-                    property.addProperty("security", pdi.getSecurity());
-                    property.addProperty("contentType", pdi.getContentType());
-                    property.addProperty("base64", pdi.getBase64());
-                    property.addProperty("authenticate", pdi.getAuthenticate());
-                    property.addProperty("username", pdi.getUsername());
-                    property.addProperty("password", pdi.getPassword());
+                    storePayload(pdi);
+                    Map<String, @Nullable Object> property = values(pdi);
+                    requests.add(pdi.getFingerprint().toString(), property);
+                    record(new Journal.Record(true, PROP_REQUEST, property));
                     dirty();
                 } // if result
             } // if pdi actionable
@@ -251,13 +344,14 @@ public final class CommonsConfiguratorPropertiesImpl
                 result = putIfAbsent(pdi);
                 if (result)
                 {
-                    config.addProperty(PROP_PROXIES_PROXY_ID, pdi.hashCode());
-                    HierarchicalConfiguration<ImmutableNode> property =
-                            getProxy(pdi.hashCode());
-                    property.addProperty("proxyHost", pdi.getProxyHost());
-                    property.addProperty("proxyPort", pdi.getProxyPort());
-                    property.addProperty("proxyUser", pdi.getProxyUser());
-                    property.addProperty("proxyPassword", pdi.getProxyPassword());
+                    Map<String, @Nullable Object> property =
+                            new LinkedHashMap<>();
+                    property.put("proxyHost", pdi.getProxyHost());
+                    property.put("proxyPort", pdi.getProxyPort());
+                    property.put("proxyUser", pdi.getProxyUser());
+                    property.put("proxyPassword", pdi.getProxyPassword());
+                    proxies.add(pdi.getFingerprint().toString(), property);
+                    record(new Journal.Record(true, PROP_PROXY, property));
                     dirty();
                 } // if result
             } // if pdi actionable
@@ -284,43 +378,70 @@ public final class CommonsConfiguratorPropertiesImpl
     {
         removeEndpoint(requestBean.getEndpoint());
 
-        String key = String.format(PROP_REQUESTS_REQUEST_ID_QUERY,
-                requestBean.hashCode());
-        try
+        if (requests.remove(RequestBean.fingerprint(requestBean).toString()))
         {
-            config.clearTree(key);
+            record(new Journal.Record(false, PROP_REQUEST,
+                    values(requestBean)));
             dirty();
             return true;
         }
-        catch (Exception e)
-        {
-            LOG.debug("Could not clear the config tree", e);
-        }
 
+        LOG.debug("Request not found in the config tree");
         return false;
     }
 
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Appends the changes since the last write to the journal, queueing a
+     * compaction if the journal has grown.
+     * <p>
+     * The changes are swapped out under their own lock and journaled outside
+     * of it, so recording a change never waits on the disk.
      *
      * @see com.github.technosf.posterer.core.models.impl.base.AbstractPropertiesModel#write()
      */
     @Override
     protected boolean write()
     {
+        List<Journal.Record> records;
+        synchronized (pendingLock)
+        {
+            records = pending;
+            pending = new ArrayList<>();
+        }
+
         try
         {
-            LOG.debug("Saving properties file.");
-            builder.save();
-            return true;
+            LOG.debug("Journaling {} properties changes.", records.size());
+            journal.append(records);
+        }
+        catch (IOException e)
+        {
+            LOG.error("Could not journal configuration", e);
+            synchronized (pendingLock)
+            /*
+             * Put the changes back ahead of those made since
+             */
+            {
+                records.addAll(pending);
+                pending = records;
+            }
+            return false;
         }
-        catch (ConfigurationException e)
+
+        if ((compact || journal.records() >= COMPACT_RECORDS)
+                && compactionQueued.compareAndSet(false, true))
         {
-            LOG.error("Could not save configuration", e);
+            compact = false;
+            COMPACTOR.execute(() -> {
+                compactionQueued.set(false);
+                compact();
+            });
         }
 
-        return false;
+        return true;
     }
 
 
@@ -332,94 +453,217 @@ public final class CommonsConfiguratorPropertiesImpl
     @Override
     protected void addKeystore(String filepath)
     {
-        LOG.debug("Adding keystor file: {}", filepath);
-        config.addProperty(PROP_KEYSTORES_KEYSTORE, filepath);
+        if (putIfAbsent(filepath))
+        {
+            LOG.debug("Adding keystor file: {}", filepath);
+            config.addProperty(PROP_KEYSTORES_KEYSTORE, filepath);
+            record(new Journal.Record(true, PROP_KEYSTORE,
+                    Collections.singletonMap(PROP_KEYSTORE, filepath)));
+            dirty();
+        }
     }
 
 
     /* ---------------------------------------------------------------- 
      * 
-     * Implementation methods
+     * Journal methods
      * 
      * ----------------------------------------------------------------
      */
 
     /**
-     * Returns the Subnode config for the given request id
-     * 
-     * @param id
-     *            the request id
-     * @return the Subnode config holding the request if any
+     * Compacts the journal into the properties file
+     * <p>
+     * The current configuration is written to a temporary file that then
+     * atomically replaces the properties file, after which the journal
+     * records it holds are dropped. A crash at any point leaves a properties
+     * file and journal that load to the same configuration. Stored payloads
+     * the file no longer references are then swept.
+     *
+     * @return true if compacted
+     */
+    boolean compact()
+    {
+        synchronized (compaction)
+        {
+            try
+            {
+                /*
+                 * Records before this position are all in the tree
+                 */
+                long position = journal.size();
+                long started = System.currentTimeMillis();
+                ImmutableNode root =
+                        config.getNodeModel().getInMemoryRepresentation();
+                Snapshot.write(root, propsFile);
+                journal.truncate(position);
+                LOG.debug("Compacted properties file, sweeping {} payloads.",
+                        payloads.sweep(payloadKeys(root),
+                                started - SWEEP_GRACE_MILLIS));
+                return true;
+            }
+            catch (IOException e)
+            {
+                LOG.error("Could not compact configuration", e);
+            }
+            return false;
+        }
+    }
+
+
+    /**
+     * Waits for the compactions queued so far to finish
      */
-    private HierarchicalConfiguration<ImmutableNode> getRequest(final int id)
+    static void awaitCompactions()
     {
-        return config.configurationAt(
-                String.format(PROP_REQUESTS_REQUEST_ID_QUERY, id), true);
+        try
+        {
+            COMPACTOR.submit(() -> {
+            }).get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            LOG.error("Could not await compactions", e);
+        }
     }
 
 
     /**
-     * Returns the Subnode config for the given proxy id
-     * 
-     * @param id
-     *            the proxy id
-     * @return the Subnode config holding the proxy if any
+     * Journals a change, unless it is being replayed
+     *
+     * @param record
+     *            the change
+     */
+    private void record(final Journal.Record record)
+    {
+        synchronized (pendingLock)
+        {
+            if (!replaying)
+            {
+                pending.add(record);
+            }
+        }
+    }
+
+
+    /**
+     * Replays the journal over the loaded properties
+     *
+     * @throws IOException
+     *             the journal could not be read
      */
-    private HierarchicalConfiguration<ImmutableNode> getProxy(final int id)
+    private void replay() throws IOException
     {
-        return config.configurationAt(
-                String.format(PROP_PROXIES_PROXY_ID_QUERY, id), true);
+        List<Journal.Record> records = journal.read();
+        replaying = true;
+        try
+        {
+            for (Journal.Record record : records)
+            {
+                switch (record.element)
+                {
+                    case PROP_REQUEST:
+                        RequestBean request = request(record::value);
+                        if (record.add)
+                        {
+                            addData(request);
+                        }
+                        else
+                        {
+                            removeData(request);
+                        }
+                        break;
+                    case PROP_PROXY:
+                        addData(proxy(record::value));
+                        break;
+                    case PROP_KEYSTORE:
+                        String filepath = record.value(PROP_KEYSTORE);
+                        if (!filepath.isEmpty())
+                        {
+                            addKeystore(filepath);
+                        }
+                        break;
+                    default:
+                        LOG.warn("Ignoring journal record for {}",
+                                record.element);
+                }
+            }
+        }
+        finally
+        {
+            replaying = false;
+        }
+
+        if (!records.isEmpty())
+        /*
+         * Fold the journal into the properties file
+         */
+        {
+            dirty();
+        }
     }
 
 
+    /* ---------------------------------------------------------------- 
+     * 
+     * Implementation methods
+     * 
+     * ----------------------------------------------------------------
+     */
+
     /**
      * Load saved requests into current session
      * <p>
-     * Re-id the requests if there are duplicate issues in the file
+     * Indexes the requests in one pass, re-id'ing those whose id is out of
+     * date and removing those that are ill formed or duplicated. Large
+     * payloads still held in the file are moved to the payload store.
      */
     private void initializeRequestSet()
     {
-        for (HierarchicalConfiguration<ImmutableNode> c : config
-                .configurationsAt(PROP_REQUESTS_REQUEST))
+        List<RequestBean> stored = new ArrayList<>();
+
+        boolean changed = requests.build(node ->
         /*
          * Deserialize each stored request into a RequestBean
          */
         {
-            int requestNodeId = Integer.parseInt((String) c.getProperty("@id"));
-
-            HierarchicalConfiguration<ImmutableNode> requestNode =
-                    getRequest(requestNodeId);
-
             RequestBean request =
-                    new RequestBean(requestNode.getString("endpoint"),
-                            requestNode.getString("payload"),
-                            requestNode.getString("method"),
-                            requestNode.getString("security"),
-                            requestNode.getString("contentType"),
-                            requestNode.getBoolean("base64", false), 
-                            new ArrayList<>(),
-                            requestNode.getBoolean("authenticate", false),
-                            requestNode.getString("username"),
-                            requestNode.getString("password") );
-
-            if (actionable(request, requestNodeId, requestNode, c))
-            {
-                /*
-                 * Put the deserialized bean into the request map
-                 */
-                putIfAbsent(request);
+                    request(name -> NodeIndex.value(node, name));
 
+            if (request.isActionable() && putIfAbsent(request))
+            {
                 /*
                  * Add this request endpoint to current endpoints
                  */
                 addEndpoint(request.getEndpoint());
+                if (storePayload(request))
+                {
+                    stored.add(request);
+                }
+                return request.getFingerprint().toString();
             }
-            else
-            {
-                dirty();
-            }
 
-        } // for (HierarchicalConfiguration c : config
+            return null;
+        });
+
+        for (RequestBean request : stored)
+        /*
+         * Replace the payload with its reference in the file
+         */
+        {
+            String id = request.getFingerprint().toString();
+            requests.remove(id);
+            requests.add(id, values(request));
+        }
+
+        if (changed || !stored.isEmpty())
+        {
+            dirty();
+        }
 
     } // private void initializeRequestSet()
 
@@ -429,31 +673,25 @@ public final class CommonsConfiguratorPropertiesImpl
      */
     private void initializeProxySet()
     {
-        for (HierarchicalConfiguration<ImmutableNode> c : config
-                .configurationsAt(PROP_PROXIES_PROXY))
+        boolean changed = proxies.build(node ->
         /*
          * Deserialize each stored proxy into a proxyBean
          */
         {
-            int proxyNodeId = Integer.parseInt((String) c.getProperty("@id"));
-            HierarchicalConfiguration<ImmutableNode> proxyNode =
-                    getProxy(proxyNodeId);
+            ProxyBean proxy = proxy(name -> NodeIndex.value(node, name));
 
-            ProxyBean proxy = new ProxyBean(proxyNode.getString("proxyHost"),
-                    proxyNode.getString("proxyPort"),
-                    proxyNode.getString("proxyUser"),
-                    proxyNode.getString("proxyPassword"));
-
-            if (actionable(proxy, proxyNodeId, proxyNode, c))
-            {
-                putIfAbsent(proxy);
-            }
-            else
+            if (proxy.isActionable() && putIfAbsent(proxy))
             {
-                dirty();
+                return proxy.getFingerprint().toString();
             }
 
-        } // for (HierarchicalConfiguration c : config
+            return null;
+        });
+
+        if (changed)
+        {
+            dirty();
+        }
 
     } // private void initializeProxySet()
 
@@ -481,52 +719,153 @@ public final class CommonsConfiguratorPropertiesImpl
     /* ---------------------------------------------------------------- */
 
     /**
-     * Check for actionability
-     * <p>
-     * If not actionable, remove, otherwise re-key as needed.
-     * 
-     * @param actionable
-     *            the actionable being checked
-     * @param nodeId
-     *            the node id of the of actionable representation
-     * @param node
-     *            the actionable representation
-     * @param config
-     *            the config holding the actionable representation
-     * @return true if rekeys
-     */
-    private static boolean actionable(Actionable actionable,
-            int nodeId,
-            HierarchicalConfiguration<ImmutableNode> node,
-            HierarchicalConfiguration<ImmutableNode> config)
+     * Returns the stored values of the request
+     *
+     * @param request
+     *            the request
+     * @return the values by name, in stored order
+     */
+    private static Map<String, @Nullable Object> values(final Request request)
+    {
+        Map<String, @Nullable Object> values = new LinkedHashMap<>();
+        values.put("endpoint", request.getEndpoint());
+        PayloadStore.@Nullable Reference reference =
+                request instanceof RequestBean
+                ? ((RequestBean) request).getPayloadReference()
+                : null;
+        if (reference == null)
+        {
+            values.put(PROP_PAYLOAD, request instanceof RequestBean
+                    ? ((RequestBean) request).getPayloadRaw()
+                    : request.getPayload());
+        }
+        else
+        {
+            values.put(PROP_PAYLOAD_REF, reference.toString());
+        }
+        values.put("method", request.getMethod());
+        values.put("security", request.getSecurity());
+        values.put("contentType", request.getContentType());
+        values.put("base64", request.getBase64());
+        values.put("authenticate", request.getAuthenticate());
+        values.put("username", request.getUsername());
+        values.put("password", request.getPassword());
+        return values;
+    }
+
+
+    /**
+     * Moves a large payload to the payload store
+     *
+     * @param request
+     *            the request
+     * @return true if the payload was moved
+     */
+    private boolean storePayload(final RequestBean request)
     {
+        if (request.getPayloadReference() != null || request.getPayloadRaw()
+                .length() <= PayloadStore.DEFAULT_THRESHOLD)
+        {
+            return false;
+        }
 
-        if (actionable.isActionable())
-        /*
-         * Property is good.
-         */
+        try
         {
-            // System.out.printf("%1$S::%2$s", hashCode, pdi.hashCode());
-            if (nodeId != actionable.hashCode())
-            /*
-             * The config hash changed and needs reindexing
-             */
+            request.storePayload(payloads);
+            return true;
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Could not store payload, keeping it in the file", e);
+            return false;
+        }
+    }
+
+
+    /**
+     * Returns the stored payload keys referenced by the requests in the tree
+     *
+     * @param root
+     *            the root of the tree
+     * @return the content keys
+     */
+    private Set<String> payloadKeys(final ImmutableNode root)
+    {
+        Set<String> keys = new HashSet<>();
+        for (ImmutableNode collection : root)
+        {
+            if (PROP_REQUESTS.equals(collection.getNodeName()))
             {
-                node.setProperty("id", actionable.hashCode());
+                for (ImmutableNode request : collection)
+                {
+                    PayloadStore.@Nullable Reference reference =
+                            payloads.reference(NodeIndex.value(request,
+                                    PROP_PAYLOAD_REF));
+                    if (reference != null)
+                    {
+                        keys.add(reference.getKey());
+                    }
+                }
             }
+        }
+        return keys;
+    }
 
-            return true;
 
-        } // if (proxy.isActionable())
-        else
-        /*
-         * Property was ill formed - remove from file
-         */
+    /**
+     * Deserializes a stored request
+     * <p>
+     * A stored payload reference is kept as such, the payload being loaded
+     * when it is used.
+     *
+     * @param value
+     *            returns the stored value of the given name
+     * @return the request
+     */
+    private RequestBean request(final Function<String, String> value)
+    {
+        RequestBean request = new RequestBean(value.apply("endpoint"),
+                value.apply(PROP_PAYLOAD),
+                value.apply("method"),
+                value.apply("security"),
+                value.apply("contentType"),
+                Boolean.valueOf(value.apply("base64")),
+                new ArrayList<>(),
+                Boolean.parseBoolean(value.apply("authenticate")),
+                value.apply("username"),
+                value.apply("password"));
+
+        String stored = value.apply(PROP_PAYLOAD_REF);
+        if (!stored.isEmpty())
         {
-            String key = node.getString("id");
-            config.clearTree(key);
-            return false;
+            PayloadStore.@Nullable Reference reference =
+                    payloads.reference(stored);
+            if (reference == null)
+            {
+                LOG.warn("Ignoring bad payload reference: {}", stored);
+            }
+            else
+            {
+                request.setPayload(reference);
+            }
         }
+        return request;
+    }
+
+
+    /**
+     * Deserializes a stored proxy
+     *
+     * @param value
+     *            returns the stored value of the given name
+     * @return the proxy
+     */
+    private static ProxyBean proxy(final Function<String, String> value)
+    {
+        return new ProxyBean(value.apply("proxyHost"),
+                value.apply("proxyPort"),
+                value.apply("proxyUser"),
+                value.apply("proxyPassword"));
     }
 
 
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.commons.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Write-ahead journal of the changes made to a properties snapshot file
+ * <p>
+ * Each change is appended as a one line record, so saving costs the size of
+ * the change rather than of the whole snapshot. The journal is replayed over
+ * the snapshot when it is loaded, and emptied when the snapshot is compacted.
+ * <p>
+ * Records set whether an element is present, so replaying them over a
+ * snapshot that already holds some of them is harmless. A torn last record,
+ * left by a crash mid-append, is dropped.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+final class Journal
+{
+    private static final Logger LOG = LoggerFactory.getLogger(Journal.class);
+
+    /**
+     * Journal file suffix, appended to the snapshot file name
+     */
+    static final String SUFFIX = ".journal";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final BaseEncoding BASE64 = BaseEncoding.base64();
+
+    /**
+     * A journal record
+     */
+    static final class Record
+    {
+        /**
+         * Is the element added, or removed?
+         */
+        final boolean add;
+
+        /**
+         * The element name
+         */
+        final String element;
+
+        /**
+         * The element values by name, in order
+         */
+        final Map<String, String> values;
+
+
+        /**
+         * @param add
+         *            true if the element is added, false if removed
+         * @param element
+         *            the element name
+         * @param values
+         *            the element values by name; null values are skipped
+         */
+        Record(final boolean add, final String element,
+                final Map<String, ?> values)
+        {
+            this.add = add;
+            this.element = element;
+            Map<String, String> copy = new LinkedHashMap<>();
+            values.forEach((name, value) -> {
+                if (value != null)
+                {
+                    copy.put(name, value.toString());
+                }
+            });
+            this.values = Collections.unmodifiableMap(copy);
+        }
+
+
+        /**
+         * Returns the named value
+         *
+         * @param name
+         *            the value name
+         * @return the value, or an empty string if there is none
+         */
+        String value(final String name)
+        {
+            return values.getOrDefault(name, "");
+        }
+
+
+        /**
+         * Encodes the record as a journal line
+         */
+        String encode()
+        {
+            StringBuilder line = new StringBuilder(add ? "+" : "-")
+                    .append(element);
+            values.forEach((name, value) -> line.append(' ').append(name)
+                    .append(':').append(BASE64.encode(
+                            value.getBytes(StandardCharsets.UTF_8))));
+            return line.append('\n').toString();
+        }
+
+
+        /**
+         * Decodes a journal line
+         *
+         * @return the record, or null if the line is malformed
+         */
+        static @Nullable Record decode(final String line)
+        {
+            String[] fields = line.split(" ");
+            if (fields[0].length() < 2 || (fields[0].charAt(0) != '+'
+                    && fields[0].charAt(0) != '-'))
+            {
+                return null;
+            }
+
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 1; i < fields.length; i++)
+            {
+                int colon = fields[i].indexOf(':');
+                if (colon < 1)
+                {
+                    return null;
+                }
+                try
+                {
+                    values.put(fields[i].substring(0, colon),
+                            new String(BASE64.decode(
+                                    fields[i].substring(colon + 1)),
+                                    StandardCharsets.UTF_8));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    return null;
+                }
+            }
+            return new Record(fields[0].charAt(0) == '+',
+                    fields[0].substring(1), values);
+        }
+    }
+
+    /* ------------------------------------------------ */
+
+    /**
+     * The journal file
+     */
+    private final Path file;
+
+    /**
+     * Records in the journal file
+     */
+    private int records;
+
+
+    /**
+     * @param snapshot
+     *            the snapshot file journaled
+     */
+    Journal(final File snapshot)
+    {
+        this.file = new File(snapshot.getPath() + SUFFIX).toPath();
+    }
+
+
+    /**
+     * Reads the records in the journal
+     *
+     * @return the records, in order
+     * @throws IOException
+     *             the journal could not be read
+     */
+    synchronized List<Record> read() throws IOException
+    {
+        List<Record> read = new ArrayList<>();
+        if (!Files.exists(file))
+        {
+            records = 0;
+            return read;
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        int complete = bytes.length;
+        while (complete > 0 && bytes[complete - 1] != '\n')
+        {
+            complete--;
+        }
+        if (complete < bytes.length)
+        /*
+         * Cut the torn record so that later appends start on a new line
+         */
+        {
+            LOG.warn("Dropping torn journal record in {}", file);
+            try (FileChannel channel =
+                    FileChannel.open(file, StandardOpenOption.WRITE))
+            {
+                channel.truncate(complete);
+                channel.force(false);
+            }
+        }
+
+        String content = new String(bytes, 0, complete, StandardCharsets.UTF_8);
+        int start = 0;
+        int end;
+        while ((end = content.indexOf('\n', start)) >= 0)
+        {
+            Record record = Record.decode(content.substring(start, end));
+            if (record == null)
+            {
+                LOG.warn("Ignoring malformed journal record in {}", file);
+            }
+            else
+            {
+                read.add(record);
+            }
+            start = end + 1;
+        }
+
+        records = read.size();
+        return read;
+    }
+
+
+    /**
+     * Appends records to the journal, and forces them to disk
+     *
+     * @param append
+     *            the records to append
+     * @throws IOException
+     *             the records could not be written
+     */
+    synchronized void append(final Collection<Record> append)
+            throws IOException
+    {
+        if (append.isEmpty())
+        {
+            return;
+        }
+
+        StringBuilder lines = new StringBuilder();
+        append.forEach(r -> lines.append(r.encode()));
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND))
+        {
+            write(channel, lines);
+            channel.force(false);
+        }
+        records += append.size();
+    }
+
+
+    /**
+     * Returns the journal size
+     *
+     * @return the size in bytes
+     * @throws IOException
+     *             the journal could not be read
+     */
+    synchronized long size() throws IOException
+    {
+        return Files.exists(file) ? Files.size(file) : 0;
+    }
+
+
+    /**
+     * Returns the number of records in the journal
+     *
+     * @return the record count
+     */
+    synchronized int records()
+    {
+        return records;
+    }
+
+
+    /**
+     * Drops the records before the given position, once they are in a
+     * compacted snapshot.
+     * <p>
+     * Records appended after the position are kept, the journal being
+     * replaced atomically.
+     *
+     * @param position
+     *            the journal size when the snapshot was taken
+     * @throws IOException
+     *             the journal could not be rewritten
+     */
+    synchronized void truncate(final long position) throws IOException
+    {
+        if (!Files.exists(file))
+        {
+            records = 0;
+            return;
+        }
+
+        byte[] content = Files.readAllBytes(file);
+        if (position >= content.length)
+        {
+            Files.delete(file);
+            records = 0;
+            return;
+        }
+
+        String tail = new String(content, (int) position,
+                content.length - (int) position, StandardCharsets.UTF_8);
+        Path temp = new File(file.toString() + TEMP_SUFFIX).toPath();
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            write(channel, tail);
+            channel.force(true);
+        }
+        move(temp, file);
+
+        int count = 0;
+        for (int i = 0; i < tail.length(); i++)
+        {
+            if (tail.charAt(i) == '\n')
+            {
+                count++;
+            }
+        }
+        records = count;
+    }
+
+
+    /**
+     * Atomically replaces the target with the source file, where the file
+     * system allows
+     *
+     * @param source
+     *            the replacement file
+     * @param target
+     *            the file replaced
+     * @throws IOException
+     *             the file could not be replaced
+     */
+    static void move(final Path source, final Path target) throws IOException
+    {
+        try
+        {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+
+    /**
+     * Writes the text to the channel as UTF-8
+     */
+    private static void write(final FileChannel channel,
+            final CharSequence text) throws IOException
+    {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(text.toString());
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+}
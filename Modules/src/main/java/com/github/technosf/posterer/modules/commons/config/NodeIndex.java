@@ -0,0 +1,372 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.commons.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.configuration2.tree.NodeAddData;
+import org.apache.commons.configuration2.tree.NodeHandler;
+import org.apache.commons.configuration2.tree.NodeKeyResolver;
+import org.apache.commons.configuration2.tree.NodeModel;
+import org.apache.commons.configuration2.tree.NodeUpdateData;
+import org.apache.commons.configuration2.tree.QueryResult;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * In-memory index of the elements of a collection in a configuration tree,
+ * such as the saved requests, by their {@code id} attribute, which holds the
+ * element fingerprint.
+ * <p>
+ * The index is built in one pass over the collection, and elements are then
+ * added and removed through it without querying the tree. Changes are made
+ * through the {@code NodeModel}, so the configuration still tracks them when
+ * it is saved.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+final class NodeIndex
+{
+    /**
+     * The id attribute
+     */
+    static final String ID = "id";
+
+    private final NodeModel<ImmutableNode> model;
+
+    /**
+     * The collection node name
+     */
+    private final String collection;
+
+    /**
+     * The element node name
+     */
+    private final String element;
+
+    /**
+     * The element nodes by id
+     */
+    private final Map<String, ImmutableNode> nodes = new HashMap<>();
+
+
+    /**
+     * @param model
+     *            the configuration node model
+     * @param collection
+     *            the name of the collection node, a child of the root
+     * @param element
+     *            the name of the element nodes in the collection
+     */
+    NodeIndex(final NodeModel<ImmutableNode> model, final String collection,
+            final String element)
+    {
+        this.model = model;
+        this.collection = collection;
+        this.element = element;
+    }
+
+
+    /**
+     * Builds the index in one pass over the collection.
+     * <p>
+     * Each element is kept under the id the {@code keyer} returns for it,
+     * re-keying it if its id attribute differs, or removed if the
+     * {@code keyer} returns null.
+     *
+     * @param keyer
+     *            returns the id of an element, or null to remove it
+     * @return true if the tree was changed
+     */
+    boolean build(final Function<ImmutableNode, @Nullable String> keyer)
+    {
+        nodes.clear();
+
+        ImmutableNode parent = collection();
+        if (parent == null)
+        {
+            return false;
+        }
+
+        Map<QueryResult<ImmutableNode>, Object> rekeyed = new HashMap<>();
+        List<QueryResult<ImmutableNode>> removed = new ArrayList<>();
+
+        for (ImmutableNode node : parent)
+        {
+            if (!element.equals(node.getNodeName()))
+            {
+                continue;
+            }
+
+            String id = keyer.apply(node);
+            if (id == null)
+            {
+                removed.add(QueryResult.createNodeResult(node));
+            }
+            else if (id.equals(id(node)))
+            {
+                nodes.put(id, node);
+            }
+            else
+            {
+                rekeyed.put(QueryResult.createAttributeResult(node, ID),
+                        id);
+            }
+        }
+
+        if (!rekeyed.isEmpty())
+        {
+            model.setProperty(element, null, new Resolver(
+                    Collections.emptyList(), new NodeUpdateData<>(rekeyed,
+                            null, null, element)));
+        }
+        if (!removed.isEmpty())
+        {
+            model.clearTree(element, new Resolver(removed, null));
+        }
+        if (rekeyed.isEmpty())
+        {
+            return !removed.isEmpty();
+        }
+
+        /*
+         * Re-keyed nodes were replaced, so index them again
+         */
+        ImmutableNode changed = collection();
+        if (changed != null)
+        {
+            for (ImmutableNode node : changed)
+            {
+                String id = id(node);
+                if (element.equals(node.getNodeName()) && id != null)
+                {
+                    nodes.put(id, node);
+                }
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Adds an element, creating the collection if needed
+     *
+     * @param id
+     *            the element id
+     * @param values
+     *            the element child values by name, in order; null values are
+     *            skipped
+     */
+    void add(final String id, final Map<String, @Nullable Object> values)
+    {
+        ImmutableNode.Builder builder = new ImmutableNode.Builder()
+                .name(element).addAttribute(ID, id);
+        values.forEach((name, value) -> {
+            if (value != null)
+            {
+                builder.addChild(new ImmutableNode.Builder().name(name)
+                        .value(value).create());
+            }
+        });
+        ImmutableNode node = builder.create();
+
+        ImmutableNode parent = collection();
+        if (parent == null)
+        {
+            model.addNodes(element,
+                    Collections.singleton(new ImmutableNode.Builder()
+                            .name(collection).addChild(node).create()),
+                    new Resolver(Collections.singletonList(QueryResult
+                            .createNodeResult(root())), null));
+        }
+        else
+        {
+            model.addNodes(element, Collections.singleton(node),
+                    new Resolver(Collections.singletonList(
+                            QueryResult.createNodeResult(parent)), null));
+        }
+        nodes.put(id, node);
+    }
+
+
+    /**
+     * Removes an element
+     *
+     * @param id
+     *            the element id
+     * @return true if the element was indexed and removed
+     */
+    boolean remove(final String id)
+    {
+        ImmutableNode node = nodes.remove(id);
+        if (node == null)
+        {
+            return false;
+        }
+        model.clearTree(element, new Resolver(
+                Collections.singletonList(QueryResult.createNodeResult(node)),
+                null));
+        return true;
+    }
+
+
+    /**
+     * Returns the number of indexed elements
+     *
+     * @return the element count
+     */
+    int size()
+    {
+        return nodes.size();
+    }
+
+
+    /**
+     * Returns the value of the first child of the given name
+     *
+     * @param node
+     *            the element node
+     * @param name
+     *            the child name
+     * @return the child value, or an empty string if there is none
+     */
+    static String value(final ImmutableNode node, final String name)
+    {
+        for (ImmutableNode child : node)
+        {
+            if (name.equals(child.getNodeName()))
+            {
+                return Objects.toString(child.getValue(), "");
+            }
+        }
+        return "";
+    }
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Returns the root node
+     */
+    private ImmutableNode root()
+    {
+        return model.getNodeHandler().getRootNode();
+    }
+
+
+    /**
+     * Returns the current collection node, if any
+     */
+    private @Nullable ImmutableNode collection()
+    {
+        for (ImmutableNode node : root())
+        {
+            if (collection.equals(node.getNodeName()))
+            {
+                return node;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the id attribute of the node
+     */
+    private static @Nullable String id(final ImmutableNode node)
+    {
+        Object id = node.getAttributes().get(ID);
+        return id == null ? null : id.toString().trim();
+    }
+
+
+    /**
+     * Resolves the node model keys of an update to nodes already in hand,
+     * rather than querying the tree
+     */
+    private static final class Resolver
+            implements NodeKeyResolver<ImmutableNode>
+    {
+        private final List<QueryResult<ImmutableNode>> results;
+        private final @Nullable NodeUpdateData<ImmutableNode> update;
+
+
+        Resolver(final List<QueryResult<ImmutableNode>> results,
+                final @Nullable NodeUpdateData<ImmutableNode> update)
+        {
+            this.results = results;
+            this.update = update;
+        }
+
+
+        @Override
+        public List<QueryResult<ImmutableNode>> resolveKey(
+                final ImmutableNode root, final String key,
+                final NodeHandler<ImmutableNode> handler)
+        {
+            return results;
+        }
+
+
+        @Override
+        public List<ImmutableNode> resolveNodeKey(final ImmutableNode root,
+                final String key, final NodeHandler<ImmutableNode> handler)
+        {
+            List<ImmutableNode> resolved = new ArrayList<>(results.size());
+            results.forEach(r -> resolved.add(r.getNode()));
+            return resolved;
+        }
+
+
+        @Override
+        public NodeAddData<ImmutableNode> resolveAddKey(
+                final ImmutableNode root, final String key,
+                final NodeHandler<ImmutableNode> handler)
+        {
+            throw new UnsupportedOperationException(key);
+        }
+
+
+        @Override
+        public NodeUpdateData<ImmutableNode> resolveUpdateKey(
+                final ImmutableNode root, final String key,
+                final Object newValue,
+                final NodeHandler<ImmutableNode> handler)
+        {
+            NodeUpdateData<ImmutableNode> data = update;
+            if (data == null)
+            {
+                throw new UnsupportedOperationException(key);
+            }
+            return data;
+        }
+
+
+        @Override
+        public String nodeKey(final ImmutableNode node,
+                final Map<ImmutableNode, String> cache,
+                final NodeHandler<ImmutableNode> handler)
+        {
+            throw new UnsupportedOperationException(node.getNodeName());
+        }
+    }
+}
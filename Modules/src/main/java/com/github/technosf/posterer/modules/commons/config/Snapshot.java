@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.commons.config;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Writes a configuration tree out as a properties snapshot file
+ * <p>
+ * The tree is streamed straight to XML, in time linear in its size, to a
+ * temporary file that is forced to disk and then atomically replaces the
+ * snapshot, so a crash leaves either the old or the new snapshot whole.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+final class Snapshot
+{
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String INDENT = "    ";
+
+    /**
+     * Root element name, should the root node be unnamed
+     */
+    private static final String ROOT = "configuration";
+
+    private static final XMLOutputFactory FACTORY =
+            XMLOutputFactory.newInstance();
+
+
+    /**
+     * Static use only
+     */
+    private Snapshot()
+    {
+    }
+
+
+    /**
+     * Writes the tree to the snapshot file
+     *
+     * @param root
+     *            the root of the tree
+     * @param file
+     *            the snapshot file
+     * @throws IOException
+     *             the snapshot could not be written
+     */
+    static void write(final ImmutableNode root, final File file)
+            throws IOException
+    {
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        try
+        {
+            try (FileOutputStream out = new FileOutputStream(temp))
+            {
+                write(root, new BufferedOutputStream(out));
+                out.getFD().sync();
+            }
+            Journal.move(temp.toPath(), file.toPath());
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(temp);
+        }
+    }
+
+
+    /**
+     * Writes the tree to the stream as UTF-8 XML, and flushes it
+     *
+     * @param root
+     *            the root of the tree
+     * @param out
+     *            the stream
+     * @throws IOException
+     *             the tree could not be written
+     */
+    static void write(final ImmutableNode root, final OutputStream out)
+            throws IOException
+    {
+        try
+        {
+            XMLStreamWriter writer = FACTORY.createXMLStreamWriter(out,
+                    StandardCharsets.UTF_8.name());
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            write(writer, root, 0);
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+            out.flush();
+        }
+        catch (XMLStreamException e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+
+    /**
+     * Writes a node and its children
+     */
+    private static void write(final XMLStreamWriter writer,
+            final ImmutableNode node, final int depth)
+            throws XMLStreamException
+    {
+        writer.writeCharacters("\n");
+        for (int i = 0; i < depth; i++)
+        {
+            writer.writeCharacters(INDENT);
+        }
+
+        String name = Objects.toString(node.getNodeName(), ROOT);
+        String value = Objects.toString(node.getValue(), "");
+        if (node.getChildren().isEmpty() && value.isEmpty())
+        {
+            writer.writeEmptyElement(name);
+            attributes(writer, node);
+            return;
+        }
+
+        writer.writeStartElement(name);
+        attributes(writer, node);
+        writer.writeCharacters(value);
+
+        if (!node.getChildren().isEmpty())
+        {
+            for (ImmutableNode child : node)
+            {
+                write(writer, child, depth + 1);
+            }
+            writer.writeCharacters("\n");
+            for (int i = 0; i < depth; i++)
+            {
+                writer.writeCharacters(INDENT);
+            }
+        }
+        writer.writeEndElement();
+    }
+
+
+    /**
+     * Writes the attributes of a node
+     */
+    private static void attributes(final XMLStreamWriter writer,
+            final ImmutableNode node) throws XMLStreamException
+    {
+        for (Map.Entry<String, Object> attribute : node.getAttributes()
+                .entrySet())
+        {
+            writer.writeAttribute(attribute.getKey(),
+                    Objects.toString(attribute.getValue(), ""));
+        }
+    }
+}
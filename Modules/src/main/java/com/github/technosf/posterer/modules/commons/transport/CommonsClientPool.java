@@ -0,0 +1,497 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.commons.transport;
+
+import java.io.Closeable;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.http.client.AuthCache;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.impl.client.BasicAuthCache;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.technosf.posterer.core.models.Proxy;
+import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
+import com.github.technosf.posterer.modules.commons.transport.ssl.AuditingSSLSocketFactory;
+import com.github.technosf.posterer.modules.commons.transport.timing.TimingDnsResolver;
+import com.github.technosf.posterer.modules.commons.transport.timing.TimingPlainSocketFactory;
+import com.github.technosf.posterer.modules.commons.transport.timing.TimingRequestExecutor;
+import com.github.technosf.posterer.modules.commons.transport.timing.TimingSSLSocketFactory;
+
+/**
+ * Cache of pooled Apache Commons HTTP clients
+ * <p>
+ * A client, backed by its own {@code PoolingHttpClientConnectionManager}, is
+ * kept for each distinct call configuration so that keep-alive connections,
+ * and the TCP connect and TLS handshake that made them, are reused across
+ * calls.
+ * <p>
+ * Connections are not marked with the client certificate principal they
+ * authenticated with, as each call's context starts without one and would
+ * never lease them again. A client is keyed by its certificate, so its
+ * connections are interchangeable.
+ * <p>
+ * Clients are instrumented to time the DNS, connect, handshake, request and
+ * response phases of each call.
+ * <p>
+ * Each client keeps an {@code AuthCache} of the schemes negotiated with its
+ * targets and proxy, so that later calls authenticate preemptively rather
+ * than waiting to be challenged.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class CommonsClientPool
+        implements Closeable
+{
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory
+            .getLogger(CommonsClientPool.class);
+
+    /**
+     * Default maximum connections per route
+     */
+    public static final int DEFAULT_MAX_PER_ROUTE = 20;
+
+    /**
+     * Default maximum connections per client
+     */
+    public static final int DEFAULT_MAX_TOTAL = 100;
+
+    /**
+     * Default seconds an idle connection is kept
+     */
+    public static final int DEFAULT_IDLE_SECONDS = 30;
+
+    /**
+     * Key identifying a call configuration
+     */
+    static final class Key
+    {
+        final String security;
+        final String proxyHost;
+        final String proxyPort;
+        final String proxyUser;
+        final String proxyPassword;
+        final String keyStore;
+        final long keyStoreModified;
+        final String alias;
+
+
+        /**
+         * @param security
+         *            the SSL/TLS version, empty for none
+         * @param proxy
+         *            the proxy, if any
+         * @param keyStoreBean
+         *            the certificate store, if any
+         * @param alias
+         *            the certificate alias, if any
+         */
+        Key(final String security, final @Nullable Proxy proxy,
+                final @Nullable KeyStoreBean keyStoreBean,
+                final @Nullable String alias)
+        {
+            this.security = security;
+            this.proxyHost = proxy == null ? "" : proxy.getProxyHost();
+            this.proxyPort = proxy == null ? "" : proxy.getProxyPort();
+            this.proxyUser = proxy == null ? "" : proxy.getProxyUser();
+            this.proxyPassword = proxy == null ? "" : proxy.getProxyPassword();
+            this.keyStore = keyStoreBean == null ? ""
+                    : keyStoreBean.getFile().getAbsolutePath();
+            this.keyStoreModified = keyStoreBean == null ? 0
+                    : keyStoreBean.getFile().lastModified();
+            this.alias = Objects.toString(alias, "");
+        }
+
+
+        /**
+         * Copy of a key with SSL/TLS removed
+         */
+        private Key(final Key key)
+        {
+            this.security = "";
+            this.proxyHost = key.proxyHost;
+            this.proxyPort = key.proxyPort;
+            this.proxyUser = key.proxyUser;
+            this.proxyPassword = key.proxyPassword;
+            this.keyStore = "";
+            this.keyStoreModified = 0;
+            this.alias = "";
+        }
+
+
+        /**
+         * Returns this configuration without SSL/TLS
+         *
+         * @return the insecure key
+         */
+        Key insecure()
+        {
+            return new Key(this);
+        }
+
+
+        /**
+         * Is this key superseded by the given key, the same configuration
+         * with its certificate store since modified?
+         *
+         * @param key
+         *            the later key
+         * @return true if superseded
+         */
+        boolean isSupersededBy(final Key key)
+        {
+            return keyStoreModified != key.keyStoreModified
+                    && isConfiguration(key);
+        }
+
+
+        /**
+         * Does the given key hold the same configuration, whatever the
+         * modification time of its certificate store?
+         */
+        private boolean isConfiguration(final Key key)
+        {
+            return security.equals(key.security)
+                    && proxyHost.equals(key.proxyHost)
+                    && proxyPort.equals(key.proxyPort)
+                    && proxyUser.equals(key.proxyUser)
+                    && proxyPassword.equals(key.proxyPassword)
+                    && keyStore.equals(key.keyStore)
+                    && alias.equals(key.alias);
+        }
+
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(security, proxyHost, proxyPort, proxyUser,
+                    proxyPassword, keyStore, keyStoreModified, alias);
+        }
+
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(@Nullable Object obj)
+        {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return keyStoreModified == other.keyStoreModified
+                    && isConfiguration(other);
+        }
+    }
+
+    /**
+     * A pooled client, the SSL factory it connects with and its auth cache
+     */
+    static final class PooledClient
+    {
+        final CloseableHttpClient client;
+        final PoolingHttpClientConnectionManager connectionManager;
+        final @Nullable AuditingSSLSocketFactory sslSocketFactory;
+        final AuthCache authCache;
+        final boolean fallback;
+
+
+        PooledClient(final CloseableHttpClient client,
+                final PoolingHttpClientConnectionManager connectionManager,
+                final @Nullable AuditingSSLSocketFactory sslSocketFactory)
+        {
+            this.client = client;
+            this.connectionManager = connectionManager;
+            this.sslSocketFactory = sslSocketFactory;
+            this.authCache = new BasicAuthCache();
+            this.fallback = false;
+        }
+
+
+        /**
+         * The insecure client standing in for a configuration whose SSL
+         * factory could not be built
+         *
+         * @param insecure
+         *            the client of the configuration without SSL/TLS
+         */
+        PooledClient(final PooledClient insecure)
+        {
+            this.client = insecure.client;
+            this.connectionManager = insecure.connectionManager;
+            this.sslSocketFactory = null;
+            this.authCache = insecure.authCache;
+            this.fallback = true;
+        }
+    }
+
+    /* ------------------------------------------------ */
+
+    private final ConcurrentMap<Key, PooledClient> clients =
+            new ConcurrentHashMap<>();
+
+    private volatile int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+    private volatile int maxTotal = DEFAULT_MAX_TOTAL;
+    private volatile int idleSeconds = DEFAULT_IDLE_SECONDS;
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Returns the pooled client for the call configuration, building it if
+     * needed.
+     * <p>
+     * Should the SSL factory not be available, the configuration falls back
+     * to the default SSL implementation, as an unpooled call would. The
+     * fallback is kept for the configuration, so the factory is not built
+     * again until the certificate store is modified.
+     * <p>
+     * A client built for a certificate store since modified supersedes the
+     * client built for the store as it was, which is closed.
+     *
+     * @param key
+     *            the call configuration
+     * @param sslSocketFactory
+     *            builds the SSL factory for secured configurations
+     * @param configurer
+     *            further configures the builder of a new client
+     * @return the pooled client
+     */
+    PooledClient getClient(final Key key,
+            final Supplier<@Nullable AuditingSSLSocketFactory> sslSocketFactory,
+            final Consumer<HttpClientBuilder> configurer)
+    {
+        PooledClient pooled = clients.get(key);
+        if (pooled == null)
+        {
+            pooled = clients.computeIfAbsent(key,
+                    k -> build(k, sslSocketFactory, configurer));
+            if (pooled == null)
+            /*
+             * SSL could not be configured
+             */
+            {
+                PooledClient insecure =
+                        getClient(key.insecure(), () -> null, configurer);
+                pooled = clients.computeIfAbsent(key,
+                        k -> new PooledClient(insecure));
+            }
+            evictSuperseded(key);
+        }
+        return pooled;
+    }
+
+
+    /**
+     * Removes the clients superseded by the given configuration, closing those
+     * not standing in for another
+     *
+     * @param key
+     *            the call configuration
+     */
+    private void evictSuperseded(final Key key)
+    {
+        clients.forEach((k, p) -> {
+            if (k.isSupersededBy(key) && clients.remove(k, p)
+                    && !p.fallback)
+            {
+                LOG.debug("Closing client superseded for key store [{}]",
+                        k.keyStore);
+                HttpClientUtils.closeQuietly(p.client);
+            }
+        });
+    }
+
+
+    /**
+     * Builds a new pooled client
+     *
+     * @return the client, or null if the SSL factory is not available
+     */
+    private @Nullable PooledClient build(final Key key,
+            final Supplier<@Nullable AuditingSSLSocketFactory> sslSocketFactory,
+            final Consumer<HttpClientBuilder> configurer)
+    {
+        AuditingSSLSocketFactory auditingFactory = null;
+        LayeredConnectionSocketFactory layeredFactory;
+
+        if (key.security.isEmpty())
+        {
+            layeredFactory = new TimingSSLSocketFactory();
+        }
+        else
+        {
+            auditingFactory = sslSocketFactory.get();
+            if (auditingFactory == null)
+            {
+                return null;
+            }
+            layeredFactory = auditingFactory;
+        }
+
+        Registry<ConnectionSocketFactory> registry =
+                RegistryBuilder.<ConnectionSocketFactory> create()
+                        .register("http", new TimingPlainSocketFactory())
+                        .register("https", layeredFactory)
+                        .build();
+
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(registry,
+                        new TimingDnsResolver());
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setMaxTotal(maxTotal);
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setRequestExecutor(new TimingRequestExecutor())
+                .disableConnectionState()
+                .evictExpiredConnections()
+                .evictIdleConnections(idleSeconds, TimeUnit.SECONDS);
+        configurer.accept(builder);
+
+        LOG.debug("Pooling client for security [{}] proxy [{}:{}]",
+                key.security, key.proxyHost, key.proxyPort);
+
+        return new PooledClient(builder.build(), connectionManager,
+                auditingFactory);
+    }
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Sets the maximum connections per route, for current and future clients
+     *
+     * @param maxPerRoute
+     *            the maximum
+     */
+    public void setMaxPerRoute(final int maxPerRoute)
+    {
+        this.maxPerRoute = maxPerRoute;
+        clients.values().forEach(
+                p -> p.connectionManager.setDefaultMaxPerRoute(maxPerRoute));
+    }
+
+
+    /**
+     * Returns the maximum connections per route
+     *
+     * @return the maximum
+     */
+    public int getMaxPerRoute()
+    {
+        return maxPerRoute;
+    }
+
+
+    /**
+     * Sets the maximum connections per client, for current and future clients
+     *
+     * @param maxTotal
+     *            the maximum
+     */
+    public void setMaxTotal(final int maxTotal)
+    {
+        this.maxTotal = maxTotal;
+        clients.values()
+                .forEach(p -> p.connectionManager.setMaxTotal(maxTotal));
+    }
+
+
+    /**
+     * Returns the maximum connections per client
+     *
+     * @return the maximum
+     */
+    public int getMaxTotal()
+    {
+        return maxTotal;
+    }
+
+
+    /**
+     * Sets how long idle connections are kept, for future clients
+     *
+     * @param idleSeconds
+     *            the idle time in seconds
+     */
+    public void setIdleSeconds(final int idleSeconds)
+    {
+        this.idleSeconds = idleSeconds;
+    }
+
+
+    /**
+     * Returns how long idle connections are kept
+     *
+     * @return the idle time in seconds
+     */
+    public int getIdleSeconds()
+    {
+        return idleSeconds;
+    }
+
+
+    /**
+     * Returns the number of pooled clients
+     *
+     * @return the number of clients
+     */
+    public int size()
+    {
+        return clients.size();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes all pooled clients and their connections.
+     *
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close()
+    {
+        clients.values().forEach(p -> HttpClientUtils.closeQuietly(p.client));
+        clients.clear();
+    }
+}
@@ -12,18 +12,24 @@
  */
 package com.github.technosf.posterer.modules.commons.transport;
 
-import java.io.FileNotFoundException;
-import java.io.IOException;
+import java.io.Closeable;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
 import java.util.function.BooleanSupplier;
 
 import org.apache.http.HttpHost;
+import org.apache.http.auth.AUTH;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.MalformedChallengeException;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.message.BasicHeader;
 import org.eclipse.jdt.annotation.Nullable;
 
 import com.github.technosf.posterer.core.models.Proxy;
@@ -31,7 +37,7 @@ import com.github.technosf.posterer.core.models.Request;
 import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
 import com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel;
 import com.github.technosf.posterer.core.utils.Auditor;
-import com.github.technosf.posterer.core.utils.ssl.PromiscuousHostnameVerifier;
+import com.github.technosf.posterer.modules.commons.transport.CommonsClientPool.PooledClient;
 import com.github.technosf.posterer.modules.commons.transport.ssl.AuditingSSLSocketFactory;
 
 /**
@@ -40,13 +46,19 @@ import com.github.technosf.posterer.modules.commons.transport.ssl.AuditingSSLSoc
  * Create an Apache Commons HTTP call configuration and embeds it into
  * an Apache Commons HTTP implementation of a ResponseModelTask that
  * is ready to be fired off.
+ * <p>
+ * Clients are pooled per call configuration in a {@code CommonsClientPool} so
+ * that connections are kept alive and reused from call to call. Proxy
+ * credentials are given to each call, and the proxy seeded in the client's
+ * auth cache, so that calls authenticate to the proxy preemptively.
  * 
  * @author technosf
  * @since 0.0.1
- * @version 0.0.1
+ * @version 0.0.2
  */
 public class CommonsRequestModelImpl
         extends AbstractRequestModel<CommonsResponseModelTaskImpl>
+        implements Closeable
 {
 
     private static final String CONST_FMT = "\t%1$s";
@@ -56,14 +68,20 @@ public class CommonsRequestModelImpl
      */
     private class CallConfigBean
     {
-        final HttpClientBuilder builder;
+        final CloseableHttpClient client;
         final BooleanSupplier neededClientAuth;
+        final AuthCache authCache;
+        final BasicCredentialsProvider credentialsProvider;
 
 
-        CallConfigBean(HttpClientBuilder builder,
-                @Nullable BooleanSupplier neededClientAuth)
+        CallConfigBean(CloseableHttpClient client,
+                @Nullable BooleanSupplier neededClientAuth,
+                AuthCache authCache,
+                BasicCredentialsProvider credentialsProvider)
         {
-            this.builder = builder;
+            this.client = client;
+            this.authCache = authCache;
+            this.credentialsProvider = credentialsProvider;
             if (neededClientAuth == null)
             {
                 this.neededClientAuth = ()->false;
@@ -81,14 +99,45 @@ public class CommonsRequestModelImpl
     private static final String CONST_ERR_SSL_ALGO = "SSL :: Algo exception";
     private static final String CONST_ERR_SSL_STORE =
             "SSL :: Key Store exception";
-    private static final String CONST_ERR_SSL_FILE = "SSL :: File exception";
-    private static final String CONST_ERR_SSL_CERT =
-            "SSL :: Certificate exception";
-    private static final String CONST_ERR_SSL_IO = "SSL :: IO exception";
+    private static final String CONST_ERR_SSL_FALLBACK =
+            "SSL :: Not configured, calling with the default SSL";
 
 
     /* ------------------------------------------------ */
 
+    /**
+     * The pooled clients
+     */
+    private final CommonsClientPool clientPool = new CommonsClientPool();
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Returns the client pool, to tune connection limits
+     * 
+     * @return the client pool
+     */
+    public CommonsClientPool getClientPool()
+    {
+        return clientPool;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the pooled clients.
+     *
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close()
+    {
+        clientPool.close();
+    }
+
+
     /**
      * {@inheritDoc}
      *
@@ -103,9 +152,10 @@ public class CommonsRequestModelImpl
         CallConfigBean callconfig =
                 createCallConfig(auditor, request.getSecurity());
         return new CommonsResponseModelTaskImpl(requestId, auditor,
-                callconfig.builder,
+                callconfig.client,
                 timeout,
-                request, callconfig.neededClientAuth);
+                request, callconfig.neededClientAuth, callconfig.authCache,
+                callconfig.credentialsProvider);
     }
 
 
@@ -129,9 +179,10 @@ public class CommonsRequestModelImpl
                 createCallConfig(auditor, request.getSecurity(), proxy);
 
         return new CommonsResponseModelTaskImpl(requestId, auditor,
-                callconfig.builder,
+                callconfig.client,
                 timeout,
-                request, callconfig.neededClientAuth);
+                request, callconfig.neededClientAuth, callconfig.authCache,
+                callconfig.credentialsProvider);
     }
 
 
@@ -157,9 +208,10 @@ public class CommonsRequestModelImpl
                         alias);
 
         return new CommonsResponseModelTaskImpl(requestId, auditor,
-                callconfig.builder,
+                callconfig.client,
                 timeout,
-                request, callconfig.neededClientAuth);
+                request, callconfig.neededClientAuth, callconfig.authCache,
+                callconfig.credentialsProvider);
     }
 
 
@@ -187,9 +239,35 @@ public class CommonsRequestModelImpl
                         alias);
 
         return new CommonsResponseModelTaskImpl(requestId, auditor,
-                callconfig.builder,
+                callconfig.client,
                 timeout,
-                request, callconfig.neededClientAuth);
+                request, callconfig.neededClientAuth, callconfig.authCache,
+                callconfig.credentialsProvider);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel#execute(com.github.technosf.posterer.core.models.ResponseModel)
+     */
+    @Override
+    protected void execute(final CommonsResponseModelTaskImpl response)
+            throws Exception
+    {
+        response.execute();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractRequestModel#release(com.github.technosf.posterer.core.models.ResponseModel)
+     */
+    @Override
+    protected void release(final CommonsResponseModelTaskImpl response)
+    {
+        response.release();
     }
 
 
@@ -202,21 +280,7 @@ public class CommonsRequestModelImpl
     private CallConfigBean createCallConfig(Auditor auditor,
             final String ssl)
     {
-        BooleanSupplier neededClientAuth = null;
-        HttpClientBuilder builder = HttpClients.custom();
-
-        if (!ssl.isEmpty())
-        /*
-         * Use custom builder
-         */
-        {
-            /*
-             * Configure builder
-             */
-            neededClientAuth =
-                    buildInSSL(auditor, builder, ssl);
-        }
-        return new CallConfigBean(builder, neededClientAuth);
+        return createCallConfig(auditor, ssl, null, null, null);
     }
 
 
@@ -231,23 +295,7 @@ public class CommonsRequestModelImpl
             final String ssl,
             final Proxy proxy)
     {
-        BooleanSupplier neededClientAuth = null;
-        HttpClientBuilder builder = HttpClients.custom();
-
-        if (!ssl.isEmpty() || !proxy.toString().isEmpty())
-        /*
-         * Use custom builder 
-         */
-        {
-            /*
-             * Configure builder
-             */
-            neededClientAuth =
-                    buildInSSL(auditor, builder, ssl);
-            buildInProxy(auditor, builder, proxy);
-        } // custom builder
-
-        return new CallConfigBean(builder, neededClientAuth);
+        return createCallConfig(auditor, ssl, proxy, null, null);
     }
 
 
@@ -262,55 +310,78 @@ public class CommonsRequestModelImpl
             final String ssl, final KeyStoreBean keyStoreBean,
             final String alias)
     {
-        BooleanSupplier neededClientAuth = null;
-        HttpClientBuilder builder = HttpClients.custom();
-
-        if (!ssl.isEmpty())
-        /*
-         * Use custom builder 
-         */
-        {
-            /*
-             * Configure builder
-             */
-            neededClientAuth =
-                    buildInSSL(auditor, builder, ssl,
-                            keyStoreBean, alias);
-        } // custom builder
-
-        return new CallConfigBean(builder, neededClientAuth);
+        return createCallConfig(auditor, ssl, null, keyStoreBean, alias);
     }
 
 
     /**
-     * Creates a call config for the given ssl impl and proxy
+     * Creates a call config for the given ssl impl, proxy and certificate,
+     * reusing the pooled client for that configuration if there is one.
      * 
      * @param auditor
-     * @param string
+     *            the call auditor
+     * @param ssl
+     *            the ssl info
+     * @param proxy
+     *            the proxy info, if any
+     * @param keyStoreBean
+     *            the certificate store, if any
+     * @param alias
+     *            the alias of the certificate to use
      * @return the call config
      */
     private CallConfigBean createCallConfig(final Auditor auditor,
             final String ssl,
-            final Proxy proxy, final KeyStoreBean keyStoreBean,
-            final String alias)
+            final @Nullable Proxy proxy,
+            final @Nullable KeyStoreBean keyStoreBean,
+            final @Nullable String alias)
     {
+        Proxy httpproxy =
+                (proxy == null || proxy.toString().isEmpty()) ? null : proxy;
+
+        PooledClient pooled = clientPool.getClient(
+                new CommonsClientPool.Key(ssl, httpproxy, keyStoreBean,
+                        alias),
+                () -> buildInSSL(auditor, ssl, keyStoreBean, alias),
+                builder -> {
+                    if (httpproxy != null)
+                    {
+                        buildInProxy(auditor, builder, httpproxy);
+                    }
+                });
+
+        if (pooled.fallback)
+        {
+            auditor.append(true, CONST_ERR_SSL_FALLBACK);
+        }
+
         BooleanSupplier neededClientAuth = null;
-        HttpClientBuilder builder = HttpClients.custom();
+        if (pooled.sslSocketFactory != null)
+        {
+            neededClientAuth =
+                    pooled.sslSocketFactory
+                            .getNeededClientAuthSupplier(auditor);
+        }
 
-        if (!ssl.isEmpty() || !proxy.toString().isEmpty())
-        /*
-         * Use custom builder 
+        BasicCredentialsProvider credentialsProvider =
+                new BasicCredentialsProvider();
+        if (httpproxy != null && !httpproxy.getProxyUser().isEmpty())
+        /* 
+         * Add proxy auth, preemptive once the proxy is in the auth cache
          */
         {
-            /*
-             * Configure builder
-             */
-            neededClientAuth = buildInSSL(auditor,
-                    builder, ssl, keyStoreBean, alias);
-            buildInProxy(auditor, builder, proxy);
-        } // custom builder
-
-        return new CallConfigBean(builder, neededClientAuth);
+            HttpHost proxyHost = proxyHost(httpproxy);
+            credentialsProvider.setCredentials(new AuthScope(proxyHost),
+                    new UsernamePasswordCredentials(httpproxy.getProxyUser(),
+                            httpproxy.getProxyPassword()));
+            if (pooled.authCache.get(proxyHost) == null)
+            {
+                pooled.authCache.put(proxyHost, proxyScheme());
+            }
+        }
+
+        return new CallConfigBean(pooled.client, neededClientAuth,
+                pooled.authCache, credentialsProvider);
     }
 
 
@@ -325,100 +396,71 @@ public class CommonsRequestModelImpl
     private void buildInProxy(Auditor auditor, HttpClientBuilder builder,
             final Proxy proxy)
     {
-        HttpHost httpproxy =
-                new HttpHost(proxy.getProxyHost(),
-                        Integer.parseInt(proxy.getProxyPort()));
-
-        if (!proxy.getProxyUser().isEmpty())
-        /* 
-         * Add proxy auth
-         */
-        {
-            // TODO Implement proxy auth
-            //ProxyAuthenticationStrategy auth = new ProxyAuthenticationStrategy();
-        }
-        builder.setProxy(httpproxy);
+        builder.setProxy(proxyHost(proxy));
     }
 
 
     /**
-     * Configures builder for the given SSL/TLS version
+     * Returns the host of the given proxy
      * 
-     * @param builder
-     *            the builder to configure
-     * @param ssl
-     *            the ssl info
+     * @param proxy
+     *            the proxy info
+     * @return the proxy host
      */
-    private @Nullable BooleanSupplier buildInSSL(Auditor auditor,
-            HttpClientBuilder builder,
-            final String ssl, final KeyStoreBean keyStoreBean,
-            final String alias)
+    private static HttpHost proxyHost(final Proxy proxy)
     {
+        return new HttpHost(proxy.getProxyHost(),
+                Integer.parseInt(proxy.getProxyPort()));
+    }
+
 
-        builder.setSSLHostnameVerifier(
-                new PromiscuousHostnameVerifier(auditor));
+    /**
+     * Returns a basic scheme that answers a proxy challenge, so that it
+     * authorizes with the proxy authorization header
+     *
+     * @return the scheme
+     */
+    private static BasicScheme proxyScheme()
+    {
+        BasicScheme scheme = new BasicScheme();
         try
         {
-            AuditingSSLSocketFactory auditingSSLSocketFactory =
-                    new AuditingSSLSocketFactory(auditor, ssl, keyStoreBean,
-                            alias);
-            builder.setSSLSocketFactory(auditingSSLSocketFactory);
-            return auditingSSLSocketFactory.getNeededClientAuthSupplier();
+            scheme.processChallenge(
+                    new BasicHeader(AUTH.PROXY_AUTH, scheme.getSchemeName()));
         }
-        catch (KeyManagementException | UnrecoverableKeyException e)
+        catch (MalformedChallengeException e)
         {
-            auditor.append(true, CONST_ERR_SSL_KEY).append(false, CONST_FMT,
-                    e.getMessage());
+            throw new IllegalStateException(e);
         }
-        catch (NoSuchAlgorithmException e)
-        {
-            auditor.append(true, CONST_ERR_SSL_ALGO).append(false,
-                    CONST_FMT, e.getMessage());
-        }
-        catch (KeyStoreException e)
-        {
-            auditor.append(true, CONST_ERR_SSL_STORE).append(false,
-                    CONST_FMT, e.getMessage());
-        }
-        catch (FileNotFoundException e)
-        {
-            auditor.append(true, CONST_ERR_SSL_FILE).append(false,
-                    CONST_FMT, e.getMessage());
-        }
-        catch (CertificateException e)
-        {
-            auditor.append(true, CONST_ERR_SSL_CERT).append(false,
-                    CONST_FMT, e.getMessage());
-        }
-        catch (IOException e)
-        {
-            auditor.append(true, CONST_ERR_SSL_IO).append(false,
-                    CONST_FMT, e.getMessage());
-        }
-        return null;
+        return scheme;
     }
 
 
     /**
-     * Configures builder for the given SSL/TLS version
+     * Creates the SSL socket factory for the given SSL/TLS version and
+     * optional certificate
      * 
-     * @param builder
-     *            the builder to configure
+     * @param auditor
+     *            audits any failure
      * @param ssl
      *            the ssl info
+     * @param keyStoreBean
+     *            the certificate store, if any
+     * @param alias
+     *            the alias of the certificate to use
+     * @return the socket factory, or null if it could not be created
      */
-    private @Nullable BooleanSupplier buildInSSL(Auditor auditor,
-            HttpClientBuilder builder,
-            final String ssl)
+    private @Nullable AuditingSSLSocketFactory buildInSSL(Auditor auditor,
+            final String ssl, final @Nullable KeyStoreBean keyStoreBean,
+            final @Nullable String alias)
     {
-        builder.setSSLHostnameVerifier(
-                new PromiscuousHostnameVerifier(auditor));
         try
         {
-            AuditingSSLSocketFactory auditingSSLSocketFactory =
-                    new AuditingSSLSocketFactory(auditor, ssl);
-            builder.setSSLSocketFactory(auditingSSLSocketFactory);
-            return auditingSSLSocketFactory.getNeededClientAuthSupplier();
+            if (keyStoreBean == null || alias == null)
+            {
+                return new AuditingSSLSocketFactory(ssl);
+            }
+            return new AuditingSSLSocketFactory(ssl, keyStoreBean, alias);
         }
         catch (KeyManagementException | UnrecoverableKeyException e)
         {
@@ -435,22 +477,6 @@ public class CommonsRequestModelImpl
             auditor.append(true, CONST_ERR_SSL_STORE).append(false,
                     CONST_FMT, e.getMessage());
         }
-        catch (FileNotFoundException e)
-        {
-            auditor.append(true, CONST_ERR_SSL_FILE).append(false,
-                    CONST_FMT, e.getMessage());
-        }
-        catch (CertificateException e)
-        {
-            auditor.append(true, CONST_ERR_SSL_CERT).append(false,
-                    CONST_FMT, e.getMessage());
-        }
-        catch (IOException e)
-        {
-            auditor.append(true, CONST_ERR_SSL_IO).append(false,
-                    CONST_FMT, e.getMessage());
-        }
-
         return null;
     }
 
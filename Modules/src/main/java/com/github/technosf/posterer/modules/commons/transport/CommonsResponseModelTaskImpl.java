@@ -13,17 +13,27 @@
 package com.github.technosf.posterer.modules.commons.transport;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BooleanSupplier;
 
 import org.apache.http.Consts;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.ParseException;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
 import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpGet;
@@ -32,16 +42,18 @@ import org.apache.http.client.methods.HttpOptions;
 import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpTrace;
 import org.apache.http.client.methods.HttpUriRequest;
-//import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.client.utils.URIUtils;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.util.EntityUtils;
 import org.eclipse.jdt.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,15 +61,34 @@ import org.slf4j.LoggerFactory;
 import com.github.technosf.posterer.core.models.Request;
 import com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask;
 import com.github.technosf.posterer.core.utils.Auditor;
+import com.github.technosf.posterer.core.utils.BodySink;
+import com.github.technosf.posterer.core.utils.RequestEvents;
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+import com.github.technosf.posterer.modules.commons.transport.ssl.AuditingSSLSocketFactory;
+import com.github.technosf.posterer.modules.commons.transport.timing.CallTimings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Apache Commons implementation of {@ResponsetModel}
  * <p>
  * Uses Commons HTTP frameworks to make HTTP requests and process responses.
+ * <p>
+ * The client is pooled and shared between calls; call specific state such as
+ * the auditor and credentials is carried in a per call
+ * {@code HttpClientContext}.
+ * <p>
+ * Credentials are scoped to the target host, which is seeded in the client's
+ * {@code AuthCache} so that they are sent preemptively; the cache then keeps
+ * whatever scheme the host negotiates for later calls.
+ * <p>
+ * The timeout limits the connect, the wait for a pooled connection and each
+ * socket read, and is also the deadline for the whole call, body included.
+ * A call that overruns its deadline, or is cancelled, is aborted, freeing its
+ * connection and thread at once.
  * 
  * @author technosf
  * @since 0.0.1
- * @version 0.0.1
+ * @version 0.0.2
  */
 public final class CommonsResponseModelTaskImpl
         extends AbstractResponseModelTask<HttpResponse>
@@ -69,10 +100,17 @@ public final class CommonsResponseModelTaskImpl
             .getLogger(CommonsResponseModelTaskImpl.class);
 
     /* Messages */
-    private static final String CONST_ERR_NULL_CLIENT = "Client is null";
+    private static final String CONST_ERR_NULL_REQUEST = "Request is null";
     private static final String CONST_ERR_NO_REPONSE =
             "Can't get response body";
     private static final String CONST_ERR_UNKNOWN_METHOD = "Unknow method: {}";
+    private static final String CONST_DEADLINE =
+            "Deadline of %1$ss exceeded, call aborted";
+
+    /**
+     * Aborts calls that overrun their deadline
+     */
+    private static final ScheduledExecutorService DEADLINES = deadlines();
 
     /**
      * CRLF
@@ -80,19 +118,24 @@ public final class CommonsResponseModelTaskImpl
     private static final String CRLF = "\r\n";
 
     /**
-     * the Http Client
+     * the pooled Http Client
      */
-    private HttpClientBuilder clientBuilder;
+    private final CloseableHttpClient client;
 
     /**
-     * the Http Client
+     * the Http context for this call
      */
-    private @Nullable CloseableHttpClient client;
+    private final HttpClientContext context = HttpClientContext.create();
 
     /**
      * The Http Request
      */
-    private @Nullable HttpUriRequest httpUriRequest;
+    private volatile @Nullable HttpUriRequest httpUriRequest;
+
+    /**
+     * The pending deadline of the call
+     */
+    private volatile @Nullable ScheduledFuture<?> deadline;
 
     /**
      * has the response been processed?
@@ -104,12 +147,24 @@ public final class CommonsResponseModelTaskImpl
      */
     private final BooleanSupplier neededClientAuth;
 
+    /**
+     * The auth cache shared by calls on the client
+     */
+    private final AuthCache authCache;
+
+    /**
+     * The credentials of this call
+     */
+    private final BasicCredentialsProvider credentialsProvider;
+
 
     /**
      * Creates a new {@code CommonsResponseModelTaskImpl} for the given request
      * 
      * @param requestId
      *            the request reference id
+     * @param client
+     *            the pooled client to make the call with
      * @param timeout
      *            connection timeout
      * @param request
@@ -118,12 +173,44 @@ public final class CommonsResponseModelTaskImpl
      *            Status provided by calling class
      */
     public CommonsResponseModelTaskImpl(final int requestId, Auditor auditor,
-            final HttpClientBuilder clientBuilder, final int timeout,
+            final CloseableHttpClient client, final int timeout,
             final Request request, BooleanSupplier neededClientAuth)
+    {
+        this(requestId, auditor, client, timeout, request, neededClientAuth,
+                new BasicAuthCache(), new BasicCredentialsProvider());
+    }
+
+
+    /**
+     * Creates a new {@code CommonsResponseModelTaskImpl} for the given request
+     * on a client with shared auth state
+     * 
+     * @param requestId
+     *            the request reference id
+     * @param client
+     *            the pooled client to make the call with
+     * @param timeout
+     *            connection timeout
+     * @param request
+     *            the request
+     * @param neededClientAuth
+     *            function that determines if client auth is needed
+     * @param authCache
+     *            the auth cache shared by calls on the client
+     * @param credentialsProvider
+     *            the call credentials, holding any proxy credentials
+     */
+    public CommonsResponseModelTaskImpl(final int requestId, Auditor auditor,
+            final CloseableHttpClient client, final int timeout,
+            final Request request, BooleanSupplier neededClientAuth,
+            final AuthCache authCache,
+            final BasicCredentialsProvider credentialsProvider)
     {
         super(requestId, auditor, timeout, request);
-        this.clientBuilder = clientBuilder;
+        this.client = client;
         this.neededClientAuth = neededClientAuth;
+        this.authCache = authCache;
+        this.credentialsProvider = credentialsProvider;
     }
 
 
@@ -135,26 +222,29 @@ public final class CommonsResponseModelTaskImpl
     @Override
     protected void prepareClient()
     {
+        context.setAttribute(AuditingSSLSocketFactory.AUDITOR, auditor);
+        context.setAttribute(CallTimings.TIMINGS, timings);
+        context.setAttribute(CallTimings.RESPONSE, this);
+
+        context.setAuthCache(authCache);
+        context.setCredentialsProvider(credentialsProvider);
 
         if (Boolean.TRUE.equals(getRequest().getAuthenticate()))
-    	/*
-    	 * build a client with auth scope
-    	 */
-        {
-        	CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
-        	credentialsProvider.setCredentials(AuthScope.ANY, 
-        	    new UsernamePasswordCredentials(getRequest().getUsername(), getRequest().getPassword()));
-            client = clientBuilder.setDefaultCredentialsProvider(credentialsProvider).build();
-        }
-        else
-    	/*
-    	 * client with no auth scope
-    	 */
+        /*
+         * call with auth scope, preemptively once the target is cached
+         */
         {
-            client = clientBuilder.build();
+            HttpHost target = URIUtils.extractHost(getRequest().getUri());
+            credentialsProvider.setCredentials(
+                    target == null ? AuthScope.ANY : new AuthScope(target),
+                    new UsernamePasswordCredentials(getRequest().getUsername(),
+                            getRequest().getPassword()));
+            if (target != null && authCache.get(target) == null)
+            {
+                authCache.put(target, new BasicScheme());
+            }
         }
-        
-        
+
         //Create the request
         HttpUriRequest newHttpUriRequest =
                 createRequest(getRequest().getUri(),
@@ -178,6 +268,20 @@ public final class CommonsResponseModelTaskImpl
             LOG.debug("Creating payload with MIME type: {}", ct.getMimeType());
         }
 
+        if (timeout > 0 && newHttpUriRequest instanceof HttpRequestBase)
+        /*
+         * Limit each phase of the call to the timeout
+         */
+        {
+            int timeoutMillis = (int) TimeUnit.SECONDS.toMillis(timeout);
+            ((HttpRequestBase) newHttpUriRequest).setConfig(RequestConfig
+                    .custom()
+                    .setConnectTimeout(timeoutMillis)
+                    .setConnectionRequestTimeout(timeoutMillis)
+                    .setSocketTimeout(timeoutMillis)
+                    .build());
+        }
+
         httpUriRequest = newHttpUriRequest;
     }
 
@@ -192,29 +296,123 @@ public final class CommonsResponseModelTaskImpl
             throws IOException
     {
         this.auditor = auditor;
+        context.setAttribute(AuditingSSLSocketFactory.AUDITOR, auditor);
 
-        if (client != null)
+        HttpUriRequest request = httpUriRequest;
+        if (request != null)
         /*
          * Execute the request
          */
         {
-            return client.execute(httpUriRequest);
+            if (timeout > 0)
+            {
+                deadline = DEADLINES.schedule(this::expire, timeout,
+                        TimeUnit.SECONDS);
+            }
+            CallTimings.bind(timings);
+            try
+            {
+                return client.execute(request, context);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                clearDeadline();
+                throw e;
+            }
+            finally
+            {
+                CallTimings.unbind();
+            }
         }
 
-        LOG.error(CONST_ERR_NULL_CLIENT);
-        throw new ClientProtocolException(CONST_ERR_NULL_CLIENT);
+        LOG.error(CONST_ERR_NULL_REQUEST);
+        throw new ClientProtocolException(CONST_ERR_NULL_REQUEST);
     }
 
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The pooled client stays open; closing the response releases the
+     * connection back to the pool.
      * 
      * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#closeClient()
      */
     @Override
     protected void closeClient()
     {
-        HttpClientUtils.closeQuietly(getValue());
+        clearDeadline();
+        HttpClientUtils.closeQuietly(getCallValue());
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Aborts the request too, closing its connection so that the blocked
+     * call returns at once.
+     * 
+     * @see javafx.concurrent.Task#cancel(boolean)
+     */
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning)
+    {
+        clearDeadline();
+        abort();
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+
+    /**
+     * Aborts the call on its deadline
+     */
+    private void expire()
+    {
+        auditor.append(true, CONST_DEADLINE, timeout);
+        abort();
+    }
+
+
+    /**
+     * Aborts the request, if it has not been already
+     */
+    private void abort()
+    {
+        HttpUriRequest request = httpUriRequest;
+        if (request != null && !request.isAborted())
+        {
+            request.abort();
+        }
+    }
+
+
+    /**
+     * Cancels the pending deadline, if any
+     */
+    private void clearDeadline()
+    {
+        ScheduledFuture<?> pending = deadline;
+        if (pending != null)
+        {
+            deadline = null;
+            pending.cancel(false);
+        }
+    }
+
+
+    /**
+     * Creates the deadline scheduler
+     * 
+     * @return the scheduler
+     */
+    private static ScheduledExecutorService deadlines()
+    {
+        ScheduledThreadPoolExecutor scheduler =
+                new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                        .setNameFormat("posterer-deadline-%d")
+                        .setDaemon(true).build());
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
     }
 
 
@@ -261,6 +459,18 @@ public final class CommonsResponseModelTaskImpl
     }
 
 
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#getStatusCode(java.lang.Object)
+     */
+    @Override
+    protected int getStatusCode(final HttpResponse value)
+    {
+        return value.getStatusLine().getStatusCode();
+    }
+
+
     /*
      * (non-Javadoc)
      * 
@@ -271,29 +481,90 @@ public final class CommonsResponseModelTaskImpl
     {
         if (!isResponseProcessed)
         {
-            HttpResponse httpResponse = getValue();
+            RequestEvents.Stage event =
+                    new RequestEvents.ProcessResponse().of(requestId, request);
+            event.begin();
+            HttpResponse httpResponse = getCallValue();
             if (httpResponse != null)
             {
+                event.status(httpResponse.getStatusLine().getStatusCode());
                 status = httpResponse.getStatusLine().toString();
+                protocol = httpResponse.getStatusLine().getProtocolVersion()
+                        .toString();
                 auditor.postscript(false,status);
                 responseHeaders =
                         prettyPrintHeaders(httpResponse.getAllHeaders());
-                if (httpResponse.getEntity() != null)
+                HttpEntity entity = httpResponse.getEntity();
+                if (entity != null)
                 {
+                    long start = System.nanoTime();
                     try
                     {
-                        responseBody =
-                                EntityUtils.toString(httpResponse.getEntity());
+                        responseBodySink = captureBody(entity);
                     }
-                    catch (ParseException | IOException e)
+                    catch (IOException e)
                     {
                         LOG.error(CONST_ERR_NO_REPONSE, e);
                     }
+                    finally
+                    {
+                        timings.since(Phase.DOWNLOAD, start);
+                    }
                 }
             }
             closeClient();
             isResponseProcessed = true;
             response = httpResponse;
+            BodySink sink = responseBodySink;
+            event.bytes(sink == null ? 0 : sink.getSize()).commit();
+        }
+    }
+
+
+    /**
+     * Streams the entity into a body sink, large bodies going to file
+     * 
+     * @param entity
+     *            the response entity
+     * @return the captured body
+     * @throws IOException
+     *             the body could not be read
+     */
+    private static BodySink captureBody(final HttpEntity entity)
+            throws IOException
+    {
+        Charset charset = null;
+        ContentType contentType;
+        try
+        {
+            contentType = ContentType.get(entity);
+        }
+        catch (ParseException | UnsupportedCharsetException e)
+        {
+            contentType = null;
+        }
+        if (contentType != null)
+        {
+            charset = contentType.getCharset();
+            if (charset == null)
+            {
+                ContentType defaultType =
+                        ContentType.getByMimeType(contentType.getMimeType());
+                charset = defaultType == null ? null : defaultType.getCharset();
+            }
+        }
+        if (charset == null)
+        {
+            charset = Consts.ISO_8859_1;
+        }
+
+        try (InputStream in = entity.getContent())
+        {
+            if (in == null)
+            {
+                return BodySink.empty(charset);
+            }
+            return BodySink.capture(in, charset, BodySink.DEFAULT_THRESHOLD);
         }
     }
 
@@ -348,12 +619,16 @@ public final class CommonsResponseModelTaskImpl
 
     /**
      * {@inheritDoc}
+     * <p>
+     * A call made on a pooled connection did not handshake, so the session
+     * of the connection is consulted too.
      *
      * @see com.github.technosf.posterer.core.models.ResponseModel#neededClientAuth()
      */
     @Override
     public boolean neededClientAuth()
     {
-        return neededClientAuth.getAsBoolean();
+        return neededClientAuth.getAsBoolean()
+                || AuditingSSLSocketFactory.sentClientCertificate(context);
     }
 }
@@ -12,7 +12,6 @@
  */
 package com.github.technosf.posterer.modules.commons.transport.ssl;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
@@ -21,82 +20,92 @@ import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
 import java.util.function.BooleanSupplier;
 
-import javax.net.ssl.HandshakeCompletedEvent;
-import javax.net.ssl.HandshakeCompletedListener;
-import javax.net.ssl.KeyManager;
-import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509KeyManager;
 
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpHost;
+import org.apache.http.conn.ManagedHttpClientConnection;
 import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
 import org.apache.http.protocol.HttpContext;
+import org.eclipse.jdt.annotation.Nullable;
 
 import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
 import com.github.technosf.posterer.core.utils.Auditor;
+import com.github.technosf.posterer.core.utils.RequestEvents;
+import com.github.technosf.posterer.core.utils.Timings.Phase;
 import com.github.technosf.posterer.core.utils.ssl.AuditingX509KeyManager;
-import com.github.technosf.posterer.core.utils.ssl.AuditingX509TrustManager;
+import com.github.technosf.posterer.core.utils.ssl.PromiscuousHostnameVerifier;
+import com.github.technosf.posterer.modules.commons.transport.timing.CallTimings;
+import com.github.technosf.posterer.modules.ssl.BoundAuditor;
+import com.github.technosf.posterer.modules.ssl.SSLContextCache;
+import com.github.technosf.posterer.modules.ssl.SSLContextCache.CachedContext;
 
 /**
  * {@code LayeredConnectionSocketFactory} that provides audited SSL connections
+ * <p>
+ * The factory is shared by every call made through a pooled client, so the
+ * {@code Auditor} for the call is taken from the {@code HttpContext} under
+ * {@link #AUDITOR}. The handshake is made eagerly while that auditor is bound
+ * so that the trust and key managers audit to the call that opened the
+ * connection.
+ * <p>
+ * The {@code SSLContext} itself comes from the {@code SSLContextCache}, so key
+ * material is initialized once however many factories use it.
+ * <p>
+ * A call made on a pooled connection does not handshake, so the session the
+ * connection holds is audited to the call instead, and kept in the
+ * {@code HttpContext} under {@link #SESSION}.
  * 
  * @author technosf
  * @since 0.0.1
- * @version 0.0.1
+ * @version 0.0.2
  */
 public class AuditingSSLSocketFactory
         implements LayeredConnectionSocketFactory
 {
-    private final Auditor auditor;
+    /**
+     * {@code HttpContext} attribute holding the {@code Auditor} for the call
+     */
+    public static final String AUDITOR = "posterer.auditor";
+
+    /**
+     * {@code HttpContext} attribute holding the {@code SSLSession} the call
+     * was made on
+     */
+    public static final String SESSION = "posterer.ssl.session";
+
+    /**
+     * {@code HttpContext} attribute set once the call has handshaken
+     */
+    private static final String HANDSHAKEN = "posterer.ssl.handshaken";
+
+    private static final String CONST_REUSED =
+            "SSL :: Reused session: [%1$s %2$s %3$s]";
+
     private final SSLContext sslContext;
-    private final BooleanSupplier neededClientAuth;
+    private final @Nullable AuditingX509KeyManager keyManager;
 
 
     /**
-     * @param auditor
      * @param security
      * @throws NoSuchAlgorithmException
      * @throws KeyManagementException
      * @throws KeyStoreException
      * @throws UnrecoverableKeyException
-     * @throws IOException
-     * @throws FileNotFoundException
-     * @throws CertificateException
      */
-    public AuditingSSLSocketFactory(Auditor auditor, String security)
+    public AuditingSSLSocketFactory(String security)
             throws NoSuchAlgorithmException, KeyManagementException,
-            UnrecoverableKeyException, KeyStoreException, FileNotFoundException,
-            IOException, CertificateException
+            UnrecoverableKeyException, KeyStoreException
     {
-        this.auditor = auditor;
-        sslContext = SSLContext.getInstance(security);
-
-        /* ---- Trust Manager ------ */
-
-        TrustManager[] myTMs =
-                new TrustManager[] {
-                        new AuditingX509TrustManager(auditor, true) };
-
-        neededClientAuth = new BooleanSupplier()
-        {
-            @Override
-            public boolean getAsBoolean()
-            {
-                return false;
-            }
-        };
-        // Initialize the security context
-        sslContext.init(null, myTMs, null);
+        this(SSLContextCache.get(security, null, null));
     }
 
 
     /**
-     * @param auditor
      * @param security
      * @param keyStoreBean
      * @param alias
@@ -104,43 +113,27 @@ public class AuditingSSLSocketFactory
      * @throws KeyManagementException
      * @throws UnrecoverableKeyException
      * @throws KeyStoreException
-     * @throws FileNotFoundException
-     * @throws IOException
-     * @throws CertificateException
      */
-    public AuditingSSLSocketFactory(final Auditor auditor,
-            final String security, final KeyStoreBean keyStoreBean,
+    public AuditingSSLSocketFactory(final String security,
+            final KeyStoreBean keyStoreBean,
             final String alias)
                     throws NoSuchAlgorithmException, KeyManagementException,
-                    UnrecoverableKeyException, KeyStoreException,
-                    FileNotFoundException,
-                    IOException, CertificateException
+                    UnrecoverableKeyException, KeyStoreException
+    {
+        this(SSLContextCache.get(security, keyStoreBean, alias));
+    }
+
+
+    /**
+     * Wraps a cached context
+     * 
+     * @param cached
+     *            the initialized context
+     */
+    private AuditingSSLSocketFactory(CachedContext cached)
     {
-        this.auditor = auditor;
-        sslContext = SSLContext.getInstance(security);
-
-        /* ---- Trust Manager ------ */
-
-        TrustManager[] myTMs =
-                new TrustManager[] {
-                        new AuditingX509TrustManager(auditor, true) };
-
-        /* ----- KayStore Manager ----- */
-
-        KeyManagerFactory managerFactory =
-                KeyManagerFactory.getInstance("SunX509");
-
-        managerFactory.init(keyStoreBean.getKeyStore(),
-                keyStoreBean.getPassword().toCharArray());
-        X509KeyManager keyManager =
-                (X509KeyManager) managerFactory.getKeyManagers()[0];
-        AuditingX509KeyManager km =
-                new AuditingX509KeyManager(auditor, keyManager);
-        KeyManager[] myKMs =
-                new KeyManager[] { km };
-        neededClientAuth = km.wasCalled;
-        // Initialize the security context
-        sslContext.init(myKMs, myTMs, null);
+        sslContext = cached.getSslContext();
+        keyManager = cached.getKeyManager();
     }
 
 
@@ -169,16 +162,24 @@ public class AuditingSSLSocketFactory
         }
 
         SSLSocket sslSocket = (SSLSocket) sock;
-        auditSocket(sslSocket);
 
         if (localAddress != null)
         {
             sslSocket.bind(localAddress);
         }
 
-        sslSocket.connect(remoteAddress, connectTimeout);
+        RequestEvents.Stage event = CallTimings.begin(context, Phase.CONNECT);
+        long start = System.nanoTime();
+        try
+        {
+            sslSocket.connect(remoteAddress, connectTimeout);
+        }
+        finally
+        {
+            CallTimings.since(context, Phase.CONNECT, start, event);
+        }
 
-        return sslSocket;
+        return handshake(sslSocket, host.getHostName(), context);
     }
 
 
@@ -206,41 +207,150 @@ public class AuditingSSLSocketFactory
             final int port,
             final HttpContext context) throws IOException, UnknownHostException
     {
-        return auditSocket(
+        return handshake(
                 (SSLSocket) sslContext.getSocketFactory().createSocket(socket,
                         host, port,
-                        true));
+                        true),
+                host, context);
     }
 
 
     /**
+     * Handshakes the socket with the call auditor bound, so that the trust and
+     * key managers audit to the call that opened the connection.
+     * 
      * @param sslSocket
+     *            the socket
+     * @param host
+     *            the host name being connected to
+     * @param context
+     *            the call context
+     * @return the handshaken socket
+     * @throws IOException
+     *             the handshake failed
      */
-    private SSLSocket auditSocket(SSLSocket sslSocket)
+    private static SSLSocket handshake(SSLSocket sslSocket, String host,
+            @Nullable HttpContext context) throws IOException
     {
-        sslSocket.addHandshakeCompletedListener(new HandshakeCompletedListener()
+        Auditor auditor = auditor(context);
+        auditSocket(auditor, sslSocket);
+
+        if (context != null)
         {
+            context.setAttribute(HANDSHAKEN, Boolean.TRUE);
+        }
 
-            @Override
-            public void handshakeCompleted(HandshakeCompletedEvent arg0)
-            {
-                auditor.append(true, "SSL :: Handshake event: [%1$s]",
-                        arg0.getSocket().toString());
-            }
-        });
+        RequestEvents.Stage event = CallTimings.begin(context, Phase.TLS);
+        long start = System.nanoTime();
+        BoundAuditor.bind(auditor);
+        try
+        {
+            sslSocket.startHandshake();
+            new PromiscuousHostnameVerifier(auditor).verify(host,
+                    sslSocket.getSession());
+        }
+        finally
+        {
+            BoundAuditor.unbind();
+            CallTimings.since(context, Phase.TLS, start, event);
+        }
+        return sslSocket;
+    }
+
+
+    /**
+     * Keeps the session of the connection a call is made on, auditing it to
+     * the call if the call did not handshake it
+     * 
+     * @param conn
+     *            the connection
+     * @param context
+     *            the call context
+     */
+    public static void auditSession(final HttpClientConnection conn,
+            final HttpContext context)
+    {
+        if (!(conn instanceof ManagedHttpClientConnection))
+        {
+            return;
+        }
+        SSLSession session = ((ManagedHttpClientConnection) conn)
+                .getSSLSession();
+        if (session == null)
+        {
+            return;
+        }
+        context.setAttribute(SESSION, session);
+        if (context.getAttribute(HANDSHAKEN) == null)
+        {
+            auditor(context).append(true, CONST_REUSED, session.getPeerHost(),
+                    session.getProtocol(), session.getCipherSuite());
+        }
+    }
+
+
+    /**
+     * Did the client present a certificate in the session of the call?
+     * 
+     * @param context
+     *            the call context
+     * @return true if a client certificate was presented
+     */
+    public static boolean sentClientCertificate(final HttpContext context)
+    {
+        Object session = context.getAttribute(SESSION);
+        return session instanceof SSLSession
+                && ((SSLSession) session).getLocalCertificates() != null;
+    }
+
+
+    /**
+     * @param auditor
+     * @param sslSocket
+     */
+    private static SSLSocket auditSocket(Auditor auditor, SSLSocket sslSocket)
+    {
+        if (auditor.getLevel() != Auditor.Level.FULL)
+        {
+            return sslSocket;
+        }
+        sslSocket.addHandshakeCompletedListener(
+                e -> auditor.append(true, "SSL :: Handshake event: [%1$s]",
+                        e.getSocket().toString()));
 
         return sslSocket;
     }
 
 
     /**
-     * Was Client Auth needed for this call?
+     * Returns the auditor for the call from the context
      * 
-     * @return
+     * @param context
+     *            the call context
+     * @return the call auditor, or a throw away auditor if there is none
      */
-    public BooleanSupplier getNeededClientAuthSupplier()
+    private static Auditor auditor(@Nullable HttpContext context)
     {
-        return neededClientAuth;
+        Object auditor = context == null ? null : context.getAttribute(AUDITOR);
+        return auditor instanceof Auditor ? (Auditor) auditor : new Auditor();
+    }
+
+
+    /**
+     * Was Client Auth needed for the given call?
+     * 
+     * @param auditor
+     *            the call auditor
+     * @return supplier of the client auth state of the call
+     */
+    public BooleanSupplier getNeededClientAuthSupplier(final Auditor auditor)
+    {
+        AuditingX509KeyManager km = keyManager;
+        if (km == null)
+        {
+            return () -> false;
+        }
+        return () -> km.wasCalledBy(auditor);
     }
 
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.commons.transport.timing;
+
+import org.apache.http.protocol.HttpContext;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.core.models.ResponseModel;
+import com.github.technosf.posterer.core.utils.RequestEvents;
+import com.github.technosf.posterer.core.utils.Timings;
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+
+/**
+ * Locates the {@code Timings} of the call being made
+ * <p>
+ * Timings travel in the {@code HttpContext} under {@link #TIMINGS}. Where the
+ * HTTP client offers no context, as with DNS resolution, the timings bound to
+ * the calling thread for the duration of the call are used.
+ * <p>
+ * The connect and handshake phases are also recorded as flight recorder
+ * {@code RequestEvents} of the call's response, held under {@link #RESPONSE}.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class CallTimings
+{
+    /**
+     * {@code HttpContext} attribute holding the {@code Timings} for the call
+     */
+    public static final String TIMINGS = "posterer.timings";
+
+    /**
+     * {@code HttpContext} attribute holding the {@code ResponseModel} of the
+     * call
+     */
+    public static final String RESPONSE = "posterer.response";
+
+    /**
+     * The timings of the call executing on this thread
+     */
+    private static final ThreadLocal<Timings> BOUND = new ThreadLocal<>();
+
+
+    /**
+     * Static use only
+     */
+    private CallTimings()
+    {
+    }
+
+
+    /**
+     * Binds the call timings to this thread
+     * 
+     * @param timings
+     *            the call timings
+     */
+    public static void bind(final Timings timings)
+    {
+        BOUND.set(timings);
+    }
+
+
+    /**
+     * Unbinds the call timings from this thread
+     */
+    public static void unbind()
+    {
+        BOUND.remove();
+    }
+
+
+    /**
+     * Adds the time since {@code startNanos} to a phase of the call
+     * 
+     * @param context
+     *            the call context, if there is one
+     * @param phase
+     *            the phase
+     * @param startNanos
+     *            the {@code System.nanoTime()} the phase started
+     */
+    public static void since(final @Nullable HttpContext context,
+            final Phase phase, final long startNanos)
+    {
+        Timings timings = timings(context);
+        if (timings != null)
+        {
+            timings.since(phase, startNanos);
+        }
+    }
+
+
+    /**
+     * Begins the flight recorder event of a connect or handshake phase of the
+     * call
+     * 
+     * @param context
+     *            the call context, if there is one
+     * @param phase
+     *            the phase, {@code CONNECT} or {@code TLS}
+     * @return the begun event
+     */
+    public static RequestEvents.Stage begin(
+            final @Nullable HttpContext context, final Phase phase)
+    {
+        RequestEvents.Stage event = phase == Phase.TLS
+                ? new RequestEvents.Handshake() : new RequestEvents.Connect();
+        Object response =
+                context == null ? null : context.getAttribute(RESPONSE);
+        if (response instanceof ResponseModel)
+        {
+            event.of(((ResponseModel) response).getReferenceId(),
+                    ((ResponseModel) response).getRequest());
+        }
+        event.begin();
+        return event;
+    }
+
+
+    /**
+     * Adds the time since {@code startNanos} to a phase of the call and
+     * commits the phase's flight recorder event
+     * 
+     * @param context
+     *            the call context, if there is one
+     * @param phase
+     *            the phase
+     * @param startNanos
+     *            the {@code System.nanoTime()} the phase started
+     * @param event
+     *            the event begun for the phase
+     */
+    public static void since(final @Nullable HttpContext context,
+            final Phase phase, final long startNanos,
+            final RequestEvents.Stage event)
+    {
+        since(context, phase, startNanos);
+        event.commit();
+    }
+
+
+    /**
+     * Returns the timings from the context, or those bound to this thread
+     */
+    private static @Nullable Timings timings(
+            final @Nullable HttpContext context)
+    {
+        Object timings =
+                context == null ? null : context.getAttribute(TIMINGS);
+        return timings instanceof Timings ? (Timings) timings : BOUND.get();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.commons.transport.timing;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+
+/**
+ * {@code DnsResolver} that times host name resolution
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class TimingDnsResolver
+        implements DnsResolver
+{
+    private final DnsResolver resolver;
+
+
+    /**
+     * Times the system resolver
+     */
+    public TimingDnsResolver()
+    {
+        this(SystemDefaultDnsResolver.INSTANCE);
+    }
+
+
+    /**
+     * @param resolver
+     *            the resolver to time
+     */
+    public TimingDnsResolver(final DnsResolver resolver)
+    {
+        this.resolver = resolver;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.http.conn.DnsResolver#resolve(java.lang.String)
+     */
+    @Override
+    public InetAddress[] resolve(final String host)
+            throws UnknownHostException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return resolver.resolve(host);
+        }
+        finally
+        {
+            CallTimings.since(null, Phase.DNS, start);
+        }
+    }
+}
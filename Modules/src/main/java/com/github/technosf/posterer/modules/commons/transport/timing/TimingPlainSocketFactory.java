@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.commons.transport.timing;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+import com.github.technosf.posterer.core.utils.RequestEvents;
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+
+/**
+ * Plain {@code ConnectionSocketFactory} that times the TCP connect
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class TimingPlainSocketFactory
+        implements ConnectionSocketFactory
+{
+    private final ConnectionSocketFactory socketFactory =
+            PlainConnectionSocketFactory.getSocketFactory();
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.http.conn.socket.ConnectionSocketFactory#createSocket(org.apache.http.protocol.HttpContext)
+     */
+    @Override
+    public Socket createSocket(final HttpContext context) throws IOException
+    {
+        return socketFactory.createSocket(context);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.http.conn.socket.ConnectionSocketFactory#connectSocket(int,
+     *      java.net.Socket, org.apache.http.HttpHost,
+     *      java.net.InetSocketAddress, java.net.InetSocketAddress,
+     *      org.apache.http.protocol.HttpContext)
+     */
+    @Override
+    public Socket connectSocket(final int connectTimeout, final Socket sock,
+            final HttpHost host, final InetSocketAddress remoteAddress,
+            final InetSocketAddress localAddress, final HttpContext context)
+                    throws IOException
+    {
+        RequestEvents.Stage event = CallTimings.begin(context, Phase.CONNECT);
+        long start = System.nanoTime();
+        try
+        {
+            return socketFactory.connectSocket(connectTimeout, sock, host,
+                    remoteAddress, localAddress, context);
+        }
+        finally
+        {
+            CallTimings.since(context, Phase.CONNECT, start, event);
+        }
+    }
+}
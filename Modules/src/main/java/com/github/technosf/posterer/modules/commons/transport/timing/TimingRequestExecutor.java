@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.commons.transport.timing;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+import com.github.technosf.posterer.modules.commons.transport.ssl.AuditingSSLSocketFactory;
+
+/**
+ * {@code HttpRequestExecutor} that times writing the request and waiting for
+ * the first byte of the response
+ * <p>
+ * The SSL session of the connection is kept for the call before the request
+ * is sent, while the connection is sure to be held.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class TimingRequestExecutor
+        extends HttpRequestExecutor
+{
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.http.protocol.HttpRequestExecutor#doSendRequest(org.apache.http.HttpRequest,
+     *      org.apache.http.HttpClientConnection,
+     *      org.apache.http.protocol.HttpContext)
+     */
+    @Override
+    protected HttpResponse doSendRequest(final HttpRequest request,
+            final HttpClientConnection conn, final HttpContext context)
+                    throws IOException, HttpException
+    {
+        AuditingSSLSocketFactory.auditSession(conn, context);
+
+        long start = System.nanoTime();
+        try
+        {
+            return super.doSendRequest(request, conn, context);
+        }
+        finally
+        {
+            CallTimings.since(context, Phase.REQUEST, start);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.http.protocol.HttpRequestExecutor#doReceiveResponse(org.apache.http.HttpRequest,
+     *      org.apache.http.HttpClientConnection,
+     *      org.apache.http.protocol.HttpContext)
+     */
+    @Override
+    protected HttpResponse doReceiveResponse(final HttpRequest request,
+            final HttpClientConnection conn, final HttpContext context)
+                    throws HttpException, IOException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return super.doReceiveResponse(request, conn, context);
+        }
+        finally
+        {
+            CallTimings.since(context, Phase.FIRST_BYTE, start);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.commons.transport.timing;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContexts;
+
+import com.github.technosf.posterer.core.utils.RequestEvents;
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+
+/**
+ * Default {@code SSLConnectionSocketFactory} that times the TCP connect and
+ * the TLS handshake separately
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class TimingSSLSocketFactory
+        extends SSLConnectionSocketFactory
+{
+
+    /**
+     * Default SSL context and host name verification
+     */
+    public TimingSSLSocketFactory()
+    {
+        super(SSLContexts.createDefault(), getDefaultHostnameVerifier());
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.http.conn.ssl.SSLConnectionSocketFactory#connectSocket(int,
+     *      java.net.Socket, org.apache.http.HttpHost,
+     *      java.net.InetSocketAddress, java.net.InetSocketAddress,
+     *      org.apache.http.protocol.HttpContext)
+     */
+    @Override
+    public Socket connectSocket(final int connectTimeout, final Socket socket,
+            final HttpHost host, final InetSocketAddress remoteAddress,
+            final InetSocketAddress localAddress, final HttpContext context)
+                    throws IOException
+    {
+        Socket sock = socket != null ? socket : createSocket(context);
+        if (localAddress != null)
+        {
+            sock.bind(localAddress);
+        }
+
+        RequestEvents.Stage event = CallTimings.begin(context, Phase.CONNECT);
+        long start = System.nanoTime();
+        try
+        {
+            if (connectTimeout > 0 && sock.getSoTimeout() == 0)
+            {
+                sock.setSoTimeout(connectTimeout);
+            }
+            sock.connect(remoteAddress, connectTimeout);
+        }
+        catch (IOException e)
+        {
+            sock.close();
+            throw e;
+        }
+        finally
+        {
+            CallTimings.since(context, Phase.CONNECT, start, event);
+        }
+
+        return createLayeredSocket(sock, host.getHostName(),
+                remoteAddress.getPort(), context);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.http.conn.ssl.SSLConnectionSocketFactory#createLayeredSocket(java.net.Socket,
+     *      java.lang.String, int, org.apache.http.protocol.HttpContext)
+     */
+    @Override
+    public Socket createLayeredSocket(final Socket socket, final String target,
+            final int port, final HttpContext context) throws IOException
+    {
+        RequestEvents.Stage event = CallTimings.begin(context, Phase.TLS);
+        long start = System.nanoTime();
+        try
+        {
+            return super.createLayeredSocket(socket, target, port, context);
+        }
+        finally
+        {
+            CallTimings.since(context, Phase.TLS, start, event);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.jdk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.technosf.posterer.core.models.Properties;
+import com.github.technosf.posterer.core.models.RequestModel;
+import com.github.technosf.posterer.modules.Factory.PropertiesParameter;
+import com.github.technosf.posterer.modules.commons.config.CommonsConfiguratorPropertiesImpl;
+import com.github.technosf.posterer.modules.jdk.transport.JdkRequestModelImpl;
+import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
+import com.google.inject.name.Names;
+
+/**
+ * Guice module to inject the JDK {@code java.net.http} transport and the
+ * Commons Configurator for properties storage.
+ * <p>
+ * Requests are made over HTTP/2 where the server negotiates it, concurrent
+ * requests to a server being multiplexed as streams over one connection, and
+ * over HTTP/1.1 where it does not.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class JdkModule
+        extends AbstractModule
+{
+    private static final Logger LOG = LoggerFactory
+            .getLogger(JdkModule.class);
+
+    private final PropertiesParameter propsparam;
+
+
+    /**
+     * Creates the {@code Module}, setting the prefix for properties
+     * 
+     * @param propsparam
+     *            the properties parameters
+     */
+    public JdkModule(PropertiesParameter propsparam)
+    {
+        super();
+        this.propsparam = propsparam;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.google.inject.AbstractModule#configure()
+     */
+    @Override
+    protected void configure()
+    {
+        bind(PropertiesParameter.class).annotatedWith(Names.named("Properties"))
+                .toInstance(propsparam);
+        bind(Properties.class).to(CommonsConfiguratorPropertiesImpl.class)
+                .in(Singleton.class);
+        bind(RequestModel.class).to(JdkRequestModelImpl.class)
+                .in(Singleton.class);
+
+        LOG.debug("Configured JdkModule");
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.jdk.transport;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow.Subscription;
+
+import org.apache.http.Consts;
+import org.apache.http.ParseException;
+import org.apache.http.entity.ContentType;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.core.utils.BodySink;
+import com.github.technosf.posterer.core.utils.Timings;
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+
+/**
+ * Body subscriber that streams the response body into a {@code BodySink}, a
+ * buffer at a time, large bodies going to file.
+ * <p>
+ * The JDK client exposes no connection events, so the time to first byte runs
+ * from the request being sent to the response head, taking in any connect and
+ * handshake.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+final class BodySinkSubscriber
+        implements BodySubscriber<BodySink>
+{
+    private final BodySink.Capture capture;
+    private final Timings timings;
+    private final long startNanos;
+    private final CompletableFuture<BodySink> body = new CompletableFuture<>();
+    private volatile @Nullable Subscription subscription;
+
+
+    private BodySinkSubscriber(final Charset charset, final Timings timings,
+            final long startNanos)
+    {
+        this.capture = BodySink.open(charset, BodySink.DEFAULT_THRESHOLD);
+        this.timings = timings;
+        this.startNanos = startNanos;
+    }
+
+
+    /**
+     * Returns a handler that captures bodies into a {@code BodySink}
+     *
+     * @param timings
+     *            the call timings
+     * @param sentNanos
+     *            the {@code System.nanoTime()} the request was sent
+     * @return the body handler
+     */
+    static BodyHandler<BodySink> handler(final Timings timings,
+            final long sentNanos)
+    {
+        return info -> {
+            long now = System.nanoTime();
+            timings.add(Phase.FIRST_BYTE, now - sentNanos);
+            return new BodySinkSubscriber(charset(info.headers()), timings,
+                    now);
+        };
+    }
+
+
+    /**
+     * Returns the charset of the body, defaulting from the MIME type
+     */
+    private static Charset charset(final HttpHeaders headers)
+    {
+        Charset charset = null;
+        String value = headers.firstValue("Content-Type").orElse(null);
+        if (value != null)
+        {
+            try
+            {
+                ContentType contentType = ContentType.parse(value);
+                charset = contentType.getCharset();
+                if (charset == null)
+                {
+                    ContentType defaultType = ContentType
+                            .getByMimeType(contentType.getMimeType());
+                    charset = defaultType == null ? null
+                            : defaultType.getCharset();
+                }
+            }
+            catch (ParseException | UnsupportedCharsetException e)
+            {
+                charset = null;
+            }
+        }
+        return charset == null ? Consts.ISO_8859_1 : charset;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.net.http.HttpResponse.BodySubscriber#getBody()
+     */
+    @Override
+    public CompletionStage<BodySink> getBody()
+    {
+        return body;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.util.concurrent.Flow.Subscriber#onSubscribe(java.util.concurrent.Flow.Subscription)
+     */
+    @Override
+    public void onSubscribe(final Subscription subscription)
+    {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.util.concurrent.Flow.Subscriber#onNext(java.lang.Object)
+     */
+    @Override
+    public void onNext(final List<ByteBuffer> buffers)
+    {
+        Subscription current = subscription;
+        try
+        {
+            for (ByteBuffer buffer : buffers)
+            {
+                capture.write(buffer);
+            }
+        }
+        catch (IOException e)
+        {
+            if (current != null)
+            {
+                current.cancel();
+            }
+            onError(e);
+            return;
+        }
+        if (current != null)
+        {
+            current.request(1);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.util.concurrent.Flow.Subscriber#onError(java.lang.Throwable)
+     */
+    @Override
+    public void onError(final Throwable throwable)
+    {
+        try
+        {
+            capture.close();
+        }
+        catch (IOException e)
+        {
+            throwable.addSuppressed(e);
+        }
+        body.completeExceptionally(throwable);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.util.concurrent.Flow.Subscriber#onComplete()
+     */
+    @Override
+    public void onComplete()
+    {
+        try
+        {
+            body.complete(capture.finish());
+        }
+        catch (IOException e)
+        {
+            body.completeExceptionally(e);
+        }
+        finally
+        {
+            timings.since(Phase.DOWNLOAD, startNanos);
+        }
+    }
+}
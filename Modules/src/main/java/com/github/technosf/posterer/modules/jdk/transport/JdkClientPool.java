@@ -0,0 +1,302 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.jdk.transport;
+
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.technosf.posterer.core.models.Proxy;
+import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
+import com.github.technosf.posterer.modules.ssl.SSLContextCache.CachedContext;
+
+/**
+ * Cache of JDK HTTP clients
+ * <p>
+ * A client is kept for each distinct call configuration. Each client holds
+ * its connections open between calls and, with HTTP/2, multiplexes the
+ * concurrent calls to a server as streams over a single connection.
+ * <p>
+ * A client calling through a proxy answers the proxy's challenges with the
+ * proxy credentials. The JDK disables Basic authentication of the tunnels
+ * made to HTTPS targets unless {@code jdk.http.auth.tunneling.disabledSchemes}
+ * is cleared of {@code Basic}.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class JdkClientPool
+{
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory
+            .getLogger(JdkClientPool.class);
+
+    private static final String CONST_ERR_PROXY_PORT =
+            "Bad proxy port: [{}], calling directly";
+
+    /**
+     * Answers proxy challenges with the proxy credentials
+     */
+    static final class ProxyAuthenticator
+            extends Authenticator
+    {
+        private final String user;
+        private final String password;
+
+
+        ProxyAuthenticator(final String user, final String password)
+        {
+            this.user = user;
+            this.password = password;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Target challenges are left unanswered, target credentials being
+         * sent preemptively by the call.
+         *
+         * @see java.net.Authenticator#getPasswordAuthentication()
+         */
+        @Override
+        protected @Nullable PasswordAuthentication getPasswordAuthentication()
+        {
+            if (getRequestorType() != RequestorType.PROXY)
+            {
+                return null;
+            }
+            return new PasswordAuthentication(user, password.toCharArray());
+        }
+    }
+
+    /**
+     * A client and the SSL context it handshakes with
+     */
+    static final class PooledClient
+    {
+        final HttpClient client;
+        final @Nullable CachedContext sslContext;
+
+
+        PooledClient(final HttpClient client,
+                final @Nullable CachedContext sslContext)
+        {
+            this.client = client;
+            this.sslContext = sslContext;
+        }
+    }
+
+    /* ------------------------------------------------ */
+
+    private final ConcurrentMap<String, PooledClient> clients =
+            new ConcurrentHashMap<>();
+
+    private volatile Version version = Version.HTTP_2;
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Returns the client for the call configuration, building it if needed.
+     * <p>
+     * Should the SSL context not be available, the configuration falls back
+     * to the default SSL implementation. Should the proxy port not be valid,
+     * the configuration falls back to calling directly.
+     *
+     * @param security
+     *            the SSL/TLS version, empty for none
+     * @param proxy
+     *            the proxy, if any
+     * @param keyStoreBean
+     *            the certificate store, if any
+     * @param alias
+     *            the certificate alias, if any
+     * @param sslContext
+     *            supplies the SSL context for secured configurations
+     * @return the pooled client
+     */
+    PooledClient getClient(final String security, final @Nullable Proxy proxy,
+            final @Nullable KeyStoreBean keyStoreBean,
+            final @Nullable String alias,
+            final Supplier<@Nullable CachedContext> sslContext)
+    {
+        if (proxy != null && proxyPort(proxy) < 0)
+        {
+            LOG.error(CONST_ERR_PROXY_PORT, proxy.getProxyPort());
+            return getClient(security, null, keyStoreBean, alias, sslContext);
+        }
+
+        String key = key(security, proxy, keyStoreBean, alias);
+        PooledClient pooled = clients.get(key);
+        if (pooled == null)
+        {
+            pooled = clients.computeIfAbsent(key,
+                    k -> build(security, proxy, sslContext));
+        }
+        if (pooled == null)
+        /*
+         * SSL could not be configured
+         */
+        {
+            return getClient("", proxy, null, null, () -> null);
+        }
+        return pooled;
+    }
+
+
+    /**
+     * Returns the proxy port
+     *
+     * @param proxy
+     *            the proxy
+     * @return the port, or -1 if it is not a valid port
+     */
+    static int proxyPort(final Proxy proxy)
+    {
+        try
+        {
+            int port = Integer.parseInt(proxy.getProxyPort().trim());
+            return port > 0 && port <= 0xFFFF ? port : -1;
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+
+    /**
+     * Builds the key identifying a call configuration
+     */
+    private String key(final String security, final @Nullable Proxy proxy,
+            final @Nullable KeyStoreBean keyStoreBean,
+            final @Nullable String alias)
+    {
+        return String.join("|", version.name(), security,
+                proxy == null ? "" : proxy.getProxyHost(),
+                proxy == null ? "" : proxy.getProxyPort(),
+                proxy == null ? "" : proxy.getProxyUser(),
+                proxy == null ? "" : proxy.getProxyPassword(),
+                keyStoreBean == null ? ""
+                        : keyStoreBean.getFile().getAbsolutePath(),
+                keyStoreBean == null ? ""
+                        : Long.toString(keyStoreBean.getFile().lastModified()),
+                Objects.toString(alias, ""));
+    }
+
+
+    /**
+     * Builds a new client
+     *
+     * @return the client, or null if the SSL context is not available
+     */
+    private @Nullable PooledClient build(final String security,
+            final @Nullable Proxy proxy,
+            final Supplier<@Nullable CachedContext> sslContext)
+    {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(version)
+                .followRedirects(Redirect.NORMAL);
+
+        CachedContext cachedContext = null;
+        if (!security.isEmpty())
+        {
+            cachedContext = sslContext.get();
+            if (cachedContext == null)
+            {
+                return null;
+            }
+            builder.sslContext(cachedContext.getSslContext());
+        }
+
+        if (proxy != null)
+        {
+            builder.proxy(ProxySelector.of(new InetSocketAddress(
+                    proxy.getProxyHost(), proxyPort(proxy))));
+            if (!proxy.getProxyUser().isEmpty())
+            {
+                builder.authenticator(new ProxyAuthenticator(
+                        proxy.getProxyUser(), proxy.getProxyPassword()));
+            }
+        }
+
+        LOG.debug("Building JDK client {} for security [{}] proxy [{}]",
+                version, security, proxy);
+
+        return new PooledClient(builder.build(), cachedContext);
+    }
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Sets the preferred protocol version, for future clients.
+     * <p>
+     * With {@code HTTP_2} clients fall back to HTTP/1.1 for servers that do
+     * not negotiate HTTP/2.
+     *
+     * @param version
+     *            the preferred version
+     */
+    public void setVersion(final Version version)
+    {
+        this.version = version;
+    }
+
+
+    /**
+     * Returns the preferred protocol version
+     *
+     * @return the version
+     */
+    public Version getVersion()
+    {
+        return version;
+    }
+
+
+    /**
+     * Returns the number of pooled clients
+     *
+     * @return the number of clients
+     */
+    public int size()
+    {
+        return clients.size();
+    }
+
+
+    /**
+     * Drops all pooled clients, their connections closing once idle
+     */
+    public void clear()
+    {
+        clients.clear();
+    }
+}
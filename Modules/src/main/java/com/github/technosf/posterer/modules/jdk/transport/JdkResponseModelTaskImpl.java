@@ -0,0 +1,475 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.jdk.transport;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.SSLSession;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.technosf.posterer.core.models.Request;
+import com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask;
+import com.github.technosf.posterer.core.utils.Auditor;
+import com.github.technosf.posterer.core.utils.BodySink;
+import com.github.technosf.posterer.core.utils.ssl.PromiscuousHostnameVerifier;
+
+/**
+ * JDK {@code java.net.http} implementation of {@ResponseModel}
+ * <p>
+ * The request is sent asynchronously on the shared client, over HTTP/2 where
+ * the server negotiates it, and the response body streamed into a
+ * {@code BodySink}. {@link #send()} returns the call as a
+ * {@code CompletableFuture}; run as a JavaFX {@code Task} the call is waited
+ * on instead.
+ * <p>
+ * The JDK client handshakes on its own threads, out of reach of the call, so
+ * the TLS session is audited once the response has arrived.
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class JdkResponseModelTaskImpl
+        extends AbstractResponseModelTask<HttpResponse<BodySink>>
+{
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory
+            .getLogger(JdkResponseModelTaskImpl.class);
+
+    /* Messages */
+    private static final String CONST_ERR_NULL_REQUEST = "Request is null";
+    private static final String CONST_ERR_UNKNOWN_METHOD = "Unknow method: {}";
+    private static final String CONST_SESSION =
+            "SSL :: Session: [%1$s %2$s %3$s]";
+
+    /**
+     * CRLF
+     */
+    private static final String CRLF = "\r\n";
+
+    /**
+     * the shared JDK client
+     */
+    private final HttpClient client;
+
+    /**
+     * The call, completing with the response
+     */
+    private final CompletableFuture<HttpResponse<BodySink>> call =
+            new CompletableFuture<>();
+
+    /**
+     * Has the request been sent?
+     */
+    private final AtomicBoolean sent = new AtomicBoolean();
+
+    /**
+     * The Http Request
+     */
+    private @Nullable HttpRequest httpRequest;
+
+    /**
+     * The exchange on the client, once sent
+     */
+    private volatile @Nullable Future<?> exchange;
+
+    /**
+     * Was a client certificate presented?
+     */
+    private boolean neededClientAuth = false;
+
+    /**
+     * has the response been processed?
+     */
+    private boolean isResponseProcessed = false;
+
+
+    /**
+     * Creates a new {@code JdkResponseModelTaskImpl} for the given request
+     * 
+     * @param requestId
+     *            the request reference id
+     * @param auditor
+     *            the call auditor
+     * @param client
+     *            the shared client to make the call with
+     * @param timeout
+     *            response timeout
+     * @param request
+     *            the request
+     */
+    public JdkResponseModelTaskImpl(final int requestId,
+            final Auditor auditor, final HttpClient client, final int timeout,
+            final Request request)
+    {
+        super(requestId, auditor, timeout, request);
+        this.client = client;
+    }
+
+
+    /**
+     * Sends the request without waiting for the response
+     * 
+     * @return the call, completing once the response body has been received
+     */
+    public CompletableFuture<HttpResponse<BodySink>> send()
+    {
+        if (sent.compareAndSet(false, true))
+        {
+            beginCall();
+            dispatch();
+        }
+        return call;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Credentials are sent preemptively as HTTP Basic, the JDK client only
+     * offering authentication challenges to a client wide authenticator.
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#prepareClient()
+     */
+    @Override
+    protected void prepareClient()
+    {
+        URI uri = getRequest().getUri();
+        String method = getRequest().getMethod();
+        if (uri == null || !isKnownMethod(method))
+        {
+            LOG.error(CONST_ERR_UNKNOWN_METHOD, method);
+            return;
+        }
+
+        BodyPublisher payload = BodyPublishers.noBody();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+
+        if (!getRequest().getPayload().isEmpty() && canCarryPayload(method))
+        /*
+         * If there is a payload and the request can carry a payload,
+         * create and add the payload
+         */
+        {
+            payload = BodyPublishers.ofString(getRequest().getPayload(),
+                    StandardCharsets.UTF_8);
+            builder.header("Content-Type",
+                    getRequest().getContentType() + "; charset=UTF-8");
+            LOG.debug("Creating payload with MIME type: {}",
+                    getRequest().getContentType());
+        }
+
+        if (Boolean.TRUE.equals(getRequest().getAuthenticate()))
+        /*
+         * call with basic auth
+         */
+        {
+            String credentials = getRequest().getUsername() + ":"
+                    + getRequest().getPassword();
+            builder.header("Authorization", "Basic " + Base64.getEncoder()
+                    .encodeToString(
+                            credentials.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        if (timeout > 0)
+        {
+            builder.timeout(Duration.ofSeconds(timeout));
+        }
+
+        httpRequest = builder.method(method, payload).build();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Sends the request and waits for the response.
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#getReponse(com.github.technosf.posterer.core.utils.Auditor)
+     */
+    @Override
+    protected HttpResponse<BodySink> getReponse(final Auditor auditor)
+            throws Exception
+    {
+        if (sent.compareAndSet(false, true))
+        {
+            dispatch();
+        }
+
+        try
+        {
+            return call.get();
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception)
+            {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+
+    /**
+     * Hands the request to the client, completing the call when the response
+     * has been received
+     */
+    private void dispatch()
+    {
+        HttpRequest request = httpRequest;
+        if (request == null)
+        {
+            LOG.error(CONST_ERR_NULL_REQUEST);
+            endCall(null);
+            call.completeExceptionally(
+                    new IllegalStateException(CONST_ERR_NULL_REQUEST));
+            return;
+        }
+
+        CompletableFuture<HttpResponse<BodySink>> sending = client.sendAsync(
+                request,
+                BodySinkSubscriber.handler(timings, System.nanoTime()));
+        exchange = sending;
+        sending.whenComplete((result, failure) -> {
+            endCall(result);
+            if (failure == null)
+            {
+                call.complete(result);
+            }
+            else if (failure instanceof CompletionException
+                    && failure.getCause() != null)
+            {
+                call.completeExceptionally(failure.getCause());
+            }
+            else
+            {
+                call.completeExceptionally(failure);
+            }
+        });
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Cancels the exchange on the client too, which the client aborts,
+     * closing its stream.
+     * 
+     * @see javafx.concurrent.Task#cancel(boolean)
+     */
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning)
+    {
+        Future<?> inFlight = exchange;
+        if (inFlight != null)
+        {
+            inFlight.cancel(true);
+        }
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The shared client stays open.
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#closeClient()
+     */
+    @Override
+    protected void closeClient()
+    {
+        // Nothing to close
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#getStatusCode(java.lang.Object)
+     */
+    @Override
+    protected int getStatusCode(final HttpResponse<BodySink> value)
+    {
+        return value.statusCode();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#processResponse()
+     */
+    @Override
+    protected synchronized void processResponse()
+    {
+        if (!isResponseProcessed)
+        {
+            HttpResponse<BodySink> httpResponse = getCallValue();
+            if (httpResponse != null)
+            {
+                httpResponse.sslSession()
+                        .ifPresent(session -> auditSession(
+                                httpResponse.uri().getHost(), session));
+                protocol = httpResponse.version() == Version.HTTP_2
+                        ? "HTTP/2" : "HTTP/1.1";
+                status = protocol + " " + httpResponse.statusCode();
+                auditor.postscript(false, status);
+                responseHeaders =
+                        prettyPrintHeaders(httpResponse.headers().map());
+                responseBodySink = httpResponse.body();
+            }
+            closeClient();
+            isResponseProcessed = true;
+            response = httpResponse;
+        }
+    }
+
+
+    /**
+     * Audits the TLS session the response was received on
+     * 
+     * @param host
+     *            the host called
+     * @param session
+     *            the TLS session
+     */
+    private void auditSession(final @Nullable String host,
+            final SSLSession session)
+    {
+        auditor.detail().append(true, CONST_SESSION, host, session.getProtocol(),
+                session.getCipherSuite());
+        new PromiscuousHostnameVerifier(auditor).verify(host, session);
+        neededClientAuth = session.getLocalCertificates() != null;
+    }
+
+
+    /**
+     * Is the method one the transport makes?
+     */
+    private static boolean isKnownMethod(final @Nullable String method)
+    {
+        if (method == null)
+        {
+            return false;
+        }
+        switch (method)
+        {
+            case "GET":
+            case "HEAD":
+            case "POST":
+            case "PUT":
+            case "DELETE":
+            case "TRACE":
+            case "OPTIONS":
+            case "PATCH":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * Can the method carry a payload?
+     */
+    private static boolean canCarryPayload(final String method)
+    {
+        return "POST".equals(method) || "PUT".equals(method)
+                || "PATCH".equals(method);
+    }
+
+
+    /**
+     * Pretty print headers
+     * 
+     * @param headers
+     * @return nicely formatted headers
+     */
+    private static String prettyPrintHeaders(
+            final Map<String, List<String>> headers)
+    {
+        StringBuilder sb = new StringBuilder();
+        headers.forEach((name, values) -> values.forEach(value -> {
+            if (sb.length() > 0)
+            {
+                sb.append(CRLF);
+            }
+            sb.append(name).append("=").append(value);
+        }));
+
+        return sb.toString();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.impl.base.AbstractResponseModelTask#isResponseProcessed()
+     */
+    @Override
+    protected boolean isResponseProcessed()
+    {
+        return isResponseProcessed;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.technosf.posterer.core.models.ResponseModel#getDigest()
+     */
+    @Override
+    public String getDigest()
+    {
+        return auditor.toString();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * True if a client certificate was presented in the handshake.
+     *
+     * @see com.github.technosf.posterer.core.models.ResponseModel#neededClientAuth()
+     */
+    @Override
+    public boolean neededClientAuth()
+    {
+        processResponse();
+        return neededClientAuth;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.ssl;
+
+import com.github.technosf.posterer.core.utils.Auditor;
+
+/**
+ * The {@code Auditor} of the call handshaking on the current thread
+ * <p>
+ * The trust and key managers of cached contexts are shared between calls, so
+ * they audit to whichever auditor the transport has bound to the thread for
+ * the duration of the handshake.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class BoundAuditor
+{
+    /**
+     * The auditor of the call handshaking on this thread
+     */
+    private static final ThreadLocal<Auditor> BOUND = new ThreadLocal<>();
+
+
+    /**
+     * Static use only
+     */
+    private BoundAuditor()
+    {
+    }
+
+
+    /**
+     * Binds the call auditor to this thread
+     *
+     * @param auditor
+     *            the call auditor
+     */
+    public static void bind(final Auditor auditor)
+    {
+        BOUND.set(auditor);
+    }
+
+
+    /**
+     * Unbinds the call auditor from this thread
+     */
+    public static void unbind()
+    {
+        BOUND.remove();
+    }
+
+
+    /**
+     * Returns the auditor bound to this thread
+     *
+     * @return the bound auditor, or a throw away auditor if there is none
+     */
+    public static Auditor current()
+    {
+        Auditor auditor = BOUND.get();
+        return auditor == null ? new Auditor() : auditor;
+    }
+}
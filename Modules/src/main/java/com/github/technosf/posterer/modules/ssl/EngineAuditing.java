@@ -0,0 +1,316 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.ssl;
+
+import java.net.Socket;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.net.ssl.X509KeyManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.core.utils.Auditor;
+
+/**
+ * Routes the audit of an {@code SSLEngine} handshake to the {@code Auditor}
+ * of the call that opened the connection.
+ * <p>
+ * Non-blocking transports handshake on shared I/O threads, interleaving many
+ * connections, so the auditor cannot be bound to the thread for the whole
+ * handshake as it is for blocking sockets. Instead each engine is registered
+ * with its call's auditor, and the trust and key managers of cached contexts
+ * bind that auditor just for the duration of each engine callback.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class EngineAuditing
+{
+    /**
+     * Auditors by engine, held only as long as the engine is in use
+     */
+    private static final Map<SSLEngine, Auditor> AUDITORS =
+            new WeakHashMap<>();
+
+
+    /**
+     * Static use only
+     */
+    private EngineAuditing()
+    {
+    }
+
+
+    /**
+     * Registers the auditor of the call an engine handshakes for
+     *
+     * @param engine
+     *            the engine
+     * @param auditor
+     *            the call auditor
+     */
+    public static void register(final SSLEngine engine, final Auditor auditor)
+    {
+        synchronized (AUDITORS)
+        {
+            AUDITORS.put(engine, auditor);
+        }
+    }
+
+
+    /**
+     * Returns the auditor registered for an engine
+     */
+    private static @Nullable Auditor auditor(final @Nullable SSLEngine engine)
+    {
+        if (engine == null)
+        {
+            return null;
+        }
+        synchronized (AUDITORS)
+        {
+            return AUDITORS.get(engine);
+        }
+    }
+
+
+    /**
+     * Runs the callback with the engine's auditor, if registered, bound as
+     * the current auditor
+     */
+    private static <R> R bound(final @Nullable SSLEngine engine,
+            final Supplier<R> callback)
+    {
+        Auditor auditor = auditor(engine);
+        if (auditor == null)
+        {
+            return callback.get();
+        }
+        BoundAuditor.bind(auditor);
+        try
+        {
+            return callback.get();
+        }
+        finally
+        {
+            BoundAuditor.unbind();
+        }
+    }
+
+
+    /**
+     * A certificate check that may fail
+     */
+    @FunctionalInterface
+    private interface Check
+    {
+        void check() throws CertificateException;
+    }
+
+
+    /**
+     * Runs the check with the engine's auditor, if registered, bound as the
+     * current auditor
+     */
+    private static void checked(final @Nullable SSLEngine engine,
+            final Check check) throws CertificateException
+    {
+        Auditor auditor = auditor(engine);
+        if (auditor != null)
+        {
+            BoundAuditor.bind(auditor);
+        }
+        try
+        {
+            check.check();
+        }
+        finally
+        {
+            if (auditor != null)
+            {
+                BoundAuditor.unbind();
+            }
+        }
+    }
+
+
+    /* ------------------------------------------------ */
+
+    /**
+     * Wraps a trust manager so that engine callbacks audit to the engine's
+     * auditor
+     *
+     * @param trustManager
+     *            the auditing trust manager
+     * @return the engine aware trust manager
+     */
+    static X509ExtendedTrustManager trustManager(
+            final X509TrustManager trustManager)
+    {
+        return new X509ExtendedTrustManager()
+        {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain,
+                    String authType) throws CertificateException
+            {
+                trustManager.checkClientTrusted(chain, authType);
+            }
+
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain,
+                    String authType) throws CertificateException
+            {
+                trustManager.checkServerTrusted(chain, authType);
+            }
+
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers()
+            {
+                X509Certificate[] issuers = trustManager.getAcceptedIssuers();
+                return issuers == null ? new X509Certificate[0] : issuers;
+            }
+
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain,
+                    String authType, @Nullable Socket socket)
+                    throws CertificateException
+            {
+                trustManager.checkClientTrusted(chain, authType);
+            }
+
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain,
+                    String authType, @Nullable Socket socket)
+                    throws CertificateException
+            {
+                trustManager.checkServerTrusted(chain, authType);
+            }
+
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain,
+                    String authType, @Nullable SSLEngine engine)
+                    throws CertificateException
+            {
+                checked(engine,
+                        () -> trustManager.checkClientTrusted(chain, authType));
+            }
+
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain,
+                    String authType, @Nullable SSLEngine engine)
+                    throws CertificateException
+            {
+                checked(engine,
+                        () -> trustManager.checkServerTrusted(chain, authType));
+            }
+        };
+    }
+
+
+    /**
+     * Wraps a key manager so that engine callbacks audit to the engine's
+     * auditor
+     *
+     * @param keyManager
+     *            the auditing key manager
+     * @return the engine aware key manager
+     */
+    static X509ExtendedKeyManager keyManager(final X509KeyManager keyManager)
+    {
+        return new X509ExtendedKeyManager()
+        {
+            @Override
+            public String @Nullable [] getClientAliases(String keyType,
+                    Principal @Nullable [] issuers)
+            {
+                return keyManager.getClientAliases(keyType, issuers);
+            }
+
+
+            @Override
+            public @Nullable String chooseClientAlias(String[] keyType,
+                    Principal @Nullable [] issuers, @Nullable Socket socket)
+            {
+                return keyManager.chooseClientAlias(keyType, issuers, socket);
+            }
+
+
+            @Override
+            public String @Nullable [] getServerAliases(String keyType,
+                    Principal @Nullable [] issuers)
+            {
+                return keyManager.getServerAliases(keyType, issuers);
+            }
+
+
+            @Override
+            public @Nullable String chooseServerAlias(String keyType,
+                    Principal @Nullable [] issuers, @Nullable Socket socket)
+            {
+                return keyManager.chooseServerAlias(keyType, issuers, socket);
+            }
+
+
+            @Override
+            public X509Certificate @Nullable [] getCertificateChain(
+                    String alias)
+            {
+                return keyManager.getCertificateChain(alias);
+            }
+
+
+            @Override
+            public @Nullable PrivateKey getPrivateKey(String alias)
+            {
+                return keyManager.getPrivateKey(alias);
+            }
+
+
+            @Override
+            public @Nullable String chooseEngineClientAlias(String[] keyType,
+                    Principal @Nullable [] issuers, @Nullable SSLEngine engine)
+            {
+                return bound(engine,
+                        () -> keyManager.chooseClientAlias(keyType, issuers,
+                                null));
+            }
+
+
+            @Override
+            public @Nullable String chooseEngineServerAlias(String keyType,
+                    Principal @Nullable [] issuers, @Nullable SSLEngine engine)
+            {
+                return bound(engine,
+                        () -> keyManager.chooseServerAlias(keyType, issuers,
+                                null));
+            }
+        };
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.technosf.posterer.modules.ssl;
+
+import java.io.File;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509KeyManager;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
+import com.github.technosf.posterer.core.utils.Auditor;
+import com.github.technosf.posterer.core.utils.ssl.AuditingX509KeyManager;
+import com.github.technosf.posterer.core.utils.ssl.AuditingX509TrustManager;
+
+/**
+ * Bounded cache of initialized {@code SSLContext}s
+ * <p>
+ * Initializing the key material of a large key store is costly, so contexts
+ * are made once for each security protocol, key store file (as last modified)
+ * and alias. The trust and key managers inside a cached context audit to the
+ * {@code Auditor} of whichever call is handshaking, so the audit trail of each
+ * call is unaffected by the sharing, whether it handshakes on a blocking
+ * socket or on a non-blocking {@code SSLEngine}.
+ *
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public final class SSLContextCache
+{
+
+    /**
+     * Maximum contexts held
+     */
+    static final int MAX_ENTRIES = 16;
+
+    /**
+     * An initialized context and its auditing key manager
+     */
+    public static final class CachedContext
+    {
+        final SSLContext sslContext;
+        final @Nullable AuditingX509KeyManager keyManager;
+
+
+        CachedContext(final SSLContext sslContext,
+                final @Nullable AuditingX509KeyManager keyManager)
+        {
+            this.sslContext = sslContext;
+            this.keyManager = keyManager;
+        }
+
+
+        /**
+         * Returns the initialized context
+         * 
+         * @return the context
+         */
+        public SSLContext getSslContext()
+        {
+            return sslContext;
+        }
+
+
+        /**
+         * Returns the auditing key manager of the context
+         *
+         * @return the key manager, or null if the context has no key store
+         */
+        public @Nullable AuditingX509KeyManager getKeyManager()
+        {
+            return keyManager;
+        }
+
+
+        /**
+         * Was Client Auth needed for the given call?
+         * 
+         * @param auditor
+         *            the call auditor
+         * @return supplier of the client auth state of the call
+         */
+        public BooleanSupplier getNeededClientAuthSupplier(
+                final Auditor auditor)
+        {
+            AuditingX509KeyManager km = keyManager;
+            if (km == null)
+            {
+                return () -> false;
+            }
+            return () -> km.wasCalledBy(auditor);
+        }
+    }
+
+    /**
+     * Cache key
+     */
+    private static final class Key
+    {
+        final String security;
+        final String keyStore;
+        final long lastModified;
+        final String alias;
+
+
+        Key(final String security, final @Nullable KeyStoreBean keyStoreBean,
+                final @Nullable String alias)
+        {
+            File file = keyStoreBean == null ? null : keyStoreBean.getFile();
+            this.security = security;
+            this.keyStore = file == null ? "" : file.getAbsolutePath();
+            this.lastModified = file == null ? 0 : file.lastModified();
+            this.alias = Objects.toString(alias, "");
+        }
+
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(security, keyStore, lastModified, alias);
+        }
+
+
+        @Override
+        public boolean equals(@Nullable Object obj)
+        {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return security.equals(other.security)
+                    && keyStore.equals(other.keyStore)
+                    && lastModified == other.lastModified
+                    && alias.equals(other.alias);
+        }
+    }
+
+    /**
+     * The contexts, least recently used first
+     */
+    private static final Map<Key, CachedContext> CONTEXTS =
+            new LinkedHashMap<Key, CachedContext>(MAX_ENTRIES, 0.75f, true)
+            {
+                private static final long serialVersionUID =
+                        -2236131850224738514L;
+
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Key, CachedContext> eldest)
+                {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+
+
+    /**
+     * Static use only
+     */
+    private SSLContextCache()
+    {
+    }
+
+
+    /**
+     * Returns the initialized context for the security protocol and optional
+     * key store, creating it if it is not cached.
+     *
+     * @param security
+     *            the SSL/TLS version
+     * @param keyStoreBean
+     *            the certificate store, if any
+     * @param alias
+     *            the alias of the certificate to use, if any
+     * @return the context
+     * @throws NoSuchAlgorithmException
+     * @throws KeyManagementException
+     * @throws UnrecoverableKeyException
+     * @throws KeyStoreException
+     */
+    public static CachedContext get(final String security,
+            final @Nullable KeyStoreBean keyStoreBean,
+            final @Nullable String alias)
+                    throws NoSuchAlgorithmException, KeyManagementException,
+                    UnrecoverableKeyException, KeyStoreException
+    {
+        Key key = new Key(security, keyStoreBean, alias);
+        synchronized (CONTEXTS)
+        {
+            CachedContext cached = CONTEXTS.get(key);
+            if (cached == null)
+            {
+                cached = create(security, keyStoreBean);
+                CONTEXTS.put(key, cached);
+            }
+            return cached;
+        }
+    }
+
+
+    /**
+     * Returns the number of cached contexts
+     *
+     * @return the cache size
+     */
+    static int size()
+    {
+        synchronized (CONTEXTS)
+        {
+            return CONTEXTS.size();
+        }
+    }
+
+
+    /**
+     * Initializes a context with auditing trust and, optionally, key managers
+     */
+    private static CachedContext create(final String security,
+            final @Nullable KeyStoreBean keyStoreBean)
+                    throws NoSuchAlgorithmException, KeyManagementException,
+                    UnrecoverableKeyException, KeyStoreException
+    {
+        SSLContext sslContext = SSLContext.getInstance(security);
+
+        /* ---- Trust Manager ------ */
+
+        TrustManager[] myTMs =
+                new TrustManager[] { EngineAuditing.trustManager(
+                        new AuditingX509TrustManager(
+                                BoundAuditor::current, true)) };
+
+        if (keyStoreBean == null)
+        {
+            // Initialize the security context
+            sslContext.init(null, myTMs, null);
+            return new CachedContext(sslContext, null);
+        }
+
+        /* ----- KayStore Manager ----- */
+
+        KeyManagerFactory managerFactory =
+                KeyManagerFactory.getInstance("SunX509");
+
+        managerFactory.init(keyStoreBean.getKeyStore(),
+                keyStoreBean.getPassword().toCharArray());
+        X509KeyManager x509KeyManager =
+                (X509KeyManager) managerFactory.getKeyManagers()[0];
+        AuditingX509KeyManager km =
+                new AuditingX509KeyManager(BoundAuditor::current,
+                        x509KeyManager);
+        KeyManager[] myKMs =
+                new KeyManager[] { EngineAuditing.keyManager(km) };
+        // Initialize the security context
+        sslContext.init(myKMs, myTMs, null);
+        return new CachedContext(sslContext, km);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.async.transport;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.io.IOException;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.core.models.Request;
+import com.github.technosf.posterer.core.models.impl.ProxyBean;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Preemptive target and proxy authentication against a local server
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class AsyncRequestModelImplAuthTest
+{
+    private final MockWebServer server = new MockWebServer();
+
+    private final AsyncRequestModelImpl classUnderTest =
+            new AsyncRequestModelImpl();
+
+
+    @BeforeClass
+    public void beforeClass() throws IOException
+    {
+        server.setDispatcher(new Dispatcher()
+        {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest)
+            {
+                if (recordedRequest.getPath().contains("proxied")
+                        && recordedRequest
+                                .getHeader("Proxy-Authorization") == null)
+                {
+                    return new MockResponse().setResponseCode(407)
+                            .setHeader("Proxy-Authenticate",
+                                    "Basic realm=\"proxy\"");
+                }
+                if (recordedRequest.getPath().contains("secured")
+                        && recordedRequest.getHeader("Authorization") == null)
+                {
+                    return new MockResponse().setResponseCode(401)
+                            .setHeader("WWW-Authenticate",
+                                    "Basic realm=\"target\"");
+                }
+                return new MockResponse().setBody("OK");
+            }
+        });
+        server.start();
+    }
+
+
+    @AfterClass
+    public void afterClass() throws IOException
+    {
+        classUnderTest.getClientPool().close();
+        server.shutdown();
+    }
+
+
+    private Request request(String path, boolean authenticate)
+    {
+        Request request = mock(Request.class);
+        expect(request.getSecurity()).andStubReturn("");
+        expect(request.getAuthenticate()).andStubReturn(authenticate);
+        expect(request.getUsername()).andStubReturn("user");
+        expect(request.getPassword()).andStubReturn("password");
+        expect(request.getUri()).andStubReturn(server.url(path).uri());
+        expect(request.getMethod()).andStubReturn("GET");
+        expect(request.getPayload()).andStubReturn("");
+        replay(request);
+        return request;
+    }
+
+
+    /* ------------------ Tests -------------------- */
+
+    @Test
+    public void execute_preemptive() throws Exception
+    {
+        int before = server.getRequestCount();
+        for (int i = 0; i < 2; i++)
+        {
+            AsyncResponseModelTaskImpl response =
+                    (AsyncResponseModelTaskImpl) classUnderTest
+                            .doRequest(request("/secured", true));
+            response.execute();
+            assertEquals(response.getStatus(), "HTTP/1.1 200 OK");
+            RecordedRequest recorded = server.takeRequest();
+            assertNotNull(recorded.getHeader("Authorization"));
+        }
+        assertEquals(server.getRequestCount() - before, 2);
+    }
+
+
+    @Test(dependsOnMethods = { "execute_preemptive" })
+    public void execute_proxy() throws Exception
+    {
+        int before = server.getRequestCount();
+        AsyncResponseModelTaskImpl response =
+                (AsyncResponseModelTaskImpl) classUnderTest.doRequest(
+                        request("/proxied", false),
+                        new ProxyBean(server.getHostName(),
+                                Integer.toString(server.getPort()), "proxy",
+                                "secret"));
+        response.execute();
+        assertEquals(response.getStatus(), "HTTP/1.1 200 OK");
+        assertEquals(server.getRequestCount() - before, 1);
+        assertNotNull(server.takeRequest().getHeader("Proxy-Authorization"));
+    }
+
+
+    @Test(dependsOnMethods = { "execute_preemptive" })
+    public void execute_unauthenticated() throws Exception
+    {
+        int before = server.getRequestCount();
+        AsyncResponseModelTaskImpl response =
+                (AsyncResponseModelTaskImpl) classUnderTest
+                        .doRequest(request("/secured", false));
+        response.execute();
+        assertEquals(response.getStatus(), "HTTP/1.1 401 Client Error");
+        assertEquals(server.getRequestCount() - before, 1);
+        assertNull(server.takeRequest().getHeader("Authorization"));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.async.transport;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.core.models.Request;
+import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Client certificate calls against a local server that requires them
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class AsyncRequestModelImplSSLTest
+{
+    private static final String PASSWORD = "changeit";
+
+    private final MockWebServer server = new MockWebServer();
+
+    private final AsyncRequestModelImpl classUnderTest =
+            new AsyncRequestModelImpl();
+
+    private KeyStoreBean keyStoreBean;
+
+
+    @BeforeClass
+    public void beforeClass() throws Exception
+    {
+        File keyStore =
+                new File(getClass().getResource("/testkeystore.jks").toURI());
+        keyStoreBean = new KeyStoreBean(keyStore, PASSWORD);
+
+        KeyStore serverKeys = KeyStore.getInstance("JKS");
+        serverKeys.load(getClass().getResourceAsStream("/testkeystore.jks"),
+                PASSWORD.toCharArray());
+        KeyManagerFactory keyManagers = KeyManagerFactory
+                .getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(serverKeys, PASSWORD.toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
+        sslContext.init(keyManagers.getKeyManagers(),
+                new TrustManager[] { new X509TrustManager()
+                {
+                    @Override
+                    public void checkClientTrusted(X509Certificate[] chain,
+                            String authType)
+                    {
+                    }
+
+
+                    @Override
+                    public void checkServerTrusted(X509Certificate[] chain,
+                            String authType)
+                    {
+                    }
+
+
+                    @Override
+                    public X509Certificate[] getAcceptedIssuers()
+                    {
+                        return new X509Certificate[0];
+                    }
+                } }, null);
+
+        server.useHttps(sslContext.getSocketFactory(), false);
+        server.requireClientAuth();
+        server.start();
+    }
+
+
+    @AfterClass
+    public void afterClass() throws Exception
+    {
+        classUnderTest.close();
+        server.shutdown();
+    }
+
+
+    private Request request()
+    {
+        Request request = mock(Request.class);
+        expect(request.getSecurity()).andStubReturn("TLSv1.2");
+        expect(request.getAuthenticate()).andStubReturn(false);
+        expect(request.getUri()).andStubReturn(server.url("/cert").uri());
+        expect(request.getMethod()).andStubReturn("GET");
+        expect(request.getPayload()).andStubReturn("");
+        replay(request);
+        return request;
+    }
+
+
+    /* ------------------ Tests -------------------- */
+
+    @Test
+    public void execute_connectionReused() throws Exception
+    {
+        for (int i = 0; i < 2; i++)
+        {
+            server.enqueue(new MockResponse().setBody("OK"));
+            AsyncResponseModelTaskImpl response =
+                    (AsyncResponseModelTaskImpl) classUnderTest.doRequest(
+                            request(), keyStoreBean, "testcert1");
+            response.execute();
+            assertEquals(response.getBody(), "OK");
+            assertEquals(server.takeRequest().getSequenceNumber(), i);
+            assertTrue(response.neededClientAuth());
+            assertEquals(response.getDigest().contains("SSL :: Reused session"),
+                    i > 0);
+            awaitReleased();
+        }
+    }
+
+
+    /**
+     * Waits for the call's connection to return to the pool, which the
+     * client does once the response is complete
+     */
+    private void awaitReleased() throws InterruptedException
+    {
+        AuditingConnectionManager connectionManager =
+                classUnderTest.getClientPool().getClient("TLSv1.2", null,
+                        keyStoreBean, "testcert1", () -> null).connectionManager;
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (connectionManager.getTotalStats().getLeased() > 0
+                && System.nanoTime() < deadline)
+        {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -14,10 +14,19 @@ package com.github.technosf.posterer.modules.commons.config;
 
 import static org.apache.commons.io.FileUtils.getFile;
 import static org.apache.commons.io.FileUtils.readFileToString;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.replay;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
 
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.io.FileUtils;
@@ -25,9 +34,13 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import com.github.technosf.posterer.core.models.StatusModel;
+import com.github.technosf.posterer.core.models.impl.RequestBean;
 import com.github.technosf.posterer.core.models.impl.base.AbstractPropertiesModel;
 import com.github.technosf.posterer.core.models.impl.base.AbstractPropertiesModelAbstractTest;
+import com.github.technosf.posterer.core.utils.PayloadStore;
 import com.github.technosf.posterer.modules.Factory.PropertiesParameter;
+import com.google.common.base.Strings;
 
 /**
  * @author technosf
@@ -82,7 +95,10 @@ public class CommonsConfiguratorPropertiesImplTest
     @AfterClass
     public final void afterClass() throws IOException
     {
+        classUnderTest.flush();
         FileUtils.deleteQuietly(getFile(classUnderTest.pathPropsFile()));
+        FileUtils.deleteQuietly(getFile(
+                classUnderTest.pathPropsFile() + Journal.SUFFIX));
     }
 
 
@@ -96,4 +112,279 @@ public class CommonsConfiguratorPropertiesImplTest
                         .replaceAll("[\n\r]", ""),
                 CommonsConfiguratorPropertiesImpl.TEMPLATE);
     }
+
+
+    @Test
+    public final void indexedRoundTrip()
+            throws IOException, ConfigurationException
+    {
+        File directory = Files.createTempDirectory("posterer-test").toFile();
+        PropertiesParameter params =
+                new PropertiesParameter(prefix, directory, null);
+        RequestBean request = request("roundtrip");
+
+        try
+        {
+            CommonsConfiguratorPropertiesImpl properties =
+                    new CommonsConfiguratorPropertiesImpl(params);
+            assertTrue(properties.addData(request));
+            assertTrue(properties.flush());
+
+            CommonsConfiguratorPropertiesImpl reloaded =
+                    new CommonsConfiguratorPropertiesImpl(params);
+            assertEquals(reloaded.getRequests().size(), 1);
+            assertEquals(new RequestBean(reloaded.getRequests().get(0)),
+                    request);
+
+            assertTrue(reloaded.removeData(request));
+            assertFalse(reloaded.removeData(request));
+            assertTrue(reloaded.flush());
+
+            assertTrue(new CommonsConfiguratorPropertiesImpl(params)
+                    .getRequests().isEmpty());
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+
+    @Test
+    public final void indexedRekeyAndClean()
+            throws IOException, ConfigurationException
+    {
+        File directory = Files.createTempDirectory("posterer-test").toFile();
+        PropertiesParameter params =
+                new PropertiesParameter(prefix, directory, null);
+        RequestBean request = request("rekey");
+        String stored = "<request id=\"1\"><endpoint>"
+                + request.getEndpoint()
+                + "</endpoint><payload>{}</payload><method>POST</method>"
+                + "<security/><contentType>application/json</contentType>"
+                + "<base64>false</base64><authenticate>false</authenticate>"
+                + "<username/><password/></request>";
+
+        try
+        {
+            File file = getFile(new CommonsConfiguratorPropertiesImpl(params)
+                    .pathPropsFile());
+            FileUtils.writeStringToFile(file,
+                    CommonsConfiguratorPropertiesImpl.TEMPLATE.replace(
+                            "<requests/>",
+                            "<requests>" + stored + stored
+                                    + "<request id=\"2\"><endpoint/></request>"
+                                    + "</requests>"),
+                    StandardCharsets.UTF_8);
+
+            CommonsConfiguratorPropertiesImpl reloaded =
+                    new CommonsConfiguratorPropertiesImpl(params);
+            assertEquals(reloaded.getRequests().size(), 1);
+            assertTrue(reloaded.compact());
+
+            String content = readFileToString(file, StandardCharsets.UTF_8);
+            assertEquals(content.split("<request ", -1).length, 2);
+            assertTrue(content.contains(
+                    "id=\"" + request.getFingerprint() + "\""));
+
+            assertTrue(reloaded.removeData(request));
+            assertTrue(reloaded.flush());
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+
+    @Test
+    public final void journalAndCompact()
+            throws IOException, ConfigurationException
+    {
+        File directory = Files.createTempDirectory("posterer-test").toFile();
+        PropertiesParameter params =
+                new PropertiesParameter(prefix, directory, null);
+        RequestBean kept = request("kept");
+        RequestBean removed = request("removed");
+
+        try
+        {
+            CommonsConfiguratorPropertiesImpl properties =
+                    new CommonsConfiguratorPropertiesImpl(params);
+            File file = getFile(properties.pathPropsFile());
+            File journal = getFile(file.getPath() + Journal.SUFFIX);
+
+            assertTrue(properties.addData(kept));
+            assertTrue(properties.addData(removed));
+            assertTrue(properties.flush());
+            assertTrue(properties.removeData(removed));
+            assertTrue(properties.flush());
+
+            /*
+             * Saves only append to the journal
+             */
+            assertTrue(journal.exists());
+            assertFalse(readFileToString(file, StandardCharsets.UTF_8)
+                    .contains(kept.getEndpoint()));
+
+            /*
+             * A torn record, as from a crash mid-append, is dropped
+             */
+            FileUtils.writeStringToFile(journal, "+request endpoint:aHR0",
+                    StandardCharsets.UTF_8, true);
+
+            CommonsConfiguratorPropertiesImpl reloaded =
+                    new CommonsConfiguratorPropertiesImpl(params);
+            assertEquals(reloaded.getRequests().size(), 1);
+            assertEquals(new RequestBean(reloaded.getRequests().get(0)), kept);
+
+            assertTrue(reloaded.compact());
+            assertFalse(journal.exists());
+            String content = readFileToString(file, StandardCharsets.UTF_8);
+            assertTrue(content.contains(kept.getEndpoint()));
+            assertFalse(content.contains(removed.getEndpoint()));
+
+            assertEquals(new CommonsConfiguratorPropertiesImpl(params)
+                    .getRequests().size(), 1);
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+
+    @Test
+    public final void saveInBackground()
+            throws IOException, ConfigurationException, InterruptedException
+    {
+        File directory = Files.createTempDirectory("posterer-test").toFile();
+        PropertiesParameter params =
+                new PropertiesParameter(prefix, directory, null);
+        StatusModel status = createNiceMock(StatusModel.class);
+        replay(status);
+
+        try
+        {
+            CommonsConfiguratorPropertiesImpl properties =
+                    new CommonsConfiguratorPropertiesImpl(params);
+            properties.setSaveDelayMillis(20);
+            properties.setStatusModel(status);
+            assertEquals(properties.getLastSaveNanos(), -1);
+
+            assertTrue(properties.addData(request("background")));
+            assertTrue(properties.addData(request("coalesced")));
+            for (int i = 0; i < 250 && properties.getLastSaveNanos() < 0; i++)
+            {
+                Thread.sleep(20);
+            }
+            assertTrue(properties.getLastSaveNanos() >= 0);
+            assertTrue(properties.flush());
+
+            assertEquals(new CommonsConfiguratorPropertiesImpl(params)
+                    .getRequests().size(), 2);
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+
+    @Test
+    public final void storedPayloads()
+            throws IOException, ConfigurationException
+    {
+        File directory = Files.createTempDirectory("posterer-test").toFile();
+        PropertiesParameter params =
+                new PropertiesParameter(prefix, directory, null);
+        String large = "{\"large\":\""
+                + Strings.repeat("x", PayloadStore.DEFAULT_THRESHOLD)
+                + "\"}";
+        RequestBean first = request("first");
+        first.setPayload(large);
+        RequestBean second = request("second");
+        second.setPayload(large);
+
+        try
+        {
+            CommonsConfiguratorPropertiesImpl properties =
+                    new CommonsConfiguratorPropertiesImpl(params);
+            File file = getFile(properties.pathPropsFile());
+            File store = getFile(file.getPath()
+                    + CommonsConfiguratorPropertiesImpl.PAYLOADS_SUFFIX);
+
+            assertTrue(properties.addData(first));
+            assertTrue(properties.addData(second));
+            assertTrue(properties.flush());
+            assertTrue(properties.compact());
+
+            /*
+             * One stored payload, referenced from the file
+             */
+            assertEquals(store.list().length, 1);
+            assertFalse(readFileToString(file, StandardCharsets.UTF_8)
+                    .contains("xxxx"));
+
+            CommonsConfiguratorPropertiesImpl reloaded =
+                    new CommonsConfiguratorPropertiesImpl(params);
+            assertEquals(reloaded.getRequests().size(), 2);
+            RequestBean loaded = (RequestBean) reloaded.getRequests().get(0);
+            assertNotNull(loaded.getPayloadReference());
+            assertEquals(loaded.getPayloadRaw(), large);
+            assertTrue(reloaded.removeData(first));
+            assertTrue(reloaded.flush());
+            assertTrue(reloaded.compact());
+            assertEquals(store.list().length, 1);
+
+            /*
+             * Payloads held in the file are moved to the store on load
+             */
+            FileUtils.deleteQuietly(store);
+            FileUtils.writeStringToFile(file,
+                    CommonsConfiguratorPropertiesImpl.TEMPLATE.replace(
+                            "<requests/>",
+                            "<requests><request><endpoint>"
+                                    + first.getEndpoint()
+                                    + "</endpoint><payload>" + large
+                                    + "</payload><method>POST</method>"
+                                    + "<contentType>application/json"
+                                    + "</contentType></request></requests>"),
+                    StandardCharsets.UTF_8);
+            CommonsConfiguratorPropertiesImpl migrated =
+                    new CommonsConfiguratorPropertiesImpl(params);
+            assertEquals(migrated.getRequests().size(), 1);
+            assertTrue(migrated.compact());
+            assertEquals(store.list().length, 1);
+            assertFalse(readFileToString(file, StandardCharsets.UTF_8)
+                    .contains("xxxx"));
+            assertEquals(((RequestBean) new CommonsConfiguratorPropertiesImpl(
+                    params).getRequests().get(0)).getPayloadRaw(), large);
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+
+    /**
+     * Deletes a test directory once queued compactions are done with it
+     */
+    private static void delete(final File directory)
+    {
+        CommonsConfiguratorPropertiesImpl.awaitCompactions();
+        FileUtils.deleteQuietly(directory);
+    }
+
+
+    /**
+     * Returns a saved request
+     */
+    private static RequestBean request(final String path)
+    {
+        return new RequestBean("http://localhost:8080/" + path, "{}", "POST",
+                "", "application/json", false, Collections.emptyList(),
+                false, "", "");
+    }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.commons.transport;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.http.client.methods.HttpGet;
+import org.eclipse.jdt.annotation.Nullable;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.core.models.impl.KeyStoreBean;
+import com.github.technosf.posterer.core.models.impl.KeyStoreBean.KeyStoreBeanException;
+import com.github.technosf.posterer.core.models.impl.ProxyBean;
+import com.github.technosf.posterer.modules.commons.transport.CommonsClientPool.Key;
+import com.github.technosf.posterer.modules.commons.transport.CommonsClientPool.PooledClient;
+import com.github.technosf.posterer.modules.commons.transport.ssl.AuditingSSLSocketFactory;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class CommonsClientPoolTest
+{
+
+    private final CommonsClientPool classUnderTest = new CommonsClientPool();
+
+
+    @AfterClass
+    public void afterClass()
+    {
+        classUnderTest.close();
+        assertEquals(classUnderTest.size(), 0);
+    }
+
+
+    /* ------------------ Tests -------------------- */
+
+    @Test
+    public void getClient_reused()
+    {
+        PooledClient first = classUnderTest.getClient(
+                new Key("", null, null, null), () -> null, b -> {
+                });
+        PooledClient second = classUnderTest.getClient(
+                new Key("", null, null, null), () -> null, b -> {
+                });
+        assertSame(second, first);
+        assertNull(first.sslSocketFactory);
+    }
+
+
+    @Test
+    public void getClient_proxy()
+    {
+        PooledClient direct = classUnderTest.getClient(
+                new Key("", null, null, null), () -> null, b -> {
+                });
+        PooledClient proxied = classUnderTest.getClient(
+                new Key("", new ProxyBean("localhost", "3128", "", ""), null,
+                        null),
+                () -> null, b -> {
+                });
+        assertNotSame(proxied, direct);
+    }
+
+
+    @Test
+    public void getClient_sslUnavailable()
+    {
+        PooledClient insecure = classUnderTest.getClient(
+                new Key("", null, null, null), () -> null, b -> {
+                });
+        AtomicInteger builds = new AtomicInteger();
+        Supplier<@Nullable AuditingSSLSocketFactory> unavailable = () -> {
+            builds.incrementAndGet();
+            return null;
+        };
+        PooledClient fallback = classUnderTest.getClient(
+                new Key("TLSv1.2", null, null, null), unavailable, b -> {
+                });
+        assertSame(fallback.client, insecure.client);
+        assertTrue(fallback.fallback);
+        assertFalse(insecure.fallback);
+
+        assertSame(classUnderTest.getClient(
+                new Key("TLSv1.2", null, null, null), unavailable, b -> {
+                }), fallback);
+        assertEquals(builds.get(), 1);
+    }
+
+
+    @Test(dependsOnMethods = { "getClient_reused" })
+    public void limits()
+    {
+        classUnderTest.setMaxPerRoute(7);
+        classUnderTest.setMaxTotal(11);
+        PooledClient pooled = classUnderTest.getClient(
+                new Key("", null, null, null), () -> null, b -> {
+                });
+        assertEquals(pooled.connectionManager.getDefaultMaxPerRoute(), 7);
+        assertEquals(pooled.connectionManager.getMaxTotal(), 11);
+    }
+
+
+    @Test
+    public void getClient_superseded()
+            throws IOException, KeyStoreBeanException
+    {
+        File keyStore = File.createTempFile("posterer-test", ".jks");
+        try (CommonsClientPool pool = new CommonsClientPool())
+        {
+            FileUtils.copyURLToFile(
+                    getClass().getResource("/testkeystore.jks"), keyStore);
+            KeyStoreBean keyStoreBean = new KeyStoreBean(keyStore, "changeit");
+
+            PooledClient first = pool.getClient(
+                    new Key("", null, keyStoreBean, "alias"), () -> null,
+                    b -> {
+                    });
+            pool.getClient(new Key("", null, keyStoreBean, "other"),
+                    () -> null, b -> {
+                    });
+            assertEquals(pool.size(), 2);
+
+            keyStore.setLastModified(keyStore.lastModified() - 60_000);
+            PooledClient second = pool.getClient(
+                    new Key("", null, keyStoreBean, "alias"), () -> null,
+                    b -> {
+                    });
+            assertNotSame(second, first);
+            assertEquals(pool.size(), 2);
+
+            try
+            {
+                first.client.execute(new HttpGet("http://localhost:1/"));
+                fail("Superseded client not closed");
+            }
+            catch (IllegalStateException e)
+            {
+                /*
+                 * Connection pool shut down
+                 */
+            }
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(keyStore);
+        }
+    }
+}
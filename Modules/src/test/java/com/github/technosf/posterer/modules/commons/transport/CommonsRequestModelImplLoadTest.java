@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.commons.transport;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reset;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.core.models.LoadProfile;
+import com.github.technosf.posterer.core.models.LoadResult;
+import com.github.technosf.posterer.core.models.RateProfile;
+import com.github.technosf.posterer.core.models.Request;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Load tests against a local server
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class CommonsRequestModelImplLoadTest
+{
+    private final MockWebServer server = new MockWebServer();
+
+    private final CommonsRequestModelImpl classUnderTest =
+            new CommonsRequestModelImpl();
+
+    private final Request request = mock(Request.class);
+
+
+    @BeforeClass
+    public void beforeClass() throws IOException
+    {
+        server.setDispatcher(new Dispatcher()
+        {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest)
+            {
+                if (recordedRequest.getPath().contains("fail"))
+                {
+                    return new MockResponse().setResponseCode(503);
+                }
+                if (recordedRequest.getPath().contains("slow"))
+                {
+                    return new MockResponse().setBody("pong")
+                            .setHeadersDelay(300, TimeUnit.MILLISECONDS);
+                }
+                return new MockResponse().setBody("pong");
+            }
+        });
+        server.start();
+    }
+
+
+    @AfterClass
+    public void afterClass() throws IOException
+    {
+        classUnderTest.getClientPool().close();
+        server.shutdown();
+    }
+
+
+    private void stub(String path)
+    {
+        expect(request.getSecurity()).andStubReturn("");
+        expect(request.getAuthenticate()).andStubReturn(false);
+        expect(request.getUri()).andStubReturn(server.url(path).uri());
+        expect(request.getMethod()).andStubReturn("GET");
+        expect(request.getPayload()).andStubReturn("");
+        replay(request);
+    }
+
+
+    /* ------------------ Tests -------------------- */
+
+    @Test
+    public void doLoadTest_count()
+    {
+        stub("/ping");
+        LoadResult result = classUnderTest.doLoadTest(request,
+                LoadProfile.ofCount(50, 4));
+        assertEquals(result.getRequests(), 50);
+        assertEquals(result.getErrors(), 0);
+        assertEquals(result.getOutcomes().get("200"), Integer.valueOf(50));
+        assertEquals(result.getBytes(), 50 * 4);
+        Histogram latency = result.getLatency();
+        assertEquals(latency.getTotalCount(), 50);
+        assertTrue(latency.getMaxValue() >= latency.getValueAtPercentile(50));
+        assertTrue(result.getThroughput() > 0);
+    }
+
+
+    @Test(dependsOnMethods = "doLoadTest_count")
+    public void doLoadTest_duration()
+    {
+        reset(request);
+        stub("/fail");
+        LoadResult result = classUnderTest.doLoadTest(request,
+                LoadProfile.ofDuration(200, TimeUnit.MILLISECONDS, 2));
+        assertTrue(result.getRequests() > 0);
+        assertEquals(result.getErrors(), result.getRequests());
+        assertEquals(result.getOutcomes().keySet().iterator().next(), "503");
+        assertTrue(result.getElapsedNanos() >= 200_000_000L);
+    }
+
+
+    @Test(dependsOnMethods = "doLoadTest_duration")
+    public void doRateTest_fixed()
+    {
+        reset(request);
+        stub("/ping");
+        LoadResult result = classUnderTest.doRateTest(request,
+                RateProfile.fixed(100, 300, TimeUnit.MILLISECONDS));
+        assertEquals(result.getRequests(), 30);
+        assertEquals(result.getDropped(), 0);
+        assertEquals(result.getErrors(), 0);
+    }
+
+
+    @Test(dependsOnMethods = "doRateTest_fixed")
+    public void doRateTest_saturated()
+    {
+        reset(request);
+        stub("/slow");
+        LoadResult result = classUnderTest.doRateTest(request,
+                RateProfile.fixed(50, 200, TimeUnit.MILLISECONDS)
+                        .withMaxInFlight(2));
+        assertEquals(result.getRequests(), 2);
+        assertEquals(result.getDropped(), 8);
+        Histogram latency = result.getLatency();
+        assertTrue(latency.highestEquivalentValue(latency.getMinValue())
+                >= 300_000_000L);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.commons.transport;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.core.models.Request;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * Timeouts against a local server that stalls
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class CommonsRequestModelImplTimeoutTest
+{
+    private final MockWebServer server = new MockWebServer();
+
+    private final CommonsRequestModelImpl classUnderTest =
+            new CommonsRequestModelImpl();
+
+
+    @BeforeClass
+    public void beforeClass() throws IOException
+    {
+        server.setDispatcher(new Dispatcher()
+        {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest)
+            {
+                if (recordedRequest.getPath().contains("trickle"))
+                {
+                    return new MockResponse().setBody(new okio.Buffer()
+                            .write(new byte[100]))
+                            .throttleBody(1, 100, TimeUnit.MILLISECONDS);
+                }
+                return new MockResponse()
+                        .setSocketPolicy(SocketPolicy.NO_RESPONSE);
+            }
+        });
+        server.start();
+        classUnderTest.setTimeout(1);
+    }
+
+
+    @AfterClass
+    public void afterClass() throws IOException
+    {
+        classUnderTest.getClientPool().close();
+        server.shutdown();
+    }
+
+
+    private Request request(String path)
+    {
+        Request request = mock(Request.class);
+        expect(request.getSecurity()).andStubReturn("");
+        expect(request.getAuthenticate()).andStubReturn(false);
+        expect(request.getUri()).andStubReturn(server.url(path).uri());
+        expect(request.getMethod()).andStubReturn("GET");
+        expect(request.getPayload()).andStubReturn("");
+        replay(request);
+        return request;
+    }
+
+
+    /* ------------------ Tests -------------------- */
+
+    @Test
+    public void execute_stalled() throws Exception
+    {
+        CommonsResponseModelTaskImpl response =
+                (CommonsResponseModelTaskImpl) classUnderTest
+                        .doRequest(request("/hang"));
+        long start = System.nanoTime();
+        try
+        {
+            response.execute();
+            fail("Stalled call returned");
+        }
+        catch (IOException e)
+        {
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        }
+    }
+
+
+    @Test
+    public void execute_deadline() throws Exception
+    {
+        CommonsResponseModelTaskImpl response =
+                (CommonsResponseModelTaskImpl) classUnderTest
+                        .doRequest(request("/trickle"));
+        long start = System.nanoTime();
+        response.execute();
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertTrue(response.getDigest().contains("Deadline of 1s exceeded"));
+        assertTrue(response.getBodySize() < 100);
+    }
+}
@@ -14,6 +14,7 @@
 package com.github.technosf.posterer.modules.commons.transport;
 
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.mock;
 import static org.easymock.EasyMock.notNull;
 import static org.easymock.EasyMock.replay;
@@ -24,12 +25,18 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.function.BooleanSupplier;
 
+import org.apache.http.Consts;
+import org.apache.http.Header;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HttpContext;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -52,7 +59,6 @@ public class CommonsResponseModelTaskImplTest
 
     private static final int TIMEOUT = 30;
 
-    private HttpClientBuilder httpClientBuilder = mock("Builder1",HttpClientBuilder.class);
     private CloseableHttpClient closeableHttpClient =
             mock("Client1",CloseableHttpClient.class);
     private CloseableHttpResponse closeableHttpResponse =
@@ -86,7 +92,7 @@ public class CommonsResponseModelTaskImplTest
      */
     private CommonsResponseModelTaskImpl classUnderTest =
             new CommonsResponseModelTaskImpl(0, new Auditor(),
-                    httpClientBuilder, 0,
+                    closeableHttpClient, 0,
                     request, bsTrue);
 
     /* ------------------ Test Setup and Teardown -------------------- */
@@ -106,16 +112,23 @@ public class CommonsResponseModelTaskImplTest
     {
         classUnderTest =
                 new CommonsResponseModelTaskImpl(1, new Auditor(),
-                        httpClientBuilder, TIMEOUT,
+                        closeableHttpClient, TIMEOUT,
                         request, bsTrue);
 
-        reset(httpClientBuilder, closeableHttpClient, closeableHttpResponse,
-                request);
+        reset(closeableHttpClient, closeableHttpResponse, request);
 
-        expect(httpClientBuilder.build()).andStubReturn(closeableHttpClient);
-        expect(closeableHttpClient.execute(notNull(HttpUriRequest.class)))
-                .andStubReturn(closeableHttpResponse);
+        expect(closeableHttpClient.execute(notNull(HttpUriRequest.class),
+                notNull(HttpContext.class)))
+                        .andStubReturn(closeableHttpResponse);
         expect(request.getAuthenticate()).andReturn(false).anyTimes();
+        expect(closeableHttpResponse.getStatusLine()).andStubReturn(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        expect(closeableHttpResponse.getAllHeaders())
+                .andStubReturn(new Header[0]);
+        expect(closeableHttpResponse.getEntity())
+                .andStubReturn(new StringEntity("-=Body=-", Consts.UTF_8));
+        closeableHttpResponse.close();
+        expectLastCall().asStub();
 
         try
         {
@@ -127,8 +140,7 @@ public class CommonsResponseModelTaskImplTest
         {
             e.printStackTrace();
         }
-        replay(httpClientBuilder, closeableHttpClient, closeableHttpResponse,
-                request);
+        replay(closeableHttpClient, closeableHttpResponse, request);
     }
 
 
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.jdk.transport;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.core.models.Request;
+import com.github.technosf.posterer.core.models.impl.ProxyBean;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Proxy authentication against a local server
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class JdkRequestModelImplAuthTest
+{
+    private final MockWebServer server = new MockWebServer();
+
+    private final JdkRequestModelImpl classUnderTest =
+            new JdkRequestModelImpl();
+
+
+    @BeforeClass
+    public void beforeClass() throws IOException
+    {
+        server.setDispatcher(new Dispatcher()
+        {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest)
+            {
+                if (recordedRequest.getPath().contains("proxied")
+                        && recordedRequest
+                                .getHeader("Proxy-Authorization") == null)
+                {
+                    return new MockResponse().setResponseCode(407)
+                            .setHeader("Proxy-Authenticate",
+                                    "Basic realm=\"proxy\"");
+                }
+                return new MockResponse().setBody("OK");
+            }
+        });
+        server.start();
+    }
+
+
+    @AfterClass
+    public void afterClass() throws IOException
+    {
+        classUnderTest.getClientPool().clear();
+        server.shutdown();
+    }
+
+
+    private Request request(String path)
+    {
+        Request request = mock(Request.class);
+        expect(request.getSecurity()).andStubReturn("");
+        expect(request.getAuthenticate()).andStubReturn(false);
+        expect(request.getUri()).andStubReturn(server.url(path).uri());
+        expect(request.getMethod()).andStubReturn("GET");
+        expect(request.getPayload()).andStubReturn("");
+        replay(request);
+        return request;
+    }
+
+
+    /* ------------------ Tests -------------------- */
+
+    @Test
+    public void execute_proxy() throws Exception
+    {
+        int before = server.getRequestCount();
+        JdkResponseModelTaskImpl response =
+                (JdkResponseModelTaskImpl) classUnderTest.doRequest(
+                        request("/proxied"),
+                        new ProxyBean(server.getHostName(),
+                                Integer.toString(server.getPort()), "proxy",
+                                "secret"));
+        response.execute();
+        assertEquals(response.getStatus(), "HTTP/1.1 200");
+        assertEquals(server.getRequestCount() - before, 2);
+        assertNull(server.takeRequest().getHeader("Proxy-Authorization"));
+        assertNotNull(server.takeRequest().getHeader("Proxy-Authorization"));
+    }
+
+
+    @Test(dependsOnMethods = { "execute_proxy" })
+    public void execute_badProxyPort() throws Exception
+    {
+        int before = server.getRequestCount();
+        JdkResponseModelTaskImpl response =
+                (JdkResponseModelTaskImpl) classUnderTest.doRequest(
+                        request("/direct"),
+                        new ProxyBean(server.getHostName(), "port", "proxy",
+                                "secret"));
+        response.execute();
+        assertEquals(response.getStatus(), "HTTP/1.1 200");
+        assertEquals(server.getRequestCount() - before, 1);
+        assertTrue(server.takeRequest().getPath().endsWith("/direct"));
+        assertTrue(response.getDigest().contains("Proxy :: Bad port"));
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.jdk.transport;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reset;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.core.models.LoadProfile;
+import com.github.technosf.posterer.core.models.LoadResult;
+import com.github.technosf.posterer.core.models.RateProfile;
+import com.github.technosf.posterer.core.models.Request;
+import com.github.technosf.posterer.core.utils.LatencyRecorder;
+import com.github.technosf.posterer.core.utils.Timings.Phase;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * JDK client calls and load tests against a local server
+ * 
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class JdkRequestModelImplTest
+{
+    private final MockWebServer server = new MockWebServer();
+
+    private final JdkRequestModelImpl classUnderTest =
+            new JdkRequestModelImpl();
+
+    private final Request request = mock(Request.class);
+
+
+    @BeforeClass
+    public void beforeClass() throws IOException
+    {
+        server.setDispatcher(new Dispatcher()
+        {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest)
+            {
+                if (recordedRequest.getPath().contains("slow"))
+                {
+                    return new MockResponse().setBody("pong")
+                            .setHeadersDelay(300, TimeUnit.MILLISECONDS);
+                }
+                if (recordedRequest.getPath().contains("hang"))
+                {
+                    return new MockResponse()
+                            .setSocketPolicy(SocketPolicy.NO_RESPONSE);
+                }
+                return new MockResponse().setBody("pong");
+            }
+        });
+        server.start();
+    }
+
+
+    @AfterClass
+    public void afterClass() throws IOException
+    {
+        classUnderTest.getClientPool().clear();
+        assertEquals(classUnderTest.getClientPool().size(), 0);
+        server.shutdown();
+    }
+
+
+    private void stub(String path)
+    {
+        expect(request.getSecurity()).andStubReturn("");
+        expect(request.getAuthenticate()).andStubReturn(false);
+        expect(request.getUri()).andStubReturn(server.url(path).uri());
+        expect(request.getMethod()).andStubReturn("GET");
+        expect(request.getPayload()).andStubReturn("");
+        replay(request);
+    }
+
+
+    /* ------------------ Tests -------------------- */
+
+    @Test
+    public void send() throws Exception
+    {
+        stub("/ping");
+        JdkResponseModelTaskImpl response =
+                (JdkResponseModelTaskImpl) classUnderTest.doRequest(request);
+        response.send().get(5, TimeUnit.SECONDS);
+        assertEquals(response.getStatus(), "HTTP/1.1 200");
+        assertEquals(response.getBody(), "pong");
+        assertEquals(response.getBodySize(), 4);
+        assertTrue(response.getHeaders().contains("content-length=4"));
+        assertEquals(response.getProtocol(), "HTTP/1.1");
+        assertTrue(response.getTimings().getNanos(Phase.FIRST_BYTE) > 0);
+        assertTrue(response.isComplete());
+        response.release();
+    }
+
+
+    @Test(dependsOnMethods = "send")
+    public void execute() throws Exception
+    {
+        JdkResponseModelTaskImpl response =
+                (JdkResponseModelTaskImpl) classUnderTest.doRequest(request);
+        response.execute();
+        assertEquals(response.getStatus(), "HTTP/1.1 200");
+        assertEquals(response.getBody(), "pong");
+    }
+
+
+    @Test(dependsOnMethods = "execute")
+    public void doLoadTest_count()
+    {
+        LoadResult result = classUnderTest.doLoadTest(request,
+                LoadProfile.ofCount(50, 4));
+        assertEquals(result.getRequests(), 50);
+        assertEquals(result.getErrors(), 0);
+        assertEquals(result.getBytes(), 50 * 4);
+    }
+
+
+    @Test(dependsOnMethods = "doLoadTest_count")
+    public void doRateTest_fixed()
+    {
+        LoadResult result = classUnderTest.doRateTest(request,
+                RateProfile.fixed(100, 300, TimeUnit.MILLISECONDS));
+        assertEquals(result.getRequests(), 30);
+        assertEquals(result.getDropped(), 0);
+        assertEquals(result.getErrors(), 0);
+    }
+
+
+    @Test(dependsOnMethods = "doRateTest_fixed")
+    public void doRateTest_saturated()
+    {
+        reset(request);
+        stub("/slow");
+        LoadResult result = classUnderTest.doRateTest(request,
+                RateProfile.fixed(50, 200, TimeUnit.MILLISECONDS)
+                        .withMaxInFlight(2));
+        assertEquals(result.getRequests(), 2);
+        assertEquals(result.getDropped(), 8);
+        Histogram latency = result.getLatency();
+        assertTrue(latency.highestEquivalentValue(latency.getMinValue())
+                >= 300_000_000L);
+    }
+
+
+    @Test(dependsOnMethods = "doRateTest_saturated")
+    public void executeRecordedOnce() throws Exception
+    {
+        reset(request);
+        stub("/once");
+        LatencyRecorder.Key key = new LatencyRecorder.Key(
+                LatencyRecorder.endpoint(server.url("/once").uri()), "GET",
+                "2xx");
+        JdkResponseModelTaskImpl response =
+                (JdkResponseModelTaskImpl) classUnderTest.doRequest(request);
+        response.execute();
+        assertEquals(LatencyRecorder.getDefault().getCount(key), 1);
+    }
+
+
+    @Test(dependsOnMethods = "executeRecordedOnce")
+    public void cancel() throws Exception
+    {
+        reset(request);
+        stub("/hang");
+        JdkResponseModelTaskImpl response =
+                (JdkResponseModelTaskImpl) classUnderTest.doRequest(request);
+        CompletableFuture<?> call = response.send();
+        server.takeRequest(5, TimeUnit.SECONDS);
+        try
+        {
+            response.cancel(true);
+        }
+        catch (IllegalStateException e)
+        {
+            /*
+             * No JavaFX toolkit to post the task state to, the exchange is
+             * cancelled first
+             */
+        }
+        try
+        {
+            call.get(5, TimeUnit.SECONDS);
+            fail("Cancelled call returned");
+        }
+        catch (CancellationException e)
+        {
+            assertTrue(call.isCompletedExceptionally());
+        }
+    }
+}
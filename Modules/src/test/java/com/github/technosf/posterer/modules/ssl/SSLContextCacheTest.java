@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 technosf [https://github.com/technosf]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.technosf.posterer.modules.ssl;
+
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.security.GeneralSecurityException;
+
+import org.testng.annotations.Test;
+
+import com.github.technosf.posterer.modules.ssl.SSLContextCache.CachedContext;
+
+/**
+ * @author technosf
+ * @since 1.1.1
+ * @version 1.1.1
+ */
+public class SSLContextCacheTest
+{
+
+    /* ------------------ Tests -------------------- */
+
+    @Test
+    public void get_cached() throws GeneralSecurityException
+    {
+        CachedContext first = SSLContextCache.get("TLSv1.2", null, null);
+        CachedContext second = SSLContextCache.get("TLSv1.2", null, null);
+        assertSame(second, first);
+        assertNull(first.keyManager);
+    }
+
+
+    @Test
+    public void get_byProtocol() throws GeneralSecurityException
+    {
+        CachedContext tls12 = SSLContextCache.get("TLSv1.2", null, null);
+        CachedContext tls = SSLContextCache.get("TLS", null, null);
+        assertNotSame(tls, tls12);
+    }
+
+
+    @Test
+    public void get_bounded() throws GeneralSecurityException
+    {
+        for (int i = 0; i <= SSLContextCache.MAX_ENTRIES; i++)
+        {
+            SSLContextCache.get("TLS", null, "alias" + i);
+        }
+        assertTrue(SSLContextCache.size() <= SSLContextCache.MAX_ENTRIES);
+    }
+}